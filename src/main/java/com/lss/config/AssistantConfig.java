@@ -1,19 +1,60 @@
 package com.lss.config;
 
+import com.lss.constant.PathConstant;
+import com.lss.repository.BoundedChatMemoryStore;
+import com.lss.service.AiAssistant;
+import com.lss.util.ApproximateTokenCountEstimator;
 import dev.langchain4j.memory.chat.ChatMemoryProvider;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.memory.chat.TokenWindowChatMemory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Paths;
+import java.time.Duration;
+
 @Configuration
 public class AssistantConfig {
 
-    // 不持久化的内存级别的聊天内存提供者
+    // 有界的会话记忆存储：按会话数上限和空闲时间淘汰，可选落盘
+    // AiAssistant 依赖本存储，通过 ObjectProvider 延迟获取，淘汰时释放它按会话缓存的 ChatMemory
+    @Bean
+    public BoundedChatMemoryStore chatMemoryStore(@Value("${lss.chat-memory.max-sessions:1000}") int maxSessions,
+                                                  @Value("${lss.chat-memory.idle-ttl:30m}") Duration idleTtl,
+                                                  @Value("${lss.chat-memory.spill.enabled:false}") boolean spillEnabled,
+                                                  @Value("${lss.chat-memory.spill.ttl:7d}") Duration spillTtl,
+                                                  ObjectProvider<AiAssistant> aiAssistant,
+                                                  MeterRegistry meterRegistry) {
+        BoundedChatMemoryStore store = new BoundedChatMemoryStore(maxSessions, idleTtl,
+                spillEnabled ? Paths.get(PathConstant.Chat_Memory_Spill) : null, spillTtl);
+        store.setEvictionListener(memoryId -> aiAssistant.ifAvailable(assistant -> assistant.evictChatMemory(memoryId)));
+
+        Gauge.builder("chat.memory.sessions.live", store, BoundedChatMemoryStore::getLiveSessions)
+                .description("Chat sessions held in memory").register(meterRegistry);
+        Gauge.builder("chat.memory.bytes.held", store, BoundedChatMemoryStore::getBytesHeld)
+                .description("Approximate heap bytes held by chat sessions").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("chat.memory.sessions.spilled", store, BoundedChatMemoryStore::getSpilledSessions)
+                .description("Evicted chat sessions stored in the spill file").register(meterRegistry);
+        FunctionCounter.builder("chat.memory.evictions", store, BoundedChatMemoryStore::getEvictions)
+                .description("Chat sessions evicted by size or idle time").register(meterRegistry);
+        return store;
+    }
+
+    // 内存级别的聊天内存提供者，按token预算而不是消息条数截断历史
     @Bean(name="openAiStreamingMemoryProviderNoPersist")
-    public ChatMemoryProvider openAiStreamingMemoryProviderNoPersist() {
-        return memoryId -> MessageWindowChatMemory.withMaxMessages(50);
+    public ChatMemoryProvider openAiStreamingMemoryProviderNoPersist(BoundedChatMemoryStore chatMemoryStore,
+                                                                     @Value("${lss.chat-memory.max-tokens:4000}") int maxTokens) {
+        ApproximateTokenCountEstimator estimator = new ApproximateTokenCountEstimator();
+        return memoryId -> TokenWindowChatMemory.builder()
+                .id(memoryId)
+                .maxTokens(maxTokens, estimator)
+                .chatMemoryStore(chatMemoryStore)
+                .build();
     }
 
 
 }
-
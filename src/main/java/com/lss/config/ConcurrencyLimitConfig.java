@@ -0,0 +1,26 @@
+package com.lss.config;
+
+import com.lss.util.ConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 每个外部依赖一个并发限制器。线程数（尤其是虚拟线程）不再是并发上限，
+ * 由这里的许可数决定同时发往外部服务的请求数。
+ */
+@Configuration
+public class ConcurrencyLimitConfig {
+
+    // 索引构建时调用大模型分词接口
+    @Bean
+    public ConcurrencyLimiter llmSegmenterLimiter(@Value("${lss.limits.llm-segmenter:10}") int permits) {
+        return new ConcurrencyLimiter("llm-segmenter", permits);
+    }
+
+    // 查询纠错等同步对话调用
+    @Bean
+    public ConcurrencyLimiter llmChatLimiter(@Value("${lss.limits.llm-chat:20}") int permits) {
+        return new ConcurrencyLimiter("llm-chat", permits);
+    }
+}
@@ -0,0 +1,34 @@
+package com.lss.config;
+
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.OnnxEmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.PoolingMode;
+import dev.langchain4j.model.embedding.onnx.bgesmallenv15q.BgeSmallEnV15QuantizedEmbeddingModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * 进程内的ONNX嵌入模型，只在CPU上运行，不访问网络。
+ * 默认使用 langchain4j-easy-rag 自带的量化 bge-small-en-v1.5；
+ * 配置了本地模型与分词器文件时（例如中文的 bge-small-zh）改用该模型。
+ */
+@Configuration
+@Slf4j
+public class EmbeddingConfig {
+
+    // 模型加载需要数百毫秒，未启用语义检索时不创建
+    @Bean
+    @Lazy
+    public EmbeddingModel localEmbeddingModel(@Value("${lss.semantic.model-path:}") String modelPath,
+                                              @Value("${lss.semantic.tokenizer-path:}") String tokenizerPath) {
+        if (!modelPath.isBlank() && !tokenizerPath.isBlank()) {
+            log.info("Loading ONNX embedding model from {}.", modelPath);
+            return new OnnxEmbeddingModel(modelPath, tokenizerPath, PoolingMode.MEAN);
+        }
+        log.info("Loading bundled bge-small-en-v1.5 (quantized) embedding model.");
+        return new BgeSmallEnV15QuantizedEmbeddingModel();
+    }
+}
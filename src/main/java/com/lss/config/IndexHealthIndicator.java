@@ -0,0 +1,44 @@
+package com.lss.config;
+
+import com.lss.repository.InvertedIndexManager;
+import com.lss.service.IndexStartupOrchestrator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 通过 /actuator/health 上报索引就绪状态。
+ * 加载快照之前为 OUT_OF_SERVICE；快照可查询后即为 UP，后台重建情况放在详情中；
+ * 后台检查/重建失败后快照仍可查询但可能过期，上报为 OUT_OF_SERVICE，由负载均衡决定是否摘除。
+ */
+@Component
+public class IndexHealthIndicator implements HealthIndicator {
+
+    private final IndexStartupOrchestrator indexStartupOrchestrator;
+    private final InvertedIndexManager invertedIndexManager;
+
+    public IndexHealthIndicator(IndexStartupOrchestrator indexStartupOrchestrator, InvertedIndexManager invertedIndexManager) {
+        this.indexStartupOrchestrator = indexStartupOrchestrator;
+        this.invertedIndexManager = invertedIndexManager;
+    }
+
+    @Override
+    public Health health() {
+        IndexStartupOrchestrator.Phase phase = indexStartupOrchestrator.getPhase();
+        Health.Builder builder = switch (phase) {
+            case STARTING, DEGRADED -> Health.outOfService();
+            case SERVING, READY -> Health.up();
+            case FAILED -> Health.down();
+        };
+        builder.withDetail("phase", phase.name())
+                .withDetail("backgroundRefresh", phase == IndexStartupOrchestrator.Phase.SERVING ? "running" : "idle");
+        if (invertedIndexManager.isIndexLoaded()) {
+            builder.withDetail("documents", invertedIndexManager.getTotalDocumentsCount());
+            builder.withDetail("servingSince", indexStartupOrchestrator.getServingSinceMillis());
+        }
+        if (indexStartupOrchestrator.getFailureReason() != null) {
+            builder.withDetail("lastError", indexStartupOrchestrator.getFailureReason());
+        }
+        return builder.build();
+    }
+}
@@ -1,23 +1,14 @@
 package com.lss.config;
 
-import com.lss.constant.PathConstant;
-import com.lss.repository.InvertedIndexManager;
-import com.lss.service.IndexService;
+import com.lss.service.IndexStartupOrchestrator;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.io.IOException;
-import java.util.Collections;
-import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Configuration // 标记为配置类
 @Slf4j
@@ -26,53 +17,30 @@ public class IndexingConfig {
     // 配置一个固定大小的线程池，用于异步调用AI
     private static final int THREAD_POOL_SIZE = 10; // 例如，同时处理5个文档
 
+    // 为true时索引任务运行在虚拟线程上（servlet请求线程由 spring.threads.virtual.enabled 控制，两者共用该开关）
+    @Value("${lss.executor.virtual-threads:false}")
+    private boolean virtualThreads;
+
     @Bean(destroyMethod = "shutdown") // 确保Spring在应用关闭时优雅地关闭线程池
     public ExecutorService indexingThreadPool() {
+        if (virtualThreads) {
+            // 每个文档一个虚拟线程，等待大模型响应时不占用平台线程；
+            // 同时在途的请求数由 llmSegmenterLimiter 控制
+            log.info("Indexing executor: virtual threads.");
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        log.info("Indexing executor: fixed pool of {} platform threads.", THREAD_POOL_SIZE);
         return Executors.newFixedThreadPool(THREAD_POOL_SIZE);
     }
     /**
      * 定义一个CommandLineRunner Bean，在Spring Boot应用启动后执行索引初始化。
+     * 索引快照加载完成后即返回，新鲜度检查与重建由IndexStartupOrchestrator在后台完成。
      *
-     * @param indexService 注入的IndexService
-     * @param invertedIndexManager 注入的InvertedIndexManager
+     * @param indexStartupOrchestrator 注入的启动编排器
      * @return CommandLineRunner实例
      */
     @Bean
-    public CommandLineRunner indexInitializationRunner(IndexService indexService, InvertedIndexManager invertedIndexManager, ExecutorService indexingThreadPool) {
-        return args -> {
-            log.info("Starting index initialization from IndexingConfig...");
-
-            // 1. 在应用启动时，首先尝试加载已持久化的索引
-            invertedIndexManager.loadIndex();
-
-            // 2. 准备需要索引的Markdown文件路径
-            Path dataDirectory = Paths.get(PathConstant.MD_Path); // 假设Markdown文档在此目录下
-            List<Path> markdownFiles;
-            if (Files.exists(dataDirectory) && Files.isDirectory(dataDirectory)) {
-                try (Stream<Path> paths = Files.walk(dataDirectory)) {
-                    markdownFiles = paths
-                            .filter(Files::isRegularFile)
-                            .filter(p -> p.toString().endsWith(".md"))
-                            .collect(Collectors.toList());
-
-                    if (markdownFiles.isEmpty()) {
-                        log.warn("No Markdown files found in {}. Indexing will be skipped.", dataDirectory.toAbsolutePath());
-                    } else {
-                        log.info("Found {} Markdown files for indexing.", markdownFiles.size()+3);
-                    }
-                } catch (IOException e) {
-                    log.error("Error walking data directory: {}. Cannot build index.", e.getMessage());
-                    return; // 如果无法读取文件，直接返回，避免后续异常
-                }
-            } else {
-                log.error("Data directory not found or is not a directory: {}. Please ensure it exists.", dataDirectory.toAbsolutePath());
-                return; // 目录不存在，无法进行索引构建
-            }
-
-            // 3. 调用 IndexService 进行索引构建，并决定是否强制重建
-            indexService.buildInitialIndex(markdownFiles, false, indexingThreadPool);
-
-            log.info("Index initialization completed in IndexingConfig.");
-        };
+    public CommandLineRunner indexInitializationRunner(IndexStartupOrchestrator indexStartupOrchestrator) {
+        return args -> indexStartupOrchestrator.start();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package com.lss.config;
+
+import com.lss.constant.PathConstant;
+import com.lss.repository.SemanticResponseCache;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * 大模型回答缓存：查询纠错（只做精确匹配）和对话首轮回答各一份，关闭时落盘。
+ */
+@Configuration
+public class ResponseCacheConfig {
+
+    private final MeterRegistry meterRegistry;
+    private final EmbeddingModel embeddingModel;
+    private final boolean semanticEnabled;
+    private final int maxEntries;
+    private final double similarityThreshold;
+
+    public ResponseCacheConfig(MeterRegistry meterRegistry,
+                               @Lazy @Qualifier("localEmbeddingModel") EmbeddingModel embeddingModel,
+                               @Value("${lss.response-cache.semantic-match:${lss.semantic.enabled:false}}") boolean semanticEnabled,
+                               @Value("${lss.response-cache.max-entries:10000}") int maxEntries,
+                               @Value("${lss.response-cache.similarity-threshold:0.92}") double similarityThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.embeddingModel = embeddingModel;
+        this.semanticEnabled = semanticEnabled;
+        this.maxEntries = maxEntries;
+        this.similarityThreshold = similarityThreshold;
+    }
+
+    // 查询纠错结果与索引内容无关，可以保存较长时间。
+    // 只做精确匹配：拼错的查询与缓存的正确查询向量几乎相同，近似匹配会把“没错误”返回给需要纠错的查询
+    @Bean(destroyMethod = "persist")
+    public SemanticResponseCache adviceResponseCache(@Value("${lss.response-cache.advice-ttl:7d}") Duration ttl) {
+        return register(new SemanticResponseCache("advice", maxEntries, ttl, similarityThreshold,
+                null, Paths.get(PathConstant.Advice_Cache)));
+    }
+
+    // 对话首轮回答依赖检索到的讲座段落，按索引快照的内容标识限定范围，索引变化后不再命中
+    @Bean(destroyMethod = "persist")
+    public SemanticResponseCache chatResponseCache(@Value("${lss.response-cache.chat-ttl:6h}") Duration ttl) {
+        return register(new SemanticResponseCache("chat", maxEntries, ttl, similarityThreshold,
+                semanticEnabled ? embeddingModel : null, Paths.get(PathConstant.Chat_Answer_Cache)));
+    }
+
+    private SemanticResponseCache register(SemanticResponseCache cache) {
+        String name = cache.getName();
+        FunctionCounter.builder("response.cache.requests", cache, SemanticResponseCache::getExactHits)
+                .tags("cache", name, "result", "exact").register(meterRegistry);
+        FunctionCounter.builder("response.cache.requests", cache, SemanticResponseCache::getSemanticHits)
+                .tags("cache", name, "result", "semantic").register(meterRegistry);
+        FunctionCounter.builder("response.cache.requests", cache, SemanticResponseCache::getMisses)
+                .tags("cache", name, "result", "miss").register(meterRegistry);
+        Gauge.builder("response.cache.hit.ratio", cache, SemanticResponseCache::getHitRatio)
+                .tag("cache", name).register(meterRegistry);
+        Gauge.builder("response.cache.entries", cache, SemanticResponseCache::size)
+                .tag("cache", name).register(meterRegistry);
+        return cache;
+    }
+}
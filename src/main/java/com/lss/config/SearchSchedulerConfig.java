@@ -0,0 +1,50 @@
+package com.lss.config;
+
+import com.lss.model.Index.PostingsScorer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+@Slf4j
+public class SearchSchedulerConfig {
+
+    // CPU密集的检索打分：线程数与CPU核数一致的有界并行调度器
+    @Bean(name = "searchScheduler", destroyMethod = "dispose")
+    public Scheduler searchScheduler() {
+        return Schedulers.newParallel("search-cpu", Runtime.getRuntime().availableProcessors());
+    }
+
+    // 单个大查询按文档区间拆分后的并行打分：与CPU核数一致的ForkJoinPool，由所有查询共享
+    @Bean(name = "scoringPool", destroyMethod = "shutdown")
+    public ForkJoinPool scoringPool() {
+        return new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    // 按词项累加打分的实现：启动时选择一次，JVM以 --add-modules jdk.incubator.vector 启动时使用SIMD实现
+    @Bean
+    public PostingsScorer postingsScorer(@Value("${lss.search.simd.enabled:true}") boolean vectorEnabled) {
+        PostingsScorer scorer = PostingsScorer.select(vectorEnabled);
+        log.info("Using {} postings scorer.", scorer.name());
+        return scorer;
+    }
+
+    // 阻塞I/O（读取Markdown正文、调用大模型）：每个任务一个虚拟线程，不占用请求线程
+    @Bean(name = "searchIoScheduler", destroyMethod = "dispose")
+    public Scheduler searchIoScheduler() {
+        return Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "search-io");
+    }
+
+    // 混合检索的子查询：每路一个虚拟线程，两路同时执行
+    @Bean(name = "hybridSearchExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService hybridSearchExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("search-hybrid-", 0).factory());
+    }
+}
@@ -0,0 +1,66 @@
+package com.lss.config;
+
+import com.lss.repository.HttpShardTransport;
+import com.lss.repository.InvertedIndexManager;
+import com.lss.repository.LocalShardTransport;
+import com.lss.repository.ShardTransport;
+import com.lss.service.ShardSearchService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分片检索的传输方式（lss.shard.transport）：
+ * none 不分片；local 在本进程内把索引切成 lss.shard.local-shards 个分片；
+ * http 访问 lss.shard.nodes 列出的节点，每个节点以 lss.shard.id / lss.shard.count 和 lss.shard.serve=true 启动，
+ * 只索引自己的分片；协调节点与分片节点配置相同的 lss.shard.secret。
+ */
+@Configuration
+public class ShardConfig {
+
+    // 全局统计量包含全部词项，超过WebClient默认的256KB缓冲
+    private static final int MAX_RESPONSE_BYTES = 64 * 1024 * 1024;
+
+    @Bean(name = "shardTransports")
+    public List<ShardTransport> shardTransports(@Value("${lss.shard.transport:none}") String transport,
+                                                @Value("${lss.shard.local-shards:2}") int localShards,
+                                                @Value("${lss.shard.nodes:}") List<String> nodes,
+                                                @Value("${lss.shard.timeout-ms:2000}") long timeoutMillis,
+                                                @Value("${lss.shard.secret:}") String secret,
+                                                InvertedIndexManager invertedIndexManager,
+                                                ShardSearchService shardSearchService,
+                                                WebClient.Builder webClientBuilder) {
+        List<ShardTransport> transports = new ArrayList<>();
+        switch (transport.toLowerCase()) {
+            case "local" -> {
+                invertedIndexManager.enableLocalShards(localShards);
+                for (int shard = 0; shard < localShards; shard++) {
+                    transports.add(new LocalShardTransport(invertedIndexManager, shardSearchService, shard, localShards));
+                }
+            }
+            case "http" -> {
+                if (secret.isBlank()) {
+                    throw new IllegalArgumentException("lss.shard.secret must be set for the http shard transport");
+                }
+                WebClient webClient = webClientBuilder
+                        .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_RESPONSE_BYTES))
+                        .build();
+                for (String node : nodes) {
+                    if (!node.isBlank()) {
+                        transports.add(new HttpShardTransport(node.trim(), webClient, Duration.ofMillis(timeoutMillis),
+                                secret));
+                    }
+                }
+            }
+            case "none" -> {
+            }
+            default -> throw new IllegalArgumentException("Unknown shard transport: " + transport);
+        }
+        return transports;
+    }
+}
@@ -5,8 +5,35 @@ public class PathConstant {
 
     public static final String MD_Path = DATA_PATH + "lecture-data";
 
+    // 快照按代数写入 inverted_index.<代数>.ser，由提交点指明当前有效的文件；没有提交点的旧版本直接写入该文件
     public static final String Inverted_Index = DATA_PATH + "inverted_index.ser";
 
-    public static final String TopN_Content = "src/main/resources/Top10DocData.txt";
+    // 索引提交点：记录当前有效快照的代数、长度与校验和
+    public static final String Index_Commit = DATA_PATH + "index.commit";
+
+    // 增量写入的预写日志
+    public static final String Index_WAL = DATA_PATH + "index.wal";
+
+    // 构建节点导出的索引分发包目录（默认值，部署时通常指向共享目录）
+    public static final String Index_Bundles = DATA_PATH + "bundles";
+
+    // 服务节点已安装的分发包代数
+    public static final String Bundle_Installed = DATA_PATH + "bundle.installed";
+
+    // 文档向量的HNSW索引，与倒排索引放在一起
+    public static final String Vector_Index = DATA_PATH + "vector_index.hnsw";
+
+    // 大模型回答缓存
+    public static final String Advice_Cache = DATA_PATH + "advice_cache.ser";
+    public static final String Chat_Answer_Cache = DATA_PATH + "chat_answer_cache.ser";
+
+    // 同义词与缩写词典，修改后自动重新加载
+    public static final String Synonyms = DATA_PATH + "synonyms.txt";
+
+    // 第二阶段重排模型
+    public static final String Rerank_Model = DATA_PATH + "rerank-model.properties";
+
+    // 被淘汰的会话记忆落盘文件
+    public static final String Chat_Memory_Spill = DATA_PATH + "chat_memory.spill";
 
 }
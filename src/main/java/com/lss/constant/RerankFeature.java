@@ -0,0 +1,37 @@
+package com.lss.constant;
+
+/**
+ * 第二阶段重排使用的特征，模型文件中按 {@link #key()} 引用。
+ */
+public enum RerankFeature {
+    FIRST_PASS("first_pass"),       // 第一阶段的余弦相似度
+    TITLE_MATCH("title_match"),     // 查询词项在标题中出现的比例
+    SPEAKER_MATCH("speaker_match"), // 查询中包含完整的主讲人姓名时为1
+    PROXIMITY("proximity"),         // 查询词项在查询域中的最小覆盖窗口越紧越接近1，命中少于两个词项时为0
+    RECENCY("recency"),             // 按讲座时间衰减的系数，没有时间的按一个半衰期计算
+    TITLE_LENGTH("title_length"),   // ln(1 + 标题词项数)
+    BODY_LENGTH("body_length");     // ln(1 + 全文词项数)
+
+    private final String key;
+
+    RerankFeature(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    /**
+     * @param key 模型文件中的特征名
+     * @return 特征，无法识别时返回null
+     */
+    public static RerankFeature of(String key) {
+        for (RerankFeature value : values()) {
+            if (value.key.equals(key)) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.lss.constant;
+
+/**
+ * 检索方式。
+ */
+public enum SearchMode {
+    LEXICAL,  // 基于倒排索引的TF-IDF检索
+    SEMANTIC, // 基于向量索引的语义检索
+    HYBRID;   // 两路并行检索后融合
+
+    /**
+     * 解析请求参数，不区分大小写，无法识别时使用词项检索。
+     * @param mode 请求参数
+     * @return 检索方式
+     */
+    public static SearchMode of(String mode) {
+        if (mode == null || mode.isBlank()) {
+            return LEXICAL;
+        }
+        for (SearchMode value : values()) {
+            if (value.name().equalsIgnoreCase(mode.trim())) {
+                return value;
+            }
+        }
+        return LEXICAL;
+    }
+}
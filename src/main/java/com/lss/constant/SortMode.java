@@ -0,0 +1,32 @@
+package com.lss.constant;
+
+/**
+ * 检索结果的排序方式。
+ */
+public enum SortMode {
+    RELEVANCE, // 相关性分数降序
+    DATE_ASC,  // 讲座时间升序，没有时间的排在最后
+    DATE_DESC, // 讲座时间降序，没有时间的排在最后
+    RECENCY;   // 相关性分数乘以按讲座时间衰减的系数
+
+    /**
+     * 解析请求参数，不区分大小写，无法识别时按相关性排序。
+     * @param sort 请求参数，例如 "date_desc"
+     * @return 排序方式
+     */
+    public static SortMode of(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return RELEVANCE;
+        }
+        for (SortMode value : values()) {
+            if (value.name().equalsIgnoreCase(sort.trim())) {
+                return value;
+            }
+        }
+        return RELEVANCE;
+    }
+
+    public boolean isByDate() {
+        return this == DATE_ASC || this == DATE_DESC;
+    }
+}
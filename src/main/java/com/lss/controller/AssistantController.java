@@ -1,53 +1,96 @@
 package com.lss.controller;
 
-import com.lss.constant.PathConstant;
+import com.lss.repository.BoundedChatMemoryStore;
+import com.lss.repository.InvertedIndexManager;
+import com.lss.repository.SemanticResponseCache;
 import com.lss.service.AiAssistant;
 import com.lss.model.ChatForm;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.input.PromptTemplate;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.HashSet;
-import java.util.Set;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
 public class AssistantController {
-    private static Set<String> memoryIds = new HashSet<>();
+    // 与 AiAssistant 上 @SystemMessage 使用的提示词相同
+    private static final String SYSTEM_PROMPT = "SystemPrompt.txt";
 
     @Resource
     private AiAssistant aiAssistant;
-    
+
+    @Resource
+    private BoundedChatMemoryStore chatMemoryStore;
+
+    @Resource
+    private SemanticResponseCache chatResponseCache;
+
+    @Resource
+    private InvertedIndexManager invertedIndexManager;
+
+    private volatile SystemMessage systemMessage;
+
     @PostMapping(value = "/chat", produces = "text/stream;charset=UTF-8")
     public Flux<String> chat(@RequestBody ChatForm chatForm) {
-        if (!memoryIds.contains(chatForm.getMemoryId())){
-            memoryIds.add(chatForm.getMemoryId());
-            Path filePath = Paths.get(PathConstant.TopN_Content);
+        String memoryId = chatForm.getMemoryId();
+        String question = chatForm.getUserMessage();
+        if (chatMemoryStore.contains(memoryId)) {
+            return aiAssistant.chat(memoryId, question);
+        }
+
+        // 首轮回答只取决于问题和检索到的讲座段落，同一索引快照内可以在会话之间复用
+        if (!invertedIndexManager.isIndexLoaded()) {
+            return aiAssistant.chat(memoryId, question);
+        }
+        long scope = invertedIndexManager.getSnapshot().getIdentity();
+        String cached = chatResponseCache.get(question, scope);
+        if (cached != null) {
+            // 按 AI 服务写入的顺序把系统提示词和问答写入会话记忆，后续追问仍有上下文
+            chatMemoryStore.updateMessages(memoryId,
+                    List.of(systemMessage(), UserMessage.from(question), AiMessage.from(cached)));
+            log.info("First turn of session {} answered from the response cache.", memoryId);
+            return Flux.just(cached);
+        }
+        StringBuilder answer = new StringBuilder();
+        return aiAssistant.chat(memoryId, question)
+                .doOnNext(answer::append)
+                .doOnComplete(() -> chatResponseCache.put(question, answer.toString(), scope));
+    }
 
-            try {
-                chatForm.setUserMessage(Files.readString(filePath) + "\n" + chatForm.getUserMessage());
+    // 与 AI 服务生成的系统消息逐字相同，否则下一轮会被当作新的系统消息追加到末尾
+    private SystemMessage systemMessage() {
+        SystemMessage loaded = systemMessage;
+        if (loaded == null) {
+            try (InputStream in = new ClassPathResource(SYSTEM_PROMPT).getInputStream()) {
+                String template = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                loaded = PromptTemplate.from(template).apply(Map.of()).toSystemMessage();
             } catch (IOException e) {
-                throw new RuntimeException(e);
+                throw new UncheckedIOException("Failed to read " + SYSTEM_PROMPT, e);
             }
-
-            log.info(chatForm.getUserMessage());
+            systemMessage = loaded;
         }
-
-        return aiAssistant.chat(chatForm.getMemoryId(), chatForm.getUserMessage());
+        return loaded;
     }
     
     @GetMapping(value="/reset")
     public void reset(String memoryId) {
+        // 用于重置会话：ChatMemory 对象只是存储的视图，须同时删除存储中（含落盘）的消息
+        chatMemoryStore.deleteMessages(memoryId);
         aiAssistant.evictChatMemory(memoryId);
-        // 用于重置会话
     }
 }
@@ -1,9 +1,11 @@
 // src/main/java/com/lss/controller/SearchController.java
 package com.lss.controller;
 
+import com.lss.constant.SearchMode;
+import com.lss.constant.SortMode;
 import com.lss.model.Result;
-import com.lss.service.QueryAdviceAssistant;
-import com.lss.service.SearchService;
+import com.lss.model.SearchFilter;
+import com.lss.service.ReactiveSearchService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
@@ -16,23 +18,62 @@ import reactor.core.publisher.Mono;
 public class SearchController {
 
     @Resource
-    private SearchService searchService;
+    private ReactiveSearchService reactiveSearchService;
 
     /**
      * 处理搜索请求。
-     * @param query 用户查询字符串
+     * @param query 用户查询字符串；词项检索时前缀 + 表示必须出现，- 表示排除，例如“人工智能 +伦理 -线上”
      * @param topN 返回结果数量，默认为10
-     * @return 搜索结果的Mono<SearchResult>对象
+     * @param mode 检索方式：lexical(默认) / semantic / hybrid
+     * @param from 讲座时间下限，yyyy-MM-dd 或 yyyy-MM-ddTHH:mm
+     * @param to 讲座时间上限，只有日期时包含当天
+     * @param speaker 主讲人
+     * @param location 地点包含的文本
+     * @param campus 校区，例如“丽湖校区”
+     * @param school 主办学院
+     * @param sort 排序方式：relevance(默认) / date_asc / date_desc / recency
+     * @param facets 是否返回主讲人、校区、学院、月份的分面计数
+     * @param cursor 翻页游标：传空值请求第一页，之后传上一页返回的 nextCursor；topN 为每页大小
+     * @param msm 可选词项至少匹配的个数：整数、负数（总数减去）或百分比，例如 2、-1、75%
+     * @return 搜索结果的Mono<Result>对象，检索在后台调度器上完成，不占用请求线程
      */
     @GetMapping()
-    public Result performSearch(Integer type, String query, @RequestParam(value = "topN", defaultValue = "10") int topN) {
-        log.info("Received search query: '{}', topN: {}", query, topN);
-        return searchService.search(type, query, topN);
+    public Mono<Result> performSearch(Integer type, String query,
+                                      @RequestParam(value = "topN", defaultValue = "10") int topN,
+                                      @RequestParam(value = "mode", defaultValue = "lexical") String mode,
+                                      String from, String to, String speaker, String location, String campus, String school,
+                                      @RequestParam(value = "sort", defaultValue = "relevance") String sort,
+                                      @RequestParam(value = "facets", defaultValue = "false") boolean facets,
+                                      String cursor, String msm) {
+        log.info("Received search query: '{}', topN: {}, mode: {}, sort: {}", query, topN, mode, sort);
+        SearchFilter filter;
+        try {
+            filter = new SearchFilter(SearchFilter.parseBound(from, false), SearchFilter.parseBound(to, true),
+                    speaker, location, campus, school);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(Result.fail(e.getMessage()));
+        }
+        return reactiveSearchService.search(type, query, topN, SearchMode.of(mode), filter, SortMode.of(sort), facets, cursor, msm);
+    }
+
+    /**
+     * 段落检索：返回与问题最相关、总token数不超过预算的讲座段落。
+     * @param query 用户问题
+     * @param topK 最多返回的段落数，默认为5
+     * @param tokenBudget 段落的token总预算，默认为800
+     * @return 段落检索结果
+     */
+    @GetMapping("/passages")
+    public Mono<Result> searchPassages(@RequestParam String query,
+                                       @RequestParam(value = "topK", defaultValue = "5") int topK,
+                                       @RequestParam(value = "tokenBudget", defaultValue = "800") int tokenBudget) {
+        log.info("Received passage query: '{}', topK: {}, tokenBudget: {}", query, topK, tokenBudget);
+        return reactiveSearchService.passages(query, topK, tokenBudget);
     }
 
     @GetMapping("/advice")
-    public Result getSearchAdvice(@RequestParam String query) {
+    public Mono<Result> getSearchAdvice(@RequestParam String query) {
         log.info("Received search advice request for query: '{}'", query);
-        return searchService.queryAdvice(query);
+        return reactiveSearchService.queryAdvice(query);
     }
 }
\ No newline at end of file
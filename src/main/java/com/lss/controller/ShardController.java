@@ -0,0 +1,94 @@
+package com.lss.controller;
+
+import com.lss.model.Index.CorpusStatistics;
+import com.lss.model.Index.IndexSnapshot;
+import com.lss.model.RetrieveDocsItems;
+import com.lss.model.ShardQuery;
+import com.lss.repository.HttpShardTransport;
+import com.lss.repository.InvertedIndexManager;
+import com.lss.service.ShardSearchService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * 分片节点接口，供协调节点通过HTTP访问本节点的索引分片，不面向最终用户。
+ * 只在 lss.shard.serve=true 的分片节点上注册；每个请求须在 {@value HttpShardTransport#SECRET_HEADER}
+ * 请求头中带上与 lss.shard.secret 相同的共享密钥，未配置密钥时启动失败。
+ */
+@RestController
+@RequestMapping("/shard")
+@ConditionalOnProperty(name = "lss.shard.serve", havingValue = "true")
+@Slf4j
+public class ShardController {
+
+    @Resource
+    private InvertedIndexManager invertedIndexManager;
+
+    @Resource
+    private ShardSearchService shardSearchService;
+
+    @Value("${lss.shard.secret:}")
+    private String secret;
+
+    @PostConstruct
+    public void checkSecret() {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("lss.shard.secret must be set when lss.shard.serve is true");
+        }
+    }
+
+    /**
+     * @return 本节点索引的文档总数与文档频率
+     */
+    @GetMapping("/statistics")
+    public CorpusStatistics statistics(
+            @RequestHeader(value = HttpShardTransport.SECRET_HEADER, required = false) String presented) {
+        authorize(presented);
+        return invertedIndexManager.localStatistics();
+    }
+
+    /**
+     * 接收协调节点下发的全局统计量，重建本节点的快照。
+     * @param global 全局统计量
+     */
+    @PutMapping("/statistics")
+    public void applyStatistics(
+            @RequestHeader(value = HttpShardTransport.SECRET_HEADER, required = false) String presented,
+            @RequestBody CorpusStatistics global) {
+        authorize(presented);
+        log.info("Received global statistics from coordinator: {} documents.", global.getTotalDocuments());
+        invertedIndexManager.applyGlobalStatistics(global);
+    }
+
+    /**
+     * @param query 已分词的查询
+     * @return 本节点按相似度降序排列的 Top N
+     */
+    @PostMapping("/search")
+    public List<RetrieveDocsItems> search(
+            @RequestHeader(value = HttpShardTransport.SECRET_HEADER, required = false) String presented,
+            @RequestBody ShardQuery query) {
+        authorize(presented);
+        try (IndexSnapshot snapshot = invertedIndexManager.acquireSnapshot()) {
+            return shardSearchService.search(snapshot, query);
+        }
+    }
+
+    // 按常量时间比较，避免通过响应时间逐字节猜出密钥
+    private void authorize(String presented) {
+        if (presented == null || !MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+                presented.getBytes(StandardCharsets.UTF_8))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+    }
+}
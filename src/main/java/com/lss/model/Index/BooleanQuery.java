@@ -0,0 +1,294 @@
+package com.lss.model.Index;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 布尔查询：必须出现的词项（AND）、可选词项（OR，至少匹配若干个）和排除的词项（NOT）。
+ * 查询语法以空白分隔，前缀 {@code +} 表示必须出现，{@code -} 表示排除，例如 “人工智能 +伦理 -线上”。
+ * 排除的部分分词后得到多个词项时，只排除同时包含这些词项的文档。
+ * <p>
+ * 求值在压缩位图上进行：必须出现的词项按文档数从小到大求交，交集为空即结束；
+ * 高频词项的位图由 {@link TermPostings#bitmap()} 缓存，不必每次从倒排记录表构建。
+ * <p>
+ * 解析时可以用 {@link SynonymGraph} 扩展查询：命中的词项段与它的各扩展项合成一个析取子句，
+ * 子句的位图是 原词项段 与各扩展项（段内求交）的并集，只求一次，作为一个整体参与求交、计数和排除，
+ * 不会因为扩展出多个词项而放宽“至少匹配”的要求；打分时扩展词项按权重计入查询向量。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BooleanQuery {
+    private List<String> required;        // 必须出现的词项
+    private List<String> optional;        // 可选词项，重复的词项表示查询词频
+    private List<List<String>> excluded;  // 排除的词项组
+    private String minimumShouldMatch;    // 可选词项至少匹配的个数：整数、负数（总数减去）或百分比，为null时取默认值
+    private List<Synonym> synonyms;       // 同义词扩展，可以为null
+
+    /**
+     * 查询中命中扩展图的一段词项及其扩展项。
+     * @param terms 原词项段
+     * @param expansions 扩展项
+     */
+    public record Synonym(List<String> terms, List<SynonymGraph.Expansion> expansions) {
+    }
+
+    public BooleanQuery(List<String> required, List<String> optional, List<List<String>> excluded, String minimumShouldMatch) {
+        this(required, optional, excluded, minimumShouldMatch, new ArrayList<>());
+    }
+
+    /**
+     * 解析查询字符串。
+     * @param queryString 查询字符串
+     * @param analyzer 分词器
+     * @param minimumShouldMatch 可选词项至少匹配的个数
+     * @return 布尔查询
+     */
+    public static BooleanQuery parse(String queryString, Function<String, List<String>> analyzer, String minimumShouldMatch) {
+        return parse(queryString, analyzer, SynonymGraph.EMPTY, minimumShouldMatch);
+    }
+
+    /**
+     * 解析查询字符串，并在每个部分的词项上匹配扩展图。
+     * @param queryString 查询字符串
+     * @param analyzer 分词器
+     * @param synonymGraph 同义词扩展图
+     * @param minimumShouldMatch 可选词项至少匹配的个数
+     * @return 布尔查询
+     */
+    public static BooleanQuery parse(String queryString, Function<String, List<String>> analyzer, SynonymGraph synonymGraph,
+                                     String minimumShouldMatch) {
+        List<Synonym> synonyms = new ArrayList<>();
+        List<String> required = new ArrayList<>();
+        List<String> optional = new ArrayList<>();
+        List<List<String>> excluded = new ArrayList<>();
+        for (String part : queryString.trim().split("\\s+")) {
+            char operator = part.charAt(0);
+            boolean prefixed = (operator == '+' || operator == '-') && part.length() > 1;
+            List<String> terms = new ArrayList<>();
+            for (String term : analyzer.apply(prefixed ? part.substring(1) : part)) {
+                if (!term.isBlank()) {
+                    terms.add(term);
+                }
+            }
+            if (terms.isEmpty()) {
+                continue;
+            }
+            for (SynonymGraph.Match match : synonymGraph.match(terms)) {
+                synonyms.add(new Synonym(List.copyOf(terms.subList(match.start(), match.end())), match.expansions()));
+            }
+            if (prefixed && operator == '+') {
+                required.addAll(terms);
+            } else if (prefixed) {
+                excluded.add(terms);
+            } else {
+                optional.addAll(terms);
+            }
+        }
+        return new BooleanQuery(required, optional, excluded, minimumShouldMatch, synonyms);
+    }
+
+    /**
+     * @return 参与打分的词项：必须出现的词项和可选词项，排除的词项不参与打分；不含扩展词项
+     */
+    public List<String> scoringTerms() {
+        List<String> terms = new ArrayList<>(required.size() + optional.size());
+        terms.addAll(required);
+        terms.addAll(optional);
+        return terms;
+    }
+
+    /**
+     * 参与打分的词项及其查询词频：原词项每出现一次计1，扩展词项计扩展权重，与原词项相同时累加。
+     * @return 词项 -> 查询词频，按出现顺序
+     */
+    public Map<String, Float> scoringWeights() {
+        Map<String, Float> weights = new LinkedHashMap<>();
+        for (String term : scoringTerms()) {
+            weights.merge(term, 1f, Float::sum);
+        }
+        Set<String> scoring = new HashSet<>(weights.keySet());
+        for (Synonym synonym : synonyms()) {
+            if (!scoring.containsAll(synonym.terms())) {
+                continue; // 排除部分的扩展不参与打分
+            }
+            for (SynonymGraph.Expansion expansion : synonym.expansions()) {
+                for (String term : expansion.terms()) {
+                    weights.merge(term, expansion.weight(), Float::sum);
+                }
+            }
+        }
+        return weights;
+    }
+
+    public boolean hasScoringTerms() {
+        return !required.isEmpty() || !optional.isEmpty();
+    }
+
+    /**
+     * 计算可选词项至少要匹配的个数。
+     * @param spec 整数、负数（总数减去该值）或百分比（向下取整），为null时：有必须出现的词项时为0，否则为1
+     * @param optionalCount 不同的可选词项个数
+     * @param hasRequired 是否有必须出现的词项
+     * @return 个数，范围 [0, optionalCount]
+     */
+    public static int minimumShouldMatch(String spec, int optionalCount, boolean hasRequired) {
+        int value;
+        if (spec == null || spec.isBlank()) {
+            value = hasRequired ? 0 : 1;
+        } else if (spec.trim().endsWith("%")) {
+            double percent = Double.parseDouble(spec.trim().substring(0, spec.trim().length() - 1));
+            value = (int) Math.floor(optionalCount * Math.abs(percent) / 100);
+            value = percent < 0 ? optionalCount - value : value;
+        } else {
+            value = Integer.parseInt(spec.trim());
+            value = value < 0 ? optionalCount + value : value;
+        }
+        if (!hasRequired) {
+            value = Math.max(1, value); // 没有必须出现的词项时至少匹配一个，否则会返回全部文档
+        }
+        return Math.max(0, Math.min(optionalCount, value));
+    }
+
+    /**
+     * 在快照上求值，得到候选文档位图。返回的位图可能是缓存的词项位图，调用方只能读取。
+     * @param snapshot 索引快照
+     * @param field 查询的域
+     * @return 候选文档位图
+     * @throws NumberFormatException minimumShouldMatch 格式错误
+     */
+    public RoaringBitmap evaluate(IndexSnapshot snapshot, String field) {
+        List<RoaringBitmap> requiredBitmaps = clauses(snapshot, field, required);
+        for (RoaringBitmap bitmap : requiredBitmaps) {
+            if (bitmap.isEmpty()) {
+                return new RoaringBitmap(); // 有必须出现的子句不在该域中出现
+            }
+        }
+        List<RoaringBitmap> optionalBitmaps = clauses(snapshot, field, optional);
+        // 按全部不同的可选子句计算，不在该域中出现的子句同样计数，否则 100% 或整数会被悄悄降低
+        int atLeast = minimumShouldMatch(minimumShouldMatch, optionalBitmaps.size(), !requiredBitmaps.isEmpty());
+        optionalBitmaps.removeIf(RoaringBitmap::isEmpty); // 空子句不会被任何文档匹配，求值时跳过
+        if (atLeast > optionalBitmaps.size()) {
+            return new RoaringBitmap();
+        }
+
+        // 1. 必须出现的子句：从文档最少的开始求交
+        RoaringBitmap result = null;
+        requiredBitmaps.sort(Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+        for (RoaringBitmap bitmap : requiredBitmaps) {
+            result = result == null ? bitmap : RoaringBitmap.and(result, bitmap);
+            if (result.isEmpty()) {
+                return result;
+            }
+        }
+
+        // 2. 可选子句
+        if (atLeast > 0) {
+            RoaringBitmap should = atLeast == 1
+                    ? FastAggregation.or(optionalBitmaps.toArray(new RoaringBitmap[0]))
+                    : atLeast(optionalBitmaps, atLeast);
+            result = result == null ? should : RoaringBitmap.and(result, should);
+        }
+        if (result == null) {
+            return new RoaringBitmap();
+        }
+
+        // 3. 排除同时包含一组词项的文档；整组命中扩展图时，同时排除包含扩展项的文档
+        for (List<String> group : excluded) {
+            RoaringBitmap excludedDocs = conjunction(snapshot, field, group);
+            for (Synonym synonym : synonyms()) {
+                if (synonym.terms().equals(group)) {
+                    excludedDocs = disjunction(snapshot, field, synonym);
+                    break;
+                }
+            }
+            if (!excludedDocs.isEmpty()) {
+                result = RoaringBitmap.andNot(result, excludedDocs);
+            }
+        }
+        return result;
+    }
+
+    private List<Synonym> synonyms() {
+        return synonyms == null ? List.of() : synonyms;
+    }
+
+    /**
+     * 一组词项的子句位图：词项都在该组中的扩展段合成一个析取子句，其余词项各为一个子句，重复的词项只算一次。
+     * 不在该域出现的子句为空位图，由调用方决定如何处理。
+     */
+    private List<RoaringBitmap> clauses(IndexSnapshot snapshot, String field, List<String> terms) {
+        Set<String> distinct = new LinkedHashSet<>(terms);
+        List<RoaringBitmap> bitmaps = new ArrayList<>(distinct.size());
+        Set<String> covered = new HashSet<>();
+        for (Synonym synonym : synonyms()) {
+            if (distinct.containsAll(synonym.terms())) {
+                bitmaps.add(disjunction(snapshot, field, synonym));
+                covered.addAll(synonym.terms());
+            }
+        }
+        for (String term : distinct) {
+            if (!covered.contains(term)) {
+                bitmaps.add(snapshot.postings(field + ":" + term).bitmap());
+            }
+        }
+        return bitmaps;
+    }
+
+    // 原词项段与各扩展项的并集：各段内求交后一次性求并，扩展项再多也只得到一个位图
+    private static RoaringBitmap disjunction(IndexSnapshot snapshot, String field, Synonym synonym) {
+        List<RoaringBitmap> alternatives = new ArrayList<>(synonym.expansions().size() + 1);
+        alternatives.add(conjunction(snapshot, field, synonym.terms()));
+        for (SynonymGraph.Expansion expansion : synonym.expansions()) {
+            alternatives.add(conjunction(snapshot, field, expansion.terms()));
+        }
+        alternatives.removeIf(RoaringBitmap::isEmpty);
+        return alternatives.size() == 1 ? alternatives.get(0) : FastAggregation.or(alternatives.toArray(new RoaringBitmap[0]));
+    }
+
+    // 同时包含各词项的文档，有词项不在该域中出现时为空
+    private static RoaringBitmap conjunction(IndexSnapshot snapshot, String field, List<String> terms) {
+        List<RoaringBitmap> bitmaps = new ArrayList<>(terms.size());
+        for (String term : new LinkedHashSet<>(terms)) {
+            TermPostings postings = snapshot.postings(field + ":" + term);
+            if (postings.size() == 0) {
+                return new RoaringBitmap();
+            }
+            bitmaps.add(postings.bitmap());
+        }
+        return bitmaps.size() == 1 ? bitmaps.get(0) : FastAggregation.and(bitmaps.toArray(new RoaringBitmap[0]));
+    }
+
+    /**
+     * 至少出现在 k 个位图中的文档：levels[j] 为至少出现在 j+1 个位图中的文档，逐个位图向上累积。
+     */
+    static RoaringBitmap atLeast(List<RoaringBitmap> bitmaps, int k) {
+        if (k > bitmaps.size()) {
+            return new RoaringBitmap();
+        }
+        RoaringBitmap[] levels = new RoaringBitmap[k];
+        for (int j = 0; j < k; j++) {
+            levels[j] = new RoaringBitmap();
+        }
+        for (RoaringBitmap bitmap : bitmaps) {
+            for (int j = k - 1; j > 0; j--) {
+                levels[j].or(RoaringBitmap.and(levels[j - 1], bitmap));
+            }
+            levels[0].or(bitmap);
+        }
+        return levels[k - 1];
+    }
+}
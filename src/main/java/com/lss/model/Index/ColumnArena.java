@@ -0,0 +1,186 @@
+package com.lss.model.Index;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Constructor;
+import java.util.function.Supplier;
+
+/**
+ * 索引快照的列存储区：倒排记录表（文档序号、词频、权重）、文档范数和列式字段值都在快照构建时写入，之后只读。
+ * 每个快照拥有一个存储区，快照退役后调用 {@link #close()} 一次性释放。
+ * <p>
+ * 有两种实现：堆内实现直接持有基本类型数组，关闭时不做任何事；堆外实现把每列复制到
+ * Foreign Function &amp; Memory API 的共享 Arena 中，堆上只剩少量元数据，老年代占用不随讲座数量增长。
+ * Java 21 中 FFM API 仍是预览特性，JVM以 {@code --enable-preview} 启动时才能加载堆外实现，
+ * 否则 {@link #factory(boolean)} 退回堆内实现。堆外存储关闭后再读取会抛出 {@link IllegalStateException}，不会读到已释放的内存。
+ */
+@Slf4j
+public abstract class ColumnArena implements AutoCloseable {
+
+    /**
+     * 只读int列。
+     */
+    public interface IntColumn {
+        int get(int index);
+
+        int size();
+
+        /**
+         * @return 堆内列的底层数组，供打分循环直接访问；堆外列返回null
+         */
+        default int[] array() {
+            return null;
+        }
+    }
+
+    /**
+     * 只读float列。
+     */
+    public interface FloatColumn {
+        float get(int index);
+
+        int size();
+
+        /**
+         * @return 堆内列的底层数组；堆外列返回null
+         */
+        default float[] array() {
+            return null;
+        }
+    }
+
+    /**
+     * 只读long列。
+     */
+    public interface LongColumn {
+        long get(int index);
+
+        int size();
+    }
+
+    /**
+     * @return 实现名称，用于日志
+     */
+    public abstract String name();
+
+    public abstract IntColumn ints(int[] values);
+
+    public abstract FloatColumn floats(float[] values);
+
+    public abstract LongColumn longs(long[] values);
+
+    /**
+     * @return 已分配的堆外字节数，堆内实现为0
+     */
+    public abstract long offHeapBytes();
+
+    /**
+     * 释放存储区，可以重复调用。
+     */
+    @Override
+    public abstract void close();
+
+    /**
+     * @return 堆内存储区
+     */
+    public static ColumnArena heap() {
+        return HeapColumnArena.INSTANCE;
+    }
+
+    /**
+     * 选择存储区的实现，启动时调用一次，之后每个快照由返回的工厂创建自己的存储区。
+     * @param offHeap 是否使用堆外存储
+     * @return 存储区工厂；不使用堆外存储、或FFM预览特性不可用时返回堆内存储区
+     */
+    public static Supplier<ColumnArena> factory(boolean offHeap) {
+        if (offHeap) {
+            try {
+                // 通过反射加载，未启用预览特性时堆内路径不受影响
+                Constructor<?> constructor = Class.forName(ColumnArena.class.getPackageName() + ".OffHeapColumnArena")
+                        .getDeclaredConstructor();
+                ((ColumnArena) constructor.newInstance()).close(); // 确认可以实例化
+                return () -> {
+                    try {
+                        return (ColumnArena) constructor.newInstance();
+                    } catch (ReflectiveOperationException e) {
+                        throw new IllegalStateException("Failed to create off-heap column arena.", e);
+                    }
+                };
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.warn("Off-heap column arena unavailable (start the JVM with --enable-preview), using heap: {}", e.toString());
+            }
+        }
+        return ColumnArena::heap;
+    }
+
+    // 堆内实现：列直接包装数组，由GC回收
+    private static final class HeapColumnArena extends ColumnArena {
+
+        static final HeapColumnArena INSTANCE = new HeapColumnArena();
+
+        @Override
+        public String name() {
+            return "heap";
+        }
+
+        @Override
+        public IntColumn ints(int[] values) {
+            return new HeapInts(values);
+        }
+
+        @Override
+        public FloatColumn floats(float[] values) {
+            return new HeapFloats(values);
+        }
+
+        @Override
+        public LongColumn longs(long[] values) {
+            return new HeapLongs(values);
+        }
+
+        @Override
+        public long offHeapBytes() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private record HeapInts(int[] array) implements IntColumn {
+        @Override
+        public int get(int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+
+    private record HeapFloats(float[] array) implements FloatColumn {
+        @Override
+        public float get(int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+
+    private record HeapLongs(long[] array) implements LongColumn {
+        @Override
+        public long get(int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+}
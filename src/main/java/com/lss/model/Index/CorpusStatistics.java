@@ -0,0 +1,51 @@
+package com.lss.model.Index;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 计算IDF所需的语料统计量：文档总数 N 与每个原始词项的文档频率 DF。
+ * 分片部署时各分片上报自己的统计量，协调节点求和后下发，各分片按全局统计量计算IDF和文档范数，
+ * 不同分片的余弦相似度因此可以直接比较。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CorpusStatistics {
+    private long version;       // 上报方的内容版本，内容不变时版本不变
+    private int totalDocuments; // 文档总数 N
+    private Map<String, Integer> documentFrequencies; // 原始词项(不带域) -> DF
+
+    /**
+     * @param index 倒排索引，调用方需保证读取期间索引不被修改
+     * @param version 内容版本
+     * @return 该索引的统计量（复制）
+     */
+    public static CorpusStatistics of(InvertedIndex index, long version) {
+        return new CorpusStatistics(version, index.getTotalDocuments(), new HashMap<>(index.getDocumentFrequencies()));
+    }
+
+    /**
+     * 合并各分片的统计量。
+     * @param shards 各分片的统计量
+     * @return 全局统计量，版本号为0
+     */
+    public static CorpusStatistics sum(List<CorpusStatistics> shards) {
+        int totalDocuments = 0;
+        Map<String, Integer> documentFrequencies = new HashMap<>();
+        for (CorpusStatistics shard : shards) {
+            totalDocuments += shard.getTotalDocuments();
+            shard.getDocumentFrequencies().forEach((term, df) -> documentFrequencies.merge(term, df, Integer::sum));
+        }
+        return new CorpusStatistics(0, totalDocuments, documentFrequencies);
+    }
+
+    public int documentFrequency(String term) {
+        return documentFrequencies.getOrDefault(term, 0);
+    }
+}
@@ -0,0 +1,130 @@
+package com.lss.model.Index;
+
+import com.lss.model.Index.ColumnArena.LongColumn;
+import com.lss.util.LectureFieldExtractor;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 按文档序号存放的列式字段值（doc values），随索引快照一起构建，只读。
+ * 排序、过滤和分面只访问这些数组，不需要读取Markdown原文。
+ */
+public final class DocValues {
+
+    public static final long MISSING_TIME = Long.MIN_VALUE;
+
+    // 从地点中识别校区，例如“丽湖校区守信楼420会议室” -> “丽湖校区”
+    private static final Pattern CAMPUS = Pattern.compile("[\\u4e00-\\u9fa5]{2}校区");
+
+    private final LongColumn lectureTimes; // 文档序号 -> 讲座时间（毫秒），缺失为MISSING_TIME
+    private final OrdinalColumn speakers;
+    private final OrdinalColumn locations;
+    private final OrdinalColumn schools;
+    private final OrdinalColumn campuses; // 由地点派生
+    private final OrdinalColumn months;   // 由讲座时间派生，形如“2024-11”
+    private final int timedDocuments;     // 有讲座时间的文档数
+
+    private DocValues(LongColumn lectureTimes, OrdinalColumn speakers, OrdinalColumn locations, OrdinalColumn schools,
+                      OrdinalColumn campuses, OrdinalColumn months, int timedDocuments) {
+        this.lectureTimes = lectureTimes;
+        this.speakers = speakers;
+        this.locations = locations;
+        this.schools = schools;
+        this.campuses = campuses;
+        this.months = months;
+        this.timedDocuments = timedDocuments;
+    }
+
+    /**
+     * @param documents 按文档序号排列的文档
+     * @return 列式字段值
+     */
+    public static DocValues build(LectureDocument[] documents) {
+        return build(documents, ColumnArena.heap());
+    }
+
+    /**
+     * @param documents 按文档序号排列的文档
+     * @param arena 存放各列的存储区
+     * @return 列式字段值
+     */
+    public static DocValues build(LectureDocument[] documents, ColumnArena arena) {
+        int n = documents.length;
+        long[] lectureTimes = new long[n];
+        String[] speakers = new String[n];
+        String[] locations = new String[n];
+        String[] schools = new String[n];
+        String[] campuses = new String[n];
+        String[] months = new String[n];
+        for (int i = 0; i < n; i++) {
+            LectureDocument document = documents[i];
+            lectureTimes[i] = document.getLectureTime() == null ? MISSING_TIME : document.getLectureTime();
+            speakers[i] = document.getSpeaker();
+            locations[i] = document.getLocation();
+            schools[i] = document.getSchool();
+            campuses[i] = campusOf(document.getLocation());
+            months[i] = document.getLectureTime() == null ? null
+                    : YearMonth.from(Instant.ofEpochMilli(document.getLectureTime()).atZone(LectureFieldExtractor.ZONE)).toString();
+        }
+        int timed = 0;
+        for (long time : lectureTimes) {
+            if (time != MISSING_TIME) {
+                timed++;
+            }
+        }
+        return new DocValues(arena.longs(lectureTimes), OrdinalColumn.build(speakers, arena), OrdinalColumn.build(locations, arena),
+                OrdinalColumn.build(schools, arena), OrdinalColumn.build(campuses, arena), OrdinalColumn.build(months, arena), timed);
+    }
+
+    private static String campusOf(String location) {
+        if (location == null) {
+            return null;
+        }
+        Matcher matcher = CAMPUS.matcher(location);
+        return matcher.find() ? matcher.group() : null;
+    }
+
+    /**
+     * @param docOrdinal 文档序号
+     * @return 讲座时间（毫秒），缺失时返回MISSING_TIME
+     */
+    public long lectureTime(int docOrdinal) {
+        return lectureTimes.get(docOrdinal);
+    }
+
+    public OrdinalColumn getSpeakers() {
+        return speakers;
+    }
+
+    public OrdinalColumn getLocations() {
+        return locations;
+    }
+
+    public OrdinalColumn getSchools() {
+        return schools;
+    }
+
+    public OrdinalColumn getCampuses() {
+        return campuses;
+    }
+
+    public OrdinalColumn getMonths() {
+        return months;
+    }
+
+    /**
+     * 有讲座时间的文档数。快照的文档序号按时间排列，序号 [0, timedDocuments) 的文档时间非递减，
+     * 其余文档没有时间。
+     * @return 有讲座时间的文档数
+     */
+    public int getTimedDocuments() {
+        return timedDocuments;
+    }
+
+    public int size() {
+        return lectureTimes.size();
+    }
+}
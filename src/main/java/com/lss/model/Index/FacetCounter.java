@@ -0,0 +1,94 @@
+package com.lss.model.Index;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 分面计数：在遍历命中文档时按文档序号读取列式字段值，对取值序号计数。
+ * 一次遍历同时统计所有分面，不读取Markdown原文。
+ */
+public final class FacetCounter {
+
+    private final DocValues docValues;
+    private final int[] speakerCounts;
+    private final int[] campusCounts;
+    private final int[] schoolCounts;
+    private final int[] monthCounts;
+
+    public FacetCounter(DocValues docValues) {
+        this.docValues = docValues;
+        this.speakerCounts = new int[docValues.getSpeakers().cardinality()];
+        this.campusCounts = new int[docValues.getCampuses().cardinality()];
+        this.schoolCounts = new int[docValues.getSchools().cardinality()];
+        this.monthCounts = new int[docValues.getMonths().cardinality()];
+    }
+
+    /**
+     * @param docOrdinal 命中文档的序号
+     */
+    public void collect(int docOrdinal) {
+        increment(speakerCounts, docValues.getSpeakers().ordinal(docOrdinal));
+        increment(campusCounts, docValues.getCampuses().ordinal(docOrdinal));
+        increment(schoolCounts, docValues.getSchools().ordinal(docOrdinal));
+        increment(monthCounts, docValues.getMonths().ordinal(docOrdinal));
+    }
+
+    /**
+     * 合并另一个收集器（同一快照上按文档区间并行统计）的计数。
+     * @param other 另一个收集器
+     */
+    public void merge(FacetCounter other) {
+        add(speakerCounts, other.speakerCounts);
+        add(campusCounts, other.campusCounts);
+        add(schoolCounts, other.schoolCounts);
+        add(monthCounts, other.monthCounts);
+    }
+
+    private static void add(int[] counts, int[] other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other[i];
+        }
+    }
+
+    private static void increment(int[] counts, int ordinal) {
+        if (ordinal != OrdinalColumn.MISSING) {
+            counts[ordinal]++;
+        }
+    }
+
+    /**
+     * @param maxValues 每个分面最多返回的取值数，按计数降序
+     * @return 分面名 -> (取值 -> 计数)；月份分面按时间先后排列
+     */
+    public Map<String, Map<String, Integer>> toMap(int maxValues) {
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        facets.put("speaker", top(docValues.getSpeakers(), speakerCounts, maxValues));
+        facets.put("campus", top(docValues.getCampuses(), campusCounts, maxValues));
+        facets.put("school", top(docValues.getSchools(), schoolCounts, maxValues));
+        Map<String, Integer> months = new LinkedHashMap<>();
+        for (int ordinal = 0; ordinal < monthCounts.length; ordinal++) {
+            if (monthCounts[ordinal] > 0) {
+                months.put(docValues.getMonths().lookup(ordinal), monthCounts[ordinal]);
+            }
+        }
+        facets.put("month", months);
+        return facets;
+    }
+
+    private static Map<String, Integer> top(OrdinalColumn column, int[] counts, int maxValues) {
+        Integer[] ordinals = new Integer[counts.length];
+        int size = 0;
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (counts[ordinal] > 0) {
+                ordinals[size++] = ordinal;
+            }
+        }
+        Arrays.sort(ordinals, 0, size, (a, b) -> Integer.compare(counts[b], counts[a]));
+        Map<String, Integer> values = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(size, maxValues); i++) {
+            values.put(column.lookup(ordinals[i]), counts[ordinals[i]]);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,483 @@
+package com.lss.model.Index;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 文档向量的 HNSW (Hierarchical Navigable Small World) 近似最近邻索引。
+ * <p>
+ * 向量先归一化，再按对称int8量化存储（每个向量一个缩放系数），
+ * 相似度为余弦相似度（归一化后的点积）。查询向量保持float，与量化向量做非对称点积。
+ * 读写通过读写锁保护：查询并发执行，插入互斥。
+ * <p>
+ * 删除只打墓碑：节点留在图中继续参与导航，但不再出现在结果中；查询时按墓碑数加大候选集，
+ * 保证过滤后仍有足够的结果。墓碑过多时由调用方重建索引。
+ * 每个节点还记录生成向量时文本的哈希，调用方据此判断文档内容变化后是否需要重新嵌入。
+ */
+public final class HnswIndex {
+
+    private static final int FORMAT_MAGIC = 0x484E5357; // "HNSW"
+    private static final int FORMAT_VERSION = 2; // 2: 增加内容哈希与墓碑
+
+    private final int dimension;
+    private final int m;              // 第1层及以上每个节点的最大邻居数
+    private final int maxM0;          // 第0层每个节点的最大邻居数
+    private final int efConstruction; // 构建时的候选集大小
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Integer> nodeOrdinals = new HashMap<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int tombstones;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static final class Node {
+        private final String id;
+        private byte[] codes;
+        private float scale;
+        private long contentHash;    // 生成向量时文本的哈希
+        private boolean deleted;     // 墓碑
+        private final int[][] links; // links[level] 为该层的邻居序号
+
+        private Node(String id, byte[] codes, float scale, long contentHash, int level) {
+            this.id = id;
+            this.codes = codes;
+            this.scale = scale;
+            this.contentHash = contentHash;
+            this.links = new int[level + 1][];
+            Arrays.fill(this.links, new int[0]);
+        }
+
+        private int level() {
+            return links.length - 1;
+        }
+    }
+
+    /**
+     * 检索结果：文档ID与余弦相似度。
+     */
+    public record Neighbor(String id, float score) {
+    }
+
+    public HnswIndex(int dimension, int m, int efConstruction) {
+        this.dimension = dimension;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(Math.max(m, 2));
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * @return 未删除的向量数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size() - tombstones;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 墓碑数，即已删除但仍留在图中的节点数
+     */
+    public int tombstones() {
+        lock.readLock().lock();
+        try {
+            return tombstones;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 未删除的全部文档ID
+     */
+    public Set<String> ids() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(nodeOrdinals.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return nodeOrdinals.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param id 文档ID
+     * @param contentHash 文本的哈希
+     * @return 文档存在且向量由同一文本生成
+     */
+    public boolean isCurrent(String id, long contentHash) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = nodeOrdinals.get(id);
+            return ordinal != null && nodes.get(ordinal).contentHash == contentHash;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(String id, float[] vector) {
+        add(id, vector, 0L);
+    }
+
+    /**
+     * 插入向量。ID已存在时原地更新向量，保留图中已有的连接。
+     * @param id 文档ID
+     * @param vector 向量，维度须与索引一致
+     * @param contentHash 生成向量的文本的哈希
+     */
+    public void add(String id, float[] vector, long contentHash) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Vector dimension " + vector.length + " does not match index dimension " + dimension);
+        }
+        float[] query = normalize(vector);
+        byte[] codes = new byte[dimension];
+        float scale = quantize(query, codes);
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = nodeOrdinals.get(id);
+            if (existing != null) {
+                Node node = nodes.get(existing);
+                node.codes = codes;
+                node.scale = scale;
+                node.contentHash = contentHash;
+                return;
+            }
+
+            int level = randomLevel();
+            int ordinal = nodes.size();
+            Node node = new Node(id, codes, scale, contentHash, level);
+            nodes.add(node);
+            nodeOrdinals.put(id, ordinal);
+            if (entryPoint < 0) {
+                entryPoint = ordinal;
+                maxLevel = level;
+                return;
+            }
+
+            // 1. 自顶层贪心下降到新节点所在的最高层
+            int current = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                current = greedyClosest(query, current, l);
+            }
+
+            // 2. 在新节点所在的每一层搜索候选并建立双向连接
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                List<Neighbor> candidates = searchLayer(query, current, efConstruction, l, false);
+                int maxLinks = l == 0 ? maxM0 : m;
+                int count = Math.min(m, candidates.size());
+                int[] links = new int[count];
+                for (int i = 0; i < count; i++) {
+                    links[i] = nodeOrdinals.get(candidates.get(i).id());
+                }
+                node.links[l] = links;
+                for (int neighbor : links) {
+                    connect(neighbor, ordinal, l, maxLinks);
+                }
+                current = links.length > 0 ? links[0] : current;
+            }
+
+            if (level > maxLevel) {
+                entryPoint = ordinal;
+                maxLevel = level;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除向量：节点打上墓碑，之后不再出现在结果中，同一ID可以重新插入。
+     * @param id 文档ID
+     * @return 是否删除了向量
+     */
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = nodeOrdinals.remove(id);
+            if (ordinal == null) {
+                return false;
+            }
+            nodes.get(ordinal).deleted = true;
+            tombstones++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 近似最近邻检索。
+     * @param vector 查询向量
+     * @param k 返回数量
+     * @param ef 检索时的候选集大小，越大召回越高、越慢
+     * @return 按相似度降序排列的结果
+     */
+    public List<Neighbor> search(float[] vector, int k, int ef) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Vector dimension " + vector.length + " does not match index dimension " + dimension);
+        }
+        float[] query = normalize(vector);
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || k <= 0) {
+                return new ArrayList<>();
+            }
+            int current = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                current = greedyClosest(query, current, l);
+            }
+            // 墓碑占用候选集的位置但会被过滤，按墓碑数加大候选集
+            List<Neighbor> results = searchLayer(query, current, Math.max(ef, k) + tombstones, 0, true);
+            return new ArrayList<>(results.subList(0, Math.min(k, results.size())));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 在指定层上从起点贪心移动到与查询最相似的节点
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float best = similarity(query, nodes.get(current));
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbor : nodes.get(current).links[level]) {
+                float score = similarity(query, nodes.get(neighbor));
+                if (score > best) {
+                    best = score;
+                    current = neighbor;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    // 单层的最佳优先搜索，返回按相似度降序排列的最多ef个节点；liveOnly时结果中去掉墓碑
+    private List<Neighbor> searchLayer(float[] query, int start, int ef, int level, boolean liveOnly) {
+        BitSet visited = new BitSet(nodes.size());
+        visited.set(start);
+        Comparator<float[]> byScore = Comparator.comparingDouble(entry -> entry[1]);
+        PriorityQueue<float[]> candidates = new PriorityQueue<>(byScore.reversed()); // 相似度最高的先出
+        PriorityQueue<float[]> results = new PriorityQueue<>(byScore);               // 相似度最低的先出
+        float startScore = similarity(query, nodes.get(start));
+        candidates.add(new float[]{start, startScore});
+        results.add(new float[]{start, startScore});
+
+        while (!candidates.isEmpty()) {
+            float[] candidate = candidates.poll();
+            if (results.size() >= ef && candidate[1] < results.peek()[1]) {
+                break;
+            }
+            Node node = nodes.get((int) candidate[0]);
+            if (node.level() < level) {
+                continue;
+            }
+            for (int neighbor : node.links[level]) {
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float score = similarity(query, nodes.get(neighbor));
+                if (results.size() < ef || score > results.peek()[1]) {
+                    candidates.add(new float[]{neighbor, score});
+                    results.add(new float[]{neighbor, score});
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Neighbor> sorted = new ArrayList<>(results.size());
+        for (float[] entry : results) {
+            Node node = nodes.get((int) entry[0]);
+            if (!liveOnly || !node.deleted) {
+                sorted.add(new Neighbor(node.id, entry[1]));
+            }
+        }
+        sorted.sort(Comparator.comparingDouble(Neighbor::score).reversed());
+        return sorted;
+    }
+
+    // 为已有节点追加一个邻居，超出上限时只保留最相似的邻居
+    private void connect(int ordinal, int neighbor, int level, int maxLinks) {
+        Node node = nodes.get(ordinal);
+        int[] links = Arrays.copyOf(node.links[level], node.links[level].length + 1);
+        links[links.length - 1] = neighbor;
+        if (links.length > maxLinks) {
+            Integer[] boxed = Arrays.stream(links).boxed().toArray(Integer[]::new);
+            Arrays.sort(boxed, Comparator.comparingDouble((Integer other) -> similarity(node, nodes.get(other))).reversed());
+            links = new int[maxLinks];
+            for (int i = 0; i < maxLinks; i++) {
+                links[i] = boxed[i];
+            }
+        }
+        node.links[level] = links;
+    }
+
+    private int randomLevel() {
+        return (int) Math.floor(-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private static float similarity(float[] query, Node node) {
+        byte[] codes = node.codes;
+        float sum = 0f;
+        for (int i = 0; i < codes.length; i++) {
+            sum += query[i] * codes[i];
+        }
+        return sum * node.scale;
+    }
+
+    private static float similarity(Node a, Node b) {
+        int sum = 0;
+        for (int i = 0; i < a.codes.length; i++) {
+            sum += a.codes[i] * b.codes[i];
+        }
+        return sum * a.scale * b.scale;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double sumOfSquares = 0.0;
+        for (float value : vector) {
+            sumOfSquares += (double) value * value;
+        }
+        float[] normalized = new float[vector.length];
+        if (sumOfSquares == 0.0) {
+            return normalized;
+        }
+        float inverse = (float) (1.0 / Math.sqrt(sumOfSquares));
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * inverse;
+        }
+        return normalized;
+    }
+
+    // 对称int8量化：scale = max|v| / 127，返回scale
+    private static float quantize(float[] vector, byte[] codes) {
+        float maxAbs = 0f;
+        for (float value : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        if (maxAbs == 0f) {
+            return 0f;
+        }
+        float scale = maxAbs / 127f;
+        for (int i = 0; i < vector.length; i++) {
+            codes[i] = (byte) Math.round(vector[i] / scale);
+        }
+        return scale;
+    }
+
+    /**
+     * 写出索引：参数、入口点以及每个节点的ID、量化向量、内容哈希、墓碑和各层邻居。
+     * @param out 输出
+     * @throws IOException 写入失败
+     */
+    public void write(DataOutput out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(FORMAT_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(dimension);
+            out.writeInt(m);
+            out.writeInt(efConstruction);
+            out.writeInt(nodes.size());
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+            for (Node node : nodes) {
+                out.writeUTF(node.id);
+                out.writeFloat(node.scale);
+                out.write(node.codes);
+                out.writeLong(node.contentHash);
+                out.writeBoolean(node.deleted);
+                out.writeInt(node.level());
+                for (int[] links : node.links) {
+                    out.writeInt(links.length);
+                    for (int link : links) {
+                        out.writeInt(link);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 读取由 {@link #write(DataOutput)} 写出的索引。
+     * @param in 输入
+     * @return 索引
+     * @throws IOException 读取失败或格式不符
+     */
+    public static HnswIndex read(DataInput in) throws IOException {
+        if (in.readInt() != FORMAT_MAGIC) {
+            throw new IOException("Unsupported vector index format.");
+        }
+        int formatVersion = in.readInt();
+        if (formatVersion < 1 || formatVersion > FORMAT_VERSION) {
+            throw new IOException("Unsupported vector index format version " + formatVersion + ".");
+        }
+        HnswIndex index = new HnswIndex(in.readInt(), in.readInt(), in.readInt());
+        int size = in.readInt();
+        index.entryPoint = in.readInt();
+        index.maxLevel = in.readInt();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            String id = in.readUTF();
+            float scale = in.readFloat();
+            byte[] codes = new byte[index.dimension];
+            in.readFully(codes);
+            long contentHash = formatVersion >= 2 ? in.readLong() : 0L; // 版本1没有内容哈希，同步时会重新嵌入
+            boolean deleted = formatVersion >= 2 && in.readBoolean();
+            Node node = new Node(id, codes, scale, contentHash, in.readInt());
+            node.deleted = deleted;
+            for (int l = 0; l < node.links.length; l++) {
+                int[] links = new int[in.readInt()];
+                for (int i = 0; i < links.length; i++) {
+                    links[i] = in.readInt();
+                }
+                node.links[l] = links;
+            }
+            index.nodes.add(node);
+            if (deleted) {
+                index.tombstones++;
+            } else {
+                index.nodeOrdinals.put(id, ordinal);
+            }
+        }
+        return index;
+    }
+}
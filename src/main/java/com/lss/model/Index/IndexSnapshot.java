@@ -0,0 +1,453 @@
+package com.lss.model.Index;
+
+import com.lss.model.Index.ColumnArena.FloatColumn;
+import com.lss.model.Index.ColumnArena.IntColumn;
+import com.lss.util.CharBigrams;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 倒排索引的只读快照，每当文档总数 N 或文档频率 DF 变化时整体重建并原子替换。
+ * <p>
+ * 快照把可变的 {@link InvertedIndex} 转换为便于查询的结构：
+ * 文档序号、按词项序号索引的 IDF 表 ({@code float[]})、带预计算权重的倒排记录表、文档向量范数
+ * 以及列式存放的结构化字段 ({@link DocValues})。倒排记录表带有词项位置，另按域记录每个文档的词项数。
+ * 文档序号按讲座时间排列，序号顺序即时间顺序。
+ * 查询打分时只做数组访问，不再做字符串哈希、装箱或对数运算。
+ * <p>
+ * 倒排记录表、文档范数和列式字段值存放在快照自己的 {@link ColumnArena} 中，可以在堆外。
+ * 存储区按引用计数释放：查询读取期间通过 {@link #tryAcquire()} 持有引用，发布者在快照退役时释放自己的引用，
+ * 最后一个引用释放时才释放存储区。
+ */
+public final class IndexSnapshot implements AutoCloseable {
+
+    private static final IndexSnapshot EMPTY = build(new InvertedIndex(), 0);
+
+    private final long version;
+
+    // 由文档序号顺序和文档范数得到的内容标识，同一索引内容在任何进程、任何时候构建都相同
+    private final long identity;
+
+    // 文档序号 -> 文档
+    private final String[] docIds;
+    private final LectureDocument[] documents;
+    private final FloatColumn docNorms;
+    private final Map<String, Integer> docOrdinals;
+    private final DocValues docValues;
+
+    // 原始词项(不带域) -> 词项序号，词项、文档频率与IDF按词项序号存放
+    private final Map<String, Integer> termOrdinals;
+    private final String[] terms;
+    private final int[] documentFrequencies;
+    private final float[] idf;
+
+    // 带域词项 -> 倒排记录表
+    private final Map<String, TermPostings> postings;
+
+    // 域 -> 按文档序号存放的该域词项数
+    private final Map<String, IntColumn> fieldLengths;
+
+    private final ColumnArena arena;
+
+    // 引用计数：发布者持有1个，查询在读取期间各持有1个，降到0时释放存储区；堆内快照由GC回收，不计数
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    // 字符二元组索引，文档序号与本快照一致；发布快照前由 attachNgrams 构建，未构建时为null
+    private IndexSnapshot ngrams;
+
+    private IndexSnapshot(long version, long identity, String[] docIds, LectureDocument[] documents, FloatColumn docNorms,
+                          Map<String, Integer> docOrdinals, DocValues docValues, Map<String, Integer> termOrdinals,
+                          String[] terms, int[] documentFrequencies, float[] idf, Map<String, TermPostings> postings,
+                          Map<String, IntColumn> fieldLengths, ColumnArena arena) {
+        this.version = version;
+        this.identity = identity;
+        this.docIds = docIds;
+        this.documents = documents;
+        this.docNorms = docNorms;
+        this.docOrdinals = docOrdinals;
+        this.docValues = docValues;
+        this.termOrdinals = termOrdinals;
+        this.terms = terms;
+        this.documentFrequencies = documentFrequencies;
+        this.idf = idf;
+        this.postings = postings;
+        this.fieldLengths = fieldLengths;
+        this.arena = arena;
+    }
+
+    public static IndexSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * IDF公式，采用平滑处理：ln(N / DF(t) + 1)；DF为0时返回0。
+     * @param totalDocuments 文档总数 N
+     * @param documentFrequency 文档频率 DF
+     * @return IDF
+     */
+    public static double computeIdf(int totalDocuments, int documentFrequency) {
+        if (documentFrequency == 0) {
+            return 0.0;
+        }
+        return Math.log((double) totalDocuments / documentFrequency + 1);
+    }
+
+    /**
+     * 从倒排索引构建快照。调用方需保证构建期间索引不被修改。
+     * @param index 倒排索引
+     * @param version 快照版本号
+     * @return 快照
+     */
+    public static IndexSnapshot build(InvertedIndex index, long version) {
+        return build(index, version, null);
+    }
+
+    /**
+     * 从倒排索引构建快照，IDF（以及依赖IDF的权重和文档范数）按给定的全局统计量计算。
+     * 分片部署时各分片使用同一份全局统计量，打分因此可以跨分片比较。
+     * 全局统计量可能落后于本地的增量文档，N 与 DF 取全局与本地中较大的值，保证 DF 不超过 N。
+     * @param index 倒排索引
+     * @param version 快照版本号
+     * @param global 全局统计量，为null时使用索引本身的统计量
+     * @return 快照
+     */
+    public static IndexSnapshot build(InvertedIndex index, long version, CorpusStatistics global) {
+        return build(index, version, global, ColumnArena.heap());
+    }
+
+    /**
+     * 从倒排索引构建快照，倒排记录表、文档范数和列式字段值写入给定的存储区，快照关闭时释放存储区。
+     * 所有词项的倒排记录依次存放在同一组列中，堆上只保留每个词项的起始位置和长度。
+     * @param index 倒排索引
+     * @param version 快照版本号
+     * @param global 全局统计量，为null时使用索引本身的统计量
+     * @param arena 存储区，由快照接管
+     * @return 快照
+     */
+    public static IndexSnapshot build(InvertedIndex index, long version, CorpusStatistics global, ColumnArena arena) {
+        // 1. 文档序号：按讲座时间升序排列（没有时间的排在最后），时间相同按文档ID，
+        //    保证同一索引多次构建得到相同序号；按时间排序的查询沿序号遍历即可提前结束
+        Map<String, LectureDocument> store = index.getDocumentStore();
+        String[] docIds = store.keySet().toArray(new String[0]);
+        Arrays.sort(docIds, Comparator
+                .comparingLong((String id) -> timeOrMax(store.get(id)))
+                .thenComparing(Comparator.naturalOrder()));
+        int n = docIds.length;
+        LectureDocument[] documents = new LectureDocument[n];
+        Map<String, Integer> docOrdinals = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            documents[i] = store.get(docIds[i]);
+            docOrdinals.put(docIds[i], i);
+        }
+
+        // 2. 词项序号、文档频率与IDF表
+        Map<String, Integer> documentFrequencies = index.getDocumentFrequencies();
+        Map<String, Integer> termOrdinals = new HashMap<>(documentFrequencies.size() * 2);
+        String[] terms = new String[documentFrequencies.size()];
+        int[] dfs = new int[documentFrequencies.size()];
+        float[] idf = new float[documentFrequencies.size()];
+        int idfDocuments = global == null ? n : Math.max(n, global.getTotalDocuments());
+        int termOrdinal = 0;
+        for (Map.Entry<String, Integer> entry : documentFrequencies.entrySet()) {
+            termOrdinals.put(entry.getKey(), termOrdinal);
+            terms[termOrdinal] = entry.getKey();
+            dfs[termOrdinal] = entry.getValue();
+            int idfFrequency = global == null ? entry.getValue() : Math.max(entry.getValue(), global.documentFrequency(entry.getKey()));
+            idf[termOrdinal] = (float) computeIdf(idfDocuments, idfFrequency);
+            termOrdinal++;
+        }
+
+        // 3. 倒排记录表与文档范数：先逐个词项排序、计算权重，再依次拼接写入存储区
+        double[] sumOfSquares = new double[n];
+        Map<String, int[]> lengths = new HashMap<>();
+        List<String> indexedTerms = new ArrayList<>(index.getDictionary().size());
+        List<int[]> termDocs = new ArrayList<>(index.getDictionary().size());
+        List<int[]> termFreqs = new ArrayList<>(index.getDictionary().size());
+        List<float[]> termWeights = new ArrayList<>(index.getDictionary().size());
+        List<List<List<Integer>>> termPositions = new ArrayList<>(index.getDictionary().size());
+        int totalPostings = 0;
+        int totalPositions = 0;
+        for (Map.Entry<String, List<Posting>> entry : index.getDictionary().entrySet()) {
+            String indexedTerm = entry.getKey(); // "FIELD:term"
+            String originalTerm = indexedTerm.contains(":") ? indexedTerm.substring(indexedTerm.indexOf(":") + 1) : indexedTerm;
+            Integer ordinal = termOrdinals.get(originalTerm);
+            float termIdf = ordinal == null ? 0f : idf[ordinal];
+            int[] fieldLength = lengths.computeIfAbsent(
+                    indexedTerm.contains(":") ? indexedTerm.substring(0, indexedTerm.indexOf(":")) : "", k -> new int[n]);
+
+            List<Posting> list = entry.getValue();
+            long[] packed = new long[list.size()];
+            int[] rawFreqs = new int[list.size()];
+            Posting[] rawPostings = new Posting[list.size()];
+            int count = 0;
+            for (Posting posting : list) {
+                Integer docOrdinal = docOrdinals.get(posting.getDocumentId());
+                if (docOrdinal == null) {
+                    continue;
+                }
+                rawFreqs[count] = posting.getTermFrequency();
+                rawPostings[count] = posting;
+                packed[count] = ((long) docOrdinal << 32) | count;
+                count++;
+            }
+            Arrays.sort(packed, 0, count);
+
+            int[] docs = new int[count];
+            int[] freqs = new int[count];
+            float[] weights = new float[count];
+            List<List<Integer>> positions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int docOrdinal = (int) (packed[i] >>> 32);
+                Posting posting = rawPostings[(int) packed[i]];
+                int tf = rawFreqs[(int) packed[i]];
+                float weight = tf * termIdf;
+                docs[i] = docOrdinal;
+                freqs[i] = tf;
+                weights[i] = weight;
+                List<Integer> docPositions = posting.getPositions() == null ? List.of() : posting.getPositions();
+                positions.add(docPositions);
+                totalPositions += docPositions.size();
+                sumOfSquares[docOrdinal] += (double) weight * weight;
+                fieldLength[docOrdinal] += tf;
+            }
+            indexedTerms.add(indexedTerm);
+            termDocs.add(docs);
+            termFreqs.add(freqs);
+            termWeights.add(weights);
+            termPositions.add(positions);
+            totalPostings += count;
+        }
+
+        int[] allDocs = new int[totalPostings];
+        int[] allFreqs = new int[totalPostings];
+        float[] allWeights = new float[totalPostings];
+        int[] allPositionStarts = new int[totalPostings + 1];
+        int[] allPositions = new int[totalPositions];
+        int[] offsets = new int[indexedTerms.size()];
+        int position = 0;
+        int positionIndex = 0;
+        for (int t = 0; t < indexedTerms.size(); t++) {
+            int count = termDocs.get(t).length;
+            offsets[t] = position;
+            System.arraycopy(termDocs.get(t), 0, allDocs, position, count);
+            System.arraycopy(termFreqs.get(t), 0, allFreqs, position, count);
+            System.arraycopy(termWeights.get(t), 0, allWeights, position, count);
+            for (List<Integer> docPositions : termPositions.get(t)) {
+                allPositionStarts[position++] = positionIndex;
+                for (int value : docPositions) {
+                    allPositions[positionIndex++] = value;
+                }
+            }
+        }
+        allPositionStarts[totalPostings] = positionIndex;
+        IntColumn docColumn = arena.ints(allDocs);
+        IntColumn freqColumn = arena.ints(allFreqs);
+        FloatColumn weightColumn = arena.floats(allWeights);
+        IntColumn positionStartColumn = arena.ints(allPositionStarts);
+        IntColumn positionColumn = arena.ints(allPositions);
+        Map<String, TermPostings> postings = new HashMap<>(indexedTerms.size() * 2);
+        for (int t = 0; t < indexedTerms.size(); t++) {
+            postings.put(indexedTerms.get(t), new TermPostings(docColumn, freqColumn, weightColumn,
+                    positionStartColumn, positionColumn, offsets[t], termDocs.get(t).length));
+        }
+        Map<String, IntColumn> fieldLengths = new HashMap<>(lengths.size() * 2);
+        lengths.forEach((field, values) -> fieldLengths.put(field, arena.ints(values)));
+
+        float[] docNorms = new float[n];
+        for (int i = 0; i < n; i++) {
+            docNorms[i] = (float) Math.sqrt(sumOfSquares[i]);
+        }
+        return new IndexSnapshot(version, identityOf(docIds, docNorms), docIds, documents, arena.floats(docNorms),
+                docOrdinals, DocValues.build(documents, arena), termOrdinals, terms, dfs, idf, postings, fieldLengths, arena);
+    }
+
+    // 文档序号决定了游标中的文档序号含义，范数随文档内容与IDF变化，二者都相同时排序键也相同
+    private static long identityOf(String[] docIds, float[] docNorms) {
+        long hash = 0xcbf29ce484222325L; // FNV-1a
+        for (int i = 0; i < docIds.length; i++) {
+            hash = (hash ^ docIds[i].hashCode()) * 0x100000001b3L;
+            hash = (hash ^ Float.floatToIntBits(docNorms[i])) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long timeOrMax(LectureDocument document) {
+        return document.getLectureTime() == null ? Long.MAX_VALUE : document.getLectureTime();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 快照内容的标识：文档序号顺序与各文档范数的哈希。与进程内递增的版本号不同，
+     * 重启、从持久化文件或索引包重新加载后，内容相同的快照标识相同，内容变化后标识随之变化。
+     * @return 内容标识
+     */
+    public long getIdentity() {
+        return identity;
+    }
+
+    public int getTotalDocuments() {
+        return docIds.length;
+    }
+
+    /**
+     * @param docId 文档ID
+     * @return 文档序号，不存在时返回-1
+     */
+    public int ordinalOf(String docId) {
+        Integer ordinal = docOrdinals.get(docId);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    public String docId(int docOrdinal) {
+        return docIds[docOrdinal];
+    }
+
+    public LectureDocument document(int docOrdinal) {
+        return documents[docOrdinal];
+    }
+
+    public float norm(int docOrdinal) {
+        return docNorms.get(docOrdinal);
+    }
+
+    /**
+     * @return 按文档序号存放的讲座时间、主讲人、地点、主办学院
+     */
+    public DocValues getDocValues() {
+        return docValues;
+    }
+
+    /**
+     * @param term 原始词项(不带域)
+     * @return 词项序号，不存在时返回-1
+     */
+    public int termOrdinal(String term) {
+        Integer ordinal = termOrdinals.get(term);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    public String term(int termOrdinal) {
+        return terms[termOrdinal];
+    }
+
+    public int documentFrequency(int termOrdinal) {
+        return documentFrequencies[termOrdinal];
+    }
+
+    public float idf(int termOrdinal) {
+        return idf[termOrdinal];
+    }
+
+    /**
+     * @param term 原始词项(不带域)
+     * @return IDF，未出现过的词项返回0
+     */
+    public float idf(String term) {
+        int ordinal = termOrdinal(term);
+        return ordinal < 0 ? 0f : idf[ordinal];
+    }
+
+    public int getTermCount() {
+        return idf.length;
+    }
+
+    /**
+     * @param indexedTerm 带域词项，例如 "Title:讲座"
+     * @return 倒排记录表，不存在时返回空表
+     */
+    public TermPostings postings(String indexedTerm) {
+        return postings.getOrDefault(indexedTerm, TermPostings.EMPTY);
+    }
+
+    /**
+     * @param field 域，例如 "Title"
+     * @param docOrdinal 文档序号
+     * @return 文档在该域中的词项数
+     */
+    public int fieldLength(String field, int docOrdinal) {
+        IntColumn lengths = fieldLengths.get(field);
+        return lengths == null ? 0 : lengths.get(docOrdinal);
+    }
+
+    /**
+     * 构建字符二元组索引：对每个文档的标题和主讲人切分字符二元组，分别作为 Title、Speaker 域的词项，
+     * 两者合起来作为 FullText 域（正文不在内存中，不参与）。二元组索引本身也是一个快照，
+     * 使用同一个存储区，倒排记录表、位图求值和打分与主索引相同；文档集合相同，因此文档序号一致。
+     * 必须在快照发布给查询之前调用。
+     * @return 二元组索引
+     */
+    public IndexSnapshot attachNgrams() {
+        InvertedIndex index = new InvertedIndex();
+        for (LectureDocument document : documents) {
+            List<String> title = CharBigrams.of(document.getTitle() == null ? null : document.getTitle().split("\\.")[0]);
+            List<String> speaker = CharBigrams.of(document.getSpeaker());
+            List<String> all = new ArrayList<>(title.size() + speaker.size());
+            all.addAll(title);
+            all.addAll(speaker);
+            index.addDocument(document, title, "Title"); // 没有二元组的文档也要登记，保证文档序号一致
+            index.addDocument(document, speaker, "Speaker");
+            index.addDocument(document, all, "FullText");
+        }
+        this.ngrams = build(index, version, null, arena);
+        return ngrams;
+    }
+
+    /**
+     * @return 字符二元组索引，未构建时返回null
+     */
+    public IndexSnapshot getNgrams() {
+        return ngrams;
+    }
+
+    /**
+     * @return 快照的存储区
+     */
+    public ColumnArena getArena() {
+        return arena;
+    }
+
+    /**
+     * 查询开始时获取一个引用，读取结束后调用 {@link #release()}。
+     * @return 是否获取成功；快照已退役且所有引用都已释放时返回false，调用方应重新获取当前快照
+     */
+    public boolean tryAcquire() {
+        if (arena == ColumnArena.heap()) {
+            return true;
+        }
+        int count;
+        do {
+            count = references.get();
+            if (count <= 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    /**
+     * 释放一个引用，最后一个引用释放时释放存储区（字符二元组索引共用同一存储区）。
+     * 之后读取倒排记录表、文档范数或列式字段值会抛出 {@link IllegalStateException}（堆外存储时）。
+     */
+    public void release() {
+        if (arena != ColumnArena.heap() && references.decrementAndGet() == 0) {
+            arena.close();
+        }
+    }
+
+    /**
+     * 等同于 {@link #release()}，便于查询以 try-with-resources 持有快照。
+     */
+    @Override
+    public void close() {
+        release();
+    }
+}
@@ -0,0 +1,44 @@
+package com.lss.model.Index;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一篇文档的完整索引输入：文档元数据加上各个域的分词结果。
+ * 既用于构建索引，也作为预写日志中的一条记录，重放时按原顺序写回索引。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndexWalRecord implements Serializable {
+    private static final long serialVersionUID = 303L;
+
+    private long baseGeneration; // 记录写入时所基于的快照代数，旧代数的记录在重放时跳过
+    private LectureDocument document;
+    private LinkedHashMap<String, List<String>> fieldTerms; // 域 -> 分词结果，保持写入顺序
+
+    public IndexWalRecord(LectureDocument document) {
+        this.document = document;
+        this.fieldTerms = new LinkedHashMap<>();
+    }
+
+    public void addField(String fieldType, List<String> terms) {
+        fieldTerms.put(fieldType, terms);
+    }
+
+    /**
+     * 将该记录写入指定的倒排索引。
+     * @param index 目标索引
+     */
+    public void applyTo(InvertedIndex index) {
+        for (Map.Entry<String, List<String>> entry : fieldTerms.entrySet()) {
+            index.addDocument(document, entry.getValue(), entry.getKey());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 // src/main/java/com/yourcompany/lecturesystem/model/InvertedIndex.java
 package com.lss.model.Index;
 
+import com.lss.util.ShardRouter;
 import lombok.Data;
 
 import java.io.Serializable;
@@ -108,4 +109,36 @@ public class InvertedIndex implements Serializable {
         return new ArrayList<>(documentStore.keySet());
     }
 
+    /**
+     * 取出属于指定分片的文档构成一个新索引，倒排记录与文档元数据共享，不复制。
+     * 文档频率按分片内的倒排记录重新统计，与逐个添加这些文档得到的结果相同（每个域各计一次）。
+     * @param shard 分片号
+     * @param shardCount 分片总数
+     * @return 分片索引
+     */
+    public InvertedIndex partition(int shard, int shardCount) {
+        InvertedIndex partition = new InvertedIndex();
+        documentStore.forEach((docId, document) -> {
+            if (ShardRouter.owns(docId, shard, shardCount)) {
+                partition.documentStore.put(docId, document);
+            }
+        });
+        for (Map.Entry<String, List<Posting>> entry : dictionary.entrySet()) {
+            List<Posting> postings = new ArrayList<>();
+            for (Posting posting : entry.getValue()) {
+                if (partition.documentStore.containsKey(posting.getDocumentId())) {
+                    postings.add(posting);
+                }
+            }
+            if (postings.isEmpty()) {
+                continue;
+            }
+            String indexedTerm = entry.getKey();
+            String originalTerm = indexedTerm.substring(indexedTerm.indexOf(":") + 1);
+            partition.dictionary.put(indexedTerm, postings);
+            partition.documentFrequencies.merge(originalTerm, postings.size(), Integer::sum);
+        }
+        return partition;
+    }
+
 }
\ No newline at end of file
@@ -20,6 +20,21 @@ public class LectureDocument implements Serializable {
     private String originalFilePath; // 原始Markdown文件路径
     private double vectorNorm; // 新增字段：存储文档向量的欧几里得范数
 
+    // 从正文提取的结构化字段，缺失时为null
+    private String speaker;      // 主讲人
+    private Long lectureTime;    // 讲座时间，毫秒时间戳
+    private String location;     // 地点
+    private String school;       // 主办学院
+    private boolean structuredFieldsExtracted; // 旧索引中的文档为false，启动后补提取
+
+    /**
+     * @return 字段相同的新对象，修改它不影响已发布的快照
+     */
+    public LectureDocument copy() {
+        return new LectureDocument(id, title, content, abstractText, originalFilePath, vectorNorm,
+                speaker, lectureTime, location, school, structuredFieldsExtracted);
+    }
+
     @Override
     public String toString() {
         return "LectureDocument{" +
@@ -29,6 +44,10 @@ public class LectureDocument implements Serializable {
                 ", abstractText='" + abstractText + '\'' +
                 ", originalFilePath='" + originalFilePath + '\'' +
                 ", vectorNorm=" + vectorNorm +
+                ", speaker='" + speaker + '\'' +
+                ", lectureTime=" + lectureTime +
+                ", location='" + location + '\'' +
+                ", school='" + school + '\'' +
                 '}';
     }
 
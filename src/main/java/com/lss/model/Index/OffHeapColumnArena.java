@@ -0,0 +1,77 @@
+package com.lss.model.Index;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 堆外实现：每列分配在同一个共享 {@link Arena} 中，多个查询线程可以同时读取，关闭时整体释放。
+ * 使用 Java 21 的FFM预览API，只能在启用预览特性时加载，由 {@link ColumnArena#factory(boolean)} 通过反射创建。
+ */
+final class OffHeapColumnArena extends ColumnArena {
+
+    private final Arena arena = Arena.ofShared();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    @Override
+    public String name() {
+        return "off-heap";
+    }
+
+    @Override
+    public IntColumn ints(int[] values) {
+        MemorySegment segment = arena.allocateArray(ValueLayout.JAVA_INT, values);
+        bytes.addAndGet(segment.byteSize());
+        return new SegmentInts(segment, values.length);
+    }
+
+    @Override
+    public FloatColumn floats(float[] values) {
+        MemorySegment segment = arena.allocateArray(ValueLayout.JAVA_FLOAT, values);
+        bytes.addAndGet(segment.byteSize());
+        return new SegmentFloats(segment, values.length);
+    }
+
+    @Override
+    public LongColumn longs(long[] values) {
+        MemorySegment segment = arena.allocateArray(ValueLayout.JAVA_LONG, values);
+        bytes.addAndGet(segment.byteSize());
+        return new SegmentLongs(segment, values.length);
+    }
+
+    @Override
+    public long offHeapBytes() {
+        return bytes.get();
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            arena.close();
+        }
+    }
+
+    private record SegmentInts(MemorySegment segment, int size) implements IntColumn {
+        @Override
+        public int get(int index) {
+            return segment.getAtIndex(ValueLayout.JAVA_INT, index);
+        }
+    }
+
+    private record SegmentFloats(MemorySegment segment, int size) implements FloatColumn {
+        @Override
+        public float get(int index) {
+            return segment.getAtIndex(ValueLayout.JAVA_FLOAT, index);
+        }
+    }
+
+    private record SegmentLongs(MemorySegment segment, int size) implements LongColumn {
+        @Override
+        public long get(int index) {
+            return segment.getAtIndex(ValueLayout.JAVA_LONG, index);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.lss.model.Index;
+
+import com.lss.model.Index.ColumnArena.IntColumn;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * 字典编码的字符串列：不同取值按字典序排列后编号，每个文档只存取值序号。
+ * 按取值过滤、分面计数时只比较int，取值序号的大小顺序与字符串的字典序一致。
+ */
+public final class OrdinalColumn {
+
+    public static final int MISSING = -1;
+
+    private final String[] values;  // 取值序号 -> 取值，按字典序排列
+    private final IntColumn ordinals; // 文档序号 -> 取值序号，缺失为MISSING
+
+    private OrdinalColumn(String[] values, IntColumn ordinals) {
+        this.values = values;
+        this.ordinals = ordinals;
+    }
+
+    /**
+     * @param perDocument 文档序号 -> 取值，null表示缺失
+     * @return 字典编码后的列
+     */
+    public static OrdinalColumn build(String[] perDocument) {
+        return build(perDocument, ColumnArena.heap());
+    }
+
+    /**
+     * @param perDocument 文档序号 -> 取值，null表示缺失
+     * @param arena 存放取值序号的存储区，取值字典始终在堆内
+     * @return 字典编码后的列
+     */
+    public static OrdinalColumn build(String[] perDocument, ColumnArena arena) {
+        TreeSet<String> distinct = new TreeSet<>();
+        for (String value : perDocument) {
+            if (value != null) {
+                distinct.add(value);
+            }
+        }
+        String[] values = distinct.toArray(new String[0]);
+        int[] ordinals = new int[perDocument.length];
+        for (int doc = 0; doc < perDocument.length; doc++) {
+            ordinals[doc] = perDocument[doc] == null ? MISSING : Arrays.binarySearch(values, perDocument[doc]);
+        }
+        return new OrdinalColumn(values, arena.ints(ordinals));
+    }
+
+    /**
+     * @param docOrdinal 文档序号
+     * @return 取值序号，缺失时返回MISSING
+     */
+    public int ordinal(int docOrdinal) {
+        return ordinals.get(docOrdinal);
+    }
+
+    /**
+     * @param docOrdinal 文档序号
+     * @return 取值，缺失时返回null
+     */
+    public String value(int docOrdinal) {
+        int ordinal = ordinals.get(docOrdinal);
+        return ordinal == MISSING ? null : values[ordinal];
+    }
+
+    /**
+     * @param ordinal 取值序号
+     * @return 取值
+     */
+    public String lookup(int ordinal) {
+        return values[ordinal];
+    }
+
+    /**
+     * @param value 取值
+     * @return 取值序号，不存在时返回MISSING
+     */
+    public int ordinalOf(String value) {
+        int ordinal = Arrays.binarySearch(values, value);
+        return ordinal < 0 ? MISSING : ordinal;
+    }
+
+    /**
+     * @return 不同取值的个数
+     */
+    public int cardinality() {
+        return values.length;
+    }
+}
@@ -0,0 +1,23 @@
+package com.lss.model.Index;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 讲座正文切分出的段落，作为对话检索增强的最小单元。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Passage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String docId;   // 所属讲座文档ID
+    private String title;   // 所属讲座题目
+    private String section; // 所在小节，例如 报告人简介 / 报告摘要
+    private String text;    // 段落正文
+    private int tokenCount; // 近似token数，用于上下文预算
+}
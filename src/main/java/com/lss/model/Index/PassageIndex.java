@@ -0,0 +1,136 @@
+package com.lss.model.Index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 段落级倒排索引的只读快照，与 {@link IndexSnapshot} 的版本一一对应。
+ * <p>
+ * 每个段落拥有自己的倒排记录和向量范数，IDF以段落为单位统计，
+ * 因此只在少数段落中出现的词项（例如某位报告人的研究方向）权重更高。
+ */
+public final class PassageIndex {
+
+    private static final PassageIndex EMPTY = build(-1, new ArrayList<>(), new ArrayList<>());
+
+    private final long version;
+    private final Passage[] passages;
+    private final float[] norms;
+    private final Map<String, Float> idf;
+    private final Map<String, TermPostings> postings;
+
+    private PassageIndex(long version, Passage[] passages, float[] norms,
+                         Map<String, Float> idf, Map<String, TermPostings> postings) {
+        this.version = version;
+        this.passages = passages;
+        this.norms = norms;
+        this.idf = idf;
+        this.postings = postings;
+    }
+
+    public static PassageIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 构建段落索引。
+     * @param version 对应的索引快照版本
+     * @param passages 段落列表
+     * @param passageTerms 与段落一一对应的分词结果
+     * @return 段落索引
+     */
+    public static PassageIndex build(long version, List<Passage> passages, List<List<String>> passageTerms) {
+        int n = passages.size();
+
+        // 1. 每个段落的词频，以及词项 -> 段落序号列表（段落按序号顺序加入，天然升序）
+        Map<String, List<int[]>> occurrences = new HashMap<>();
+        for (int ordinal = 0; ordinal < n; ordinal++) {
+            Map<String, Integer> frequencies = new LinkedHashMap<>();
+            for (String term : passageTerms.get(ordinal)) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                occurrences.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+                        .add(new int[]{ordinal, entry.getValue()});
+            }
+        }
+
+        // 2. IDF、带权倒排记录表与段落范数
+        double[] sumOfSquares = new double[n];
+        Map<String, Float> idf = new HashMap<>(occurrences.size() * 2);
+        Map<String, TermPostings> postings = new HashMap<>(occurrences.size() * 2);
+        for (Map.Entry<String, List<int[]>> entry : occurrences.entrySet()) {
+            List<int[]> list = entry.getValue();
+            float termIdf = (float) IndexSnapshot.computeIdf(n, list.size());
+            int[] docs = new int[list.size()];
+            int[] freqs = new int[list.size()];
+            float[] weights = new float[list.size()];
+            for (int i = 0; i < list.size(); i++) {
+                docs[i] = list.get(i)[0];
+                freqs[i] = list.get(i)[1];
+                weights[i] = freqs[i] * termIdf;
+                sumOfSquares[docs[i]] += (double) weights[i] * weights[i];
+            }
+            idf.put(entry.getKey(), termIdf);
+            postings.put(entry.getKey(), new TermPostings(docs, freqs, weights));
+        }
+
+        float[] norms = new float[n];
+        for (int i = 0; i < n; i++) {
+            norms[i] = (float) Math.sqrt(sumOfSquares[i]);
+        }
+        return new PassageIndex(version, passages.toArray(new Passage[0]), norms, idf, postings);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return passages.length;
+    }
+
+    public Passage passage(int ordinal) {
+        return passages[ordinal];
+    }
+
+    /**
+     * 计算查询与所有段落的余弦相似度（按词项遍历倒排记录表累加）。
+     * @param queryTerms 查询分词结果
+     * @return 与段落序号对应的分数数组，未命中的段落为0
+     */
+    public float[] score(List<String> queryTerms) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        for (String term : queryTerms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+
+        float[] scores = new float[passages.length];
+        double queryNormSquared = 0.0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            float queryWeight = entry.getValue() * idf.getOrDefault(entry.getKey(), 0f);
+            if (queryWeight == 0f) {
+                continue;
+            }
+            queryNormSquared += (double) queryWeight * queryWeight;
+            TermPostings list = postings.get(entry.getKey());
+            for (int i = 0; i < list.size(); i++) {
+                scores[list.doc(i)] += queryWeight * list.weight(i);
+            }
+        }
+
+        if (queryNormSquared == 0.0) {
+            return scores;
+        }
+        float queryNorm = (float) Math.sqrt(queryNormSquared);
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] > 0f) {
+                scores[i] /= queryNorm * norms[i];
+            }
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,59 @@
+package com.lss.model.Index;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 按词项累加打分：遍历一个词项在文档序号区间内的倒排记录，把 查询词项权重 × 文档词项权重
+ * 累加到按文档序号存放的累加数组。同一倒排记录表内文档序号不重复，各条记录可以并行累加。
+ * <p>
+ * 有两种实现：使用 {@code jdk.incubator.vector} 的SIMD实现，以及标量实现。启动时通过 {@link #select(boolean)}
+ * 选择一次；运行时没有加载该孵化模块（未指定 {@code --add-modules jdk.incubator.vector}）时使用标量实现。
+ * 两种实现逐条记录先乘后加，不使用融合乘加，结果逐位相同。
+ */
+@Slf4j
+public abstract class PostingsScorer {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * @return 实现名称，用于日志
+     */
+    public abstract String name();
+
+    /**
+     * 累加一个词项的倒排记录：accumulators[doc - base] += queryWeight × weight。
+     * @param postings 倒排记录表
+     * @param start 起始下标（包含）
+     * @param end 结束下标（不包含），区间内的文档序号都在累加数组范围内
+     * @param queryWeight 查询词项权重
+     * @param accumulators 累加数组
+     * @param base 累加数组第一个元素对应的文档序号
+     */
+    public abstract void accumulate(TermPostings postings, int start, int end, float queryWeight,
+                                    float[] accumulators, int base);
+
+    /**
+     * 选择打分实现。
+     * @param vectorEnabled 是否允许使用SIMD实现
+     * @return SIMD实现；不允许、孵化模块未加载或初始化失败时返回标量实现
+     */
+    public static PostingsScorer select(boolean vectorEnabled) {
+        if (vectorEnabled && ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                // 通过反射加载，避免未加载孵化模块时标量路径也触发链接错误
+                return (PostingsScorer) Class.forName(PostingsScorer.class.getPackageName() + ".VectorPostingsScorer")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.warn("Vector API scorer unavailable, falling back to scalar: {}", e.toString());
+            }
+        }
+        return scalar();
+    }
+
+    /**
+     * @return 标量实现
+     */
+    public static PostingsScorer scalar() {
+        return ScalarPostingsScorer.INSTANCE;
+    }
+}
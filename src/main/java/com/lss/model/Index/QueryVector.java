@@ -0,0 +1,56 @@
+package com.lss.model.Index;
+
+/**
+ * 查询向量：查询中每个不同词项的 TF-IDF 权重及其在目标域中的倒排记录表。
+ * 每个查询只构建一次，之后对所有候选文档的打分都只做数组访问。
+ */
+public final class QueryVector {
+
+    private final IndexSnapshot snapshot;
+    private final String field;
+    private final String[] terms;
+    private final float[] weights;
+    private final TermPostings[] postings;
+    private final double norm;
+
+    public QueryVector(IndexSnapshot snapshot, String field, String[] terms, float[] weights, TermPostings[] postings) {
+        this.snapshot = snapshot;
+        this.field = field;
+        this.terms = terms;
+        this.weights = weights;
+        this.postings = postings;
+        double sumOfSquares = 0.0;
+        for (float weight : weights) {
+            sumOfSquares += (double) weight * weight;
+        }
+        this.norm = Math.sqrt(sumOfSquares);
+    }
+
+    public IndexSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    public String term(int index) {
+        return terms[index];
+    }
+
+    public float weight(int index) {
+        return weights[index];
+    }
+
+    public TermPostings postings(int index) {
+        return postings[index];
+    }
+
+    public double getNorm() {
+        return norm;
+    }
+}
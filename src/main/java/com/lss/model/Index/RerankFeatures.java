@@ -0,0 +1,141 @@
+package com.lss.model.Index;
+
+import com.lss.constant.RerankFeature;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 第二阶段重排的特征计算：只对第一阶段选出的少量候选调用，读取快照中的倒排记录、词项位置、
+ * 各域词项数和列式讲座时间，不读取原文。
+ */
+public final class RerankFeatures {
+
+    private final IndexSnapshot snapshot;
+    private final String field;
+    private final List<String> terms;      // 不同的查询词项
+    private final TermPostings[] titlePostings;
+    private final TermPostings[] fieldPostings;
+    private final String joinedQuery;      // 查询词项连接后的小写文本，用于主讲人匹配
+    private final long now;
+    private final long halfLifeMillis;
+
+    /**
+     * @param snapshot 索引快照
+     * @param field 查询的域，邻近度在该域的词项位置上计算
+     * @param queryTerms 查询词项（不含同义词扩展）
+     * @param now 当前时间（毫秒）
+     * @param halfLifeMillis 时效衰减的半衰期
+     */
+    public RerankFeatures(IndexSnapshot snapshot, String field, List<String> queryTerms, long now, long halfLifeMillis) {
+        this.snapshot = snapshot;
+        this.field = field;
+        this.terms = new ArrayList<>(new LinkedHashSet<>(queryTerms));
+        this.titlePostings = new TermPostings[terms.size()];
+        this.fieldPostings = new TermPostings[terms.size()];
+        for (int i = 0; i < terms.size(); i++) {
+            titlePostings[i] = snapshot.postings("Title:" + terms.get(i));
+            fieldPostings[i] = snapshot.postings(field + ":" + terms.get(i));
+        }
+        this.joinedQuery = String.join("", queryTerms).toLowerCase(Locale.ROOT);
+        this.now = now;
+        this.halfLifeMillis = halfLifeMillis;
+    }
+
+    /**
+     * @param docOrdinal 文档序号
+     * @param firstPassScore 第一阶段分数
+     * @return 特征值，下标为 {@link RerankFeature#ordinal()}
+     */
+    public float[] extract(int docOrdinal, double firstPassScore) {
+        float[] features = new float[RerankFeature.values().length];
+        features[RerankFeature.FIRST_PASS.ordinal()] = (float) firstPassScore;
+        features[RerankFeature.TITLE_MATCH.ordinal()] = titleMatch(docOrdinal);
+        features[RerankFeature.SPEAKER_MATCH.ordinal()] = speakerMatch(docOrdinal);
+        features[RerankFeature.PROXIMITY.ordinal()] = proximity(docOrdinal);
+        features[RerankFeature.RECENCY.ordinal()] = recency(docOrdinal);
+        features[RerankFeature.TITLE_LENGTH.ordinal()] = (float) Math.log1p(snapshot.fieldLength("Title", docOrdinal));
+        features[RerankFeature.BODY_LENGTH.ordinal()] = (float) Math.log1p(snapshot.fieldLength("FullText", docOrdinal));
+        return features;
+    }
+
+    private float titleMatch(int docOrdinal) {
+        if (terms.isEmpty()) {
+            return 0f;
+        }
+        int matched = 0;
+        for (TermPostings postings : titlePostings) {
+            if (postings.indexOf(docOrdinal) >= 0) {
+                matched++;
+            }
+        }
+        return (float) matched / terms.size();
+    }
+
+    private float speakerMatch(int docOrdinal) {
+        String speaker = snapshot.document(docOrdinal).getSpeaker();
+        if (speaker == null || speaker.isBlank()) {
+            return 0f;
+        }
+        String normalized = speaker.replaceAll("\\s+", "").toLowerCase(Locale.ROOT);
+        return normalized.length() >= 2 && joinedQuery.contains(normalized) ? 1f : 0f;
+    }
+
+    // (k - 1) / 最小覆盖窗口跨度：命中的 k 个词项相邻出现时为1
+    private float proximity(int docOrdinal) {
+        List<int[]> lists = new ArrayList<>(terms.size());
+        for (TermPostings postings : fieldPostings) {
+            int index = postings.indexOf(docOrdinal);
+            int count = index < 0 ? 0 : postings.positionCount(index);
+            if (count > 0) {
+                int[] positions = new int[count];
+                for (int i = 0; i < count; i++) {
+                    positions[i] = postings.position(index, i);
+                }
+                lists.add(positions);
+            }
+        }
+        if (lists.size() < 2) {
+            return 0f;
+        }
+        int span = minimumWindow(lists);
+        return span <= 0 ? 0f : Math.min(1f, (float) (lists.size() - 1) / span);
+    }
+
+    /**
+     * 从每个升序位置列表中各取一个位置，使最大值与最小值之差最小。
+     * 每次把当前最小的位置所在列表向后移动一位，直到某个列表用完。
+     * @param lists 各词项的位置列表，均不为空
+     * @return 最小跨度
+     */
+    static int minimumWindow(List<int[]> lists) {
+        int k = lists.size();
+        int[] cursor = new int[k];
+        int best = Integer.MAX_VALUE;
+        while (true) {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            int minList = 0;
+            for (int i = 0; i < k; i++) {
+                int value = lists.get(i)[cursor[i]];
+                if (value < min) {
+                    min = value;
+                    minList = i;
+                }
+                max = Math.max(max, value);
+            }
+            best = Math.min(best, max - min);
+            if (++cursor[minList] >= lists.get(minList).length) {
+                return best;
+            }
+        }
+    }
+
+    private float recency(int docOrdinal) {
+        long lectureTime = snapshot.getDocValues().lectureTime(docOrdinal);
+        double age = lectureTime == DocValues.MISSING_TIME ? halfLifeMillis : Math.max(0, now - lectureTime);
+        return (float) Math.pow(0.5, age / halfLifeMillis);
+    }
+}
@@ -0,0 +1,161 @@
+package com.lss.model.Index;
+
+import com.lss.constant.RerankFeature;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 第二阶段重排模型：输入按 {@link RerankFeature} 顺序排列的特征值，输出重排分数（越大越靠前）。
+ * 模型文件为 properties 格式，{@code type} 指定模型类型：
+ * <ul>
+ *     <li>{@code linear}：分数 = bias + Σ weight.特征名 × 特征值，未列出的特征权重为0</li>
+ *     <li>{@code trees}：分数 = bias + Σ 各棵回归树的输出。每棵树写作 {@code tree.编号}，节点以分号分隔、
+ *     从0编号，内部节点写作 {@code 特征名<阈值?左子节点:右子节点}（小于阈值走左边），叶子节点是一个数</li>
+ * </ul>
+ */
+public abstract class RerankModel {
+
+    /**
+     * @param features 特征值，下标为 {@link RerankFeature#ordinal()}
+     * @return 重排分数
+     */
+    public abstract double score(float[] features);
+
+    /**
+     * 只使用第一阶段分数的线性模型，没有模型文件时使用，重排结果与第一阶段相同。
+     */
+    public static RerankModel firstPassOnly() {
+        float[] weights = new float[RerankFeature.values().length];
+        weights[RerankFeature.FIRST_PASS.ordinal()] = 1f;
+        return new Linear(0, weights);
+    }
+
+    /**
+     * 解析模型文件。
+     * @param properties 模型文件内容
+     * @return 模型
+     * @throws IllegalArgumentException 模型类型、特征名或树结构不合法
+     */
+    public static RerankModel load(Properties properties) {
+        String type = properties.getProperty("type", "linear").trim();
+        double bias = Double.parseDouble(properties.getProperty("bias", "0").trim());
+        String prefix = "linear".equals(type) ? "weight." : "tree.";
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.equals("type") && !key.equals("bias") && !key.startsWith(prefix)) {
+                throw new IllegalArgumentException("Unknown rerank model property: " + key);
+            }
+        }
+        return switch (type) {
+            case "linear" -> {
+                float[] weights = new float[RerankFeature.values().length];
+                for (String key : properties.stringPropertyNames()) {
+                    if (key.startsWith("weight.")) {
+                        weights[featureOf(key.substring("weight.".length())).ordinal()] =
+                                Float.parseFloat(properties.getProperty(key).trim());
+                    }
+                }
+                yield new Linear(bias, weights);
+            }
+            case "trees" -> {
+                List<Tree> trees = new ArrayList<>();
+                for (int i = 0; properties.containsKey("tree." + i); i++) {
+                    trees.add(Tree.parse(properties.getProperty("tree." + i)));
+                }
+                if (trees.isEmpty()) {
+                    throw new IllegalArgumentException("A trees model needs tree.0");
+                }
+                yield new Trees(bias, trees.toArray(new Tree[0]));
+            }
+            default -> throw new IllegalArgumentException("Unknown rerank model type: " + type);
+        };
+    }
+
+    private static RerankFeature featureOf(String key) {
+        RerankFeature feature = RerankFeature.of(key.trim());
+        if (feature == null) {
+            throw new IllegalArgumentException("Unknown rerank feature: " + key);
+        }
+        return feature;
+    }
+
+    static final class Linear extends RerankModel {
+        private final double bias;
+        private final float[] weights;
+
+        Linear(double bias, float[] weights) {
+            this.bias = bias;
+            this.weights = weights;
+        }
+
+        @Override
+        public double score(float[] features) {
+            double score = bias;
+            for (int i = 0; i < weights.length; i++) {
+                score += (double) weights[i] * features[i];
+            }
+            return score;
+        }
+    }
+
+    static final class Trees extends RerankModel {
+        private final double bias;
+        private final Tree[] trees;
+
+        Trees(double bias, Tree[] trees) {
+            this.bias = bias;
+            this.trees = trees;
+        }
+
+        @Override
+        public double score(float[] features) {
+            double score = bias;
+            for (Tree tree : trees) {
+                score += tree.evaluate(features);
+            }
+            return score;
+        }
+    }
+
+    // 数组存放的回归树：feature[i] < 0 表示叶子，value[i] 为叶子的输出
+    private record Tree(int[] feature, float[] threshold, int[] left, int[] right, float[] value) {
+
+        static Tree parse(String text) {
+            String[] nodes = text.split(";");
+            int size = nodes.length;
+            Tree tree = new Tree(new int[size], new float[size], new int[size], new int[size], new float[size]);
+            for (int i = 0; i < size; i++) {
+                String node = nodes[i].trim();
+                int less = node.indexOf('<');
+                if (less < 0) {
+                    tree.feature[i] = -1;
+                    tree.value[i] = Float.parseFloat(node);
+                    continue;
+                }
+                int question = node.indexOf('?', less);
+                int colon = node.indexOf(':', question);
+                if (question < 0 || colon < 0) {
+                    throw new IllegalArgumentException("Malformed tree node: " + node);
+                }
+                tree.feature[i] = featureOf(node.substring(0, less)).ordinal();
+                tree.threshold[i] = Float.parseFloat(node.substring(less + 1, question).trim());
+                tree.left[i] = Integer.parseInt(node.substring(question + 1, colon).trim());
+                tree.right[i] = Integer.parseInt(node.substring(colon + 1).trim());
+                // 子节点编号必须大于父节点，保证没有环、每次求值都能到达叶子
+                if (tree.left[i] <= i || tree.right[i] <= i || tree.left[i] >= size || tree.right[i] >= size) {
+                    throw new IllegalArgumentException("Tree node " + i + " has invalid children: " + node);
+                }
+            }
+            return tree;
+        }
+
+        float evaluate(float[] features) {
+            int node = 0;
+            while (feature[node] >= 0) {
+                node = features[feature[node]] < threshold[node] ? left[node] : right[node];
+            }
+            return value[node];
+        }
+    }
+}
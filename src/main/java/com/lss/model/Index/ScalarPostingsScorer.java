@@ -0,0 +1,33 @@
+package com.lss.model.Index;
+
+/**
+ * 标量实现：逐条记录累加。列在堆外时通过列接口读取。
+ */
+final class ScalarPostingsScorer extends PostingsScorer {
+
+    static final ScalarPostingsScorer INSTANCE = new ScalarPostingsScorer();
+
+    private ScalarPostingsScorer() {
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public void accumulate(TermPostings postings, int start, int end, float queryWeight, float[] accumulators, int base) {
+        int[] docs = postings.docArray();
+        float[] weights = postings.weightArray();
+        if (docs == null || weights == null) {
+            for (int j = start; j < end; j++) {
+                accumulators[postings.doc(j) - base] += queryWeight * postings.weight(j);
+            }
+            return;
+        }
+        int offset = postings.arrayOffset();
+        for (int j = start + offset; j < end + offset; j++) {
+            accumulators[docs[j] - base] += queryWeight * weights[j];
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.lss.model.Index;
+
+import com.lss.util.PinyinUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 纠错词典：由索引快照的词项及其文档频率构建，与快照版本对应，只读。
+ * <p>
+ * 候选生成采用 SymSpell 的删除字典思路：预先为每个词项生成删除一个字符后的变体，
+ * 查询串同样生成删除变体，两边变体相同即为编辑距离不超过1的候选，查询时只做哈希查找。
+ * 同样的方法也作用在拼音串上，用于找同音字和近音字（例如 zh/z、ing/in）错误。
+ */
+public final class SpellingDictionary {
+
+    /**
+     * 纠错候选。
+     * @param term 候选词项
+     * @param distance 字符编辑距离
+     * @param samePinyin 与查询串拼音完全相同（同音字错误）
+     * @param pinyinDistance 拼音串编辑距离
+     * @param documentFrequency 候选的文档频率
+     */
+    public record Candidate(String term, int distance, boolean samePinyin, int pinyinDistance, int documentFrequency) {
+    }
+
+    private static final SpellingDictionary EMPTY = new SpellingDictionary(-1);
+
+    // 拼音串短于该长度的词项不做近音匹配，避免短拼音误配
+    private static final int MIN_FUZZY_PINYIN_LENGTH = 4;
+
+    private final long version;
+    private final Map<String, Integer> frequencies = new HashMap<>();
+    private final Map<String, List<String>> termDeletes = new HashMap<>();   // 删除变体 -> 词项
+    private final Map<String, List<String>> pinyinTerms = new HashMap<>();   // 拼音串 -> 词项
+    private final Map<String, List<String>> pinyinDeletes = new HashMap<>(); // 拼音删除变体 -> 拼音串
+
+    private SpellingDictionary(long version) {
+        this.version = version;
+    }
+
+    public static SpellingDictionary empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 从索引快照构建纠错词典。
+     * @param snapshot 索引快照
+     * @return 纠错词典
+     */
+    public static SpellingDictionary build(IndexSnapshot snapshot) {
+        Map<String, Integer> frequencies = new HashMap<>(snapshot.getTermCount() * 2);
+        for (int ordinal = 0; ordinal < snapshot.getTermCount(); ordinal++) {
+            frequencies.put(snapshot.term(ordinal), snapshot.documentFrequency(ordinal));
+        }
+        return of(snapshot.getVersion(), frequencies);
+    }
+
+    /**
+     * 从词项及其文档频率构建纠错词典。只收录至少两个字符、含有文字的词项。
+     * @param version 对应的快照版本
+     * @param frequencies 词项 -> 文档频率
+     * @return 纠错词典
+     */
+    public static SpellingDictionary of(long version, Map<String, Integer> frequencies) {
+        SpellingDictionary dictionary = new SpellingDictionary(version);
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            String term = entry.getKey();
+            if (term.length() < 2 || term.codePoints().noneMatch(Character::isLetterOrDigit)) {
+                continue;
+            }
+            dictionary.add(term.toLowerCase(), entry.getValue());
+        }
+        return dictionary;
+    }
+
+    private void add(String term, int documentFrequency) {
+        if (frequencies.merge(term, documentFrequency, Integer::sum) > documentFrequency) {
+            return; // 大小写不同的同一词项，只合并频率
+        }
+        for (String variant : deletes(term)) {
+            termDeletes.computeIfAbsent(variant, k -> new ArrayList<>(1)).add(term);
+        }
+        String pinyin = PinyinUtil.toPinyin(term);
+        List<String> sameSound = pinyinTerms.computeIfAbsent(pinyin, k -> new ArrayList<>(1));
+        sameSound.add(term);
+        if (sameSound.size() == 1 && pinyin.length() >= MIN_FUZZY_PINYIN_LENGTH) {
+            for (String variant : deletes(pinyin)) {
+                pinyinDeletes.computeIfAbsent(variant, k -> new ArrayList<>(1)).add(pinyin);
+            }
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return frequencies.size();
+    }
+
+    /**
+     * @param term 词项
+     * @return 文档频率，不在词典中时为0
+     */
+    public int frequency(String term) {
+        return frequencies.getOrDefault(term.toLowerCase(), 0);
+    }
+
+    public boolean contains(String term) {
+        return frequencies.containsKey(term.toLowerCase());
+    }
+
+    /**
+     * 查找编辑距离不超过1（字符或拼音）的候选词项，不包含查询串本身。
+     * 含汉字的查询串只接受等长候选：中文输入错误几乎都是替换而不是增删。
+     * @param text 查询串
+     * @return 候选列表，无序
+     */
+    public List<Candidate> lookup(String text) {
+        String query = text.toLowerCase();
+        boolean chinese = query.codePoints().anyMatch(c -> Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN);
+        String pinyin = PinyinUtil.toPinyin(query);
+        Map<String, Candidate> candidates = new LinkedHashMap<>();
+
+        // 1. 同音
+        for (String term : pinyinTerms.getOrDefault(pinyin, List.of())) {
+            offer(candidates, query, pinyin, term, chinese);
+        }
+
+        // 2. 字符编辑距离为1：查询串及其删除变体 与 词项删除变体 相遇
+        Set<String> variants = new LinkedHashSet<>(deletes(query));
+        variants.add(query);
+        for (String variant : variants) {
+            for (String term : termDeletes.getOrDefault(variant, List.of())) {
+                offer(candidates, query, pinyin, term, chinese);
+            }
+            if (frequencies.containsKey(variant)) {
+                offer(candidates, query, pinyin, variant, chinese);
+            }
+        }
+
+        // 3. 拼音编辑距离为1
+        if (pinyin.length() >= MIN_FUZZY_PINYIN_LENGTH) {
+            Set<String> pinyinVariants = new LinkedHashSet<>(deletes(pinyin));
+            pinyinVariants.add(pinyin);
+            for (String variant : pinyinVariants) {
+                for (String key : pinyinDeletes.getOrDefault(variant, List.of())) {
+                    for (String term : pinyinTerms.getOrDefault(key, List.of())) {
+                        offer(candidates, query, pinyin, term, chinese);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(candidates.values());
+    }
+
+    private void offer(Map<String, Candidate> candidates, String query, String pinyin, String term, boolean chinese) {
+        if (term.equals(query) || candidates.containsKey(term) || (chinese && term.length() != query.length())) {
+            return;
+        }
+        int distance = levenshtein(query, term);
+        String termPinyin = PinyinUtil.toPinyin(term);
+        int pinyinDistance = levenshtein(pinyin, termPinyin);
+        if (distance > 1 && pinyinDistance > 1) {
+            return;
+        }
+        candidates.put(term, new Candidate(term, distance, pinyinDistance == 0, pinyinDistance, frequencies.get(term)));
+    }
+
+    // 删除一个字符得到的全部变体
+    private static Set<String> deletes(String text) {
+        Set<String> variants = new LinkedHashSet<>();
+        for (int i = 0; i < text.length(); i++) {
+            variants.add(text.substring(0, i) + text.substring(i + 1));
+        }
+        return variants;
+    }
+
+    /**
+     * 两个字符串的编辑距离（插入、删除、替换）。
+     * @param a 字符串a
+     * @param b 字符串b
+     * @return 编辑距离
+     */
+    public static int levenshtein(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
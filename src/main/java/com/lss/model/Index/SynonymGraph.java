@@ -0,0 +1,220 @@
+package com.lss.model.Index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 编译后的同义词/缩写扩展图：以词项序列为键的前缀树，接受状态上挂着带权重的扩展词项序列。
+ * <p>
+ * 词典每行一条规则，{@code #} 开头为注释：
+ * <ul>
+ *     <li>{@code 人工智能, AI, 机器智能:0.6}：等价组，组内每一项都扩展为其余各项</li>
+ *     <li>{@code 深大 => 深圳大学}：单向扩展，左边各项扩展为右边各项</li>
+ * </ul>
+ * 每一项都用查询分词器切分为词项序列，因此多词短语（如 “深圳 大学”）也能作为键；
+ * 项后的 {@code :权重} 是它作为扩展项时的权重，缺省时使用默认权重。原词项始终保留，扩展只是追加。
+ * <p>
+ * 词项编号为整数，前缀树的边按 (节点, 词项编号) 编码为 long 后排序存放，查找时二分；
+ * 编译完成后不可变，重新加载时整体替换。
+ */
+public final class SynonymGraph {
+
+    public static final SynonymGraph EMPTY = new SynonymGraph(Map.of(), new long[0], new int[0], new Expansion[1][], 0);
+
+    /**
+     * 一个扩展项。
+     * @param terms 扩展的词项序列
+     * @param weight 权重，乘到查询词频上
+     */
+    public record Expansion(List<String> terms, float weight) {
+    }
+
+    /**
+     * 查询词项序列中命中的一段。
+     * @param start 起始下标（包含）
+     * @param end 结束下标（不包含）
+     * @param expansions 扩展项
+     */
+    public record Match(int start, int end, List<Expansion> expansions) {
+    }
+
+    private final Map<String, Integer> tokenIds; // 小写词项 -> 编号
+    private final long[] edges;                  // (节点 << 32 | 词项编号)，升序
+    private final int[] targets;                 // 与 edges 对应的子节点
+    private final Expansion[][] outputs;         // 按节点存放，非接受状态为null
+    private final int rules;
+
+    private SynonymGraph(Map<String, Integer> tokenIds, long[] edges, int[] targets, Expansion[][] outputs, int rules) {
+        this.tokenIds = tokenIds;
+        this.edges = edges;
+        this.targets = targets;
+        this.outputs = outputs;
+        this.rules = rules;
+    }
+
+    /**
+     * @return 有扩展项的键的个数
+     */
+    public int size() {
+        return rules;
+    }
+
+    public boolean isEmpty() {
+        return rules == 0;
+    }
+
+    /**
+     * 在查询词项序列上从左到右做最长匹配，命中的段互不重叠。
+     * @param tokens 查询分词后的词项
+     * @return 命中的段，按起始下标升序
+     */
+    public List<Match> match(List<String> tokens) {
+        if (rules == 0 || tokens.isEmpty()) {
+            return List.of();
+        }
+        List<Match> matches = new ArrayList<>();
+        int start = 0;
+        while (start < tokens.size()) {
+            int node = 0;
+            int end = -1;
+            Expansion[] found = null;
+            for (int i = start; i < tokens.size(); i++) {
+                node = next(node, tokens.get(i));
+                if (node < 0) {
+                    break;
+                }
+                if (outputs[node] != null) {
+                    end = i + 1;
+                    found = outputs[node];
+                }
+            }
+            if (found == null) {
+                start++;
+            } else {
+                matches.add(new Match(start, end, List.of(found)));
+                start = end;
+            }
+        }
+        return matches;
+    }
+
+    private int next(int node, String token) {
+        Integer id = tokenIds.get(token.toLowerCase(Locale.ROOT));
+        if (id == null) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(edges, ((long) node << 32) | id);
+        return index >= 0 ? targets[index] : -1;
+    }
+
+    /**
+     * 编译词典。
+     * @param lines 词典的各行
+     * @param analyzer 查询分词器，键和扩展项都按它切分，保证与查询词项一致
+     * @param defaultWeight 没有写权重的扩展项的权重
+     * @return 扩展图
+     * @throws IllegalArgumentException 某一行格式错误，消息中带行号
+     */
+    public static SynonymGraph compile(List<String> lines, Function<String, List<String>> analyzer, float defaultWeight) {
+        // 键（小写的词项序列）-> 扩展项（词项序列 -> 权重，同一扩展项出现多次时取最大值）
+        Map<List<String>, Map<List<String>, Float>> rules = new LinkedHashMap<>();
+        for (int lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+            String line = lines.get(lineNumber - 1).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                int arrow = line.indexOf("=>");
+                List<Item> left = items(arrow < 0 ? line : line.substring(0, arrow), analyzer, defaultWeight);
+                List<Item> right = arrow < 0 ? left : items(line.substring(arrow + 2), analyzer, defaultWeight);
+                if (left.isEmpty() || right.isEmpty() || (arrow < 0 && left.size() < 2)) {
+                    throw new IllegalArgumentException("a rule needs at least two terms");
+                }
+                for (Item key : left) {
+                    Map<List<String>, Float> expansions = rules.computeIfAbsent(key.normalized(), k -> new LinkedHashMap<>());
+                    for (Item expansion : right) {
+                        if (!expansion.normalized().equals(key.normalized())) {
+                            expansions.merge(expansion.terms(), expansion.weight(), Math::max);
+                        }
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid synonym rule at line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return build(rules);
+    }
+
+    private record Item(List<String> terms, List<String> normalized, float weight) {
+    }
+
+    // 按逗号切分一侧的各项，解析权重并分词
+    private static List<Item> items(String side, Function<String, List<String>> analyzer, float defaultWeight) {
+        List<Item> items = new ArrayList<>();
+        for (String raw : side.split("[,，]")) {
+            String text = raw.trim();
+            float weight = defaultWeight;
+            int colon = text.lastIndexOf(':');
+            if (colon > 0) {
+                weight = Float.parseFloat(text.substring(colon + 1).trim());
+                text = text.substring(0, colon).trim();
+                if (!(weight > 0)) {
+                    throw new IllegalArgumentException("weight must be positive: " + raw.trim());
+                }
+            }
+            List<String> terms = new ArrayList<>();
+            for (String term : analyzer.apply(text)) {
+                if (!term.isBlank()) {
+                    terms.add(term);
+                }
+            }
+            if (!terms.isEmpty()) {
+                items.add(new Item(List.copyOf(terms),
+                        terms.stream().map(term -> term.toLowerCase(Locale.ROOT)).toList(), weight));
+            }
+        }
+        return items;
+    }
+
+    private static SynonymGraph build(Map<List<String>, Map<List<String>, Float>> rules) {
+        Map<String, Integer> tokenIds = new HashMap<>();
+        Map<Long, Integer> children = new HashMap<>();
+        List<Expansion[]> outputs = new ArrayList<>();
+        outputs.add(null); // 根节点
+        int accepting = 0;
+        for (Map.Entry<List<String>, Map<List<String>, Float>> rule : rules.entrySet()) {
+            if (rule.getValue().isEmpty()) {
+                continue;
+            }
+            int node = 0;
+            for (String token : rule.getKey()) {
+                int id = tokenIds.computeIfAbsent(token, t -> tokenIds.size());
+                long edge = ((long) node << 32) | id;
+                Integer child = children.get(edge);
+                if (child == null) {
+                    child = outputs.size();
+                    children.put(edge, child);
+                    outputs.add(null);
+                }
+                node = child;
+            }
+            List<Expansion> expansions = new ArrayList<>(rule.getValue().size());
+            rule.getValue().forEach((terms, weight) -> expansions.add(new Expansion(terms, weight)));
+            outputs.set(node, expansions.toArray(new Expansion[0]));
+            accepting++;
+        }
+
+        long[] edges = children.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        int[] targets = new int[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            targets[i] = children.get(edges[i]);
+        }
+        return new SynonymGraph(Map.copyOf(tokenIds), edges, targets, outputs.toArray(new Expansion[0][]), accepting);
+    }
+}
@@ -0,0 +1,160 @@
+package com.lss.model.Index;
+
+import com.lss.model.Index.ColumnArena.FloatColumn;
+import com.lss.model.Index.ColumnArena.IntColumn;
+import org.roaringbitmap.RoaringBitmap;
+
+/**
+ * 单个带域词项的只读倒排记录表。
+ * 文档按序号升序排列；每条记录的 TF-IDF 权重在快照构建时计算好，查询时直接累加。
+ * 快照中所有词项的记录依次存放在同一组列中（见 {@link ColumnArena}），每个词项只记录自己的起始位置和长度，
+ * 列可以在堆内，也可以在堆外。词项在各文档中出现的位置也依次存放在一列中，供重排阶段计算邻近度。
+ */
+public final class TermPostings {
+
+    public static final TermPostings EMPTY = new TermPostings(new int[0], new int[0], new float[0]);
+
+    private final IntColumn docs;      // 文档序号，升序
+    private final IntColumn freqs;     // 词频
+    private final FloatColumn weights; // tf * idf
+    private final IntColumn positionStarts; // 每条记录的位置在 positions 中的起始下标，比记录多一个元素；没有位置时为null
+    private final IntColumn positions;      // 词项在文档中的位置，每条记录内升序
+    private final int offset;          // 本词项第一条记录在列中的位置
+    private final int size;
+
+    // 文档数达到该值的词项，其文档位图在首次使用后缓存，随快照一起释放
+    private static final int CACHED_BITMAP_MIN_DOCS = 1024;
+    private volatile RoaringBitmap bitmap;
+
+    public TermPostings(int[] docs, int[] freqs, float[] weights) {
+        this(ColumnArena.heap().ints(docs), ColumnArena.heap().ints(freqs), ColumnArena.heap().floats(weights),
+                null, null, 0, docs.length);
+    }
+
+    TermPostings(IntColumn docs, IntColumn freqs, FloatColumn weights, IntColumn positionStarts, IntColumn positions,
+                 int offset, int size) {
+        this.docs = docs;
+        this.freqs = freqs;
+        this.weights = weights;
+        this.positionStarts = positionStarts;
+        this.positions = positions;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int doc(int index) {
+        return docs.get(offset + index);
+    }
+
+    public int freq(int index) {
+        return freqs.get(offset + index);
+    }
+
+    public float weight(int index) {
+        return weights.get(offset + index);
+    }
+
+    /**
+     * @param index 记录下标
+     * @return 该记录存放的位置个数，没有存放位置时为0
+     */
+    public int positionCount(int index) {
+        if (positionStarts == null) {
+            return 0;
+        }
+        return positionStarts.get(offset + index + 1) - positionStarts.get(offset + index);
+    }
+
+    /**
+     * @param index 记录下标
+     * @param i 第几个位置
+     * @return 词项在文档中的位置（分词结果中的下标）
+     */
+    public int position(int index, int i) {
+        return positions.get(positionStarts.get(offset + index) + i);
+    }
+
+    /**
+     * 查找指定文档在该词项下的权重。
+     * @param docOrdinal 文档序号
+     * @return 权重，文档不包含该词项时返回0
+     */
+    public float weightOf(int docOrdinal) {
+        int index = indexOf(docOrdinal);
+        return index >= 0 ? weight(index) : 0f;
+    }
+
+    /**
+     * 查找指定文档在记录表中的下标。
+     * @param docOrdinal 文档序号
+     * @return 下标，不存在时为负数（与 {@link java.util.Arrays#binarySearch(int[], int)} 相同）
+     */
+    public int indexOf(int docOrdinal) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = doc(mid);
+            if (value < docOrdinal) {
+                low = mid + 1;
+            } else if (value > docOrdinal) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * 包含该词项的文档序号位图，供布尔查询求交、求并。高频词项的位图会被缓存并在查询之间共享，调用方只能读取。
+     * @return 文档位图
+     */
+    public RoaringBitmap bitmap() {
+        RoaringBitmap cached = bitmap;
+        if (cached != null) {
+            return cached;
+        }
+        RoaringBitmap built = new RoaringBitmap();
+        int[] array = docs.array();
+        if (array != null) {
+            built.addN(array, offset, size);
+        } else {
+            for (int i = 0; i < size; i++) {
+                built.add(doc(i));
+            }
+        }
+        built.runOptimize();
+        if (size >= CACHED_BITMAP_MIN_DOCS) {
+            bitmap = built;
+        }
+        return built;
+    }
+
+    // 供打分实现直接遍历堆内数组，调用方只能读取；列在堆外时返回null，下标需加上 arrayOffset()
+    int[] docArray() {
+        return docs.array();
+    }
+
+    float[] weightArray() {
+        return weights.array();
+    }
+
+    int arrayOffset() {
+        return offset;
+    }
+
+    /**
+     * 第一个文档序号不小于指定序号的下标，用于按文档序号区间遍历记录表。
+     * @param docOrdinal 文档序号
+     * @return 下标，所有文档序号都更小时返回 size()
+     */
+    public int lowerBound(int docOrdinal) {
+        int index = indexOf(docOrdinal);
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,156 @@
+package com.lss.model.Index;
+
+/**
+ * 保留排序键最大的 K 个文档的收集器，用基本类型数组实现的小根堆，堆顶是当前第 K 名。
+ * 排序键相同时文档序号小的优先。收集过程中不创建对象，结果只在最后物化一次。
+ * 设置了翻页位置时，只收集排在该位置之后的文档，堆的大小始终只有一页。
+ */
+public final class TopKCollector {
+
+    private final int k;
+    private final int[] docs;
+    private final double[] keys;
+    private final double[] scores;
+    private int size;
+
+    // 翻页位置：上一页最后一个文档的排序键与序号
+    private boolean hasAfter;
+    private double afterKey;
+    private int afterDoc;
+
+    public TopKCollector(int k) {
+        this.k = Math.max(k, 0);
+        this.docs = new int[this.k];
+        this.keys = new double[this.k];
+        this.scores = new double[this.k];
+    }
+
+    /**
+     * 只收集排在 (key, doc) 之后的文档。
+     * @param key 上一页最后一个文档的排序键
+     * @param doc 上一页最后一个文档的序号
+     */
+    public void searchAfter(double key, int doc) {
+        this.hasAfter = true;
+        this.afterKey = key;
+        this.afterDoc = doc;
+    }
+
+    /**
+     * @param key 排序键
+     * @param doc 文档序号
+     * @return 该文档是否排在翻页位置之后；没有设置翻页位置时总是true
+     */
+    public boolean isAfterCursor(double key, int doc) {
+        return !hasAfter || key < afterKey || (key == afterKey && doc > afterDoc);
+    }
+
+    /**
+     * @param doc 文档序号
+     * @param key 排序键，越大越靠前
+     * @param score 相关性分数，随结果返回
+     * @return 文档是否进入了当前的 Top K
+     */
+    public boolean collect(int doc, double key, double score) {
+        if (k == 0 || !isAfterCursor(key, doc)) {
+            return false;
+        }
+        if (size < k) {
+            docs[size] = doc;
+            keys[size] = key;
+            scores[size] = score;
+            siftUp(size++);
+            return true;
+        }
+        if (!worse(0, key, doc)) {
+            return false;
+        }
+        docs[0] = doc;
+        keys[0] = key;
+        scores[0] = score;
+        siftDown(0);
+        return true;
+    }
+
+    public boolean isFull() {
+        return size == k;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 按排序键降序取出结果，收集器随后不可再用。
+     * @return 文档序号、排序键与分数，下标一致
+     */
+    public Result drain() {
+        int n = size;
+        int[] sortedDocs = new int[n];
+        double[] sortedKeys = new double[n];
+        double[] sortedScores = new double[n];
+        for (int i = n - 1; i >= 0; i--) {
+            sortedDocs[i] = docs[0];
+            sortedKeys[i] = keys[0];
+            sortedScores[i] = scores[0];
+            size--;
+            docs[0] = docs[size];
+            keys[0] = keys[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+        return new Result(sortedDocs, sortedKeys, sortedScores);
+    }
+
+    /**
+     * @param docs 文档序号，按排序键降序
+     * @param keys 对应的排序键
+     * @param scores 对应的相关性分数
+     */
+    public record Result(int[] docs, double[] keys, double[] scores) {
+    }
+
+    // 堆中位置i上的文档是否排在(key, doc)之后
+    private boolean worse(int i, double key, int doc) {
+        return keys[i] < key || (keys[i] == key && docs[i] > doc);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(i, keys[parent], docs[parent])) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int right = left + 1;
+            int child = right < size && worse(right, keys[left], docs[left]) ? right : left;
+            if (!worse(child, keys[i], docs[i])) {
+                return;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int doc = docs[a];
+        docs[a] = docs[b];
+        docs[b] = doc;
+        double key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
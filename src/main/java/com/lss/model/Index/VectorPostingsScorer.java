@@ -0,0 +1,41 @@
+package com.lss.model.Index;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD实现：每次处理一个向量宽度的记录，连续加载权重并乘以查询权重，
+ * 按文档序号从累加数组收集（gather）、相加后写回（scatter）；不足一个向量宽度的尾部逐条累加。
+ * 列在堆外时交给标量实现。只能在加载了 {@code jdk.incubator.vector} 模块时实例化，由 {@link PostingsScorer#select(boolean)} 通过反射创建。
+ */
+final class VectorPostingsScorer extends PostingsScorer {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+
+    @Override
+    public void accumulate(TermPostings postings, int start, int end, float queryWeight, float[] accumulators, int base) {
+        int[] docs = postings.docArray();
+        float[] weights = postings.weightArray();
+        if (docs == null || weights == null) {
+            ScalarPostingsScorer.INSTANCE.accumulate(postings, start, end, queryWeight, accumulators, base);
+            return;
+        }
+        int offset = postings.arrayOffset();
+        int j = start + offset;
+        end += offset;
+        for (int upper = j + SPECIES.loopBound(end - j); j < upper; j += SPECIES.length()) {
+            FloatVector contribution = FloatVector.fromArray(SPECIES, weights, j).mul(queryWeight);
+            FloatVector.fromArray(SPECIES, accumulators, -base, docs, j)
+                    .add(contribution)
+                    .intoArray(accumulators, -base, docs, j);
+        }
+        for (; j < end; j++) {
+            accumulators[docs[j] - base] += queryWeight * weights[j];
+        }
+    }
+}
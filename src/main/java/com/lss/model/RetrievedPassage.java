@@ -0,0 +1,14 @@
+package com.lss.model;
+
+import com.lss.model.Index.Passage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetrievedPassage {
+    private Passage passage; // 匹配到的段落
+    private double score;    // 相关性分数 (余弦相似度)
+}
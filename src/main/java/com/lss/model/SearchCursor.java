@@ -0,0 +1,57 @@
+package com.lss.model;
+
+import com.lss.constant.SearchMode;
+import com.lss.constant.SortMode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 翻页游标：记录上一页最后一个结果的排序键、文档序号以及所基于的快照内容标识。
+ * 对客户端不透明，服务端不保存任何状态。文档序号只在内容相同的快照内有效，
+ * 标识不随进程重启或索引重新加载变化，索引内容更新后游标失效，需要重新检索。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchCursor {
+    private long snapshotIdentity; // 所基于的索引快照内容标识，见 IndexSnapshot#getIdentity
+    private SearchMode mode;
+    private SortMode sort;
+    private double lastKey;       // 上一页最后一个结果的排序键
+    private int lastDoc;          // 上一页最后一个结果的文档序号
+    private int offset;           // 之前各页已返回的结果数
+
+    private static final String VERSION_PREFIX = "c2";
+
+    /**
+     * @return URL安全的游标字符串
+     */
+    public String encode() {
+        String raw = String.join(":", VERSION_PREFIX, Long.toHexString(snapshotIdentity), mode.name(), sort.name(),
+                Long.toHexString(Double.doubleToLongBits(lastKey)), Integer.toString(lastDoc), Integer.toString(offset));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor 游标字符串
+     * @return 游标
+     * @throws IllegalArgumentException 游标格式错误
+     */
+    public static SearchCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 7 || !VERSION_PREFIX.equals(parts[0])) {
+                throw new IllegalArgumentException("无效的翻页游标");
+            }
+            return new SearchCursor(Long.parseUnsignedLong(parts[1], 16), SearchMode.valueOf(parts[2]), SortMode.valueOf(parts[3]),
+                    Double.longBitsToDouble(Long.parseUnsignedLong(parts[4], 16)), Integer.parseInt(parts[5]),
+                    Integer.parseInt(parts[6]));
+        } catch (IllegalArgumentException e) { // 包括Base64与数字格式错误
+            throw new IllegalArgumentException("无效的翻页游标", e);
+        }
+    }
+}
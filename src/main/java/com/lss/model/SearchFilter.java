@@ -0,0 +1,60 @@
+package com.lss.model;
+
+import com.lss.util.LectureFieldExtractor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchFilter {
+    private Long from;        // 讲座时间下限（含），毫秒时间戳
+    private Long to;          // 讲座时间上限（不含），毫秒时间戳
+    private String speaker;   // 主讲人，精确匹配
+    private String location;  // 地点，包含该文本即匹配
+    private String campus;    // 校区，精确匹配，例如“丽湖校区”
+    private String school;    // 主办学院，精确匹配
+
+    public boolean isEmpty() {
+        return from == null && to == null && isBlank(speaker) && isBlank(location) && isBlank(campus) && isBlank(school);
+    }
+
+    /**
+     * @return 用于合并相同请求的键
+     */
+    public String cacheKey() {
+        return from + "|" + to + "|" + speaker + "|" + location + "|" + campus + "|" + school;
+    }
+
+    /**
+     * 解析请求参数中的时间，支持“2024-11-08”和“2024-11-08T15:00”，按北京时间计算。
+     * 只有日期的上限包含当天整天。
+     * @param text 时间参数
+     * @param upperBound 是否作为上限
+     * @return 毫秒时间戳，参数为空时返回null
+     * @throws IllegalArgumentException 无法解析
+     */
+    public static Long parseBound(String text, boolean upperBound) {
+        if (isBlank(text)) {
+            return null;
+        }
+        try {
+            if (text.contains("T")) {
+                return LocalDateTime.parse(text.trim()).atZone(LectureFieldExtractor.ZONE).toInstant().toEpochMilli();
+            }
+            LocalDate date = LocalDate.parse(text.trim());
+            return (upperBound ? date.plusDays(1) : date).atStartOfDay(LectureFieldExtractor.ZONE).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("时间格式应为 yyyy-MM-dd 或 yyyy-MM-ddTHH:mm: " + text);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,19 @@
+package com.lss.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHits {
+    private List<RetrieveDocsItems> items;          // 排序后的Top N结果
+    private long totalHits;                         // 满足查询和过滤条件的文档总数
+    private boolean totalExact;                     // totalHits 是精确值还是下限
+    private Map<String, Map<String, Integer>> facets; // 分面计数，未请求时为null
+    private SearchCursor nextCursor;                // 下一页的位置，没有下一页时为null
+}
@@ -0,0 +1,19 @@
+package com.lss.model;
+
+import com.lss.model.Index.LectureDocumentVO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchPage {
+    private List<LectureDocumentVO> documents;        // 本页带正文的文档
+    private Map<String, Map<String, Integer>> facets; // 分面名 -> (取值 -> 命中文档数)，未请求时为null
+    private String nextCursor;                        // 下一页的游标，没有下一页时为null
+    private boolean totalExact;                       // Result.total 是精确值还是下限
+}
@@ -0,0 +1,18 @@
+package com.lss.model;
+
+import com.lss.model.Index.BooleanQuery;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 协调节点分发给各分片的查询：查询已在协调节点分词，分片不再分词。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardQuery {
+    private String field;       // 查询的域
+    private BooleanQuery query; // 已分词的布尔查询，各分片在本地求值
+    private int topN;           // 每个分片返回的结果数
+}
@@ -0,0 +1,21 @@
+package com.lss.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpellingSuggestion {
+    private String query;       // 原始查询
+    private String corrected;   // 纠正后的查询（已去掉首尾空白），与去掉首尾空白的原始查询相同表示没有发现错误
+    private boolean confident;  // 本地纠错是否有把握，没有把握时交给大模型
+    private List<String> alternatives; // 其他可能的纠正结果
+
+    public boolean isChanged() {
+        return corrected != null && !corrected.equals(query == null ? null : query.trim());
+    }
+}
@@ -0,0 +1,261 @@
+package com.lss.repository;
+
+import com.lss.util.ApproximateTokenCountEstimator;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 有界的会话记忆存储，取代只增不减的内存会话表。
+ * <ul>
+ *     <li>会话数超过上限时淘汰最久未访问的会话；</li>
+ *     <li>超过空闲时间的会话在下一次访问存储时被淘汰；</li>
+ *     <li>可选地把被淘汰的会话写入本地只追加文件，再次访问时恢复并删除落盘记录；落盘的会话超过保留时间后删除。</li>
+ * </ul>
+ * 每个会话的消息数量由外层的 TokenWindowChatMemory 按token预算裁剪。
+ * <p>
+ * AI服务按会话ID缓存着各自的 ChatMemory 对象，淘汰会话时须一并释放，否则它们仍会无限增长。
+ * 淘汰后在释放存储的锁之后调用 {@link #setEvictionListener} 注册的回调。
+ */
+@Slf4j
+public class BoundedChatMemoryStore implements ChatMemoryStore {
+
+    // 每条消息对象本身的近似开销（对象头、列表引用等）
+    private static final int MESSAGE_OVERHEAD_BYTES = 64;
+
+    // 清理过期落盘会话的最小间隔
+    private static final long SPILL_SWEEP_INTERVAL_MILLIS = 60_000;
+
+    private final int maxSessions;
+    private final long idleTtlMillis;
+    private final ChatMemorySpillFile spillFile; // 为null表示不落盘，淘汰即丢弃
+
+    // 访问顺序的LinkedHashMap，最久未访问的会话在最前
+    private final LinkedHashMap<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytesHeld;
+    private long evictions;
+    private long lastSpillSweepMillis;
+
+    private volatile Consumer<String> evictionListener = memoryId -> { };
+    // 已淘汰、等待在锁外通知回调的会话
+    private final List<String> pendingNotifications = new ArrayList<>();
+
+    private static final class Session {
+        private List<ChatMessage> messages;
+        private long bytes;
+        private long lastAccessMillis;
+    }
+
+    /**
+     * @param maxSessions 内存中最多保留的会话数
+     * @param idleTtl 会话空闲多久后淘汰
+     * @param spillPath 淘汰会话的落盘文件，为null表示不落盘
+     * @param spillTtl 落盘会话的保留时间
+     */
+    public BoundedChatMemoryStore(int maxSessions, Duration idleTtl, Path spillPath, Duration spillTtl) {
+        this.maxSessions = maxSessions;
+        this.idleTtlMillis = idleTtl.toMillis();
+        this.spillFile = spillPath == null ? null : new ChatMemorySpillFile(spillPath, spillTtl);
+    }
+
+    /**
+     * @param listener 会话被淘汰后以会话ID调用，在存储的锁之外执行
+     */
+    public void setEvictionListener(Consumer<String> listener) {
+        this.evictionListener = listener;
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        List<ChatMessage> messages;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            evictIdle(now);
+            String key = String.valueOf(memoryId);
+            Session session = sessions.get(key);
+            if (session == null) {
+                session = restore(key);
+            }
+            if (session == null) {
+                messages = new ArrayList<>();
+            } else {
+                session.lastAccessMillis = now;
+                messages = new ArrayList<>(session.messages);
+            }
+        }
+        notifyEvicted();
+        return messages;
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            evictIdle(now);
+            String key = String.valueOf(memoryId);
+            Session session = sessions.get(key);
+            if (session == null) {
+                session = new Session();
+                sessions.put(key, session);
+            }
+            bytesHeld -= session.bytes;
+            session.messages = new ArrayList<>(messages);
+            session.bytes = estimateBytes(session.messages);
+            session.lastAccessMillis = now;
+            bytesHeld += session.bytes;
+            evictOverflow();
+        }
+        notifyEvicted();
+    }
+
+    @Override
+    public synchronized void deleteMessages(Object memoryId) {
+        String key = String.valueOf(memoryId);
+        Session session = sessions.remove(key);
+        if (session != null) {
+            bytesHeld -= session.bytes;
+        }
+        if (spillFile != null) {
+            try {
+                spillFile.remove(key);
+            } catch (IOException e) {
+                log.warn("Failed to delete spilled chat memory {}.", key, e);
+            }
+        }
+    }
+
+    /**
+     * 会话是否存在（内存中或已落盘）。
+     * @param memoryId 会话ID
+     * @return 是否存在
+     */
+    public boolean contains(Object memoryId) {
+        boolean contained;
+        synchronized (this) {
+            String key = String.valueOf(memoryId);
+            evictIdle(System.currentTimeMillis());
+            contained = sessions.containsKey(key) || (spillFile != null && spillFile.contains(key));
+        }
+        notifyEvicted();
+        return contained;
+    }
+
+    public synchronized int getLiveSessions() {
+        return sessions.size();
+    }
+
+    public synchronized long getBytesHeld() {
+        return bytesHeld;
+    }
+
+    public synchronized int getSpilledSessions() {
+        return spillFile == null ? 0 : spillFile.size();
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private Session restore(String key) {
+        if (spillFile == null || !spillFile.contains(key)) {
+            return null;
+        }
+        try {
+            Session session = new Session();
+            session.messages = new ArrayList<>(ChatMessageDeserializer.messagesFromJson(spillFile.read(key)));
+            session.bytes = estimateBytes(session.messages);
+            spillFile.remove(key); // 会话回到内存，再次淘汰时重新落盘
+            sessions.put(key, session);
+            bytesHeld += session.bytes;
+            evictOverflow();
+            return session;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to restore spilled chat memory {}. Starting a new session.", key, e);
+            return null;
+        }
+    }
+
+    private void evictIdle(long now) {
+        if (spillFile != null && now - lastSpillSweepMillis >= SPILL_SWEEP_INTERVAL_MILLIS) {
+            lastSpillSweepMillis = now;
+            try {
+                int expired = spillFile.expire();
+                if (expired > 0) {
+                    log.info("Expired {} spilled chat sessions.", expired);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to expire spilled chat sessions.", e);
+            }
+        }
+        Iterator<Map.Entry<String, Session>> iterator = sessions.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Session> eldest = iterator.next();
+            if (now - eldest.getValue().lastAccessMillis < idleTtlMillis) {
+                break; // 访问顺序排列，后面的会话更新
+            }
+            iterator.remove();
+            evicted(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Session>> iterator = sessions.entrySet().iterator();
+        while (sessions.size() > maxSessions && iterator.hasNext()) {
+            Map.Entry<String, Session> eldest = iterator.next();
+            iterator.remove();
+            evicted(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private void evicted(String key, Session session) {
+        bytesHeld -= session.bytes;
+        evictions++;
+        pendingNotifications.add(key);
+        if (spillFile != null && !session.messages.isEmpty()) {
+            try {
+                spillFile.write(key, ChatMessageSerializer.messagesToJson(session.messages));
+            } catch (IOException e) {
+                log.warn("Failed to spill chat memory {}. Session dropped.", key, e);
+            }
+        }
+    }
+
+    // 在锁外通知回调，回调可能再次进入存储
+    private void notifyEvicted() {
+        List<String> evicted;
+        synchronized (this) {
+            if (pendingNotifications.isEmpty()) {
+                return;
+            }
+            evicted = new ArrayList<>(pendingNotifications);
+            pendingNotifications.clear();
+        }
+        for (String key : evicted) {
+            try {
+                evictionListener.accept(key);
+            } catch (RuntimeException e) {
+                log.warn("Chat memory eviction listener failed for session {}.", key, e);
+            }
+        }
+    }
+
+    private static long estimateBytes(List<ChatMessage> messages) {
+        long bytes = 0;
+        for (ChatMessage message : messages) {
+            bytes += MESSAGE_OVERHEAD_BYTES + 2L * ApproximateTokenCountEstimator.textOf(message).length();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,258 @@
+package com.lss.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 被淘汰会话的本地只追加存储。
+ * 文件头为 [int 魔数][int 格式版本]，之后每条记录的格式为
+ * [int id长度][id][long 写入时间][int 内容长度][内容(UTF-8 JSON)]，内容长度为-1表示删除标记。
+ * 同一会话以最后一条记录为准；写入超过保留时间的记录视为不存在，由 {@link #expire()} 追加删除标记；
+ * 失效字节超过有效字节时整体压缩重写。
+ */
+@Slf4j
+class ChatMemorySpillFile {
+
+    private static final long COMPACTION_MIN_BYTES = 1024 * 1024;
+    private static final int MAGIC = 0x4C53534D; // "LSSM"
+    private static final int FORMAT_VERSION = 2; // 2: 记录中增加写入时间
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    private final Path path;
+    private final long ttlMillis;
+    // 会话ID -> {记录偏移, 记录长度, 写入时间}
+    private final Map<String, long[]> records = new HashMap<>();
+    private long liveBytes;
+    private long deadBytes;
+
+    /**
+     * @param path 文件路径
+     * @param ttl 落盘会话的保留时间
+     */
+    ChatMemorySpillFile(Path path, Duration ttl) {
+        this.path = path;
+        this.ttlMillis = ttl.toMillis();
+        try {
+            load();
+        } catch (IOException e) {
+            log.error("Failed to read chat memory spill file {}. Spilled sessions are lost.", path, e);
+            records.clear();
+        }
+    }
+
+    boolean contains(String memoryId) {
+        long[] location = records.get(memoryId);
+        return location != null && !isExpired(location, System.currentTimeMillis());
+    }
+
+    int size() {
+        return records.size();
+    }
+
+    long sizeInBytes() {
+        return liveBytes + deadBytes;
+    }
+
+    String read(String memoryId) throws IOException {
+        long[] location = records.get(memoryId);
+        if (location == null || isExpired(location, System.currentTimeMillis())) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) location[1]);
+            readFully(channel, buffer, location[0]);
+            buffer.flip();
+            buffer.position(Integer.BYTES + buffer.getInt() + Long.BYTES);
+            int contentLength = buffer.getInt();
+            byte[] content = new byte[contentLength];
+            buffer.get(content);
+            return new String(content, StandardCharsets.UTF_8);
+        }
+    }
+
+    void write(String memoryId, String json) throws IOException {
+        append(memoryId, json.getBytes(StandardCharsets.UTF_8));
+        maybeCompact();
+    }
+
+    void remove(String memoryId) throws IOException {
+        if (records.containsKey(memoryId)) {
+            append(memoryId, null);
+        }
+    }
+
+    /**
+     * 为超过保留时间的会话追加删除标记。
+     * @return 过期的会话数
+     * @throws IOException 写入失败
+     */
+    int expire() throws IOException {
+        long now = System.currentTimeMillis();
+        List<String> expired = new ArrayList<>();
+        records.forEach((memoryId, location) -> {
+            if (isExpired(location, now)) {
+                expired.add(memoryId);
+            }
+        });
+        for (String memoryId : expired) {
+            append(memoryId, null);
+        }
+        if (!expired.isEmpty()) {
+            maybeCompact();
+        }
+        return expired.size();
+    }
+
+    private boolean isExpired(long[] location, long now) {
+        return now - location[2] >= ttlMillis;
+    }
+
+    private void append(String memoryId, byte[] content) throws IOException {
+        byte[] id = memoryId.getBytes(StandardCharsets.UTF_8);
+        long spilledAt = System.currentTimeMillis();
+        int length = Integer.BYTES * 2 + Long.BYTES + id.length + (content == null ? 0 : content.length);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(id.length).put(id).putLong(spilledAt).putInt(content == null ? -1 : content.length);
+        if (content != null) {
+            buffer.put(content);
+        }
+        buffer.flip();
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        long offset;
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            if (channel.size() == 0) {
+                writeHeader(channel);
+            }
+            offset = channel.size();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        index(memoryId, offset, length, spilledAt, content == null);
+    }
+
+    private static void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    private void index(String memoryId, long offset, long length, long spilledAt, boolean tombstone) {
+        long[] previous = records.remove(memoryId);
+        if (previous != null) {
+            liveBytes -= previous[1];
+            deadBytes += previous[1];
+        }
+        if (tombstone) {
+            deadBytes += length;
+        } else {
+            records.put(memoryId, new long[]{offset, length, spilledAt});
+            liveBytes += length;
+        }
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size == 0) {
+                return;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (size < HEADER_BYTES || channel.read(header, 0) < HEADER_BYTES
+                    || header.flip().getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                log.warn("Chat memory spill file {} has an unsupported format. Discarding its sessions.", path);
+                channel.truncate(0);
+                return;
+            }
+            long offset = HEADER_BYTES;
+            ByteBuffer intBuffer = ByteBuffer.allocate(Integer.BYTES);
+            ByteBuffer longBuffer = ByteBuffer.allocate(Long.BYTES);
+            while (offset + Integer.BYTES <= size) {
+                intBuffer.clear();
+                readFully(channel, intBuffer, offset);
+                int idLength = intBuffer.flip().getInt();
+                if (idLength <= 0 || offset + Integer.BYTES * 2L + Long.BYTES + idLength > size) {
+                    break;
+                }
+                ByteBuffer id = ByteBuffer.allocate(idLength);
+                readFully(channel, id, offset + Integer.BYTES);
+                longBuffer.clear();
+                readFully(channel, longBuffer, offset + Integer.BYTES + idLength);
+                long spilledAt = longBuffer.flip().getLong();
+                intBuffer.clear();
+                readFully(channel, intBuffer, offset + Integer.BYTES + idLength + Long.BYTES);
+                int contentLength = intBuffer.flip().getInt();
+                long length = Integer.BYTES * 2L + Long.BYTES + idLength + Math.max(contentLength, 0);
+                if (offset + length > size) {
+                    break;
+                }
+                index(new String(id.array(), StandardCharsets.UTF_8), offset, length, spilledAt, contentLength < 0);
+                offset += length;
+            }
+            if (offset < size) {
+                log.warn("Chat memory spill file {} has a torn tail; truncating {} bytes.", path, size - offset);
+                channel.truncate(offset);
+            }
+        }
+        log.info("Chat memory spill file {} holds {} sessions.", path, records.size());
+    }
+
+    // 失效记录占比过高时，只把有效记录重写到新文件并原子替换
+    private void maybeCompact() throws IOException {
+        if (deadBytes < COMPACTION_MIN_BYTES || deadBytes < liveBytes) {
+            return;
+        }
+        Path tempPath = path.resolveSibling(path.getFileName() + ".compact");
+        Map<String, long[]> compacted = new HashMap<>();
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(tempPath,
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(target);
+            long position = HEADER_BYTES;
+            for (Map.Entry<String, long[]> entry : records.entrySet()) {
+                long[] location = entry.getValue();
+                long copied = 0;
+                while (copied < location[1]) {
+                    copied += source.transferTo(location[0] + copied, location[1] - copied, target);
+                }
+                compacted.put(entry.getKey(), new long[]{position, location[1], location[2]});
+                position += location[1];
+            }
+            target.force(true);
+        }
+        IndexCommitPoint.atomicReplace(tempPath, path);
+        records.clear();
+        records.putAll(compacted);
+        log.info("Compacted chat memory spill file {}: {} live sessions, reclaimed {} bytes.", path, records.size(), deadBytes);
+        deadBytes = 0;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of chat memory spill file.");
+            }
+            offset += read;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.lss.repository;
+
+import com.lss.model.Index.CorpusStatistics;
+import com.lss.model.RetrieveDocsItems;
+import com.lss.model.ShardQuery;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 通过HTTP访问另一个JVM上的分片节点，对应节点上的 /shard 接口。
+ * 统计量随索引大小线性增长，只在同步时传输；查询只传分词结果和 Top N。
+ * 每个请求在 {@link #SECRET_HEADER} 请求头中携带共享密钥，分片节点据此拒绝其他来源的请求。
+ */
+public class HttpShardTransport implements ShardTransport {
+
+    public static final String SECRET_HEADER = "X-Shard-Secret";
+
+    // 统计量包含全部词项，传输比查询慢得多
+    private static final Duration STATISTICS_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final ParameterizedTypeReference<List<RetrieveDocsItems>> HITS = new ParameterizedTypeReference<>() {
+    };
+
+    private final String baseUrl;
+    private final WebClient webClient;
+    private final Duration timeout;
+    private final String secret;
+
+    public HttpShardTransport(String baseUrl, WebClient webClient, Duration timeout, String secret) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.webClient = webClient;
+        this.timeout = timeout;
+        this.secret = secret;
+    }
+
+    @Override
+    public String name() {
+        return baseUrl;
+    }
+
+    @Override
+    public CorpusStatistics statistics() {
+        return webClient.get()
+                .uri(baseUrl + "/shard/statistics")
+                .header(SECRET_HEADER, secret)
+                .retrieve()
+                .bodyToMono(CorpusStatistics.class)
+                .block(STATISTICS_TIMEOUT);
+    }
+
+    @Override
+    public void applyGlobalStatistics(CorpusStatistics global) {
+        webClient.put()
+                .uri(baseUrl + "/shard/statistics")
+                .header(SECRET_HEADER, secret)
+                .bodyValue(global)
+                .retrieve()
+                .toBodilessEntity()
+                .block(STATISTICS_TIMEOUT);
+    }
+
+    @Override
+    public List<RetrieveDocsItems> search(ShardQuery query) {
+        List<RetrieveDocsItems> hits = webClient.post()
+                .uri(baseUrl + "/shard/search")
+                .header(SECRET_HEADER, secret)
+                .bodyValue(query)
+                .retrieve()
+                .bodyToMono(HITS)
+                .block(timeout);
+        return hits == null ? List.of() : hits;
+    }
+}
@@ -0,0 +1,304 @@
+package com.lss.repository;
+
+import com.lss.model.Index.InvertedIndex;
+import com.lss.model.Index.LectureDocument;
+import com.lss.model.Index.Posting;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 索引分发包：由构建节点导出，服务节点校验后直接加载，不再各自调用大模型建索引。
+ * <p>
+ * 每个分发包是共享目录下的一个子目录 {@code bundle-<代数>}，包含：
+ * <ul>
+ *     <li>{@code index.ser.gz}：GZIP压缩的倒排索引（倒排记录表与文档元数据）</li>
+ *     <li>{@code content/}：讲座Markdown原文，服务节点据此返回正文</li>
+ *     <li>{@code MANIFEST}：格式版本、代数、内容校验和、文档数、词项数以及每个文件的长度与CRC32校验和</li>
+ * </ul>
+ * 分发包先写入临时目录，清单最后写入，再整体重命名为正式目录；没有清单的目录视为不完整。
+ * <p>
+ * 代数由目录中已有分发包的最大代数加一得到，与构建节点本地的提交代数无关，
+ * 构建节点重置或更换后代数仍然递增；索引内容与最新的分发包相同时不再导出。
+ */
+public class IndexBundle {
+
+    private static final String PREFIX = "bundle-";
+    private static final String MANIFEST = "MANIFEST";
+    private static final String INDEX_FILE = "index.ser.gz";
+    private static final String CONTENT_DIR = "content";
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path directory;
+    private final Properties manifest;
+    private final boolean created; // 是否由本次 write 新导出
+
+    private IndexBundle(Path directory, Properties manifest, boolean created) {
+        this.directory = directory;
+        this.manifest = manifest;
+        this.created = created;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getGeneration() {
+        return Long.parseLong(manifest.getProperty("generation"));
+    }
+
+    public int getDocumentCount() {
+        return Integer.parseInt(manifest.getProperty("documents"));
+    }
+
+    /**
+     * @return 是否由本次 {@link #write} 新导出；内容未变化、返回已有分发包时为false
+     */
+    public boolean isCreated() {
+        return created;
+    }
+
+    /**
+     * 导出分发包，代数为目录中已有分发包的最大代数加一。调用方需保证导出期间索引不被修改。
+     * @param bundlesDirectory 存放分发包的目录
+     * @param index 倒排索引
+     * @return 分发包；内容校验和与最新的分发包相同时返回最新的分发包
+     * @throws IOException 写入失败，此时不会留下正式目录
+     */
+    public static IndexBundle write(Path bundlesDirectory, InvertedIndex index) throws IOException {
+        String contentChecksum = Long.toString(contentChecksum(index));
+        IndexBundle latest = latest(bundlesDirectory);
+        if (latest != null && contentChecksum.equals(latest.manifest.getProperty("contentChecksum"))) {
+            return latest;
+        }
+        long generation = latest == null ? 1 : latest.getGeneration() + 1;
+        Path target = bundlesDirectory.resolve(String.format("%s%010d", PREFIX, generation));
+        deleteRecursively(target); // 没有清单的目录是中途失败留下的
+        Path temp = bundlesDirectory.resolve(target.getFileName() + ".tmp");
+        deleteRecursively(temp);
+        Files.createDirectories(temp.resolve(CONTENT_DIR));
+
+        Properties manifest = new Properties();
+        manifest.setProperty("format", Integer.toString(FORMAT_VERSION));
+        manifest.setProperty("generation", Long.toString(generation));
+        manifest.setProperty("contentChecksum", contentChecksum);
+        manifest.setProperty("createdAt", Long.toString(System.currentTimeMillis()));
+        manifest.setProperty("documents", Integer.toString(index.getTotalDocuments()));
+        manifest.setProperty("terms", Integer.toString(index.getDictionary().size()));
+
+        // 1. 讲座原文
+        List<String> files = new ArrayList<>();
+        for (LectureDocument document : index.getDocumentStore().values()) {
+            if (document.getOriginalFilePath() == null) {
+                continue;
+            }
+            Path source = Path.of(document.getOriginalFilePath());
+            if (Files.isRegularFile(source)) {
+                String name = CONTENT_DIR + "/" + source.getFileName();
+                Files.copy(source, temp.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+                files.add(name);
+            }
+        }
+
+        // 2. 压缩的倒排索引
+        try (FileChannel channel = FileChannel.open(temp.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(
+                     new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024)))) {
+            oos.writeObject(index);
+            oos.flush();
+        }
+        files.add(INDEX_FILE);
+
+        // 3. 清单最后写入
+        for (String name : files) {
+            Path file = temp.resolve(name);
+            manifest.setProperty("file." + name + ".length", Long.toString(Files.size(file)));
+            manifest.setProperty("file." + name + ".crc32", Long.toString(IndexCommitPoint.checksumOf(file)));
+        }
+        try (FileChannel channel = FileChannel.open(temp.resolve(MANIFEST),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream out = Channels.newOutputStream(channel)) {
+            manifest.store(out, "inverted index bundle");
+            out.flush();
+            channel.force(true);
+        }
+        IndexCommitPoint.atomicReplace(temp, target);
+        return new IndexBundle(target, manifest, true);
+    }
+
+    /**
+     * 索引内容的校验和：按ID排序的文档元数据与原文、按词项排序的倒排记录。
+     * 与序列化结果不同，它不受哈希表遍历顺序影响，同一内容在任何进程中得到相同的值。
+     * @param index 倒排索引
+     * @return CRC32校验和
+     * @throws IOException 读取原文失败
+     */
+    static long contentChecksum(InvertedIndex index) throws IOException {
+        CRC32 crc = new CRC32();
+        List<String> docIds = new ArrayList<>(index.getDocumentStore().keySet());
+        docIds.sort(Comparator.naturalOrder());
+        for (String docId : docIds) {
+            LectureDocument document = index.getDocumentStore().get(docId);
+            crc.update(document.toString().getBytes(StandardCharsets.UTF_8));
+            if (document.getOriginalFilePath() != null && Files.isRegularFile(Path.of(document.getOriginalFilePath()))) {
+                updateLong(crc, IndexCommitPoint.checksumOf(Path.of(document.getOriginalFilePath())));
+            }
+        }
+        List<String> terms = new ArrayList<>(index.getDictionary().keySet());
+        terms.sort(Comparator.naturalOrder());
+        for (String term : terms) {
+            crc.update(term.getBytes(StandardCharsets.UTF_8));
+            List<Posting> postings = new ArrayList<>(index.getPostings(term));
+            postings.sort(Comparator.comparing(Posting::getDocumentId));
+            for (Posting posting : postings) {
+                crc.update(posting.getDocumentId().getBytes(StandardCharsets.UTF_8));
+                updateLong(crc, posting.getTermFrequency());
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static void updateLong(CRC32 crc, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (value >>> shift));
+        }
+    }
+
+    /**
+     * 打开一个分发包目录，只读取清单，不校验文件。
+     * @param directory 分发包目录
+     * @return 分发包
+     * @throws IOException 清单不存在或格式不支持
+     */
+    public static IndexBundle open(Path directory) throws IOException {
+        Properties manifest = new Properties();
+        try (InputStream in = Files.newInputStream(directory.resolve(MANIFEST))) {
+            manifest.load(in);
+        }
+        String format = manifest.getProperty("format");
+        if (!Integer.toString(FORMAT_VERSION).equals(format) || manifest.getProperty("generation") == null) {
+            throw new IOException("Unsupported index bundle format " + format + ": " + directory);
+        }
+        return new IndexBundle(directory, manifest, false);
+    }
+
+    /**
+     * @param bundlesDirectory 存放分发包的目录
+     * @return 代数最大的完整分发包，没有时返回null
+     * @throws IOException 读取目录失败
+     */
+    public static IndexBundle latest(Path bundlesDirectory) throws IOException {
+        if (!Files.isDirectory(bundlesDirectory)) {
+            return null;
+        }
+        try (Stream<Path> entries = Files.list(bundlesDirectory)) {
+            Path latest = entries
+                    .filter(path -> path.getFileName().toString().startsWith(PREFIX) && !path.toString().endsWith(".tmp"))
+                    .filter(path -> Files.exists(path.resolve(MANIFEST)))
+                    .max(Comparator.comparing(path -> path.getFileName().toString()))
+                    .orElse(null);
+            return latest == null ? null : open(latest);
+        }
+    }
+
+    /**
+     * 校验清单中列出的每个文件的长度和CRC32校验和。
+     * @throws IOException 文件缺失或与清单不一致
+     */
+    public void verify() throws IOException {
+        for (String key : manifest.stringPropertyNames()) {
+            if (!key.startsWith("file.") || !key.endsWith(".length")) {
+                continue;
+            }
+            String name = key.substring("file.".length(), key.length() - ".length".length());
+            Path file = directory.resolve(name);
+            long length = Long.parseLong(manifest.getProperty(key));
+            long checksum = Long.parseLong(manifest.getProperty("file." + name + ".crc32"));
+            if (!Files.isRegularFile(file) || Files.size(file) != length || IndexCommitPoint.checksumOf(file) != checksum) {
+                throw new IOException("Index bundle file " + file + " does not match its manifest entry.");
+            }
+        }
+    }
+
+    /**
+     * 把讲座原文复制到本地目录，并读取倒排索引，文档的原文路径改写为本地路径。
+     * 调用前应先 {@link #verify()}。
+     * @param contentDirectory 本地讲座原文目录
+     * @return 倒排索引
+     * @throws IOException 复制或读取失败
+     */
+    public InvertedIndex install(Path contentDirectory) throws IOException {
+        Files.createDirectories(contentDirectory);
+        Path bundleContent = directory.resolve(CONTENT_DIR);
+        if (Files.isDirectory(bundleContent)) {
+            try (Stream<Path> files = Files.list(bundleContent)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.copy(file, contentDirectory.resolve(file.getFileName().toString()), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+
+        InvertedIndex index;
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(directory.resolve(INDEX_FILE)), 64 * 1024)))) {
+            if (!(ois.readObject() instanceof InvertedIndex loaded)) {
+                throw new IOException("Index bundle " + directory + " does not contain an inverted index.");
+            }
+            index = loaded;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Index bundle " + directory + " was written by an incompatible version.", e);
+        }
+        for (LectureDocument document : index.getDocumentStore().values()) {
+            if (document.getOriginalFilePath() != null) {
+                Path fileName = Path.of(document.getOriginalFilePath()).getFileName();
+                document.setOriginalFilePath(contentDirectory.resolve(fileName.toString()).toString());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 删除代数最小的分发包，只保留最近的若干个。
+     * @param bundlesDirectory 存放分发包的目录
+     * @param keep 保留的个数
+     * @throws IOException 删除失败
+     */
+    public static void prune(Path bundlesDirectory, int keep) throws IOException {
+        List<Path> bundles;
+        try (Stream<Path> entries = Files.list(bundlesDirectory)) {
+            bundles = entries
+                    .filter(path -> path.getFileName().toString().startsWith(PREFIX) && !path.toString().endsWith(".tmp"))
+                    .sorted(Comparator.comparing((Path path) -> path.getFileName().toString()).reversed())
+                    .toList();
+        }
+        for (int i = keep; i < bundles.size(); i++) {
+            deleteRecursively(bundles.get(i));
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> entries = Files.walk(path)) {
+            for (Path entry : entries.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(entry);
+            }
+        }
+    }
+}
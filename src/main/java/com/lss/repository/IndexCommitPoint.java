@@ -0,0 +1,193 @@
+package com.lss.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * 索引提交点。记录当前有效的索引快照文件及其长度、CRC32校验和与代数。
+ * 只有提交点写入成功后，新快照才算提交；加载时据此校验快照是否完整。
+ * 同时记录上一代快照，当前快照校验失败时可以退回上一代。
+ */
+public class IndexCommitPoint {
+
+    private static final String KEY_GENERATION = "generation";
+    private static final String KEY_INDEX_FILE = "indexFile";
+    private static final String KEY_LENGTH = "length";
+    private static final String KEY_CHECKSUM = "checksum";
+    private static final String PREVIOUS_PREFIX = "previous.";
+
+    private final long generation;
+    private final String indexFile;
+    private final long length;
+    private final long checksum;
+    private final IndexCommitPoint previous; // 上一代快照，没有时为null
+
+    public IndexCommitPoint(long generation, String indexFile, long length, long checksum) {
+        this(generation, indexFile, length, checksum, null);
+    }
+
+    /**
+     * @param previous 上一代快照的提交点，只记录它本身，不再向前追溯
+     */
+    public IndexCommitPoint(long generation, String indexFile, long length, long checksum, IndexCommitPoint previous) {
+        this.generation = generation;
+        this.indexFile = indexFile;
+        this.length = length;
+        this.checksum = checksum;
+        this.previous = previous == null ? null
+                : new IndexCommitPoint(previous.generation, previous.indexFile, previous.length, previous.checksum);
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public String getIndexFile() {
+        return indexFile;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    public IndexCommitPoint getPrevious() {
+        return previous;
+    }
+
+    /**
+     * 读取提交点文件。
+     * @param path 提交点路径
+     * @return 提交点，文件不存在时返回null
+     * @throws IOException 文件存在但无法读取或内容不完整
+     */
+    public static IndexCommitPoint read(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        }
+        try {
+            IndexCommitPoint previous = properties.containsKey(PREVIOUS_PREFIX + KEY_INDEX_FILE)
+                    ? parse(properties, PREVIOUS_PREFIX, null) : null;
+            return parse(properties, "", previous);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed index commit point: " + path, e);
+        }
+    }
+
+    private static IndexCommitPoint parse(Properties properties, String prefix, IndexCommitPoint previous) {
+        String indexFile = properties.getProperty(prefix + KEY_INDEX_FILE);
+        if (indexFile == null) {
+            throw new IllegalArgumentException("missing " + prefix + KEY_INDEX_FILE);
+        }
+        return new IndexCommitPoint(
+                Long.parseLong(properties.getProperty(prefix + KEY_GENERATION)),
+                indexFile,
+                Long.parseLong(properties.getProperty(prefix + KEY_LENGTH)),
+                Long.parseLong(properties.getProperty(prefix + KEY_CHECKSUM)),
+                previous);
+    }
+
+    /**
+     * 原子地写入提交点：先写临时文件并fsync，再原子重命名覆盖旧提交点。
+     * @param path 提交点路径
+     * @throws IOException 写入失败
+     */
+    public void write(Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(KEY_GENERATION, Long.toString(generation));
+        properties.setProperty(KEY_INDEX_FILE, indexFile);
+        properties.setProperty(KEY_LENGTH, Long.toString(length));
+        properties.setProperty(KEY_CHECKSUM, Long.toString(checksum));
+        if (previous != null) {
+            properties.setProperty(PREVIOUS_PREFIX + KEY_GENERATION, Long.toString(previous.generation));
+            properties.setProperty(PREVIOUS_PREFIX + KEY_INDEX_FILE, previous.indexFile);
+            properties.setProperty(PREVIOUS_PREFIX + KEY_LENGTH, Long.toString(previous.length));
+            properties.setProperty(PREVIOUS_PREFIX + KEY_CHECKSUM, Long.toString(previous.checksum));
+        }
+
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream out = Channels.newOutputStream(channel)) {
+            properties.store(out, "inverted index commit point");
+            out.flush();
+            channel.force(true);
+        }
+        atomicReplace(tempPath, path);
+    }
+
+    /**
+     * 校验快照文件是否与提交点记录的长度和校验和一致。
+     * @param snapshot 快照文件路径
+     * @return 一致返回true
+     * @throws IOException 读取失败
+     */
+    public boolean matches(Path snapshot) throws IOException {
+        if (!Files.exists(snapshot) || Files.size(snapshot) != length) {
+            return false;
+        }
+        return checksumOf(snapshot) == checksum;
+    }
+
+    /**
+     * 计算文件的CRC32校验和。
+     */
+    public static long checksumOf(Path file) throws IOException {
+        CRC32 crc32 = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                crc32.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc32.getValue();
+    }
+
+    /**
+     * 原子重命名，文件系统不支持原子移动时退化为覆盖移动。
+     * 重命名只修改目录项，随后fsync所在目录，否则断电后重命名可能丢失。
+     */
+    static void atomicReplace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    /**
+     * fsync目录，使其中新建、重命名的目录项持久化。
+     * 部分平台（如Windows）不能打开目录，此时无法也不需要fsync目录。
+     */
+    static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // 不支持打开目录的平台
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.lss.repository;
+
+import com.lss.model.Index.IndexWalRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * 增量索引的预写日志（只追加）。
+ * 每条记录的格式为：[int 长度][long CRC32][序列化的IndexWalRecord]。
+ * 一批记录只做一次顺序追加和一次fsync，取代每批之后重写整个索引文件。
+ * 重放时遇到被截断或校验失败的尾部记录即停止，并把文件截断到最后一条完整记录。
+ */
+@Slf4j
+public class IndexWriteAheadLog {
+
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+    private final Path walPath;
+    private int recordCount;
+
+    public IndexWriteAheadLog(Path walPath) {
+        this.walPath = walPath;
+    }
+
+    /**
+     * 追加一批记录并fsync。方法返回后这批记录即为持久的。
+     * @param records 待追加的记录
+     * @throws IOException 写入失败
+     */
+    public synchronized void append(List<IndexWalRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        Files.createDirectories(walPath.getParent());
+        boolean created = !Files.exists(walPath);
+        List<ByteBuffer> buffers = new ArrayList<>(records.size());
+        for (IndexWalRecord record : records) {
+            buffers.add(encode(record));
+        }
+        try (FileChannel channel = FileChannel.open(walPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer[] array = buffers.toArray(new ByteBuffer[0]);
+            while (array[array.length - 1].hasRemaining()) {
+                channel.write(array);
+            }
+            channel.force(false);
+        }
+        if (created) {
+            IndexCommitPoint.syncDirectory(walPath.toAbsolutePath().getParent()); // 新建的日志文件的目录项
+        }
+        recordCount += records.size();
+    }
+
+    /**
+     * 按写入顺序重放日志中的全部完整记录。
+     * @param consumer 记录处理器
+     * @return 重放的记录数
+     * @throws IOException 读取失败
+     */
+    public synchronized int replay(Consumer<IndexWalRecord> consumer) throws IOException {
+        recordCount = 0;
+        if (!Files.exists(walPath)) {
+            return 0;
+        }
+        long validLength = 0;
+        try (FileChannel channel = FileChannel.open(walPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (validLength + HEADER_BYTES <= size) {
+                header.clear();
+                readFully(channel, header, validLength);
+                header.flip();
+                int length = header.getInt();
+                long checksum = header.getLong();
+                if (length <= 0 || validLength + HEADER_BYTES + length > size) {
+                    break; // 尾部记录不完整
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(channel, payload, validLength + HEADER_BYTES);
+                CRC32 crc32 = new CRC32();
+                crc32.update(payload.array());
+                if (crc32.getValue() != checksum) {
+                    break; // 尾部记录损坏
+                }
+                consumer.accept(decode(payload.array()));
+                recordCount++;
+                validLength += HEADER_BYTES + length;
+            }
+            if (validLength < size) {
+                log.warn("Write-ahead log {} has a torn tail; truncating {} bytes.", walPath, size - validLength);
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+        }
+        return recordCount;
+    }
+
+    /**
+     * 清空日志。在索引快照提交之后调用，日志中的内容已经包含在新快照中。
+     * @throws IOException 截断失败
+     */
+    public synchronized void reset() throws IOException {
+        if (Files.exists(walPath)) {
+            try (FileChannel channel = FileChannel.open(walPath, StandardOpenOption.WRITE)) {
+                channel.truncate(0);
+                channel.force(true);
+            }
+        }
+        recordCount = 0;
+    }
+
+    /**
+     * 自上次快照提交以来日志中的记录数。
+     */
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    private static ByteBuffer encode(IndexWalRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(record);
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        buffer.putInt(payload.length).putLong(crc32.getValue()).put(payload);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static IndexWalRecord decode(byte[] payload) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (IndexWalRecord) ois.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Unreadable write-ahead log record.", e);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of write-ahead log.");
+            }
+            offset += read;
+        }
+    }
+}
@@ -1,18 +1,35 @@
 package com.lss.repository;
 
 import com.lss.constant.PathConstant;
+import com.lss.model.Index.ColumnArena;
+import com.lss.model.Index.CorpusStatistics;
+import com.lss.model.Index.IndexSnapshot;
+import com.lss.model.Index.IndexWalRecord;
 import com.lss.model.Index.InvertedIndex;
 import com.lss.model.Index.LectureDocument;
 import com.lss.model.Index.Posting;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 @Component
 @Slf4j
@@ -22,6 +39,40 @@ public class InvertedIndexManager {
     private volatile InvertedIndex invertedIndex;
     // 使用PathConstant来定义索引文件路径
     private final Path indexPath = Paths.get(PathConstant.Inverted_Index);
+    private final Path commitPath = Paths.get(PathConstant.Index_Commit);
+    private final Path walPath = Paths.get(PathConstant.Index_WAL);
+
+    // 预写日志累计多少条记录后做一次检查点（写完整快照并清空日志）
+    private static final int WAL_CHECKPOINT_RECORDS = 200;
+
+    private final IndexWriteAheadLog writeAheadLog = new IndexWriteAheadLog(walPath);
+    // 已提交快照的代数
+    private final AtomicLong generation = new AtomicLong(0);
+    // 内存中的索引所基于的提交点，下一次提交时作为上一代记入新提交点；持有本对象的锁访问
+    private IndexCommitPoint committed;
+    // 面向查询的只读快照，索引内容变化后整体重建并替换
+    private volatile IndexSnapshot snapshot = IndexSnapshot.empty();
+    // 快照版本只在本进程内递增，用于缓存失效；需要跨重启和副本比较的场合使用 IndexSnapshot#getIdentity
+    private final AtomicLong snapshotVersion = new AtomicLong(0);
+    // 索引内容（文档与词项）的版本，只在内容变化时递增，下发全局统计量重建快照时不变
+    private final AtomicLong contentVersion = new AtomicLong(0);
+    // 分片部署时由协调节点下发的全局统计量，为null时按本地索引计算IDF
+    private volatile CorpusStatistics globalStatistics;
+    // 进程内多分片模式的分片数，为0时不构建分片快照
+    private volatile int localShardCount;
+    // 进程内多分片模式下按当前快照切分出的分片快照，随主快照一起重建，查询只读取引用
+    private volatile List<IndexSnapshot> shardSnapshots = List.of();
+
+    // 快照的倒排记录表、文档范数和列式字段值是否放在堆外
+    @Value("${lss.index.off-heap.enabled:false}")
+    private boolean offHeapEnabled;
+
+    // 是否为快照构建标题、主讲人的字符二元组索引，词项检索候选过少时使用
+    @Value("${lss.ngram.enabled:true}")
+    private boolean ngramEnabled;
+
+    // 第一次构建快照时选定存储区的实现
+    private Supplier<ColumnArena> arenaFactory;
 
     // 使用AtomicBoolean来确保索引只加载/初始化一次
     private final AtomicBoolean indexLoaded = new AtomicBoolean(false);
@@ -63,9 +114,36 @@ public class InvertedIndexManager {
     }
 
     /**
-     * 从文件中加载倒排索引。
+     * 用新构建好的索引整体替换当前索引。
+     * 重建在独立的索引实例上进行，完成后通过volatile引用一次性切换，
+     * 切换前的查询始终读取旧快照，不会看到构建到一半的索引。
+     * @param newIndex 构建完成的倒排索引
+     */
+    public synchronized void replaceIndex(InvertedIndex newIndex) {
+        if (newIndex == null) {
+            throw new IllegalArgumentException("Replacement inverted index must not be null.");
+        }
+        this.invertedIndex = newIndex;
+        contentVersion.incrementAndGet();
+        refreshSnapshot();
+        indexLoaded.set(true);
+        log.info("Inverted index replaced. Now contains {} terms and {} documents.",
+                newIndex.getDictionary().size(), newIndex.getTotalDocuments());
+    }
+
+    /**
+     * 索引是否已经加载（或已确认为空索引），可以对外提供查询。
+     * @return 是否可用
+     */
+    public boolean isIndexLoaded() {
+        return indexLoaded.get();
+    }
+
+    /**
+     * 从文件中加载倒排索引，并重放预写日志中尚未合入快照的增量记录。
      * 通常在应用启动时调用，只会加载一次。
-     * 如果文件不存在或加载失败，会初始化一个空的索引。
+     * 快照与提交点记录的长度或校验和不一致时拒绝加载并记录错误，
+     * 文件不存在或加载失败时初始化一个空的索引。
      */
     public synchronized void loadIndex() { // 使用 synchronized 确保只有一个线程进行加载
         if (indexLoaded.get()) {
@@ -73,48 +151,417 @@ public class InvertedIndexManager {
             return;
         }
 
-        if (Files.exists(indexPath)) {
-            try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(indexPath))) {
-                Object readObject = ois.readObject();
-                if (readObject instanceof InvertedIndex) {
-                    this.invertedIndex = (InvertedIndex) readObject;
-                    indexLoaded.set(true);
-                    log.info("Inverted index loaded successfully from {}. Contains {} terms and {} documents.",
-                            indexPath, invertedIndex.getDictionary().size(), invertedIndex.getTotalDocuments());
-                } else {
-                    log.error("Loaded object is not an InvertedIndex instance. Starting with empty index.");
-                    this.invertedIndex = new InvertedIndex();
+        this.invertedIndex = readSnapshot();
+        replayWriteAheadLog();
+        contentVersion.incrementAndGet();
+        refreshSnapshot();
+        indexLoaded.set(true); // 无论加载成功与否，都标记为已尝试加载
+    }
+
+    private InvertedIndex readSnapshot() {
+        IndexCommitPoint commitPoint = null;
+        try {
+            commitPoint = IndexCommitPoint.read(commitPath);
+        } catch (IOException e) {
+            log.error("Failed to read commit point {}. Loading snapshot without checksum verification.", commitPath, e);
+        }
+        if (commitPoint == null) {
+            // 没有提交点时尝试旧版本写出的 inverted_index.ser，无法校验，直接加载
+            if (!Files.exists(indexPath)) {
+                log.info("Inverted index file not found at {}. Starting with empty index.", indexPath);
+                return new InvertedIndex(); // 文件不存在，使用新的空索引
+            }
+            log.warn("No commit point found for {}. Loading snapshot without checksum verification.", indexPath);
+            InvertedIndex loaded = deserialize(indexPath);
+            return loaded == null ? new InvertedIndex() : loaded;
+        }
+
+        // 提交点记录的快照不完整时退回上一代快照，上一代之后的预写日志记录照常重放
+        for (IndexCommitPoint candidate = commitPoint; candidate != null; candidate = candidate.getPrevious()) {
+            InvertedIndex loaded = readCommitted(candidate);
+            if (loaded != null) {
+                if (candidate != commitPoint) {
+                    log.error("Fell back to previous inverted index generation {}; documents committed only in " +
+                            "generation {} are missing unless still in the write-ahead log.",
+                            candidate.getGeneration(), commitPoint.getGeneration());
                 }
-            } catch (IOException | ClassNotFoundException e) {
-                log.error("Failed to load inverted index from {}. Starting with empty index.", indexPath, e);
-                this.invertedIndex = new InvertedIndex(); // 加载失败，使用新的空索引
+                generation.set(candidate.getGeneration());
+                committed = candidate;
+                return loaded;
             }
-        } else {
-            log.info("Inverted index file not found at {}. Starting with empty index.", indexPath);
-            this.invertedIndex = new InvertedIndex(); // 文件不存在，使用新的空索引
         }
-        indexLoaded.set(true); // 无论加载成功与否，都标记为已尝试加载
+        log.error("No inverted index snapshot matches commit point {} (generation {}). Starting with empty index.",
+                commitPath, commitPoint.getGeneration());
+        return new InvertedIndex();
+    }
+
+    // 按提交点校验并加载快照，不一致或加载失败时返回null
+    private InvertedIndex readCommitted(IndexCommitPoint commitPoint) {
+        Path snapshotPath = indexPath.resolveSibling(commitPoint.getIndexFile());
+        try {
+            if (!commitPoint.matches(snapshotPath)) {
+                log.error("Inverted index {} does not match commit point (generation {}, length {}, checksum {}).",
+                        snapshotPath, commitPoint.getGeneration(), commitPoint.getLength(), commitPoint.getChecksum());
+                return null;
+            }
+        } catch (IOException e) {
+            log.error("Failed to verify {} against commit point {}.", snapshotPath, commitPath, e);
+            return null;
+        }
+        return deserialize(snapshotPath);
+    }
+
+    private InvertedIndex deserialize(Path snapshotPath) {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            Object readObject = ois.readObject();
+            if (readObject instanceof InvertedIndex loaded) {
+                log.info("Inverted index loaded successfully from {}. Contains {} terms and {} documents.",
+                        snapshotPath, loaded.getDictionary().size(), loaded.getTotalDocuments());
+                return loaded;
+            }
+            log.error("Loaded object from {} is not an InvertedIndex instance.", snapshotPath);
+        } catch (IOException | ClassNotFoundException e) {
+            log.error("Failed to load inverted index from {}.", snapshotPath, e);
+        }
+        return null;
+    }
+
+    private void replayWriteAheadLog() {
+        try {
+            long committedGeneration = generation.get();
+            AtomicInteger applied = new AtomicInteger();
+            int replayed = writeAheadLog.replay(record -> {
+                if (record.getBaseGeneration() < committedGeneration) {
+                    return; // 该记录已包含在提交的快照中
+                }
+                record.applyTo(invertedIndex);
+                applied.incrementAndGet();
+            });
+            if (replayed > 0) {
+                log.info("Replayed {} write-ahead log records, {} documents applied on top of generation {}.",
+                        replayed, applied.get(), committedGeneration);
+            }
+        } catch (IOException e) {
+            log.error("Failed to replay write-ahead log {}. Incremental documents since the last snapshot are missing.", walPath, e);
+        }
+    }
+
+    /**
+     * 基于当前索引重建只读快照（IDF表、带权重的倒排记录表、文档范数）并原子替换，
+     * 启用进程内多分片模式时一并重建分片快照，查询不必在请求线程上重建。
+     * 在文档总数或文档频率发生变化后调用。
+     */
+    private void refreshSnapshot() {
+        long start = System.nanoTime();
+        IndexSnapshot previous = snapshot;
+        IndexSnapshot rebuilt = buildSnapshot(invertedIndex, snapshotVersion.incrementAndGet(), globalStatistics, ngramEnabled);
+        this.snapshot = rebuilt;
+        retire(List.of(previous));
+        log.info("Index snapshot v{} built in {} ms: {} documents, {} terms, {} MB in {} arena.", rebuilt.getVersion(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), rebuilt.getTotalDocuments(), rebuilt.getTermCount(),
+                rebuilt.getArena().offHeapBytes() >> 20, rebuilt.getArena().name());
+        refreshShardSnapshots();
+    }
+
+    // 在新的存储区上构建快照（可选附带字符二元组索引），构建失败时释放存储区。调用方需持有本对象的锁
+    private IndexSnapshot buildSnapshot(InvertedIndex index, long version, CorpusStatistics global, boolean withNgrams) {
+        if (arenaFactory == null) {
+            arenaFactory = ColumnArena.factory(offHeapEnabled);
+        }
+        ColumnArena arena = arenaFactory.get();
+        try {
+            IndexSnapshot built = IndexSnapshot.build(index, version, global, arena);
+            if (withNgrams) {
+                built.attachNgrams();
+            }
+            return built;
+        } catch (RuntimeException | Error e) {
+            arena.close();
+            throw e;
+        }
     }
 
     /**
-     * 将倒排索引持久化到文件。
-     * 通常在索引构建完成后调用。
+     * 退役被替换的快照：释放发布者持有的引用。替换前开始、仍持有引用的查询结束后，存储区才被释放。
      */
-    public void persistIndex() {
+    private void retire(List<IndexSnapshot> retired) {
+        for (IndexSnapshot old : retired) {
+            if (old == IndexSnapshot.empty() || old.getArena() == ColumnArena.heap()) {
+                continue; // 堆内快照由GC回收
+            }
+            old.release();
+            log.debug("Retired index snapshot v{}.", old.getVersion());
+        }
+    }
+
+    /**
+     * 获取当前的只读查询快照。一次查询应只获取一次快照并全程使用，保证看到一致的统计量。
+     * @return 索引快照
+     * @throws IllegalStateException 如果索引尚未加载或构建
+     */
+    public IndexSnapshot getSnapshot() {
+        if (!indexLoaded.get()) {
+            throw new IllegalStateException("倒排索引未初始化");
+        }
+        return snapshot;
+    }
+
+    /**
+     * 获取当前快照并持有一个引用，读取倒排记录表、文档范数或列式字段值的查询应使用本方法，
+     * 结束后调用 {@link IndexSnapshot#release()}（或以 try-with-resources 关闭），保证查询期间存储区不被释放。
+     * @return 已持有引用的索引快照
+     * @throws IllegalStateException 如果索引尚未加载或构建
+     */
+    public IndexSnapshot acquireSnapshot() {
+        while (true) {
+            IndexSnapshot current = getSnapshot();
+            if (current.tryAcquire()) {
+                return current;
+            }
+            // 获取前快照已被替换且引用已全部释放，重新读取当前快照
+        }
+    }
+
+    /**
+     * 本节点索引的统计量，分片部署时上报给协调节点。
+     * @return 统计量，版本号为内容版本
+     */
+    public synchronized CorpusStatistics localStatistics() {
+        return CorpusStatistics.of(getInvertedIndex(), contentVersion.get());
+    }
+
+    /**
+     * 使用协调节点下发的全局统计量重建快照，之后本节点的打分与其他分片可比。
+     * @param global 全局统计量
+     */
+    public synchronized void applyGlobalStatistics(CorpusStatistics global) {
+        this.globalStatistics = global;
+        refreshSnapshot();
+        log.info("Applied global statistics: {} documents, {} terms.", global.getTotalDocuments(),
+                global.getDocumentFrequencies().size());
+    }
+
+    /**
+     * 启用进程内多分片模式：之后每次重建快照时，同时把索引按文档ID哈希切分为若干分片快照，
+     * 每个分片按整个索引的统计量计算IDF，分片上的打分与不分片时完全相同。
+     * @param shardCount 分片总数
+     */
+    public synchronized void enableLocalShards(int shardCount) {
+        this.localShardCount = shardCount;
+        if (indexLoaded.get()) {
+            refreshShardSnapshots();
+        }
+    }
+
+    /**
+     * 进程内多分片模式下的分片快照，随主快照一起重建，版本号与主快照相同。
+     * @param shard 分片号
+     * @param shardCount 分片总数
+     * @return 分片快照
+     * @throws IllegalStateException 如果索引尚未加载，或未以该分片数启用进程内多分片模式
+     */
+    public IndexSnapshot getShardSnapshot(int shard, int shardCount) {
+        getSnapshot();
+        List<IndexSnapshot> shards = shardSnapshots;
+        if (shards.size() != shardCount) {
+            throw new IllegalStateException("未启用" + shardCount + "个进程内分片");
+        }
+        return shards.get(shard);
+    }
+
+    // 按当前索引重建分片快照并替换，未启用进程内多分片模式时不做任何事。调用方需持有本对象的锁
+    private void refreshShardSnapshots() {
+        int shardCount = localShardCount;
+        if (shardCount <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        CorpusStatistics global = CorpusStatistics.of(invertedIndex, contentVersion.get());
+        List<IndexSnapshot> rebuilt = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            rebuilt.add(buildSnapshot(invertedIndex.partition(i, shardCount), snapshot.getVersion(), global, false));
+        }
+        List<IndexSnapshot> previous = shardSnapshots;
+        shardSnapshots = List.copyOf(rebuilt);
+        retire(previous);
+        log.info("Split index snapshot v{} into {} shards in {} ms.", snapshot.getVersion(), shardCount,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * 获取分片快照并持有一个引用，用法同 {@link #acquireSnapshot()}。
+     * @param shard 分片号
+     * @param shardCount 分片总数
+     * @return 已持有引用的分片快照
+     */
+    public IndexSnapshot acquireShardSnapshot(int shard, int shardCount) {
+        while (true) {
+            IndexSnapshot current = getShardSnapshot(shard, shardCount);
+            if (current.tryAcquire()) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * 修改已索引文档的存储字段（不涉及词项），随后重建快照使列式字段值生效，并持久化。
+     * 已发布的快照与查询结果引用着索引中的文档对象，因此修改作用在副本上：
+     * 先在锁外为每个文档复制副本并调用 updater（可能读取Markdown等慢操作），
+     * 再在锁内把修改过的副本换入索引并重建快照；期间已被其他操作替换或删除的文档保持不变。
+     * @param updater 修改传入的副本，返回true表示修改了该文档
+     * @return 被修改的文档数
+     */
+    public int updateDocuments(Predicate<LectureDocument> updater) {
+        List<LectureDocument[]> changed = new ArrayList<>(); // {原文档, 修改后的副本}
+        for (LectureDocument original : invertedIndex.getDocumentStore().values()) {
+            LectureDocument copy = original.copy();
+            if (updater.test(copy)) {
+                changed.add(new LectureDocument[]{original, copy});
+            }
+        }
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        synchronized (this) {
+            Map<String, LectureDocument> store = invertedIndex.getDocumentStore();
+            int updated = 0;
+            for (LectureDocument[] pair : changed) {
+                if (store.get(pair[0].getId()) == pair[0]) {
+                    store.put(pair[0].getId(), pair[1]);
+                    updated++;
+                }
+            }
+            if (updated > 0) {
+                refreshSnapshot();
+                persistIndex();
+            }
+            return updated;
+        }
+    }
+
+    /**
+     * 持久地添加一批增量文档：先顺序追加到预写日志并fsync，再写入内存索引。
+     * 日志记录数超过阈值时做一次检查点，把完整快照提交到磁盘并清空日志。
+     * @param records 待添加的文档记录
+     * @throws IOException 写日志失败，此时记录不会写入内存索引
+     */
+    public synchronized void addDocumentsDurably(List<IndexWalRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        for (IndexWalRecord record : records) {
+            record.setBaseGeneration(generation.get());
+        }
+        writeAheadLog.append(records);
+        for (IndexWalRecord record : records) {
+            record.applyTo(invertedIndex);
+        }
+        contentVersion.incrementAndGet();
+        refreshSnapshot();
+        log.info("Appended {} documents to the write-ahead log ({} records since last snapshot).",
+                records.size(), writeAheadLog.getRecordCount());
+        if (writeAheadLog.getRecordCount() >= WAL_CHECKPOINT_RECORDS) {
+            persistIndex();
+        }
+    }
+
+    /**
+     * 将倒排索引持久化到文件。提交按以下顺序进行，提交点的原子替换是唯一的提交动作：
+     * <ol>
+     *     <li>写入按代数命名的新快照 {@code inverted_index.<代数>.ser}（先写临时文件、fsync，再重命名并fsync目录）</li>
+     *     <li>写入指向该文件、同时记录上一代快照的新提交点并fsync，原子重命名覆盖旧提交点</li>
+     *     <li>清空预写日志</li>
+     *     <li>删除上上代快照文件</li>
+     * </ol>
+     * 第2步之前崩溃时，提交点仍指向上一代快照，预写日志完整保留；第2步之后崩溃时，新提交点已生效，
+     * 日志中基于上一代的记录在重放时被跳过。上一代快照保留到下一次提交成功，
+     * 新快照校验失败时加载上一代，不必从空索引重建。
+     */
+    public synchronized void persistIndex() {
         if (invertedIndex == null) {
             log.warn("Attempted to persist null inverted index. No data saved.");
             return;
         }
+        long nextGeneration = generation.get() + 1;
+        Path targetPath = snapshotPathOf(nextGeneration);
+        Path tempPath = targetPath.resolveSibling(targetPath.getFileName() + ".tmp");
         try {
             Files.createDirectories(indexPath.getParent()); // 确保父目录存在
-            try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(indexPath))) {
+            IndexCommitPoint previous = committed != null ? committed : legacyCommitPoint();
+
+            // 1. 新快照写入按代数命名的文件，提交点仍指向旧文件
+            CRC32 crc32 = new CRC32();
+            try (FileChannel channel = FileChannel.open(tempPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(
+                         new CheckedOutputStream(Channels.newOutputStream(channel), crc32)))) {
                 oos.writeObject(invertedIndex);
-                log.info("Inverted index persisted successfully to {}. Contains {} terms and {} documents.",
-                        indexPath, invertedIndex.getDictionary().size(), invertedIndex.getTotalDocuments());
+                oos.flush();
+                channel.force(true);
             }
+            long length = Files.size(tempPath);
+            IndexCommitPoint.atomicReplace(tempPath, targetPath);
+
+            // 2. 提交：原子替换提交点
+            IndexCommitPoint commitPoint = new IndexCommitPoint(nextGeneration, targetPath.getFileName().toString(),
+                    length, crc32.getValue(), previous);
+            commitPoint.write(commitPath);
+            generation.set(nextGeneration);
+            committed = commitPoint;
+
+            // 3. 日志中的记录都已包含在新快照中
+            writeAheadLog.reset();
+
+            // 4. 删除上上代快照，上一代保留到下一次提交成功
+            IndexCommitPoint obsolete = previous == null ? null : previous.getPrevious();
+            if (obsolete != null) {
+                Path obsoletePath = indexPath.resolveSibling(obsolete.getIndexFile());
+                if (!obsoletePath.equals(targetPath) && !obsolete.getIndexFile().equals(previous.getIndexFile())) {
+                    Files.deleteIfExists(obsoletePath);
+                }
+            }
+            log.info("Inverted index persisted successfully to {} (generation {}). Contains {} terms and {} documents.",
+                    targetPath, nextGeneration, invertedIndex.getDictionary().size(), invertedIndex.getTotalDocuments());
         } catch (IOException e) {
-            log.error("Failed to persist inverted index to {}.", indexPath, e);
+            log.error("Failed to persist inverted index to {}.", targetPath, e);
+        }
+    }
+
+    // 指定代数的快照文件，与提交点放在同一目录
+    private Path snapshotPathOf(long generation) {
+        String name = indexPath.getFileName().toString();
+        String base = name.endsWith(".ser") ? name.substring(0, name.length() - ".ser".length()) : name;
+        return indexPath.resolveSibling(String.format("%s.%010d.ser", base, generation));
+    }
+
+    // 没有提交点的旧版本写出的 inverted_index.ser 作为第一次提交的上一代
+    private IndexCommitPoint legacyCommitPoint() throws IOException {
+        if (!Files.isRegularFile(indexPath)) {
+            return null;
         }
+        return new IndexCommitPoint(0, indexPath.getFileName().toString(), Files.size(indexPath),
+                IndexCommitPoint.checksumOf(indexPath));
+    }
+
+    /**
+     * 先持久化当前索引，再导出分发包，导出期间索引不会被修改。
+     * 分发包的代数由分发包目录决定，与本地的提交代数无关，内容未变化时不重复导出。
+     * @param bundlesDirectory 存放分发包的目录
+     * @return 分发包，内容未变化时为已有的最新分发包
+     * @throws IOException 导出失败
+     */
+    public synchronized IndexBundle exportBundle(Path bundlesDirectory) throws IOException {
+        persistIndex();
+        Files.createDirectories(bundlesDirectory);
+        return IndexBundle.write(bundlesDirectory, getInvertedIndex());
+    }
+
+    /**
+     * 当前已提交快照的代数，每次成功持久化后加一。
+     * @return 快照代数
+     */
+    public long getGeneration() {
+        return generation.get();
     }
 
     // 查询接口
@@ -0,0 +1,59 @@
+package com.lss.repository;
+
+import com.lss.model.Index.CorpusStatistics;
+import com.lss.model.Index.IndexSnapshot;
+import com.lss.model.RetrieveDocsItems;
+import com.lss.model.ShardQuery;
+import com.lss.service.ShardSearchService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 进程内分片：把本节点的索引按文档ID哈希切成若干分片快照，用于在单个JVM里验证分片检索。
+ * 分片快照本身就按整个索引的统计量计算IDF，不需要再下发全局统计量。
+ */
+public class LocalShardTransport implements ShardTransport {
+
+    private final InvertedIndexManager invertedIndexManager;
+    private final ShardSearchService shardSearchService;
+    private final int shard;
+    private final int shardCount;
+
+    public LocalShardTransport(InvertedIndexManager invertedIndexManager, ShardSearchService shardSearchService,
+                               int shard, int shardCount) {
+        this.invertedIndexManager = invertedIndexManager;
+        this.shardSearchService = shardSearchService;
+        this.shard = shard;
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public String name() {
+        return "local-" + shard + "/" + shardCount;
+    }
+
+    @Override
+    public CorpusStatistics statistics() {
+        try (IndexSnapshot snapshot = invertedIndexManager.acquireShardSnapshot(shard, shardCount)) {
+            Map<String, Integer> documentFrequencies = new HashMap<>(snapshot.getTermCount() * 2);
+            for (int i = 0; i < snapshot.getTermCount(); i++) {
+                documentFrequencies.put(snapshot.term(i), snapshot.documentFrequency(i));
+            }
+            return new CorpusStatistics(snapshot.getVersion(), snapshot.getTotalDocuments(), documentFrequencies);
+        }
+    }
+
+    @Override
+    public void applyGlobalStatistics(CorpusStatistics global) {
+        // 分片快照切分时已使用整个索引的统计量
+    }
+
+    @Override
+    public List<RetrieveDocsItems> search(ShardQuery query) {
+        try (IndexSnapshot snapshot = invertedIndexManager.acquireShardSnapshot(shard, shardCount)) {
+            return shardSearchService.search(snapshot, query);
+        }
+    }
+}
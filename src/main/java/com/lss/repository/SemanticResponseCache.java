@@ -0,0 +1,312 @@
+package com.lss.repository;
+
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 大模型回答的缓存。先按规范化后的查询精确匹配，未命中时再用本地嵌入向量找
+ * 相似度不低于阈值的已缓存查询。条目有存活时间，超出容量时淘汰最久未使用的条目，
+ * 并定期及关闭时写入本地文件，重启后继续使用。
+ * <p>
+ * 回答依赖外部状态（如检索到的索引内容）时，读写时传入该状态的标识作为范围，只命中同一范围内缓存的回答。
+ */
+@Slf4j
+public class SemanticResponseCache {
+
+    // 新增多少条后写一次文件
+    private static final int PERSIST_EVERY_PUTS = 50;
+
+    private final String name;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final double similarityThreshold;
+    private final EmbeddingModel embeddingModel; // 为null表示只做精确匹配
+    private final Path path;                     // 为null表示不持久化
+
+    // 访问顺序的LinkedHashMap，最久未使用的条目在最前
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int putsSincePersist;
+    private final Object persistLock = new Object();
+
+    private final AtomicLong exactHits = new AtomicLong();
+    private final AtomicLong semanticHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private static final class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String query;
+        private final String response;
+        private final float[] embedding; // 归一化后的查询向量
+        private final long createdAtMillis;
+        private final long scope;        // 缓存时所在的范围，旧版本写出的条目为0
+
+        private Entry(String query, String response, float[] embedding, long createdAtMillis, long scope) {
+            this.query = query;
+            this.response = response;
+            this.embedding = embedding;
+            this.createdAtMillis = createdAtMillis;
+            this.scope = scope;
+        }
+    }
+
+    /**
+     * @param name 缓存名称，用于日志和指标
+     * @param maxEntries 最大条目数
+     * @param ttl 条目存活时间
+     * @param similarityThreshold 近似匹配的最低余弦相似度
+     * @param embeddingModel 本地嵌入模型，为null时只做精确匹配
+     * @param path 持久化文件，为null时不持久化
+     */
+    public SemanticResponseCache(String name, int maxEntries, Duration ttl, double similarityThreshold,
+                                 EmbeddingModel embeddingModel, Path path) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.similarityThreshold = similarityThreshold;
+        this.embeddingModel = embeddingModel;
+        this.path = path;
+        load();
+    }
+
+    /**
+     * 查找缓存的回答。
+     * @param query 查询
+     * @return 缓存的回答，未命中时返回null
+     */
+    public String get(String query) {
+        return get(query, 0L);
+    }
+
+    /**
+     * 在指定范围内查找缓存的回答。
+     * @param query 查询
+     * @param scope 范围，其他范围内缓存的回答不会命中
+     * @return 缓存的回答，未命中时返回null
+     */
+    public String get(String query, long scope) {
+        String key = normalize(query);
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.scope == scope) {
+                if (now - entry.createdAtMillis < ttlMillis) {
+                    exactHits.incrementAndGet();
+                    return entry.response;
+                }
+                entries.remove(key);
+            }
+        }
+
+        if (embeddingModel == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        float[] embedding = embed(key);
+        synchronized (this) {
+            Entry best = null;
+            double bestScore = similarityThreshold;
+            for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+                Entry candidate = iterator.next();
+                if (now - candidate.createdAtMillis >= ttlMillis) {
+                    iterator.remove();
+                    continue;
+                }
+                if (candidate.embedding == null || candidate.scope != scope) {
+                    continue;
+                }
+                double score = dot(embedding, candidate.embedding);
+                if (score >= bestScore) {
+                    best = candidate;
+                    bestScore = score;
+                }
+            }
+            if (best != null) {
+                entries.get(best.query); // 刷新访问顺序
+                semanticHits.incrementAndGet();
+                log.debug("Response cache '{}' matched '{}' to cached '{}' (similarity {}).", name, key, best.query, bestScore);
+                return best.response;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 缓存回答。空回答不缓存。
+     * @param query 查询
+     * @param response 回答
+     */
+    public void put(String query, String response) {
+        put(query, response, 0L);
+    }
+
+    /**
+     * 在指定范围内缓存回答，覆盖同一查询在其他范围内的回答。空回答不缓存。
+     * @param query 查询
+     * @param response 回答
+     * @param scope 范围
+     */
+    public void put(String query, String response, long scope) {
+        if (response == null || response.isEmpty()) {
+            return;
+        }
+        String key = normalize(query);
+        float[] embedding = embeddingModel == null ? null : embed(key);
+        boolean persist;
+        synchronized (this) {
+            entries.put(key, new Entry(key, response, embedding, System.currentTimeMillis(), scope));
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (entries.size() > maxEntries && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+            persist = ++putsSincePersist >= PERSIST_EVERY_PUTS;
+        }
+        if (persist) {
+            persist();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getExactHits() {
+        return exactHits.get();
+    }
+
+    public long getSemanticHits() {
+        return semanticHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return 命中率，尚无请求时为0
+     */
+    public double getHitRatio() {
+        long hits = exactHits.get() + semanticHits.get();
+        long total = hits + misses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 将未过期的条目写入文件：先写临时文件并fsync，再原子重命名。
+     */
+    public void persist() {
+        if (path == null) {
+            return;
+        }
+        List<Entry> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(entries.values());
+            putsSincePersist = 0;
+        }
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        synchronized (persistLock) {
+            writeEntries(snapshot, tempPath);
+        }
+    }
+
+    private void writeEntries(List<Entry> snapshot, Path tempPath) {
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(tempPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+                oos.writeObject(snapshot);
+                oos.flush();
+                channel.force(true);
+            }
+            IndexCommitPoint.atomicReplace(tempPath, path);
+            log.info("Response cache '{}' persisted {} entries to {}.", name, snapshot.size(), path);
+        } catch (IOException e) {
+            log.error("Failed to persist response cache '{}' to {}.", name, path, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void load() {
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            long now = System.currentTimeMillis();
+            int expired = 0;
+            for (Entry entry : (List<Entry>) ois.readObject()) {
+                if (now - entry.createdAtMillis >= ttlMillis) {
+                    expired++;
+                    continue;
+                }
+                // 嵌入模型或其开关变化后，旧向量不再可比，只保留精确匹配
+                float[] embedding = embeddingModel == null || entry.embedding == null
+                        || entry.embedding.length != embeddingModel.dimension() ? null : entry.embedding;
+                entries.put(entry.query, new Entry(entry.query, entry.response, embedding, entry.createdAtMillis, entry.scope));
+            }
+            log.info("Response cache '{}' loaded {} entries from {} ({} expired).", name, entries.size(), path, expired);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            log.error("Failed to load response cache '{}' from {}. Starting empty.", name, path, e);
+            entries.clear();
+        }
+    }
+
+    private float[] embed(String text) {
+        float[] vector = embeddingModel.embed(text).content().vector();
+        double sumOfSquares = 0.0;
+        for (float value : vector) {
+            sumOfSquares += (double) value * value;
+        }
+        if (sumOfSquares > 0) {
+            float inverse = (float) (1.0 / Math.sqrt(sumOfSquares));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= inverse;
+            }
+        }
+        return vector;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 查询规范化：去掉首尾空白、合并连续空白、转小写。
+     * @param query 查询
+     * @return 规范化后的查询
+     */
+    public static String normalize(String query) {
+        return query == null ? "" : query.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+}
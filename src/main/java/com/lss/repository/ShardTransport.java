@@ -0,0 +1,36 @@
+package com.lss.repository;
+
+import com.lss.model.Index.CorpusStatistics;
+import com.lss.model.RetrieveDocsItems;
+import com.lss.model.ShardQuery;
+
+import java.util.List;
+
+/**
+ * 协调节点访问单个分片的方式。进程内实现直接调用本地的分片快照，HTTP实现访问另一个JVM上的节点。
+ * 所有方法都可能阻塞，由协调节点在自己的线程上调用；失败时抛出运行时异常。
+ */
+public interface ShardTransport {
+
+    /**
+     * @return 分片名称，用于日志
+     */
+    String name();
+
+    /**
+     * @return 分片本地索引的统计量
+     */
+    CorpusStatistics statistics();
+
+    /**
+     * 下发全局统计量，分片据此重建快照。
+     * @param global 全局统计量
+     */
+    void applyGlobalStatistics(CorpusStatistics global);
+
+    /**
+     * @param query 分片查询
+     * @return 本分片按相似度降序排列的 Top N
+     */
+    List<RetrieveDocsItems> search(ShardQuery query);
+}
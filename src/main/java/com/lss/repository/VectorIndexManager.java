@@ -0,0 +1,112 @@
+package com.lss.repository;
+
+import com.lss.constant.PathConstant;
+import com.lss.model.Index.HnswIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 管理与倒排索引并存的向量索引文件：启动时加载，构建或增量更新后持久化。
+ * 持久化与倒排索引一样先写临时文件并fsync，再原子重命名。
+ */
+@Component
+@Slf4j
+public class VectorIndexManager {
+
+    private final Path vectorIndexPath = Paths.get(PathConstant.Vector_Index);
+
+    @Value("${lss.semantic.hnsw.m:16}")
+    private int m;
+
+    @Value("${lss.semantic.hnsw.ef-construction:100}")
+    private int efConstruction;
+
+    private volatile HnswIndex vectorIndex;
+
+    /**
+     * 当前的向量索引，尚未加载或构建时返回null。
+     * @return 向量索引
+     */
+    public HnswIndex getVectorIndex() {
+        return vectorIndex;
+    }
+
+    /**
+     * 创建一个空的向量索引（不替换当前索引）。
+     * @param dimension 向量维度
+     * @return 空索引
+     */
+    public HnswIndex newVectorIndex(int dimension) {
+        return new HnswIndex(dimension, m, efConstruction);
+    }
+
+    /**
+     * 用新构建好的向量索引整体替换当前索引。
+     * @param newIndex 构建完成的向量索引
+     */
+    public void replaceVectorIndex(HnswIndex newIndex) {
+        this.vectorIndex = newIndex;
+        log.info("Vector index replaced. Now contains {} vectors of dimension {}.", newIndex.size(), newIndex.getDimension());
+    }
+
+    /**
+     * 从文件中加载向量索引。文件不存在、维度不符或读取失败时保持为空，由后台重新构建。
+     * @param expectedDimension 当前嵌入模型的向量维度
+     */
+    public synchronized void loadVectorIndex(int expectedDimension) {
+        if (!Files.exists(vectorIndexPath)) {
+            log.info("Vector index file not found at {}. It will be built in the background.", vectorIndexPath);
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(vectorIndexPath)))) {
+            HnswIndex loaded = HnswIndex.read(in);
+            if (loaded.getDimension() != expectedDimension) {
+                log.warn("Vector index {} has dimension {} but the embedding model produces {}. Rebuilding.",
+                        vectorIndexPath, loaded.getDimension(), expectedDimension);
+                return;
+            }
+            this.vectorIndex = loaded;
+            log.info("Vector index loaded successfully from {}. Contains {} vectors.", vectorIndexPath, loaded.size());
+        } catch (IOException e) {
+            log.error("Failed to load vector index from {}. It will be rebuilt in the background.", vectorIndexPath, e);
+        }
+    }
+
+    /**
+     * 将当前向量索引持久化到文件。
+     */
+    public synchronized void persistVectorIndex() {
+        HnswIndex current = vectorIndex;
+        if (current == null) {
+            return;
+        }
+        Path tempPath = vectorIndexPath.resolveSibling(vectorIndexPath.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(vectorIndexPath.toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(tempPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+                current.write(out);
+                out.flush();
+                channel.force(true);
+            }
+            IndexCommitPoint.atomicReplace(tempPath, vectorIndexPath);
+            log.info("Vector index persisted successfully to {}. Contains {} vectors.", vectorIndexPath, current.size());
+        } catch (IOException e) {
+            log.error("Failed to persist vector index to {}.", vectorIndexPath, e);
+        }
+    }
+}
@@ -11,7 +11,8 @@ import reactor.core.publisher.Flux;
 @AiService(
         streamingChatModel = "openAiStreamingChatModel",
         wiringMode = AiServiceWiringMode.EXPLICIT,
-        chatMemoryProvider = "openAiStreamingMemoryProviderNoPersist"
+        chatMemoryProvider = "openAiStreamingMemoryProviderNoPersist",
+        contentRetriever = "indexContentRetriever"
 )
 public interface AiAssistant extends ChatMemoryAccess {
     @SystemMessage(fromResource = "SystemPrompt.txt")
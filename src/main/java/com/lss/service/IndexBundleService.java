@@ -0,0 +1,143 @@
+package com.lss.service;
+
+import com.lss.constant.PathConstant;
+import com.lss.model.Index.InvertedIndex;
+import com.lss.repository.IndexBundle;
+import com.lss.repository.InvertedIndexManager;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 索引分发：构建节点（lss.bundle.role=builder）建完索引后导出分发包；
+ * 服务节点（lss.bundle.role=replica）不自己建索引，定期检查分发包目录，
+ * 发现更新的代数时校验、安装并通过 {@link InvertedIndexManager#replaceIndex} 热切换，不需要重启。
+ */
+@Service
+@Slf4j
+public class IndexBundleService {
+
+    private final InvertedIndexManager invertedIndexManager;
+    private final SemanticSearchService semanticSearchService;
+
+    @Value("${lss.bundle.role:none}")
+    private String role;
+
+    // 留空时使用数据目录下的 bundles
+    @Value("${lss.bundle.dir:}")
+    private String bundlesDirectory;
+
+    @Value("${lss.bundle.poll-interval:60s}")
+    private Duration pollInterval;
+
+    @Value("${lss.bundle.keep:3}")
+    private int keep;
+
+    private final Path installedPath = Paths.get(PathConstant.Bundle_Installed);
+    private final Path contentPath = Paths.get(PathConstant.MD_Path);
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "index-bundle-poll");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IndexBundleService(InvertedIndexManager invertedIndexManager, SemanticSearchService semanticSearchService) {
+        this.invertedIndexManager = invertedIndexManager;
+        this.semanticSearchService = semanticSearchService;
+    }
+
+    public boolean isBuilder() {
+        return "builder".equalsIgnoreCase(role);
+    }
+
+    public boolean isReplica() {
+        return "replica".equalsIgnoreCase(role);
+    }
+
+    /**
+     * 构建节点：持久化当前索引并导出分发包，只保留最近的若干个。
+     */
+    public void exportBundle() {
+        try {
+            long startTime = System.nanoTime();
+            Path directory = bundlesPath();
+            IndexBundle bundle = invertedIndexManager.exportBundle(directory);
+            if (!bundle.isCreated()) {
+                log.info("Index unchanged since bundle generation {}. Skipping export.", bundle.getGeneration());
+                return;
+            }
+            IndexBundle.prune(directory, keep);
+            log.info("Exported index bundle generation {} ({} documents) to {} in {} ms.", bundle.getGeneration(),
+                    bundle.getDocumentCount(), bundle.getDirectory(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        } catch (IOException e) {
+            log.error("Failed to export index bundle to {}.", bundlesPath(), e);
+        }
+    }
+
+    /**
+     * 服务节点：安装比已安装代数更新的分发包。校验失败时保留当前索引继续服务。
+     * @return 是否安装了新的分发包
+     */
+    public synchronized boolean installLatest() {
+        try {
+            IndexBundle bundle = IndexBundle.latest(bundlesPath());
+            if (bundle == null || bundle.getGeneration() <= installedGeneration()) {
+                return false;
+            }
+            long startTime = System.nanoTime();
+            bundle.verify();
+            InvertedIndex index = bundle.install(contentPath);
+            invertedIndexManager.replaceIndex(index);
+            invertedIndexManager.persistIndex();
+            Files.writeString(installedPath, Long.toString(bundle.getGeneration()), StandardCharsets.UTF_8);
+            log.info("Installed index bundle generation {} ({} documents) in {} ms.", bundle.getGeneration(),
+                    bundle.getDocumentCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            semanticSearchService.rebuildFromSnapshot(); // 安装的是整份新索引，按全量重建处理
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to install index bundle from {}. Continuing to serve the current index.", bundlesPath(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 服务节点：按固定间隔检查分发包目录。
+     */
+    public void startPolling() {
+        long intervalMillis = pollInterval.toMillis();
+        poller.scheduleWithFixedDelay(this::installLatest, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Polling {} for new index bundles every {}.", bundlesPath(), pollInterval);
+    }
+
+    private Path bundlesPath() {
+        return Paths.get(bundlesDirectory == null || bundlesDirectory.isBlank() ? PathConstant.Index_Bundles : bundlesDirectory);
+    }
+
+    private long installedGeneration() throws IOException {
+        if (!Files.exists(installedPath)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(Files.readString(installedPath, StandardCharsets.UTF_8).strip());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+}
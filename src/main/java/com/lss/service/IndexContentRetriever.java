@@ -0,0 +1,77 @@
+package com.lss.service;
+
+import com.lss.model.Index.Passage;
+import com.lss.model.RetrievedPassage;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于进程内段落索引的内容检索器，每轮对话按用户问题检索相关讲座段落。
+ * 检索结果按 (会话ID, 规范化后的问题, 段落索引版本) 缓存，索引更新后旧结果自然失效。
+ */
+@Component
+@Slf4j
+public class IndexContentRetriever implements ContentRetriever {
+
+    private final PassageRetrievalService passageRetrievalService;
+    private final Map<String, List<Content>> cache;
+
+    public IndexContentRetriever(PassageRetrievalService passageRetrievalService,
+                                 @Value("${lss.rag.cache-size:2000}") int cacheSize) {
+        this.passageRetrievalService = passageRetrievalService;
+        // 访问顺序的LinkedHashMap，超出容量时淘汰最久未使用的结果
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Content>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @Override
+    public List<Content> retrieve(Query query) {
+        Object memoryId = query.metadata() == null ? null : query.metadata().chatMemoryId();
+        long version = passageRetrievalService.currentIndex().getVersion();
+        String key = memoryId + "|" + version + "|" + normalize(query.text());
+
+        synchronized (cache) {
+            List<Content> cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        List<Content> contents = passageRetrievalService.retrieve(query.text()).stream()
+                .map(IndexContentRetriever::toContent)
+                .toList();
+        synchronized (cache) {
+            cache.put(key, contents);
+        }
+        log.debug("Retrieved {} passages for session {}.", contents.size(), memoryId);
+        return contents;
+    }
+
+    private static Content toContent(RetrievedPassage item) {
+        Passage passage = item.getPassage();
+        Metadata metadata = new Metadata()
+                .put("docId", passage.getDocId())
+                .put("title", passage.getTitle())
+                .put("section", passage.getSection())
+                .put("score", item.getScore());
+        return Content.from(TextSegment.from(PassageRetrievalService.toContextText(passage), metadata));
+    }
+
+    private static String normalize(String question) {
+        return question == null ? "" : question.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+}
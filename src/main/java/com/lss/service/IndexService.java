@@ -1,14 +1,19 @@
 package com.lss.service;
 
 import com.lss.model.Chat.ChatResponse;
+import com.lss.model.Index.IndexWalRecord;
 import com.lss.model.Index.InvertedIndex;
 import com.lss.repository.InvertedIndexManager;
 import com.lss.model.Index.LectureDocument;
+import com.lss.util.LectureFieldExtractor;
 import com.lss.util.MarkdownProcessor;
+import com.lss.util.ShardRouter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
@@ -21,13 +26,23 @@ public class IndexService {
     private final LLMSegmenterService llmSegmenterService;
     private final InvertedIndexManager invertedIndexManager;
     private final SimilarityCalculator similarityCalculator; // 注入SimilarityCalculator
+    private final SemanticSearchService semanticSearchService;
+
+    // 多JVM分片部署时本节点的分片号与分片总数，本节点只索引属于自己分片的文档
+    @Value("${lss.shard.id:0}")
+    private int shardId;
+
+    @Value("${lss.shard.count:1}")
+    private int shardCount;
 
     public IndexService(LLMSegmenterService llmSegmenterService,
                         InvertedIndexManager invertedIndexManager,
-                        SimilarityCalculator similarityCalculator) { // 注入
+                        SimilarityCalculator similarityCalculator, // 注入
+                        SemanticSearchService semanticSearchService) {
         this.llmSegmenterService = llmSegmenterService;
         this.invertedIndexManager = invertedIndexManager;
         this.similarityCalculator = similarityCalculator; // 赋值
+        this.semanticSearchService = semanticSearchService;
     }
 
     /**
@@ -64,6 +79,7 @@ public class IndexService {
      * @param indexingThreadPool
      */
     public void buildInitialIndex(List<Path> documentPaths, Boolean forceRebuild, ExecutorService indexingThreadPool) throws IOException {
+        documentPaths = ownedDocuments(documentPaths);
         log.info("Starting initial index build for {} documents.", documentPaths.size()+3);
 
         InvertedIndex currentInvertedIndex = invertedIndexManager.getInvertedIndex();
@@ -79,27 +95,28 @@ public class IndexService {
             return;
         }
 
-        // 清空旧索引，开始重建
-        currentInvertedIndex.getDictionary().clear();
-        currentInvertedIndex.getDocumentStore().clear();
-        currentInvertedIndex.getDocumentFrequencies().clear();
+        // 在新的索引实例上重建，构建期间旧索引继续对外提供查询
+        InvertedIndex rebuiltIndex = new InvertedIndex();
+        buildIndexForAllDoc(documentPaths, indexingThreadPool, rebuiltIndex);
 
-        buildIndexForAllDoc(documentPaths, indexingThreadPool);
-
-        Set<String> allDocumentIds = new HashSet<>(currentInvertedIndex.getAllDocumentIds());
+        // 构建完成后一次性替换当前索引（同时重建查询快照），并持久化
+        invertedIndexManager.replaceIndex(rebuiltIndex);
+        Set<String> allDocumentIds = new HashSet<>(rebuiltIndex.getAllDocumentIds());
         similarityCalculator.precomputeDocumentNorms(allDocumentIds);
-        // 构建完成后，需要持久化索引
         invertedIndexManager.persistIndex();
+        // 文档集合整体变化，向量索引同样重建
+        semanticSearchService.rebuildFromSnapshot();
     }
 
     /**
      * 增量添加新文档到现有索引。
-     * 此方法会处理新增文档，并将其加入到当前加载的索引中，然后持久化。
+     * 新文档先追加到预写日志再写入当前加载的索引，不再每批重写整个索引文件。
      *
      * @param newDocumentPaths 新增Markdown文档的路径列表
      * @param indexingThreadPool 用于异步处理文档的线程池
      */
     public void addIncrementalDocuments(List<Path> newDocumentPaths, ExecutorService indexingThreadPool) {
+        newDocumentPaths = newDocumentPaths == null ? null : ownedDocuments(newDocumentPaths);
         if (newDocumentPaths == null || newDocumentPaths.isEmpty()) {
             log.info("No new documents to add incrementally.");
             return;
@@ -107,20 +124,73 @@ public class IndexService {
 
         log.info("Starting incremental index update for {} new documents.", newDocumentPaths.size());
 
-        // 不需要清空索引，直接添加到现有加载的索引中
-        // InvertedIndex currentInvertedIndex = invertedIndexManager.getInvertedIndex();
+        // 异步处理新文档
+        List<IndexWalRecord> records = processDocuments(newDocumentPaths, indexingThreadPool);
 
-        // 异步处理新文档，并添加到现有索引
-        buildIndexForAllDoc(newDocumentPaths, indexingThreadPool);
+        // 追加到预写日志并写入现有索引
+        try {
+            invertedIndexManager.addDocumentsDurably(records);
+        } catch (IOException e) {
+            log.error("Failed to append {} documents to the write-ahead log. Incremental update aborted.", records.size(), e);
+            return;
+        }
 
-        // 持久化更新后的索引
-        invertedIndexManager.persistIndex();
+        Set<String> newDocumentIds = new HashSet<>();
+        records.forEach(record -> newDocumentIds.add(record.getDocument().getId()));
+        similarityCalculator.precomputeDocumentNorms(newDocumentIds);
+        semanticSearchService.syncWithSnapshot();
+    }
 
+    /**
+     * 为旧索引中尚未提取结构化字段的文档补提取主讲人、时间、地点、主办学院。
+     * 只读取Markdown原文，不调用大模型，也不改变词项。
+     */
+    public void backfillStructuredFields() {
+        int updated = invertedIndexManager.updateDocuments(document -> {
+            if (document.isStructuredFieldsExtracted()) {
+                return false;
+            }
+            return extractStructuredFields(document, Path.of(document.getOriginalFilePath()));
+        });
+        if (updated > 0) {
+            log.info("Extracted structured fields for {} previously indexed documents.", updated);
+        }
     }
 
-    private void buildIndexForAllDoc(List<Path> documentPaths, ExecutorService indexingThreadPool) {
+    private boolean extractStructuredFields(LectureDocument document, Path path) {
+        try {
+            String fullText = MarkdownProcessor.convertMarkdownToFullText(path);
+            long referenceMillis = Files.getLastModifiedTime(path).toMillis();
+            LectureFieldExtractor.extractInto(document, fullText, referenceMillis);
+            return true;
+        } catch (IOException e) {
+            log.warn("Failed to extract structured fields from {}: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    // 文件名形如“文档ID_题目.md”，按文档ID路由到分片
+    private List<Path> ownedDocuments(List<Path> documentPaths) {
+        if (shardCount <= 1) {
+            return documentPaths;
+        }
+        List<Path> owned = documentPaths.stream()
+                .filter(path -> ShardRouter.owns(path.getFileName().toString().split("_")[0], shardId, shardCount))
+                .toList();
+        log.info("Shard {}/{} owns {} of {} documents.", shardId, shardCount, owned.size(), documentPaths.size());
+        return owned;
+    }
+
+    private void buildIndexForAllDoc(List<Path> documentPaths, ExecutorService indexingThreadPool, InvertedIndex targetIndex) {
+        for (IndexWalRecord record : processDocuments(documentPaths, indexingThreadPool)) {
+            record.applyTo(targetIndex);
+        }
+        log.info("Initial index build completed.");
+    }
 
-        List<Future<?>> futures = new ArrayList<>();
+    private List<IndexWalRecord> processDocuments(List<Path> documentPaths, ExecutorService indexingThreadPool) {
+
+        List<Future<IndexWalRecord>> futures = new ArrayList<>();
         for (Path path : documentPaths) {
             futures.add(indexingThreadPool.submit(() -> {
                 ChatResponse response = processMarkdownDocumentForTerms(path);
@@ -130,23 +200,28 @@ public class IndexService {
                 document.setId(fileName[0]);
                 document.setTitle(fileName[1]);
                 document.setOriginalFilePath(path.toString());
-
-                invertedIndexManager.addDocumentToIndex(document, response.getTitleTextTokenized(), "Title");
-                invertedIndexManager.addDocumentToIndex(document, response.getFullTextTokenized(), "FullText");
-                invertedIndexManager.addDocumentToIndex(document, Collections.singletonList(response.getSpeaker()), "Speaker");
-
+                extractStructuredFields(document, path);
+                if (document.getSpeaker() == null && response.getSpeaker() != null && !response.getSpeaker().isBlank()) {
+                    document.setSpeaker(response.getSpeaker().strip()); // 正文中没有“主讲人：”时使用大模型识别的主讲人
+                }
+
+                IndexWalRecord record = new IndexWalRecord(document);
+                record.addField("Title", response.getTitleTextTokenized());
+                record.addField("FullText", response.getFullTextTokenized());
+                record.addField("Speaker", Collections.singletonList(response.getSpeaker()));
+                return record;
             }));
         }
-        log.info("Initial index build completed.");
 
-        for (Future<?> future : futures) {
+        List<IndexWalRecord> records = new ArrayList<>(futures.size());
+        for (Future<IndexWalRecord> future : futures) {
             try {
-                future.get(); // 阻塞直到任务完成，如果任务抛出异常，这里会再次抛出
+                records.add(future.get()); // 阻塞直到任务完成，如果任务抛出异常，这里会再次抛出
             } catch (Exception e) {
                 log.error("Error during asynchronous document processing: {}", e.getMessage(), e);
             }
         }
+        return records;
     }
 
 }
-
@@ -0,0 +1,198 @@
+package com.lss.service;
+
+import com.huaban.analysis.jieba.JiebaSegmenter;
+import com.lss.constant.PathConstant;
+import com.lss.repository.InvertedIndexManager;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 启动编排：先加载上一次持久化的索引快照并立即对外提供查询，
+ * 新鲜度检查和可能的全量重建放到后台执行。
+ * 分词词典的预热和索引快照（含IDF表）的加载并行进行。
+ */
+@Service
+@Slf4j
+public class IndexStartupOrchestrator {
+
+    /**
+     * 索引在启动过程中所处的阶段，供健康检查上报。
+     */
+    public enum Phase {
+        STARTING,   // 尚未加载任何索引
+        SERVING,    // 已加载快照可以查询，后台仍在检查或重建
+        READY,      // 后台检查/重建完成
+        DEGRADED,   // 后台检查/重建失败，仍用已加载的快照查询，但索引可能过期
+        FAILED      // 启动失败
+    }
+
+    private final IndexService indexService;
+    private final InvertedIndexManager invertedIndexManager;
+    private final ExecutorService indexingThreadPool;
+    private final PassageRetrievalService passageRetrievalService;
+    private final SpellCorrectionService spellCorrectionService;
+    private final SemanticSearchService semanticSearchService;
+    private final IndexBundleService indexBundleService;
+    private final SynonymService synonymService;
+
+    // 后台新鲜度检查/重建使用独立线程，避免占用索引线程池中的工作线程
+    private final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "index-startup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicReference<Phase> phase = new AtomicReference<>(Phase.STARTING);
+    private volatile long servingSinceMillis;
+    private volatile String failureReason;
+
+    public IndexStartupOrchestrator(IndexService indexService,
+                                    InvertedIndexManager invertedIndexManager,
+                                    ExecutorService indexingThreadPool,
+                                    PassageRetrievalService passageRetrievalService,
+                                    SemanticSearchService semanticSearchService,
+                                    SpellCorrectionService spellCorrectionService,
+                                    IndexBundleService indexBundleService,
+                                    SynonymService synonymService) {
+        this.indexService = indexService;
+        this.invertedIndexManager = invertedIndexManager;
+        this.indexingThreadPool = indexingThreadPool;
+        this.passageRetrievalService = passageRetrievalService;
+        this.semanticSearchService = semanticSearchService;
+        this.spellCorrectionService = spellCorrectionService;
+        this.indexBundleService = indexBundleService;
+        this.synonymService = synonymService;
+    }
+
+    /**
+     * 执行启动流程。方法在索引快照加载完成后即返回，重建在后台继续。
+     */
+    public void start() {
+        long startTime = System.nanoTime();
+        log.info("Starting index initialization...");
+
+        // 1. 并行：加载索引快照 / 预热jieba词典并编译同义词词典 / 加载嵌入模型与向量索引（不阻塞对外服务）
+        CompletableFuture<Void> loadIndex = CompletableFuture.runAsync(invertedIndexManager::loadIndex, indexingThreadPool);
+        CompletableFuture<Void> warmSegmenter = CompletableFuture.runAsync(this::warmUpSegmenter, indexingThreadPool)
+                .thenRun(synonymService::start);
+        CompletableFuture<Void> loadVectors = CompletableFuture.runAsync(semanticSearchService::loadVectorIndex, indexingThreadPool);
+
+        try {
+            loadIndex.join();
+        } catch (Exception e) {
+            failureReason = e.getMessage();
+            phase.set(Phase.FAILED);
+            log.error("Failed to load index snapshot during startup.", e);
+            return;
+        }
+
+        // 2. 加载索引时已构建IDF表与查询快照，等待分词词典预热、同义词词典编译完成即可对外服务
+        warmSegmenter.exceptionally(e -> {
+            log.warn("Warm-up did not complete: {}", e.getMessage());
+            return null;
+        }).join();
+
+        servingSinceMillis = System.currentTimeMillis();
+        phase.set(Phase.SERVING);
+        log.info("Index snapshot is serving queries after {} ms.",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+
+        // 3. 后台：扫描数据目录，检查快照是否新鲜，必要时重建
+        backgroundExecutor.submit(() -> refreshInBackground(loadVectors));
+    }
+
+    private void refreshInBackground(CompletableFuture<Void> loadVectors) {
+        try {
+            if (indexBundleService.isReplica()) {
+                // 服务节点不自己建索引，安装构建节点导出的分发包，之后定期检查新的分发包
+                indexBundleService.installLatest();
+                indexBundleService.startPolling();
+            } else {
+                List<Path> markdownFiles = listMarkdownFiles();
+                if (!markdownFiles.isEmpty()) {
+                    indexService.buildInitialIndex(markdownFiles, false, indexingThreadPool);
+                }
+                // 旧版本索引中的文档没有结构化字段，从原文补提取
+                indexService.backfillStructuredFields();
+                if (indexBundleService.isBuilder()) {
+                    indexBundleService.exportBundle();
+                }
+            }
+            // 预先切分段落并建立段落索引、纠错词典，避免由首个请求承担
+            passageRetrievalService.currentIndex();
+            spellCorrectionService.currentDictionary();
+            // 为还没有向量的文档补齐嵌入
+            loadVectors.join();
+            semanticSearchService.syncWithSnapshot();
+            phase.set(Phase.READY);
+            log.info("Index initialization completed.");
+        } catch (Exception e) {
+            // 重建失败时继续使用已加载的快照提供服务，但不报告为就绪
+            failureReason = e.getMessage();
+            log.error("Background index refresh failed. Continuing to serve the loaded snapshot.", e);
+            phase.set(Phase.DEGRADED);
+        }
+    }
+
+    private void warmUpSegmenter() {
+        // 首次分词会加载jieba的主词典，提前触发以免由首个查询承担
+        new JiebaSegmenter().sentenceProcess("学术讲座");
+        log.info("Jieba dictionary warmed up.");
+    }
+
+    private List<Path> listMarkdownFiles() {
+        Path dataDirectory = Paths.get(PathConstant.MD_Path);
+        if (!Files.exists(dataDirectory) || !Files.isDirectory(dataDirectory)) {
+            log.error("Data directory not found or is not a directory: {}. Please ensure it exists.", dataDirectory.toAbsolutePath());
+            return Collections.emptyList();
+        }
+        try (Stream<Path> paths = Files.walk(dataDirectory)) {
+            List<Path> markdownFiles = paths
+                    .filter(Files::isRegularFile)
+                    .filter(p -> p.toString().endsWith(".md"))
+                    .collect(Collectors.toList());
+
+            if (markdownFiles.isEmpty()) {
+                log.warn("No Markdown files found in {}. Indexing will be skipped.", dataDirectory.toAbsolutePath());
+            } else {
+                log.info("Found {} Markdown files for indexing.", markdownFiles.size());
+            }
+            return markdownFiles;
+        } catch (IOException e) {
+            log.error("Error walking data directory: {}. Cannot build index.", e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    public Phase getPhase() {
+        return phase.get();
+    }
+
+    public long getServingSinceMillis() {
+        return servingSinceMillis;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backgroundExecutor.shutdownNow();
+    }
+}
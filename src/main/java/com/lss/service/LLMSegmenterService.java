@@ -7,7 +7,9 @@ import com.google.gson.GsonBuilder;
 import com.lss.model.Chat.ChatResponse;
 import com.lss.model.Chat.ChatRequest;
 import com.lss.model.Chat.Message;
+import com.lss.util.ConcurrencyLimiter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.BodyInserters;
@@ -21,6 +23,7 @@ public class LLMSegmenterService {
 
     private final WebClient webClient;
     private final ObjectMapper objectMapper; // 用于JSON处理
+    private final ConcurrencyLimiter llmSegmenterLimiter; // 限制同时在途的分词请求数
 
     // 从application.properties或application.yml中读取API配置
     @Value("${llm.api.url}")
@@ -29,9 +32,11 @@ public class LLMSegmenterService {
     @Value("${llm.api.key}")
     private String llmApiKey;
 
-    public LLMSegmenterService(WebClient.Builder webClientBuilder, ObjectMapper objectMapper) {
+    public LLMSegmenterService(WebClient.Builder webClientBuilder, ObjectMapper objectMapper,
+                               @Qualifier("llmSegmenterLimiter") ConcurrencyLimiter llmSegmenterLimiter) {
         this.webClient = webClientBuilder.build();
         this.objectMapper = objectMapper;
+        this.llmSegmenterLimiter = llmSegmenterLimiter;
     }
 
     /**
@@ -61,7 +66,7 @@ public class LLMSegmenterService {
         log.info("Calling LLM API : {}", responseMono);
 
         // 3. 解析响应
-        String rawResponse = responseMono.block(); // 阻塞等待响应
+        String rawResponse = llmSegmenterLimiter.get(responseMono::block); // 在并发许可内阻塞等待响应
 
         String jsonString = null;
         ChatResponse response = null;
@@ -0,0 +1,195 @@
+package com.lss.service;
+
+import com.huaban.analysis.jieba.JiebaSegmenter;
+import com.lss.model.Index.IndexSnapshot;
+import com.lss.model.Index.LectureDocument;
+import com.lss.model.Index.Passage;
+import com.lss.model.Index.PassageIndex;
+import com.lss.model.RetrievedPassage;
+import com.lss.repository.InvertedIndexManager;
+import com.lss.repository.MarkdownManager;
+import com.lss.util.PassageSplitter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 段落级检索：把讲座正文切分为段落并建立段落倒排索引，
+ * 按问题返回在token预算内最相关的若干段落，供对话作为上下文。
+ * 段落索引跟随文档索引快照的版本懒重建，已切分的文档会被复用。
+ */
+@Service
+@Slf4j
+public class PassageRetrievalService {
+
+    private final InvertedIndexManager invertedIndexManager;
+    private final MarkdownManager markdownManager;
+    private final JiebaSegmenter segmenter = new JiebaSegmenter();
+
+    @Value("${lss.rag.passage-max-chars:400}")
+    private int passageMaxChars;
+
+    @Value("${lss.rag.top-k:5}")
+    private int defaultTopK;
+
+    @Value("${lss.rag.token-budget:800}")
+    private int defaultTokenBudget;
+
+    private volatile PassageIndex passageIndex = PassageIndex.empty();
+
+    // 文档ID -> 已切分、已分词的段落，快照更新时只处理新增文档
+    private final Map<String, DocumentPassages> passageCache = new HashMap<>();
+
+    private record DocumentPassages(List<Passage> passages, List<List<String>> terms) {
+    }
+
+    public PassageRetrievalService(InvertedIndexManager invertedIndexManager, MarkdownManager markdownManager) {
+        this.invertedIndexManager = invertedIndexManager;
+        this.markdownManager = markdownManager;
+    }
+
+    /**
+     * 使用配置的默认 topK 与token预算检索段落。
+     * @param question 用户问题
+     * @return 按相关性降序排列的段落
+     */
+    public List<RetrievedPassage> retrieve(String question) {
+        return retrieve(question, defaultTopK, defaultTokenBudget);
+    }
+
+    /**
+     * 检索与问题最相关的段落，总token数不超过预算。
+     * 按分数从高到低依次选取，放不下的段落跳过，继续尝试更短的段落。
+     * @param question 用户问题
+     * @param topK 最多返回的段落数
+     * @param tokenBudget 返回段落的token总预算
+     * @return 按相关性降序排列的段落
+     */
+    public List<RetrievedPassage> retrieve(String question, int topK, int tokenBudget) {
+        if (question == null || question.isBlank() || topK <= 0 || tokenBudget <= 0) {
+            return new ArrayList<>();
+        }
+        long startTime = System.nanoTime();
+
+        PassageIndex index = currentIndex();
+        float[] scores = index.score(analyze(question));
+        List<Integer> candidates = new ArrayList<>();
+        for (int ordinal = 0; ordinal < scores.length; ordinal++) {
+            if (scores[ordinal] > 0f) {
+                candidates.add(ordinal);
+            }
+        }
+        candidates.sort(Comparator.comparingDouble((Integer ordinal) -> scores[ordinal]).reversed());
+
+        List<RetrievedPassage> selected = new ArrayList<>();
+        int usedTokens = 0;
+        for (int ordinal : candidates) {
+            Passage passage = index.passage(ordinal);
+            if (usedTokens + passage.getTokenCount() > tokenBudget) {
+                continue;
+            }
+            selected.add(new RetrievedPassage(passage, scores[ordinal]));
+            usedTokens += passage.getTokenCount();
+            if (selected.size() >= topK) {
+                break;
+            }
+        }
+
+        log.debug("Retrieved {} passages ({} tokens) from {} candidates in {} us.", selected.size(), usedTokens,
+                candidates.size(), TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+        return selected;
+    }
+
+    /**
+     * 将段落格式化为对话上下文，带上讲座题目、小节和文档ID以便回答时引用。
+     * @param passage 段落
+     * @return 上下文文本
+     */
+    public static String toContextText(Passage passage) {
+        return "【" + passage.getTitle() + " · " + passage.getSection() + "】(ID: " + passage.getDocId() + ")\n"
+                + passage.getText();
+    }
+
+    /**
+     * 返回与当前文档索引快照对应的段落索引，版本落后时重建。
+     * @return 段落索引
+     */
+    public PassageIndex currentIndex() {
+        if (!invertedIndexManager.isIndexLoaded()) {
+            return PassageIndex.empty();
+        }
+        IndexSnapshot snapshot = invertedIndexManager.getSnapshot();
+        PassageIndex index = passageIndex;
+        if (index.getVersion() == snapshot.getVersion()) {
+            return index;
+        }
+        return rebuild(snapshot);
+    }
+
+    private synchronized PassageIndex rebuild(IndexSnapshot snapshot) {
+        if (passageIndex.getVersion() == snapshot.getVersion()) {
+            return passageIndex;
+        }
+        long startTime = System.nanoTime();
+
+        List<Passage> passages = new ArrayList<>();
+        List<List<String>> terms = new ArrayList<>();
+        Map<String, DocumentPassages> retained = new HashMap<>();
+        for (int ordinal = 0; ordinal < snapshot.getTotalDocuments(); ordinal++) {
+            LectureDocument document = snapshot.document(ordinal);
+            DocumentPassages documentPassages = passageCache.get(document.getId());
+            if (documentPassages == null) {
+                documentPassages = splitDocument(document);
+            }
+            retained.put(document.getId(), documentPassages);
+            passages.addAll(documentPassages.passages());
+            terms.addAll(documentPassages.terms());
+        }
+        passageCache.clear();
+        passageCache.putAll(retained);
+
+        PassageIndex rebuilt = PassageIndex.build(snapshot.getVersion(), passages, terms);
+        passageIndex = rebuilt;
+        log.info("Passage index rebuilt for snapshot {}: {} passages from {} documents in {} ms.",
+                snapshot.getVersion(), rebuilt.size(), snapshot.getTotalDocuments(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        return rebuilt;
+    }
+
+    private DocumentPassages splitDocument(LectureDocument document) {
+        String content;
+        try {
+            content = markdownManager.getContentByPath(Path.of(document.getOriginalFilePath()));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read document {} for passage indexing: {}", document.getId(), e.getMessage());
+            return new DocumentPassages(List.of(), List.of());
+        }
+        String title = document.getTitle() == null ? "" : document.getTitle().split("\\.")[0];
+        List<Passage> passages = PassageSplitter.split(document.getId(), title, content, passageMaxChars);
+        List<List<String>> terms = new ArrayList<>(passages.size());
+        for (Passage passage : passages) {
+            terms.add(analyze(passage.getSection() + "\n" + passage.getText()));
+        }
+        return new DocumentPassages(passages, terms);
+    }
+
+    // 分词并去掉标点、空白等不含文字的词项
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String term : segmenter.sentenceProcess(text)) {
+            if (term.codePoints().anyMatch(Character::isLetterOrDigit)) {
+                terms.add(term.toLowerCase());
+            }
+        }
+        return terms;
+    }
+}
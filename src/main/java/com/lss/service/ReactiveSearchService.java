@@ -0,0 +1,179 @@
+package com.lss.service;
+
+import com.lss.constant.SearchMode;
+import com.lss.constant.SortMode;
+import com.lss.model.Index.BooleanQuery;
+import com.lss.model.Index.LectureDocumentVO;
+import com.lss.model.Result;
+import com.lss.model.RetrieveDocsItems;
+import com.lss.model.SearchCursor;
+import com.lss.model.SearchFilter;
+import com.lss.model.SearchHits;
+import com.lss.model.SearchPage;
+import com.lss.util.RequestCoalescer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 非阻塞的检索入口：打分在有界并行调度器上执行，读取正文和调用大模型在I/O调度器上执行，
+ * 请求线程不再被阻塞。同一时刻完全相同的查询只计算一次，结果由所有请求共享。
+ */
+@Service
+@Slf4j
+public class ReactiveSearchService {
+
+    private final SearchService searchService;
+    private final PassageRetrievalService passageRetrievalService;
+    private final Scheduler searchScheduler;
+    private final Scheduler searchIoScheduler;
+
+    private final RequestCoalescer<String, Result> searchCoalescer = new RequestCoalescer<>();
+    private final RequestCoalescer<String, Result> adviceCoalescer = new RequestCoalescer<>();
+
+    public ReactiveSearchService(SearchService searchService,
+                                 PassageRetrievalService passageRetrievalService,
+                                 @Qualifier("searchScheduler") Scheduler searchScheduler,
+                                 @Qualifier("searchIoScheduler") Scheduler searchIoScheduler) {
+        this.searchService = searchService;
+        this.passageRetrievalService = passageRetrievalService;
+        this.searchScheduler = searchScheduler;
+        this.searchIoScheduler = searchIoScheduler;
+    }
+
+    /**
+     * 执行信息检索。
+     * @param type 查询的域类型
+     * @param queryString 用户输入的查询字符串
+     * @param topN 返回结果数量
+     * @param mode 检索方式
+     * @return 搜索结果
+     */
+    public Mono<Result> search(Integer type, String queryString, int topN, SearchMode mode) {
+        if (queryString == null || queryString.trim().isEmpty()) {
+            return Mono.just(Result.fail("请输入查询内容"));
+        }
+        // 合并键与实际执行的查询使用同一个字符串，只去掉首尾空白，保证合并的请求结果确实相同
+        String query = queryString.trim();
+        String key = mode + "|" + type + "|" + topN + "|" + query;
+        return searchCoalescer.execute(key, () ->
+                Mono.fromCallable(() -> rankOrEmpty(type, query, topN, mode))
+                        .subscribeOn(searchScheduler)
+                        .publishOn(searchIoScheduler)
+                        .map(ranked -> {
+                            if (ranked.failed) {
+                                return Result.fail("请输入查询内容");
+                            }
+                            if (ranked.items.isEmpty()) {
+                                return Result.ok(Collections.emptyList());
+                            }
+                            List<LectureDocumentVO> topDocs = searchService.loadContents(ranked.items);
+                            return Result.ok(topDocs);
+                        }));
+    }
+
+    /**
+     * 带过滤条件、排序方式、分面计数和翻页的信息检索。查询为空时只按过滤条件列出讲座。
+     * @param type 查询的域类型
+     * @param queryString 用户输入的查询字符串，有过滤条件时可以为空
+     * @param topN 每页结果数量
+     * @param mode 检索方式
+     * @param filter 过滤条件
+     * @param sort 排序方式
+     * @param withFacets 是否返回分面计数
+     * @param cursor 翻页游标：null表示不翻页；空字符串表示第一页；否则为上一页返回的 nextCursor
+     * @param minimumShouldMatch 可选词项至少匹配的个数，为null时使用默认值
+     * @return 搜索结果，total为满足条件的文档总数；请求分面或翻页时data为 {@link SearchPage}
+     */
+    public Mono<Result> search(Integer type, String queryString, int topN, SearchMode mode,
+                               SearchFilter filter, SortMode sort, boolean withFacets, String cursor,
+                               String minimumShouldMatch) {
+        boolean paged = cursor != null;
+        if ((filter == null || filter.isEmpty()) && sort == SortMode.RELEVANCE && !withFacets && !paged
+                && minimumShouldMatch == null) {
+            return search(type, queryString, topN, mode);
+        }
+        try {
+            BooleanQuery.minimumShouldMatch(minimumShouldMatch, 1, false);
+        } catch (NumberFormatException e) {
+            return Mono.just(Result.fail("minimumShouldMatch 格式错误: " + minimumShouldMatch));
+        }
+        SearchCursor after;
+        try {
+            after = paged && !cursor.isBlank() ? SearchCursor.decode(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            return Mono.just(Result.fail(e.getMessage()));
+        }
+        String query = trim(queryString);
+        String key = mode + "|" + type + "|" + topN + "|" + query + "|"
+                + (filter == null ? "" : filter.cacheKey()) + "|" + sort + "|" + withFacets + "|" + cursor + "|" + minimumShouldMatch;
+        return searchCoalescer.execute(key, () ->
+                Mono.fromCallable(() -> Optional.ofNullable(
+                                searchService.rankFiltered(type, query, topN, mode, filter, sort, withFacets, after,
+                                        minimumShouldMatch)))
+                        .subscribeOn(searchScheduler)
+                        .publishOn(searchIoScheduler)
+                        .map(found -> {
+                            if (found.isEmpty()) {
+                                return Result.fail("请输入查询内容");
+                            }
+                            SearchHits hits = found.get();
+                            // 只读取本页文档的正文
+                            List<LectureDocumentVO> pageDocs = hits.getItems().isEmpty()
+                                    ? Collections.emptyList() : searchService.loadContents(hits.getItems());
+                            Object data = pageDocs;
+                            if (withFacets || paged) {
+                                String nextCursor = hits.getNextCursor() == null ? null : hits.getNextCursor().encode();
+                                data = new SearchPage(pageDocs, hits.getFacets(), nextCursor, hits.isTotalExact());
+                            }
+                            return new Result(true, null, data, hits.getTotalHits());
+                        })
+                        .onErrorResume(IllegalArgumentException.class, e -> Mono.just(Result.fail(e.getMessage()))));
+    }
+
+    /**
+     * 查询纠错建议，大模型调用在I/O调度器上执行。
+     * @param query 用户查询
+     * @return 纠错结果
+     */
+    public Mono<Result> queryAdvice(String query) {
+        String trimmed = trim(query);
+        return adviceCoalescer.execute(String.valueOf(trimmed), () ->
+                Mono.fromCallable(() -> searchService.queryAdvice(trimmed))
+                        .subscribeOn(searchIoScheduler));
+    }
+
+    /**
+     * 段落检索。段落索引落后于文档索引时需要读取正文重建，因此在I/O调度器上执行。
+     * @param query 用户问题
+     * @param topK 最多返回的段落数
+     * @param tokenBudget 返回段落的token总预算
+     * @return 段落检索结果
+     */
+    public Mono<Result> passages(String query, int topK, int tokenBudget) {
+        if (query == null || query.trim().isEmpty()) {
+            return Mono.just(Result.fail("请输入查询内容"));
+        }
+        return Mono.fromCallable(() -> Result.ok(passageRetrievalService.retrieve(query, topK, tokenBudget)))
+                .subscribeOn(searchIoScheduler);
+    }
+
+    private Ranked rankOrEmpty(Integer type, String queryString, int topN, SearchMode mode) {
+        List<RetrieveDocsItems> items = searchService.rank(type, queryString, topN, mode);
+        return items == null ? new Ranked(true, Collections.emptyList()) : new Ranked(false, items);
+    }
+
+    private static String trim(String query) {
+        return query == null ? null : query.trim();
+    }
+
+    // Mono不能携带null，用一个小包装区分“查询分词为空”和“没有结果”
+    private record Ranked(boolean failed, List<RetrieveDocsItems> items) {
+    }
+}
@@ -0,0 +1,235 @@
+package com.lss.service;
+
+import com.lss.constant.PathConstant;
+import com.lss.model.Index.IndexSnapshot;
+import com.lss.model.Index.RerankFeatures;
+import com.lss.model.Index.RerankModel;
+import com.lss.model.RetrieveDocsItems;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 两阶段排序的第二阶段：第一阶段（倒排索引 + 余弦相似度）选出前若干个候选，
+ * 这里只为这些候选计算标题匹配、主讲人匹配、词项邻近度、时效和域长度等特征，用模型文件中的线性模型或小型回归树打分重排。
+ * <p>
+ * 每个查询的重排有固定的CPU时间预算（当前线程的CPU时间，不支持或在虚拟线程上时用墙钟时间）：按第一阶段的顺序逐个计算，
+ * 预算用完后剩余的候选不再重排，按第一阶段的顺序排在已重排的候选之后。
+ * 第一阶段、重排的耗时和预算用完的次数记录在 search.stage 与 search.rerank.budget.exhausted 指标中。
+ */
+@Service
+@Slf4j
+public class RerankService {
+
+    private static final String BUILTIN_MODEL = "rerank-model.properties";
+
+    // 未重排的候选的分数依次比已重排部分的最低分略低，保持分数随名次单调递减
+    private static final double TAIL_STEP = 1e-6;
+
+    // 每计算这么多个候选检查一次预算，读取线程CPU时间本身也有开销
+    private static final int BUDGET_CHECK_INTERVAL = 8;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    @Value("${lss.rerank.enabled:true}")
+    private boolean enabled;
+
+    // 第一阶段选出、参与重排的候选数
+    @Value("${lss.rerank.window:200}")
+    private int window;
+
+    // 每个查询重排的CPU时间预算
+    @Value("${lss.rerank.budget:5ms}")
+    private Duration budget;
+
+    // 留空时使用数据目录下的 rerank-model.properties，不存在时使用自带的模型
+    @Value("${lss.rerank.model-path:}")
+    private String modelPath;
+
+    @Value("${lss.sort.recency-half-life:30d}")
+    private Duration recencyHalfLife;
+
+    private volatile RerankModel model;
+
+    private final Timer firstPassTimer;
+    private final Timer rerankTimer;
+    private final Counter budgetExhausted;
+
+    public RerankService(MeterRegistry meterRegistry) {
+        this.firstPassTimer = Timer.builder("search.stage").tag("stage", "first-pass")
+                .description("Candidate selection and cosine scoring").register(meterRegistry);
+        this.rerankTimer = Timer.builder("search.stage").tag("stage", "rerank")
+                .description("Feature extraction and model scoring of the top candidates").register(meterRegistry);
+        this.budgetExhausted = Counter.builder("search.rerank.budget.exhausted")
+                .description("Queries whose rerank stopped at the CPU budget").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param topN 最终返回的结果数
+     * @return 第一阶段应选出的候选数
+     */
+    public int firstPassSize(int topN) {
+        return enabled ? Math.max(topN, window) : topN;
+    }
+
+    /**
+     * 记录第一阶段的耗时。
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordFirstPass(long nanos) {
+        firstPassTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 重排第一阶段的结果，返回前 topN 个。未启用时直接截取。
+     * @param snapshot 第一阶段使用的索引快照
+     * @param field 查询的域
+     * @param queryTerms 查询词项（不含同义词扩展）
+     * @param firstPass 第一阶段按分数降序排列的结果
+     * @param topN 返回结果的数量
+     * @return 重排后的结果
+     */
+    public List<RetrieveDocsItems> rerank(IndexSnapshot snapshot, String field, List<String> queryTerms,
+                                          List<RetrieveDocsItems> firstPass, int topN) {
+        if (!enabled || firstPass.size() < 2) {
+            return firstPass.size() > topN ? new ArrayList<>(firstPass.subList(0, topN)) : firstPass;
+        }
+        return rerank(snapshot, field, queryTerms, firstPass, topN, firstPass.size(), true);
+    }
+
+    /**
+     * 不受时间预算限制的重排：固定重排前 window 个候选，其余候选按第一阶段的顺序排在后面。
+     * 同一快照上同一查询的名次是确定的，翻页时各页基于同一个排序。
+     * @param snapshot 第一阶段使用的索引快照
+     * @param field 查询的域
+     * @param queryTerms 查询词项（不含同义词扩展）
+     * @param firstPass 第一阶段按分数降序排列的结果
+     * @param topN 返回结果的数量
+     * @return 重排后的结果，分数随名次递减
+     */
+    public List<RetrieveDocsItems> rerankFixed(IndexSnapshot snapshot, String field, List<String> queryTerms,
+                                               List<RetrieveDocsItems> firstPass, int topN) {
+        if (!enabled || firstPass.size() < 2) {
+            return firstPass.size() > topN ? new ArrayList<>(firstPass.subList(0, topN)) : firstPass;
+        }
+        return rerank(snapshot, field, queryTerms, firstPass, topN, Math.min(Math.max(window, 1), firstPass.size()), false);
+    }
+
+    // 重排前 limit 个候选，budgeted 为true时在CPU时间预算用完后提前停止
+    private List<RetrieveDocsItems> rerank(IndexSnapshot snapshot, String field, List<String> queryTerms,
+                                           List<RetrieveDocsItems> firstPass, int topN, int limit, boolean budgeted) {
+        long startNanos = System.nanoTime();
+        long startCpu = cpuTime();
+        long budgetNanos = budget.toNanos();
+        RerankModel current = currentModel();
+        RerankFeatures features = new RerankFeatures(snapshot, field, queryTerms, System.currentTimeMillis(),
+                recencyHalfLife.toMillis());
+
+        List<RetrieveDocsItems> reranked = new ArrayList<>(firstPass.size());
+        int scored = 0;
+        for (RetrieveDocsItems item : firstPass.subList(0, limit)) {
+            if (budgeted && scored > 0 && scored % BUDGET_CHECK_INTERVAL == 0 && cpuTime() - startCpu > budgetNanos) {
+                break;
+            }
+            int docOrdinal = snapshot.ordinalOf(item.getDocument().getId());
+            double score = docOrdinal < 0 ? item.getScore()
+                    : current.score(features.extract(docOrdinal, item.getScore()));
+            reranked.add(new RetrieveDocsItems(item.getDocument(), score));
+            scored++;
+        }
+        reranked.sort(Comparator.comparingDouble(RetrieveDocsItems::getScore).reversed()); // 稳定排序，同分保持第一阶段顺序
+
+        if (scored < limit) {
+            budgetExhausted.increment();
+        }
+        if (scored < firstPass.size()) {
+            double floor = reranked.get(reranked.size() - 1).getScore();
+            for (int i = scored; i < firstPass.size() && reranked.size() < topN; i++) {
+                floor -= TAIL_STEP;
+                reranked.add(new RetrieveDocsItems(firstPass.get(i).getDocument(), floor));
+            }
+        }
+        List<RetrieveDocsItems> top = reranked.size() > topN ? new ArrayList<>(reranked.subList(0, topN)) : reranked;
+
+        long elapsed = System.nanoTime() - startNanos;
+        rerankTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        log.debug("Reranked {} of {} candidates in {} us.", scored, firstPass.size(), TimeUnit.NANOSECONDS.toMicros(elapsed));
+        return top;
+    }
+
+    // 当前线程的CPU时间，JVM不支持时退回墙钟时间。虚拟线程上 getCurrentThreadCpuTime 返回-1，同样使用墙钟时间
+    private static long cpuTime() {
+        if (Thread.currentThread().isVirtual() || !THREADS.isCurrentThreadCpuTimeSupported()) {
+            return System.nanoTime();
+        }
+        long cpu = THREADS.getCurrentThreadCpuTime();
+        return cpu >= 0 ? cpu : System.nanoTime();
+    }
+
+    private RerankModel currentModel() {
+        RerankModel loaded = model;
+        if (loaded == null) {
+            synchronized (this) {
+                if (model == null) {
+                    model = loadModel();
+                }
+                loaded = model;
+            }
+        }
+        return loaded;
+    }
+
+    // 模型文件不存在或无法解析时使用自带的模型，自带的模型也不可用时只按第一阶段分数排序
+    private RerankModel loadModel() {
+        Path path = Paths.get(modelPath == null || modelPath.isBlank() ? PathConstant.Rerank_Model : modelPath);
+        String source = Files.isRegularFile(path) ? path.toString() : "classpath:" + BUILTIN_MODEL;
+        try {
+            Properties properties = new Properties();
+            if (Files.isRegularFile(path)) {
+                try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    properties.load(reader);
+                }
+            } else {
+                ClassPathResource resource = new ClassPathResource(BUILTIN_MODEL);
+                if (!resource.exists()) {
+                    log.warn("No rerank model found at {}; ranking by first-pass score only.", path);
+                    return RerankModel.firstPassOnly();
+                }
+                try (InputStream in = resource.getInputStream(); Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                    properties.load(reader);
+                }
+            }
+            RerankModel loaded = RerankModel.load(properties);
+            log.info("Loaded {} rerank model from {}.", properties.getProperty("type", "linear"), source);
+            return loaded;
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to load rerank model from {}; ranking by first-pass score only.", source, e);
+            return RerankModel.firstPassOnly();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.lss.service;
+
+import com.lss.model.Index.DocValues;
+import com.lss.model.Index.IndexSnapshot;
+import com.lss.model.Index.OrdinalColumn;
+import com.lss.model.SearchFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * 把过滤条件编译为按文档序号的压缩位图。每个条件单独编译并按（快照版本, 条件）缓存，
+ * 不同查询组合相同条件时直接复用；多个条件时对缓存的位图求交。
+ * 返回的位图可能是缓存对象，调用方只能读取。
+ */
+@Service
+@Slf4j
+public class SearchFilterService {
+
+    @Value("${lss.filter.cache-size:256}")
+    private int cacheSize;
+
+    // 访问顺序的LinkedHashMap，超出容量时淘汰最久未使用的位图
+    private final LinkedHashMap<String, RoaringBitmap> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RoaringBitmap> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    /**
+     * 编译过滤条件。
+     * @param snapshot 本次查询使用的索引快照，位图按该快照的文档序号编号
+     * @param filter 过滤条件
+     * @return 满足全部条件的文档位图；没有条件时返回null，表示不过滤
+     */
+    public RoaringBitmap compile(IndexSnapshot snapshot, SearchFilter filter) {
+        if (filter == null || filter.isEmpty()) {
+            return null;
+        }
+        DocValues docValues = snapshot.getDocValues();
+        List<RoaringBitmap> clauses = new ArrayList<>(4);
+        if (filter.getFrom() != null || filter.getTo() != null) {
+            long from = filter.getFrom() == null ? Long.MIN_VALUE + 1 : filter.getFrom();
+            long to = filter.getTo() == null ? Long.MAX_VALUE : filter.getTo();
+            clauses.add(clause(snapshot, "time:" + from + "-" + to, doc -> {
+                long time = docValues.lectureTime(doc);
+                return time != DocValues.MISSING_TIME && time >= from && time < to;
+            }));
+        }
+        if (hasText(filter.getSpeaker())) {
+            clauses.add(exact(snapshot, "speaker", docValues.getSpeakers(), filter.getSpeaker().trim()));
+        }
+        if (hasText(filter.getCampus())) {
+            clauses.add(exact(snapshot, "campus", docValues.getCampuses(), filter.getCampus().trim()));
+        }
+        if (hasText(filter.getSchool())) {
+            clauses.add(exact(snapshot, "school", docValues.getSchools(), filter.getSchool().trim()));
+        }
+        if (hasText(filter.getLocation())) {
+            String text = filter.getLocation().trim();
+            OrdinalColumn locations = docValues.getLocations();
+            clauses.add(clause(snapshot, "location~" + text, matchingOrdinals(locations, text)));
+        }
+
+        if (clauses.size() == 1) {
+            return clauses.get(0);
+        }
+        return FastAggregation.and(clauses.toArray(new RoaringBitmap[0]));
+    }
+
+    // 取值精确匹配：先把取值转换为序号，再按序号比较
+    private RoaringBitmap exact(IndexSnapshot snapshot, String field, OrdinalColumn column, String value) {
+        int ordinal = column.ordinalOf(value);
+        return clause(snapshot, field + "=" + value, doc -> ordinal != OrdinalColumn.MISSING && column.ordinal(doc) == ordinal);
+    }
+
+    // 包含匹配：只在不同取值的字典上做字符串比较，文档上仍按序号比较
+    private static IntPredicate matchingOrdinals(OrdinalColumn column, String text) {
+        BitSet ordinals = new BitSet(column.cardinality());
+        for (int ordinal = 0; ordinal < column.cardinality(); ordinal++) {
+            if (column.lookup(ordinal).contains(text)) {
+                ordinals.set(ordinal);
+            }
+        }
+        return doc -> {
+            int ordinal = column.ordinal(doc);
+            return ordinal != OrdinalColumn.MISSING && ordinals.get(ordinal);
+        };
+    }
+
+    private RoaringBitmap clause(IndexSnapshot snapshot, String clause, IntPredicate matches) {
+        String key = snapshot.getVersion() + "|" + clause;
+        synchronized (cache) {
+            RoaringBitmap cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        RoaringBitmap bits = new RoaringBitmap();
+        for (int doc = 0; doc < snapshot.getTotalDocuments(); doc++) {
+            if (matches.test(doc)) {
+                bits.add(doc);
+            }
+        }
+        bits.runOptimize(); // 时间范围条件在按时间排列的序号上是连续区间，压缩为游程
+        synchronized (cache) {
+            cache.put(key, bits);
+        }
+        log.debug("Compiled filter '{}' on snapshot v{}: {} documents.", clause, snapshot.getVersion(), bits.getCardinality());
+        return bits;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
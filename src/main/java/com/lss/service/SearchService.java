@@ -2,22 +2,47 @@
 package com.lss.service;
 
 import com.huaban.analysis.jieba.JiebaSegmenter;
-import com.lss.constant.PathConstant;
+import com.lss.constant.SearchMode;
+import com.lss.constant.SortMode;
+import com.lss.model.Index.BooleanQuery;
+import com.lss.model.Index.DocValues;
+import com.lss.model.Index.FacetCounter;
+import com.lss.model.Index.IndexSnapshot;
 import com.lss.model.Index.LectureDocument;
 import com.lss.model.Index.LectureDocumentVO;
-import com.lss.model.Index.Posting;
+import com.lss.model.Index.QueryVector;
+import com.lss.model.Index.TopKCollector;
 import com.lss.model.Result;
 import com.lss.model.RetrieveDocsItems;
+import com.lss.model.SearchCursor;
+import com.lss.model.SearchFilter;
+import com.lss.model.SearchHits;
+import com.lss.model.SpellingSuggestion;
 import com.lss.repository.InvertedIndexManager;
 import com.lss.repository.MarkdownManager;
+import com.lss.repository.SemanticResponseCache;
+import com.lss.util.CharBigrams;
+import com.lss.util.ConcurrencyLimiter;
+import com.lss.util.RankFusion;
 import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.IntConsumer;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,16 +59,99 @@ public class SearchService {
     private final SimilarityCalculator similarityCalculator;
     private final InvertedIndexManager invertedIndexManager;
     private final MarkdownManager markdownManager;
+    private final ConcurrencyLimiter llmChatLimiter;
+    private final SemanticSearchService semanticSearchService;
+    private final ExecutorService hybridSearchExecutor;
+    private final SemanticResponseCache adviceResponseCache;
+    private final SpellCorrectionService spellCorrectionService;
+    private final SearchFilterService searchFilterService;
+    private final ForkJoinPool scoringPool;
+    private final ShardCoordinator shardCoordinator;
+    private final SynonymService synonymService;
+    private final RerankService rerankService;
+
+    @Value("${lss.hybrid.fusion:rrf}")
+    private String fusion;
+
+    @Value("${lss.hybrid.rrf-k:60}")
+    private int rrfK;
+
+    @Value("${lss.hybrid.lexical-weight:0.5}")
+    private double lexicalWeight;
+
+    @Value("${lss.hybrid.branch-top-k:50}")
+    private int branchTopK;
+
+    @Value("${lss.hybrid.timeout-ms:2000}")
+    private long hybridTimeoutMillis;
+
+    @Value("${lss.sort.recency-half-life:30d}")
+    private Duration recencyHalfLife;
+
+    @Value("${lss.filter.max-facet-values:20}")
+    private int maxFacetValues;
+
+    @Value("${lss.search.parallel.enabled:true}")
+    private boolean parallelEnabled;
+
+    // 需要遍历的倒排记录数达到该值时才拆分文档区间并行打分，小查询不承担拆分和合并的开销
+    @Value("${lss.search.parallel.threshold-postings:200000}")
+    private long parallelThresholdPostings;
+
+    // 每个区间至少包含的文档数，决定区间个数的上限
+    @Value("${lss.search.parallel.min-partition-docs:8192}")
+    private int minPartitionDocs;
+
+    // 可选词项至少匹配的个数，请求未指定时使用；为空时有必须出现的词项则为0，否则为1
+    @Value("${lss.query.minimum-should-match:}")
+    private String defaultMinimumShouldMatch;
+
+    // 词项检索的候选少于该值时尝试字符二元组索引
+    @Value("${lss.ngram.min-candidates:3}")
+    private int ngramMinCandidates;
+
+    // 字符二元组查询中可选二元组至少匹配的比例
+    @Value("${lss.ngram.minimum-should-match:60%}")
+    private String ngramMinimumShouldMatch;
+
+    // 候选数 × 查询词项数 × 该值不小于区间文档数时，按词项累加点积，累加数组的分配与遍历开销可以摊薄
+    private static final int ACCUMULATE_MIN_DENSITY = 16;
+
+    // 语义检索带过滤条件时多取的候选倍数
+    private static final int FILTER_OVERFETCH = 4;
+
+    // 词典在进程内只加载一次，分词器实例复用，避免每次查询重新构造
+    private final JiebaSegmenter segmenter = new JiebaSegmenter();
 
     public SearchService(LLMSegmenterService llmSegmenterService,
                          SimilarityCalculator similarityCalculator,
                          InvertedIndexManager invertedIndexManager,
                          MarkdownManager markdownManager,
-                         QueryAdviceAssistant queryAdviceAssistant) {
+                         QueryAdviceAssistant queryAdviceAssistant,
+                         @Qualifier("llmChatLimiter") ConcurrencyLimiter llmChatLimiter,
+                         SemanticSearchService semanticSearchService,
+                         @Qualifier("hybridSearchExecutor") ExecutorService hybridSearchExecutor,
+                         @Qualifier("adviceResponseCache") SemanticResponseCache adviceResponseCache,
+                         SpellCorrectionService spellCorrectionService,
+                         SearchFilterService searchFilterService,
+                         @Qualifier("scoringPool") ForkJoinPool scoringPool,
+                         ShardCoordinator shardCoordinator,
+                         SynonymService synonymService,
+                         RerankService rerankService) {
         this.similarityCalculator = similarityCalculator;
         this.invertedIndexManager = invertedIndexManager;
         this.markdownManager = markdownManager;
         this.queryAdviceAssistant = queryAdviceAssistant;
+        this.llmChatLimiter = llmChatLimiter;
+        this.semanticSearchService = semanticSearchService;
+        this.hybridSearchExecutor = hybridSearchExecutor;
+        this.adviceResponseCache = adviceResponseCache;
+        this.spellCorrectionService = spellCorrectionService;
+        this.searchFilterService = searchFilterService;
+        this.scoringPool = scoringPool;
+        this.shardCoordinator = shardCoordinator;
+        this.synonymService = synonymService;
+        this.rerankService = rerankService;
     }
 
     /**
@@ -54,131 +162,593 @@ public class SearchService {
      * @return 包含搜索结果和耗时的SearchResult对象
      */
     public Result search(Integer type, String queryString, int topN) {
-        long startTime = System.nanoTime(); // 记录开始时间
+        return search(type, queryString, topN, SearchMode.LEXICAL);
+    }
 
+    /**
+     * 按指定检索方式执行信息检索。
+     *
+     * @param type 查询的域类型，只对词项检索生效
+     * @param queryString 用户输入的查询字符串
+     * @param topN 返回结果的数量
+     * @param mode 检索方式
+     * @return 包含搜索结果和耗时的SearchResult对象
+     */
+    public Result search(Integer type, String queryString, int topN, SearchMode mode) {
         if (queryString == null || queryString.trim().isEmpty()) {
             return Result.fail("请输入查询内容");
         }
 
-        // 1. 对查询字符串进行分词 (使用jieba分词器)
-        JiebaSegmenter segmenter = new JiebaSegmenter();
-        List<String> queryTerms = segmenter.sentenceProcess(queryString);
+        List<RetrieveDocsItems> topResults = rank(type, queryString, topN, mode);
+        if (topResults == null) {
+            // 如果分词结果为空，返回错误
+            return Result.fail("请输入查询内容");
+        }
+        if (topResults.isEmpty()) {
+            return Result.ok(Collections.emptyList());
+        }
 
-        if (queryTerms != null && !queryTerms.isEmpty()) {
-            // 2. 倒排索引查找匹配文档 (布尔检索部分)
-            // 获取包含任何一个查询词项的文档ID集合
-            Map<String, List<String>> queryTermsByField = splitQueryTermsByField(type, queryTerms); // 可以扩展为按域查询
+        List<LectureDocumentVO> topDocs = loadContents(topResults);
+        return Result.ok(topDocs);
+    }
 
-            Set<String> candidateDocIds = new HashSet<>();
-            for (Map.Entry<String, List<String>> entry : queryTermsByField.entrySet()) {
-                String fieldPrefix = entry.getKey();
-                List<String> termsInField = entry.getValue();
-                for (String term : termsInField) {
-                    String indexedTerm = fieldPrefix + ":" + term; // 构造带域的索引词项
-                    List<Posting> postings = invertedIndexManager.getPostingsList(indexedTerm);
-                    postings.forEach(posting -> candidateDocIds.add(posting.getDocumentId()));
-                }
+    /**
+     * 按检索方式分派到词项检索、语义检索或混合检索。
+     *
+     * @param type 查询的域类型，只对词项检索生效
+     * @param queryString 用户输入的查询字符串
+     * @param topN 返回结果的数量
+     * @param mode 检索方式
+     * @return 按相似度降序排列的Top N结果；词项检索时查询分词为空返回null
+     */
+    public List<RetrieveDocsItems> rank(Integer type, String queryString, int topN, SearchMode mode) {
+        return switch (mode) {
+            case SEMANTIC -> semanticSearchService.rank(queryString, topN);
+            case LEXICAL -> rank(type, queryString, topN);
+            case HYBRID -> rankHybrid(type, queryString, topN);
+        };
+    }
+
+    /**
+     * 混合检索：词项检索与语义检索在各自的虚拟线程上同时执行，各取Top K后融合。
+     * 总耗时取决于较慢的一路而不是两路之和；某一路超时或失败时只使用另一路的结果，
+     * 超时的一路被中断，在下一个阶段之间结束并释放所持有的快照。
+     *
+     * @param type 查询的域类型，只对词项检索生效
+     * @param queryString 用户输入的查询字符串
+     * @param topN 返回结果的数量
+     * @return 融合后的Top N结果；两路都没有可用的查询词时返回null
+     */
+    public List<RetrieveDocsItems> rankHybrid(Integer type, String queryString, int topN) {
+        return rankHybrid(type, queryString, topN, false);
+    }
+
+    // fixedRerank 为true时词项一路固定重排窗口内的候选，不受时间预算影响，用于翻页
+    private List<RetrieveDocsItems> rankHybrid(Integer type, String queryString, int topN, boolean fixedRerank) {
+        long startTime = System.nanoTime();
+        int k = Math.max(topN, branchTopK);
+        // 使用 submit 而不是 CompletableFuture：只有前者的 cancel(true) 会中断执行中的任务
+        Future<List<RetrieveDocsItems>> lexical =
+                hybridSearchExecutor.submit(() -> rank(type, queryString, k, fixedRerank));
+        Future<List<RetrieveDocsItems>> semantic =
+                hybridSearchExecutor.submit(() -> semanticSearchService.rank(queryString, k));
+
+        List<RetrieveDocsItems> lexicalResults = awaitBranch("lexical", lexical, startTime);
+        List<RetrieveDocsItems> semanticResults = awaitBranch("semantic", semantic, startTime);
+        if (lexicalResults == null && semanticResults.isEmpty()) {
+            return null;
+        }
+
+        List<List<RetrieveDocsItems>> rankings = List.of(
+                lexicalResults == null ? Collections.emptyList() : lexicalResults, semanticResults);
+        List<RetrieveDocsItems> fused = "weighted".equalsIgnoreCase(fusion)
+                ? RankFusion.weightedScore(rankings, new double[]{lexicalWeight, 1 - lexicalWeight}, topN)
+                : RankFusion.reciprocalRank(rankings, rrfK, topN);
+
+        log.info("Hybrid query took {} ms: {} lexical + {} semantic candidates fused into {} results.",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+                rankings.get(0).size(), semanticResults.size(), fused.size());
+        return fused;
+    }
+
+    // 在剩余的时间预算内等待一路结果，超时或失败时中断该路的线程并返回空结果；该路在阶段之间检查中断后结束
+    private List<RetrieveDocsItems> awaitBranch(String name, Future<List<RetrieveDocsItems>> branch, long startTime) {
+        long remainingMillis = hybridTimeoutMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        try {
+            return branch.get(Math.max(remainingMillis, 0), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Hybrid {} branch exceeded {} ms; using the other branch only.", name, hybridTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Hybrid {} branch failed: {}", name, e.getMessage());
+        }
+        branch.cancel(true);
+        return Collections.emptyList();
+    }
+
+    /**
+     * 检索与排序阶段：分词、查找候选文档并计算余弦相似度，只做内存计算。
+     *
+     * @param type 查询的域类型
+     * @param queryString 用户输入的查询字符串
+     * @param topN 返回结果的数量
+     * @return 按相似度降序排列的Top N结果；查询分词为空时返回null
+     */
+    public List<RetrieveDocsItems> rank(Integer type, String queryString, int topN) {
+        return rank(type, queryString, topN, false);
+    }
+
+    // fixedRerank 为true时固定重排窗口内的候选，不受时间预算影响，同一快照上同一查询的名次确定
+    private List<RetrieveDocsItems> rank(Integer type, String queryString, int topN, boolean fixedRerank) {
+        long startTime = System.nanoTime(); // 记录开始时间
+
+        // 1. 解析查询语法并分词 (使用jieba分词器)
+        BooleanQuery query = parseQuery(queryString, null);
+        if (!query.hasScoringTerms()) {
+            return null;
+        }
+        List<String> queryTerms = query.scoringTerms();
+
+        String fieldPrefix = fieldOf(type); // 默认使用全文检索
+        List<RetrieveDocsItems> topResults;
+        boolean ngramFallback = false;
+        if (shardCoordinator.isEnabled()) {
+            // 分片部署：分词后的查询分发到各分片，归并各分片的 Top N
+            topResults = shardCoordinator.rank(fieldPrefix, query, topN);
+        } else {
+            // 同一查询全程使用同一个索引快照，保证统计量一致；查询期间持有引用，存储区不会被释放
+            try (IndexSnapshot snapshot = invertedIndexManager.acquireSnapshot()) {
+                // 2. 构建查询向量，在文档位图上求值得到候选文档 (布尔检索部分)，候选过少时改用字符二元组索引
+                LexicalQuery lexical = prepareLexical(snapshot, fieldPrefix, queryString, query, null);
+                ngramFallback = lexical.ngram();
+                checkCancelled();
+
+                // 3~5. 第一阶段：计算相关性分数 (余弦相似度)，Top K 收集器只保留分数最高的 K 个
+                int firstPassSize = rerankService.firstPassSize(topN);
+                List<RetrieveDocsItems> firstPass = collectLexical(snapshot, lexical.queryVector(), lexical.candidates(),
+                        null, SortMode.RELEVANCE, firstPassSize, null).getItems();
+                rerankService.recordFirstPass(System.nanoTime() - startTime);
+                checkCancelled();
+
+                // 6. 第二阶段：只为这 K 个候选计算特征并重排，取前 N 个
+                topResults = fixedRerank
+                        ? rerankService.rerankFixed(snapshot, fieldPrefix, queryTerms, firstPass, topN)
+                        : rerankService.rerank(snapshot, fieldPrefix, queryTerms, firstPass, topN);
             }
+        }
 
-            // 如果没有匹配文档
-            if (candidateDocIds.isEmpty()) {
-                long endTime = System.nanoTime();
-                long durationMillis = TimeUnit.NANOSECONDS.toMillis(endTime - startTime);
-                log.info("查询耗时" + durationMillis + "ms");
-                return Result.ok(Collections.emptyList());
+        long endTime = System.nanoTime();
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(endTime - startTime);
+        log.info("查询耗时" + durationMillis + "ms");
+
+        log.info("查询结果数量: " + topResults.size());
+        if (!topResults.isEmpty() && !ngramFallback) {
+            spellCorrectionService.recordQuery(queryTerms);
+        }
+        return topResults;
+    }
+
+    // 混合检索超时的一路被中断后，在阶段之间结束，不再继续占用线程和快照
+    private static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Search cancelled");
+        }
+    }
+
+    /**
+     * 带过滤条件、排序方式、分面计数和翻页游标的检索。过滤条件编译为文档位图，词项检索在遍历倒排记录表时
+     * 直接跳过位图之外的文档，分面计数在同一次遍历中完成。
+     * 查询为空而有过滤条件时，返回满足条件的讲座，默认按讲座时间升序排列。
+     *
+     * @param type 查询的域类型，只对词项检索生效
+     * @param queryString 用户输入的查询字符串，可以为空
+     * @param topN 每页结果的数量
+     * @param mode 检索方式
+     * @param filter 过滤条件，可以为null
+     * @param sort 排序方式
+     * @param withFacets 是否统计分面
+     * @param after 上一页返回的游标，为null时从第一页开始
+     * @param minimumShouldMatch 可选词项至少匹配的个数（整数、负数或百分比），为null时使用默认值
+     * @return 检索结果；查询分词为空且没有过滤条件时返回null
+     * @throws IllegalArgumentException 游标与本次查询的检索方式或排序方式不一致，索引已更新导致游标失效，
+     *                                  或 minimumShouldMatch 格式错误
+     */
+    public SearchHits rankFiltered(Integer type, String queryString, int topN, SearchMode mode, SearchFilter filter,
+                                   SortMode sort, boolean withFacets, SearchCursor after, String minimumShouldMatch) {
+        // 查询期间持有快照的引用，快照被替换后存储区也要等本次查询结束才释放
+        try (IndexSnapshot snapshot = invertedIndexManager.acquireSnapshot()) {
+            return rankFiltered(snapshot, type, queryString, topN, mode, filter, sort, withFacets, after, minimumShouldMatch);
+        }
+    }
+
+    private SearchHits rankFiltered(IndexSnapshot snapshot, Integer type, String queryString, int topN, SearchMode mode,
+                                    SearchFilter filter, SortMode sort, boolean withFacets, SearchCursor after,
+                                    String minimumShouldMatch) {
+        boolean blankQuery = queryString == null || queryString.isBlank();
+        if (blankQuery) {
+            // 没有查询时不存在相关性，按时间列出
+            mode = SearchMode.LEXICAL;
+            sort = sort.isByDate() ? sort : SortMode.DATE_ASC;
+        }
+        if (after != null) {
+            if (after.getMode() != mode || after.getSort() != sort) {
+                throw new IllegalArgumentException("翻页游标与本次查询的检索方式或排序方式不一致");
             }
+            if (after.getSnapshotIdentity() != snapshot.getIdentity()) {
+                throw new IllegalArgumentException("索引已更新，翻页游标失效，请重新检索");
+            }
+        }
+        RoaringBitmap accepted = searchFilterService.compile(snapshot, filter);
+        FacetCounter facets = withFacets ? new FacetCounter(snapshot.getDocValues()) : null;
 
-            // 3. 计算相关性分数 (余弦相似度)
-            String fieldPrefix = "FullText"; // 默认使用全文检索
-            if (type != null) {
-                fieldPrefix = switch (type) {
-                    case 1 -> "Title"; // 标题
-                    case 2 -> "Speaker"; // 演讲者
-                    default -> "FullText"; // 全文检索
-                };
+        SearchHits hits;
+        if (blankQuery) {
+            if (accepted == null) {
+                return null;
             }
+            hits = collect(snapshot, accepted, null, facets, mode, sort, topN, after);
+        } else if (mode == SearchMode.LEXICAL) {
+            BooleanQuery query = parseQuery(queryString, minimumShouldMatch);
+            if (!query.hasScoringTerms()) {
+                return null;
+            }
+            String field = fieldOf(type);
+            LexicalQuery lexical = prepareLexical(snapshot, field, queryString, query, accepted);
+            hits = sort == SortMode.RELEVANCE && rerankService.isEnabled()
+                    ? collectReranked(snapshot, field, query.scoringTerms(), lexical, facets, topN, after)
+                    : collectLexical(snapshot, lexical.queryVector(), lexical.candidates(), facets, sort, topN, after);
+            if (!hits.getItems().isEmpty() && !lexical.ngram()) {
+                spellCorrectionService.recordQuery(query.scoringTerms());
+            }
+        } else {
+            hits = collectNearest(snapshot, type, queryString, accepted, facets, mode, sort, topN, after);
+            if (hits == null) {
+                return null;
+            }
+        }
 
-            List<RetrieveDocsItems> results = new ArrayList<>();
-            for (String docId : candidateDocIds) {
-                double similarityScore = similarityCalculator.calculateCosineSimilarity(fieldPrefix, queryTerms, docId);
-                if (similarityScore > 0) { // 只添加相似度大于0的文档
-                    LectureDocument doc = invertedIndexManager.getDocumentById(docId);
-                    if (doc != null) {
-                        results.add(new RetrieveDocsItems(doc, similarityScore));
-                    }
+        if (facets != null) {
+            hits.setFacets(facets.toMap(maxFacetValues));
+        }
+        return hits;
+    }
+
+    /**
+     * 词项检索。需要打分的候选数超过阈值且不按时间排序时，把文档序号切分为若干区间，
+     * 在共享的 {@link ForkJoinPool} 上并行打分，每个区间有自己的 Top N 堆和分面计数，最后合并；
+     * 否则在当前线程顺序执行。按时间排序的查询沿序号遍历、收满一页即结束，不需要并行。
+     *
+     * @param candidateDocs 布尔查询求值并与过滤条件求交后的候选文档位图，只读
+     */
+    private SearchHits collectLexical(IndexSnapshot snapshot, QueryVector queryVector, RoaringBitmap candidateDocs,
+                                      FacetCounter facets, SortMode sort, int topN, SearchCursor after) {
+        int partitions = partitionsFor(snapshot, queryVector, candidateDocs, sort);
+        if (partitions < 2) {
+            return collect(snapshot, candidateDocs, queryVector, facets, SearchMode.LEXICAL, sort, topN, after);
+        }
+
+        long startTime = System.nanoTime();
+        DocValues docValues = snapshot.getDocValues();
+        long now = System.currentTimeMillis();
+        int n = snapshot.getTotalDocuments();
+        int partitionSize = (n + partitions - 1) / partitions;
+        List<CompletableFuture<Partition>> futures = new ArrayList<>(partitions);
+        for (int from = 0; from < n; from += partitionSize) {
+            int lo = from;
+            int hi = Math.min(n, from + partitionSize);
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                TopKCollector collector = new TopKCollector(topN);
+                if (after != null) {
+                    collector.searchAfter(after.getLastKey(), after.getLastDoc());
                 }
+                FacetCounter partitionFacets = facets == null ? null : new FacetCounter(docValues);
+                long total = score(candidateDocs, lo, hi, queryVector, partitionFacets, sort, docValues, collector, now);
+                return new Partition(collector.drain(), total, partitionFacets);
+            }, scoringPool));
+        }
+
+        // 合并：各区间的堆已排除游标之前的文档，只需在合并后的堆里重新取前 N 个
+        TopKCollector merged = new TopKCollector(topN);
+        long total = 0;
+        for (CompletableFuture<Partition> future : futures) {
+            Partition partition = future.join();
+            TopKCollector.Result top = partition.top();
+            for (int i = 0; i < top.docs().length; i++) {
+                merged.collect(top.docs()[i], top.keys()[i], top.scores()[i]);
             }
+            total += partition.total();
+            if (facets != null) {
+                facets.merge(partition.facets());
+            }
+        }
+        log.debug("Scored {} candidates in {} partitions in {} us.", candidateDocs.getLongCardinality(), futures.size(),
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+        return toHits(snapshot, merged, total, true, SearchMode.LEXICAL, sort, topN, after);
+    }
+
+    private record Partition(TopKCollector.Result top, long total, FacetCounter facets) {
+    }
+
+    /**
+     * 按相关性排序的词项检索，与 {@link #rank(Integer, String, int)} 一样分两阶段：
+     * 第一阶段取重排窗口与游标之后一页中较大的候选数，总数和分面在这次完整遍历中得到；
+     * 第二阶段固定重排窗口内的候选（不受时间预算影响），再按重排后的分数从游标处收集一页，
+     * 翻页游标记录的是重排分数，各页基于同一个排序。
+     */
+    private SearchHits collectReranked(IndexSnapshot snapshot, String field, List<String> queryTerms, LexicalQuery lexical,
+                                       FacetCounter facets, int topN, SearchCursor after) {
+        long startTime = System.nanoTime();
+        int offset = after == null ? 0 : after.getOffset();
+        int firstPassSize = Math.max(rerankService.firstPassSize(topN), offset + topN);
+        SearchHits firstPass = collectLexical(snapshot, lexical.queryVector(), lexical.candidates(), facets,
+                SortMode.RELEVANCE, firstPassSize, null);
+        rerankService.recordFirstPass(System.nanoTime() - startTime);
+        List<RetrieveDocsItems> reranked = rerankService.rerankFixed(snapshot, field, queryTerms,
+                firstPass.getItems(), firstPass.getItems().size());
+
+        TopKCollector collector = new TopKCollector(topN);
+        if (after != null) {
+            collector.searchAfter(after.getLastKey(), after.getLastDoc());
+        }
+        for (RetrieveDocsItems item : reranked) {
+            collector.collect(snapshot.ordinalOf(item.getDocument().getId()), item.getScore(), item.getScore());
+        }
+        return toHits(snapshot, collector, firstPass.getTotalHits(), firstPass.isTotalExact(), SearchMode.LEXICAL,
+                SortMode.RELEVANCE, topN, after);
+    }
+
+    // 词项检索的查询向量与候选文档；ngram为true时两者都来自字符二元组索引
+    private record LexicalQuery(QueryVector queryVector, RoaringBitmap candidates, boolean ngram) {
+    }
+
+    /**
+     * 在主索引上构建查询向量并求值得到候选文档，与过滤条件求交。
+     * 索引词项来自大模型分词、查询词项来自jieba，两者切分不一致时（常见于人名）主索引可能几乎没有候选；
+     * 候选少于阈值时在字符二元组索引上用同样的查询语法重新求值，候选更多时改用二元组索引打分，
+     * 文档序号一致，后续的收集、分面和翻页不变。同一快照上同一查询的选择是确定的，翻页结果一致。
+     */
+    private LexicalQuery prepareLexical(IndexSnapshot snapshot, String field, String queryString, BooleanQuery query,
+                                        RoaringBitmap accepted) {
+        QueryVector queryVector = similarityCalculator.prepareQuery(snapshot, field, query.scoringWeights());
+        RoaringBitmap candidateDocs = query.evaluate(snapshot, field);
+        if (accepted != null) {
+            candidateDocs = RoaringBitmap.and(candidateDocs, accepted);
+        }
+        LexicalQuery primary = new LexicalQuery(queryVector, candidateDocs, false);
+        IndexSnapshot ngrams = snapshot.getNgrams();
+        if (ngrams == null || candidateDocs.getLongCardinality() >= ngramMinCandidates) {
+            return primary;
+        }
+
+        BooleanQuery ngramQuery = BooleanQuery.parse(queryString, CharBigrams::of, ngramMinimumShouldMatch);
+        if (!ngramQuery.hasScoringTerms()) {
+            return primary;
+        }
+        RoaringBitmap ngramDocs = ngramQuery.evaluate(ngrams, field);
+        if (accepted != null) {
+            ngramDocs = RoaringBitmap.and(ngramDocs, accepted);
+        }
+        if (ngramDocs.getLongCardinality() <= candidateDocs.getLongCardinality()) {
+            return primary;
+        }
+        log.debug("Query '{}' matched {} documents by terms, {} by character bigrams on {}.", queryString,
+                candidateDocs.getLongCardinality(), ngramDocs.getLongCardinality(), field);
+        return new LexicalQuery(similarityCalculator.prepareQuery(ngrams, field, ngramQuery.scoringTerms()), ngramDocs, true);
+    }
+
+    // 按候选数乘以查询词项数估计打分开销，决定切分的区间个数；返回1表示顺序执行
+    private int partitionsFor(IndexSnapshot snapshot, QueryVector queryVector, RoaringBitmap candidateDocs, SortMode sort) {
+        if (!parallelEnabled || sort.isByDate()
+                || candidateDocs.getLongCardinality() * queryVector.size() < parallelThresholdPostings) {
+            return 1;
+        }
+        int bySize = snapshot.getTotalDocuments() / Math.max(1, minPartitionDocs);
+        return Math.max(1, Math.min(scoringPool.getParallelism(), bySize));
+    }
+
+    /**
+     * 对候选文档打分并按排序方式收集一页结果。排序键只读取列式的讲座时间，不加载文档；
+     * 有游标时只收集排在游标之后的文档，堆的大小始终只有一页。
+     * 快照的文档序号按讲座时间排列，按时间排序时从游标处沿序号方向遍历候选，收满一页即可结束，
+     * 不需要为其余候选打分；此时总数和分面直接由候选位图得到。
+     *
+     * @param candidateDocs 候选文档位图，只读
+     * @param queryVector 查询向量，为null时不打分（只按时间列出）
+     * @param facets 分面计数器，可以为null
+     * @param after 翻页游标，可以为null
+     */
+    private SearchHits collect(IndexSnapshot snapshot, RoaringBitmap candidateDocs, QueryVector queryVector, FacetCounter facets,
+                               SearchMode mode, SortMode sort, int topN, SearchCursor after) {
+        DocValues docValues = snapshot.getDocValues();
+        TopKCollector collector = new TopKCollector(topN);
+        if (after != null) {
+            collector.searchAfter(after.getLastKey(), after.getLastDoc());
+        }
+        long now = System.currentTimeMillis();
+        long total = 0;
 
-            // 4. 排序：按相似度降序排列
-            results.sort(Comparator.comparingDouble(RetrieveDocsItems::getScore).reversed());
-
-            // 5. 返回 Top N 结果
-            List<RetrieveDocsItems> topResults = results.stream()
-                    .limit(topN)
-                    .collect(Collectors.toList());
-
-            long endTime = System.nanoTime();
-            long durationMillis = TimeUnit.NANOSECONDS.toMillis(endTime - startTime);
-            log.info("查询耗时" + durationMillis + "ms");
-
-            log.info("查询结果数量: " + topResults.size());
-
-            List<LectureDocumentVO> topDocs = topResults.stream()
-                    .map(item -> {
-                        LectureDocument doc = item.getDocument();
-                        try {
-                            return new LectureDocumentVO(doc.getId(), doc.getTitle().split("\\.")[0], markdownManager.getContentByPath(Path.of(doc.getOriginalFilePath())));
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    })
-                    .collect(Collectors.toList());
-
-            // 将doc文本写入到Prompt
-            // 这里可以将查询结果的文档内容写入到Prompt中，供后续使用
-            try (InputStream IS = new FileInputStream(PathConstant.TopN_Content);
-            ){
-                if (IS.available() > 0) {
-                    // 清空文件内容
-                    new PrintWriter(new FileOutputStream(PathConstant.TopN_Content, false)).close();
+        if (sort.isByDate()) {
+            total = candidateDocs.getLongCardinality();
+            if (facets != null) {
+                candidateDocs.forEach((IntConsumer) facets::collect);
+            }
+            int timed = docValues.getTimedDocuments();
+            int lastDoc = after == null ? -1 : after.getLastDoc();
+            if (sort == SortMode.DATE_ASC) {
+                // 没有时间的文档序号在最后，升序遍历时自然排在最后
+                for (long docOrdinal = candidateDocs.nextValue(lastDoc + 1); docOrdinal >= 0 && !collector.isFull();
+                     docOrdinal = candidateDocs.nextValue((int) docOrdinal + 1)) {
+                    offer(collector, queryVector, (int) docOrdinal, sort, docValues, now);
                 }
-                // 将查询结果写入到文件
-                try (BufferedWriter writer = new BufferedWriter(new FileWriter(PathConstant.TopN_Content))) {
-                    for (LectureDocumentVO doc : topDocs) {
-                        writer.write("ID: " + doc.getId() + "\n");
-                        writer.write("Title: " + doc.getTitle() + "\n");
-                        writer.write("Content:\n" + doc.getContent() + "\n\n");
-                    }
+            } else {
+                // 先按序号降序遍历有时间的文档，再按序号升序遍历没有时间的文档
+                boolean inTimed = after == null || lastDoc < timed;
+                int start = after == null ? timed - 1 : lastDoc - 1;
+                for (long docOrdinal = inTimed && start >= 0 ? candidateDocs.previousValue(start) : -1; docOrdinal >= 0 && !collector.isFull();
+                     docOrdinal = docOrdinal == 0 ? -1 : candidateDocs.previousValue((int) docOrdinal - 1)) {
+                    offer(collector, queryVector, (int) docOrdinal, sort, docValues, now);
+                }
+                for (long docOrdinal = candidateDocs.nextValue(inTimed ? timed : lastDoc + 1); docOrdinal >= 0 && !collector.isFull();
+                     docOrdinal = candidateDocs.nextValue((int) docOrdinal + 1)) {
+                    offer(collector, queryVector, (int) docOrdinal, sort, docValues, now);
                 }
-            } catch (Exception e) {
-                throw new RuntimeException(e);
             }
+        } else {
+            total = score(candidateDocs, 0, snapshot.getTotalDocuments(), queryVector, facets, sort, docValues, collector, now);
+        }
+        return toHits(snapshot, collector, total, true, mode, sort, topN, after);
+    }
 
-            return Result.ok(topDocs);
-        }else {
-            // 如果分词结果为空，返回错误
-            return Result.fail("请输入查询内容");
+    /**
+     * 为位图中序号在区间 [from, to) 内的候选打分并收集，返回相似度大于0的文档数。
+     * 候选相对区间足够密集时先按词项把点积累加到区间数组（可使用SIMD），否则逐个候选在各词项中二分查找。
+     */
+    private long score(RoaringBitmap candidateDocs, int from, int to, QueryVector queryVector, FacetCounter facets,
+                       SortMode sort, DocValues docValues, TopKCollector collector, long now) {
+        long total = 0;
+        float[] dotProducts = null;
+        if (queryVector != null && to > from
+                && candidateDocs.rangeCardinality(from, to) * queryVector.size() * ACCUMULATE_MIN_DENSITY >= to - from) {
+            dotProducts = similarityCalculator.dotProducts(queryVector, from, to);
+        }
+        PeekableIntIterator iterator = candidateDocs.getIntIterator();
+        iterator.advanceIfNeeded(from);
+        while (iterator.hasNext() && iterator.peekNext() < to) {
+            int docOrdinal = iterator.next();
+            double similarityScore = queryVector == null ? 0.0
+                    : dotProducts != null ? similarityCalculator.cosine(queryVector, docOrdinal, dotProducts[docOrdinal - from])
+                    : similarityCalculator.cosine(queryVector, docOrdinal);
+            if (queryVector != null && similarityScore <= 0) { // 只收集相似度大于0的文档
+                continue;
+            }
+            total++;
+            if (facets != null) {
+                facets.collect(docOrdinal);
+            }
+            collector.collect(docOrdinal, sortKey(sort, docOrdinal, docValues, similarityScore, now), similarityScore);
         }
+        return total;
     }
 
-    // 将查询词项映射到不同的域
-    private Map<String, List<String>> splitQueryTermsByField(Integer field, List<String> queryTerms) {
-        Map<String, List<String>> fieldTerms = new HashMap<>();
+    private void offer(TopKCollector collector, QueryVector queryVector, int docOrdinal, SortMode sort,
+                       DocValues docValues, long now) {
+        double similarityScore = queryVector == null ? 0.0 : similarityCalculator.cosine(queryVector, docOrdinal);
+        if (queryVector != null && similarityScore <= 0) {
+            return;
+        }
+        collector.collect(docOrdinal, sortKey(sort, docOrdinal, docValues, similarityScore, now), similarityScore);
+    }
 
-        if (field != null) {
-            // 如果指定了域，按域分组查询词项
-            String fieldPrefix = switch (field) {
-                case 1 -> "Title"; // 标题
-                case 2 -> "Speaker"; // 演讲者
-                default -> "FullText"; // 全文检索
-            };
-            fieldTerms.put(fieldPrefix, queryTerms);
-        } else {
-            // 如果没有指定域，默认使用全文检索
-            fieldTerms.put("FullText", queryTerms);
+    /**
+     * 语义检索与混合检索：向量近邻搜索不能按位图剪枝，也不能从游标处继续，
+     * 因此取到游标位置之后再多取一些候选，过滤、排序后收集一页。总数只统计这些候选，是下限。
+     * 相关性排序的游标记录的是名次，混合检索的词项一路因此固定重排，各页重新检索得到的名次一致。
+     */
+    private SearchHits collectNearest(IndexSnapshot snapshot, Integer type, String queryString, RoaringBitmap accepted,
+                                      FacetCounter facets, SearchMode mode, SortMode sort, int topN, SearchCursor after) {
+        int offset = after == null ? 0 : after.getOffset();
+        boolean reorder = accepted != null || sort != SortMode.RELEVANCE;
+        int k = reorder ? Math.max((offset + topN) * FILTER_OVERFETCH, branchTopK) : offset + topN + 1;
+        List<RetrieveDocsItems> ranked = mode == SearchMode.HYBRID
+                ? rankHybrid(type, queryString, k, true) : rank(type, queryString, k, mode);
+        if (ranked == null) {
+            return null;
+        }
+        DocValues docValues = snapshot.getDocValues();
+        TopKCollector collector = new TopKCollector(topN);
+        if (after != null) {
+            collector.searchAfter(after.getLastKey(), after.getLastDoc());
+        }
+        long now = System.currentTimeMillis();
+        long total = 0;
+        for (RetrieveDocsItems item : ranked) {
+            int docOrdinal = snapshot.ordinalOf(item.getDocument().getId());
+            if (docOrdinal < 0 || (accepted != null && !accepted.contains(docOrdinal))) {
+                continue;
+            }
+            total++;
+            if (facets != null) {
+                facets.collect(docOrdinal);
+            }
+            // 相关性排序时保持原有名次（混合检索的融合分数不一定单调）
+            double key = sort == SortMode.RELEVANCE ? -total : sortKey(sort, docOrdinal, docValues, item.getScore(), now);
+            collector.collect(docOrdinal, key, item.getScore());
         }
+        return toHits(snapshot, collector, total, ranked.size() < k, mode, sort, topN, after);
+    }
 
-        return fieldTerms;
+    /**
+     * 排序键，越大越靠前。
+     * 按时间排序时排序键由文档序号得到：序号已按讲座时间排列，键与遍历顺序一致且没有并列，
+     * 没有时间的文档排在最后。时效加权时没有时间的文档按一个半衰期计算。
+     */
+    private double sortKey(SortMode sort, int docOrdinal, DocValues docValues, double score, long now) {
+        int timed = docValues.getTimedDocuments();
+        return switch (sort) {
+            case RELEVANCE -> score;
+            case DATE_ASC -> -docOrdinal;
+            case DATE_DESC -> docOrdinal < timed ? docOrdinal : -1 - (docOrdinal - timed);
+            case RECENCY -> {
+                long lectureTime = docValues.lectureTime(docOrdinal);
+                // 尚未举行的讲座不衰减
+                double age = lectureTime == DocValues.MISSING_TIME ? recencyHalfLife.toMillis() : Math.max(0, now - lectureTime);
+                yield score * Math.pow(0.5, age / recencyHalfLife.toMillis());
+            }
+        };
+    }
+
+    // 物化一页结果，页满且后面还有结果时生成下一页的游标
+    private static SearchHits toHits(IndexSnapshot snapshot, TopKCollector collector, long total, boolean totalExact,
+                                     SearchMode mode, SortMode sort, int topN, SearchCursor after) {
+        TopKCollector.Result top = collector.drain();
+        int size = top.docs().length;
+        List<RetrieveDocsItems> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(new RetrieveDocsItems(snapshot.document(top.docs()[i]), top.scores()[i]));
+        }
+        int offset = (after == null ? 0 : after.getOffset()) + size;
+        SearchCursor next = null;
+        if (size == topN && size > 0 && (offset < total || !totalExact)) {
+            next = new SearchCursor(snapshot.getIdentity(), mode, sort, top.keys()[size - 1], top.docs()[size - 1], offset);
+        }
+        return new SearchHits(items, Math.max(total, offset), totalExact, null, next);
+    }
+
+    /**
+     * 读取结果文档的Markdown正文，属于磁盘I/O阶段。
+     * @param topResults 排序后的结果
+     * @return 带正文的文档视图
+     */
+    public List<LectureDocumentVO> loadContents(List<RetrieveDocsItems> topResults) {
+        return topResults.stream()
+                .map(item -> {
+                    LectureDocument doc = item.getDocument();
+                    try {
+                        return new LectureDocumentVO(doc.getId(), doc.getTitle().split("\\.")[0], markdownManager.getContentByPath(Path.of(doc.getOriginalFilePath())));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+
+    // 解析布尔查询语法，分词使用jieba，并按当前的同义词扩展图扩展
+    private BooleanQuery parseQuery(String queryString, String minimumShouldMatch) {
+        return BooleanQuery.parse(queryString, segmenter::sentenceProcess, synonymService.getGraph(),
+                minimumShouldMatch == null ? defaultMinimumShouldMatch : minimumShouldMatch);
+    }
+
+    // 将查询类型映射到域
+    private String fieldOf(Integer type) {
+        if (type == null) {
+            return "FullText"; // 如果没有指定域，默认使用全文检索
+        }
+        return switch (type) {
+            case 1 -> "Title"; // 标题
+            case 2 -> "Speaker"; // 演讲者
+            default -> "FullText"; // 全文检索
+        };
     }
 
     public Result searchById(String id) {
@@ -200,7 +770,18 @@ public class SearchService {
     }
 
     public Result queryAdvice(String query) {
-        String response = queryAdviceAssistant.chat(query);
+        // 本地纠错有把握时直接返回，不调用大模型
+        SpellingSuggestion suggestion = spellCorrectionService.suggest(query);
+        if (suggestion.isConfident()) {
+            return suggestion.isChanged() ? Result.ok(suggestion.getCorrected()) : Result.ok();
+        }
+
+        // 再查回答缓存，同一查询不再调用大模型
+        String response = adviceResponseCache.get(query);
+        if (response == null) {
+            response = llmChatLimiter.get(() -> queryAdviceAssistant.chat(query));
+            adviceResponseCache.put(query, response);
+        }
         if (response == null || response.isEmpty() || response.equals("没错误")) {
             return Result.ok();
         }
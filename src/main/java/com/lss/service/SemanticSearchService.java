@@ -0,0 +1,216 @@
+package com.lss.service;
+
+import com.lss.model.Index.HnswIndex;
+import com.lss.model.Index.IndexSnapshot;
+import com.lss.model.Index.LectureDocument;
+import com.lss.model.RetrieveDocsItems;
+import com.lss.repository.InvertedIndexManager;
+import com.lss.repository.MarkdownManager;
+import com.lss.repository.VectorIndexManager;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 语义检索：文档在建索引时用本地嵌入模型计算向量并写入HNSW向量索引，
+ * 查询时对问题做嵌入，按余弦相似度返回最近邻文档。
+ * 通过 lss.semantic.enabled 开启，关闭时不加载嵌入模型。
+ */
+@Service
+@Slf4j
+public class SemanticSearchService {
+
+    // 嵌入文本取题目加正文开头，模型本身最多只看约512个token
+    private static final int EMBEDDING_TEXT_CHARS = 512;
+    private static final int EMBEDDING_BATCH_SIZE = 16;
+
+    // 墓碑数超过未删除向量数的这个比例时整体重建，避免图中充斥已删除的节点
+    private static final double MAX_TOMBSTONE_RATIO = 0.5;
+
+    private final EmbeddingModel embeddingModel;
+    private final VectorIndexManager vectorIndexManager;
+    private final InvertedIndexManager invertedIndexManager;
+    private final MarkdownManager markdownManager;
+
+    @Value("${lss.semantic.enabled:false}")
+    private boolean enabled;
+
+    @Value("${lss.semantic.hnsw.ef-search:64}")
+    private int efSearch;
+
+    public SemanticSearchService(@Lazy @Qualifier("localEmbeddingModel") EmbeddingModel embeddingModel,
+                                 VectorIndexManager vectorIndexManager,
+                                 InvertedIndexManager invertedIndexManager,
+                                 MarkdownManager markdownManager) {
+        this.embeddingModel = embeddingModel;
+        this.vectorIndexManager = vectorIndexManager;
+        this.invertedIndexManager = invertedIndexManager;
+        this.markdownManager = markdownManager;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 启动时加载持久化的向量索引。
+     */
+    public void loadVectorIndex() {
+        if (!enabled) {
+            return;
+        }
+        vectorIndexManager.loadVectorIndex(embeddingModel.dimension());
+    }
+
+    /**
+     * 让向量索引与当前索引快照一致：删除快照中已不存在的文档的向量，
+     * 为没有向量或嵌入文本已变化（按文本哈希判断）的文档重新计算嵌入，有变化时持久化。
+     * 墓碑过多时改为整体重建。用于启动后补齐以及增量更新文档之后。
+     */
+    public synchronized void syncWithSnapshot() {
+        if (!enabled) {
+            return;
+        }
+        IndexSnapshot snapshot = invertedIndexManager.getSnapshot();
+        HnswIndex current = vectorIndexManager.getVectorIndex();
+        HnswIndex target = current != null ? current : vectorIndexManager.newVectorIndex(embeddingModel.dimension());
+
+        int removed = 0;
+        for (String id : target.ids()) {
+            if (snapshot.ordinalOf(id) < 0 && target.remove(id)) {
+                removed++;
+            }
+        }
+        if (target.tombstones() > target.size() * MAX_TOMBSTONE_RATIO) {
+            log.info("Vector index has {} tombstones for {} live vectors. Rebuilding.", target.tombstones(), target.size());
+            rebuildFromSnapshot();
+            return;
+        }
+
+        int embedded = embedInto(target, snapshot, true);
+        if (current == null) {
+            vectorIndexManager.replaceVectorIndex(target);
+        }
+        if (embedded > 0 || removed > 0 || current == null) {
+            log.info("Vector index synced with snapshot: {} embedded, {} removed.", embedded, removed);
+            vectorIndexManager.persistVectorIndex();
+        }
+    }
+
+    /**
+     * 在新的向量索引上为快照中的全部文档重新计算嵌入，完成后整体替换并持久化。
+     * 在倒排索引全量重建之后调用。
+     */
+    public synchronized void rebuildFromSnapshot() {
+        if (!enabled) {
+            return;
+        }
+        HnswIndex rebuilt = vectorIndexManager.newVectorIndex(embeddingModel.dimension());
+        embedInto(rebuilt, invertedIndexManager.getSnapshot(), false);
+        vectorIndexManager.replaceVectorIndex(rebuilt);
+        vectorIndexManager.persistVectorIndex();
+    }
+
+    /**
+     * 语义检索。
+     * @param queryString 用户输入的查询字符串
+     * @param topN 返回结果的数量
+     * @return 按余弦相似度降序排列的Top N结果；未启用或向量索引尚未就绪时返回空列表
+     */
+    public List<RetrieveDocsItems> rank(String queryString, int topN) {
+        HnswIndex vectorIndex = vectorIndexManager.getVectorIndex();
+        if (!enabled || vectorIndex == null || queryString == null || queryString.isBlank()) {
+            return new ArrayList<>();
+        }
+        long startTime = System.nanoTime();
+
+        float[] queryVector = embeddingModel.embed(queryString).content().vector();
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Semantic search cancelled"); // 混合检索中超时被中断，不再搜索向量索引
+        }
+        IndexSnapshot snapshot = invertedIndexManager.getSnapshot();
+        List<RetrieveDocsItems> results = new ArrayList<>();
+        for (HnswIndex.Neighbor neighbor : vectorIndex.search(queryVector, topN, Math.max(efSearch, topN))) {
+            int docOrdinal = snapshot.ordinalOf(neighbor.id());
+            if (docOrdinal >= 0 && neighbor.score() > 0) {
+                results.add(new RetrieveDocsItems(snapshot.document(docOrdinal), neighbor.score()));
+            }
+        }
+
+        log.info("Semantic query took {} ms, {} results.",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), results.size());
+        return results;
+    }
+
+    // 分批计算嵌入并写入目标索引，返回新写入的向量数；skipCurrent时跳过文本未变化的文档
+    private int embedInto(HnswIndex target, IndexSnapshot snapshot, boolean skipCurrent) {
+        long startTime = System.nanoTime();
+        List<String> batchIds = new ArrayList<>(EMBEDDING_BATCH_SIZE);
+        List<TextSegment> batch = new ArrayList<>(EMBEDDING_BATCH_SIZE);
+        int added = 0;
+        for (int ordinal = 0; ordinal < snapshot.getTotalDocuments(); ordinal++) {
+            LectureDocument document = snapshot.document(ordinal);
+            String text = embeddingText(document);
+            if (skipCurrent && target.isCurrent(document.getId(), contentHash(text))) {
+                continue;
+            }
+            batchIds.add(document.getId());
+            batch.add(TextSegment.from(text));
+            if (batch.size() == EMBEDDING_BATCH_SIZE) {
+                added += flush(target, batchIds, batch);
+            }
+        }
+        added += flush(target, batchIds, batch);
+        if (added > 0) {
+            log.info("Embedded {} documents into the vector index in {} ms.", added,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        }
+        return added;
+    }
+
+    private int flush(HnswIndex target, List<String> batchIds, List<TextSegment> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Embedding> embeddings = embeddingModel.embedAll(batch).content();
+        for (int i = 0; i < embeddings.size(); i++) {
+            target.add(batchIds.get(i), embeddings.get(i).vector(), contentHash(batch.get(i).text()));
+        }
+        int count = embeddings.size();
+        batchIds.clear();
+        batch.clear();
+        return count;
+    }
+
+    // 嵌入文本的64位FNV-1a哈希
+    private static long contentHash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private String embeddingText(LectureDocument document) {
+        String title = document.getTitle() == null ? "" : document.getTitle().split("\\.")[0];
+        try {
+            String content = markdownManager.getContentByPath(Path.of(document.getOriginalFilePath()));
+            return title + "\n" + content.substring(0, Math.min(EMBEDDING_TEXT_CHARS, content.length()));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read document {} for embedding. Embedding the title only.", document.getId());
+            return title;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.lss.service;
+
+import com.lss.model.Index.BooleanQuery;
+import com.lss.model.Index.CorpusStatistics;
+import com.lss.model.RetrieveDocsItems;
+import com.lss.model.ShardQuery;
+import com.lss.repository.ShardTransport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 分片检索的协调节点：把已分词的查询分发给所有分片，各分片返回自己的 Top N，按分数归并为全局 Top N。
+ * <p>
+ * 余弦相似度依赖IDF，各分片只看到自己的文档时IDF不同、分数不可比。协调节点定期收集各分片的
+ * 文档总数与文档频率，求和后下发，各分片按全局统计量重建快照。统计量只在某个分片的内容版本变化时重新下发。
+ * 某个分片超时或失败时只使用其余分片的结果。
+ */
+@Service
+@Slf4j
+public class ShardCoordinator {
+
+    private final List<ShardTransport> transports;
+    private final ExecutorService fanOutExecutor;
+
+    @Value("${lss.shard.timeout-ms:2000}")
+    private long timeoutMillis;
+
+    @Value("${lss.shard.stats-sync-interval:60s}")
+    private Duration statsSyncInterval;
+
+    private final AtomicBoolean syncing = new AtomicBoolean(false);
+    private volatile long lastSyncNanos;
+    private volatile long[] syncedVersions;
+
+    public ShardCoordinator(@Qualifier("shardTransports") List<ShardTransport> transports,
+                            @Qualifier("hybridSearchExecutor") ExecutorService fanOutExecutor) {
+        this.transports = transports;
+        this.fanOutExecutor = fanOutExecutor;
+    }
+
+    public boolean isEnabled() {
+        return !transports.isEmpty();
+    }
+
+    /**
+     * 分片检索。
+     * @param field 查询的域
+     * @param booleanQuery 已分词的布尔查询
+     * @param topN 返回结果的数量
+     * @return 按相似度降序排列的全局 Top N
+     */
+    public List<RetrieveDocsItems> rank(String field, BooleanQuery booleanQuery, int topN) {
+        long startTime = System.nanoTime();
+        if (lastSyncNanos == 0) {
+            syncStatistics(); // 第一次查询前先同步全局统计量，否则各分片分数不可比
+        } else {
+            syncStatisticsIfDue();
+        }
+
+        ShardQuery query = new ShardQuery(field, booleanQuery, topN);
+        List<CompletableFuture<List<RetrieveDocsItems>>> futures = new ArrayList<>(transports.size());
+        for (ShardTransport transport : transports) {
+            futures.add(CompletableFuture.supplyAsync(() -> transport.search(query), fanOutExecutor));
+        }
+        List<RetrieveDocsItems> merged = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            List<RetrieveDocsItems> hits = await(transports.get(i), futures.get(i), startTime);
+            if (hits != null) {
+                merged.addAll(hits);
+            }
+        }
+        merged.sort(Comparator.comparingDouble(RetrieveDocsItems::getScore).reversed()
+                .thenComparing(item -> item.getDocument().getId()));
+        List<RetrieveDocsItems> top = merged.size() > topN ? new ArrayList<>(merged.subList(0, topN)) : merged;
+        log.info("Sharded query over {} shards took {} ms: {} candidates merged into {} results.", transports.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), merged.size(), top.size());
+        return top;
+    }
+
+    /**
+     * 收集各分片的统计量，内容版本有变化时求和并下发到所有分片。
+     */
+    public synchronized void syncStatistics() {
+        long startTime = System.nanoTime();
+        List<CompletableFuture<CorpusStatistics>> futures = new ArrayList<>(transports.size());
+        for (ShardTransport transport : transports) {
+            futures.add(CompletableFuture.supplyAsync(transport::statistics, fanOutExecutor));
+        }
+        List<CorpusStatistics> shards = new ArrayList<>(futures.size());
+        long[] versions = new long[futures.size()];
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                CorpusStatistics statistics = futures.get(i).join();
+                shards.add(statistics);
+                versions[i] = statistics.getVersion();
+            } catch (RuntimeException e) {
+                // 缺少某个分片的统计量时求和结果偏小，不下发，保留上一次的全局统计量
+                log.warn("Failed to collect statistics from shard {}: {}", transports.get(i).name(), e.getMessage());
+                lastSyncNanos = System.nanoTime();
+                return;
+            }
+        }
+        lastSyncNanos = System.nanoTime();
+        if (Arrays.equals(versions, syncedVersions)) {
+            return;
+        }
+
+        CorpusStatistics global = CorpusStatistics.sum(shards);
+        List<CompletableFuture<Void>> applied = new ArrayList<>(transports.size());
+        for (ShardTransport transport : transports) {
+            applied.add(CompletableFuture.runAsync(() -> transport.applyGlobalStatistics(global), fanOutExecutor));
+        }
+        try {
+            CompletableFuture.allOf(applied.toArray(new CompletableFuture[0])).join();
+            syncedVersions = versions;
+        } catch (RuntimeException e) {
+            log.warn("Failed to apply global statistics to every shard; will retry on the next sync: {}", e.getMessage());
+        }
+        log.info("Global statistics synced across {} shards in {} ms: {} documents, {} terms.", transports.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), global.getTotalDocuments(),
+                global.getDocumentFrequencies().size());
+    }
+
+    // 距上次同步超过间隔时在后台同步，不阻塞当前查询
+    private void syncStatisticsIfDue() {
+        if (System.nanoTime() - lastSyncNanos < statsSyncInterval.toNanos() || !syncing.compareAndSet(false, true)) {
+            return;
+        }
+        fanOutExecutor.execute(() -> {
+            try {
+                syncStatistics();
+            } catch (RuntimeException e) {
+                log.warn("Background statistics sync failed: {}", e.getMessage());
+            } finally {
+                syncing.set(false);
+            }
+        });
+    }
+
+    // 在剩余的时间预算内等待一个分片，超时或失败时取消并返回null
+    private List<RetrieveDocsItems> await(ShardTransport transport, CompletableFuture<List<RetrieveDocsItems>> future,
+                                          long startTime) {
+        long remainingMillis = timeoutMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        try {
+            return future.get(Math.max(0, remainingMillis), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            future.cancel(true);
+            log.warn("Shard {} did not answer within the time budget and was skipped: {}", transport.name(), e.toString());
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.lss.service;
+
+import com.lss.model.Index.BooleanQuery;
+import com.lss.model.Index.IndexSnapshot;
+import com.lss.model.Index.QueryVector;
+import com.lss.model.Index.TopKCollector;
+import com.lss.model.RetrieveDocsItems;
+import com.lss.model.ShardQuery;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单个分片上的词项检索：查询已由协调节点分词，这里只在给定的分片快照上求值、打分并返回本分片的 Top N。
+ * 快照的IDF按全局统计量计算，返回的余弦相似度可以与其他分片的结果直接合并排序。
+ */
+@Service
+public class ShardSearchService {
+
+    private final SimilarityCalculator similarityCalculator;
+
+    public ShardSearchService(SimilarityCalculator similarityCalculator) {
+        this.similarityCalculator = similarityCalculator;
+    }
+
+    /**
+     * @param snapshot 分片快照
+     * @param query 分片查询
+     * @return 按相似度降序排列的本分片 Top N
+     */
+    public List<RetrieveDocsItems> search(IndexSnapshot snapshot, ShardQuery query) {
+        BooleanQuery booleanQuery = query.getQuery();
+        if (booleanQuery == null || !booleanQuery.hasScoringTerms() || query.getTopN() <= 0) {
+            return List.of();
+        }
+        QueryVector queryVector = similarityCalculator.prepareQuery(snapshot, query.getField(), booleanQuery.scoringWeights());
+        RoaringBitmap candidateDocs = booleanQuery.evaluate(snapshot, query.getField());
+
+        TopKCollector collector = new TopKCollector(query.getTopN());
+        PeekableIntIterator iterator = candidateDocs.getIntIterator();
+        while (iterator.hasNext()) {
+            int docOrdinal = iterator.next();
+            double similarityScore = similarityCalculator.cosine(queryVector, docOrdinal);
+            if (similarityScore > 0) {
+                collector.collect(docOrdinal, similarityScore, similarityScore);
+            }
+        }
+        TopKCollector.Result top = collector.drain();
+        List<RetrieveDocsItems> items = new ArrayList<>(top.docs().length);
+        for (int i = 0; i < top.docs().length; i++) {
+            items.add(new RetrieveDocsItems(snapshot.document(top.docs()[i]), top.scores()[i]));
+        }
+        return items;
+    }
+}
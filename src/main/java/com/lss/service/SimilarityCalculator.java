@@ -1,13 +1,15 @@
 package com.lss.service;
 
-import com.lss.model.Index.InvertedIndex;
+import com.lss.model.Index.IndexSnapshot;
 import com.lss.model.Index.LectureDocument;
-import com.lss.model.Index.Posting;
+import com.lss.model.Index.PostingsScorer;
+import com.lss.model.Index.QueryVector;
+import com.lss.model.Index.TermPostings;
 import com.lss.repository.InvertedIndexManager;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -18,10 +20,13 @@ public class SimilarityCalculator {
 
     private final TFIDFCalculator tfidfCalculator;
     private final InvertedIndexManager invertedIndexManager;
+    private final PostingsScorer postingsScorer;
 
-    public SimilarityCalculator(TFIDFCalculator tfidfCalculator, InvertedIndexManager invertedIndexManager) {
+    public SimilarityCalculator(TFIDFCalculator tfidfCalculator, InvertedIndexManager invertedIndexManager,
+                                PostingsScorer postingsScorer) {
         this.tfidfCalculator = tfidfCalculator;
         this.invertedIndexManager = invertedIndexManager;
+        this.postingsScorer = postingsScorer;
     }
 
     /**
@@ -31,122 +36,145 @@ public class SimilarityCalculator {
      * @param documentsToProcess 待处理的文档ID列表
      */
     public void precomputeDocumentNorms(Set<String> documentsToProcess) {
-        log.info("Starting precomputation of document vector norms for {} documents.", documentsToProcess.size());
-        InvertedIndex invertedIndex = invertedIndexManager.getInvertedIndex();
+        try (IndexSnapshot snapshot = invertedIndexManager.acquireSnapshot()) {
+            copyNorms(snapshot, documentsToProcess);
+        }
+    }
 
+    // 范数在快照构建时一次遍历全部倒排记录算出，这里只需写回文档元数据
+    private void copyNorms(IndexSnapshot snapshot, Set<String> documentsToProcess) {
+        log.info("Starting precomputation of document vector norms for {} documents.", documentsToProcess.size());
         for (String docId : documentsToProcess) {
-            LectureDocument doc = invertedIndex.getDocument(docId);
-            if (doc == null) {
+            int ordinal = snapshot.ordinalOf(docId);
+            if (ordinal < 0) {
                 log.warn("Document with ID '{}' not found during norm precomputation. Skipping.", docId);
                 continue;
             }
-
-            double sumOfSquares = 0.0;
-            // 获取该文档包含的所有词项及其频率
-            // 这需要遍历所有Posting，找到对应文档的TF。
-            // 考虑到InvertedIndex的结构，直接迭代所有词项来获取其在特定文档的TF
-            for (Map.Entry<String, List<Posting>> entry : invertedIndex.getDictionary().entrySet()) {
-                String indexedTerm = entry.getKey(); // "FIELD:term"
-                String originalTerm = indexedTerm.contains(":") ? indexedTerm.substring(indexedTerm.indexOf(":") + 1) : indexedTerm;
-
-                List<Posting> postings = entry.getValue();
-                for (Posting posting : postings) {
-                    if (posting.getDocumentId().equals(docId)) {
-                        double tf = tfidfCalculator.calculateTF(posting.getTermFrequency());
-                        double idf = tfidfCalculator.calculateIDF(originalTerm); // IDF计算需要原始词项
-                        double tfidf = tf * idf;
-                        sumOfSquares += tfidf * tfidf;
-                    }
-                }
-            }
-            doc.setVectorNorm(Math.sqrt(sumOfSquares));
+            LectureDocument doc = snapshot.document(ordinal);
+            doc.setVectorNorm(snapshot.norm(ordinal));
             log.debug("Precomputed norm for document '{}' ({}): {}", doc.getTitle(), docId, doc.getVectorNorm());
         }
         log.info("Completed precomputation of document vector norms.");
     }
 
-
     /**
-     * 计算查询向量的范数。
-     * @param queryVector 查询词项的TF-IDF权重映射 (term -> tf-idf_weight)
-     * @return 查询向量的欧几里得范数
+     * 构建查询向量 (TF-IDF权重)，并取出各查询词项在指定域中的倒排记录表。
+     * 每个查询只需构建一次。
+     * @param snapshot 索引快照
+     * @param field 查询的域
+     * @param queryTerms 查询分词后的词项列表
+     * @return 查询向量
      */
-    private double calculateQueryNorm(Map<String, Double> queryVector) {
-        double sumOfSquares = 0.0;
-        for (double weight : queryVector.values()) {
-            sumOfSquares += weight * weight;
+    public QueryVector prepareQuery(IndexSnapshot snapshot, String field, List<String> queryTerms) {
+        Map<String, Float> queryTermFrequencies = new LinkedHashMap<>();
+        if (queryTerms != null) {
+            for (String term : queryTerms) {
+                queryTermFrequencies.merge(term, 1f, Float::sum);
+            }
         }
-        return Math.sqrt(sumOfSquares);
+        return prepareQuery(snapshot, field, queryTermFrequencies);
     }
 
     /**
-     * 计算查询与单个文档的余弦相似度。
+     * 按带权重的查询词频构建查询向量，同义词扩展词项的词频为扩展权重。
+     * @param snapshot 索引快照
      * @param field 查询的域
-     * @param queryTerms 查询分词后的词项列表
-     * @param documentId 待比较的文档ID
-     * @return 余弦相似度得分，范围[0, 1]
+     * @param queryTermFrequencies 词项 -> 查询词频
+     * @return 查询向量
      */
-    public double calculateCosineSimilarity(String field, List<String> queryTerms, String documentId) {
-        if (queryTerms == null || queryTerms.isEmpty()) {
-            return 0.0;
+    public QueryVector prepareQuery(IndexSnapshot snapshot, String field, Map<String, Float> queryTermFrequencies) {
+        int size = queryTermFrequencies.size();
+        String[] terms = new String[size];
+        float[] weights = new float[size];
+        TermPostings[] postings = new TermPostings[size];
+        int i = 0;
+        for (Map.Entry<String, Float> entry : queryTermFrequencies.entrySet()) {
+            String term = entry.getKey();
+            // 在查询中，TF-IDF的IDF部分也应基于整个文档集合计算
+            terms[i] = term;
+            weights[i] = (float) (tfidfCalculator.calculateTF(entry.getValue()) * tfidfCalculator.calculateIDF(snapshot, term));
+            postings[i] = snapshot.postings(field + ":" + term);
+            i++;
         }
+        return new QueryVector(snapshot, field, terms, weights, postings);
+    }
 
-        InvertedIndex invertedIndex = invertedIndexManager.getInvertedIndex();
-        LectureDocument document = invertedIndex.getDocument(documentId);
-
-        if (document == null || document.getVectorNorm() == 0.0) {
-            // 文档不存在或范数为零 (例如，文档为空或所有词项TF-IDF为0)
+    /**
+     * 计算查询向量与单个文档的余弦相似度。
+     * @param queryVector 查询向量
+     * @param docOrdinal 文档序号
+     * @return 余弦相似度得分，范围[0, 1]
+     */
+    public double cosine(QueryVector queryVector, int docOrdinal) {
+        double queryNorm = queryVector.getNorm();
+        double docNorm = queryVector.getSnapshot().norm(docOrdinal);
+        if (queryNorm == 0.0 || docNorm == 0.0) {
+            // 查询全是未登录词，或文档为空 (所有词项TF-IDF为0)
             return 0.0;
         }
 
-        // 1. 构建查询向量 (TF-IDF权重)
-        Map<String, Integer> queryTermFrequencies = new HashMap<>();
-        for (String term : queryTerms) {
-            queryTermFrequencies.merge(term, 1, Integer::sum);
+        // 点积：文档中该词项在查询域中的预计算权重 × 查询词项权重
+        double sumProduct = 0.0;
+        for (int i = 0; i < queryVector.size(); i++) {
+            sumProduct += queryVector.weight(i) * queryVector.postings(i).weightOf(docOrdinal);
         }
+        return sumProduct / (queryNorm * docNorm);
+    }
 
-        Map<String, Double> queryVector = new HashMap<>();
-        for (Map.Entry<String, Integer> entry : queryTermFrequencies.entrySet()) {
-            String term = entry.getKey();
-            int tfInQuery = entry.getValue();
-            // 在查询中，TF-IDF的IDF部分也应基于整个文档集合计算
-            double tfidf = tfidfCalculator.calculateTFIDF(tfInQuery, term);
-            queryVector.put(term, tfidf);
+    /**
+     * 按词项计算文档序号区间内所有文档与查询向量的点积：依次遍历每个查询词项在区间内的倒排记录，
+     * 累加到按文档序号存放的数组。候选文档较多时，比逐个文档在每个词项中二分查找更快，累加循环可使用SIMD。
+     * @param queryVector 查询向量
+     * @param from 起始文档序号（包含）
+     * @param to 结束文档序号（不包含）
+     * @return 点积数组，下标为 文档序号 - from
+     */
+    public float[] dotProducts(QueryVector queryVector, int from, int to) {
+        float[] accumulators = new float[to - from];
+        for (int i = 0; i < queryVector.size(); i++) {
+            TermPostings postings = queryVector.postings(i);
+            int start = postings.lowerBound(from);
+            int end = postings.lowerBound(to);
+            if (start < end) {
+                postingsScorer.accumulate(postings, start, end, queryVector.weight(i), accumulators, from);
+            }
         }
+        return accumulators;
+    }
 
-        // 2. 计算查询范数
-        double queryNorm = calculateQueryNorm(queryVector);
-        if (queryNorm == 0.0) {
-            return 0.0; // 查询范数为零，无法计算相似度 (例如，查询全是停用词)
+    /**
+     * 由已算出的点积计算余弦相似度。
+     * @param queryVector 查询向量
+     * @param docOrdinal 文档序号
+     * @param dotProduct 查询向量与文档向量的点积
+     * @return 余弦相似度得分，范围[0, 1]
+     */
+    public double cosine(QueryVector queryVector, int docOrdinal, double dotProduct) {
+        double queryNorm = queryVector.getNorm();
+        double docNorm = queryVector.getSnapshot().norm(docOrdinal);
+        if (queryNorm == 0.0 || docNorm == 0.0) {
+            return 0.0;
         }
+        return dotProduct / (queryNorm * docNorm);
+    }
 
-        // 3. 计算点积 (Dot Product)
-        // 对于查询中的每个词项 q_t
-        // 找到该词项在文档D中所有域的TF-IDF权重之和（或者平均值）
-        // 假设queryTerm是原始词项，需要找到它在文档中的所有域权重
-        double sumProduct = 0.0;
-        for (Map.Entry<String, Double> queryEntry : queryVector.entrySet()) {
-            String queryTerm = queryEntry.getKey(); // 查询词项，不带域
-            double queryTermWeight = queryEntry.getValue();
-
-            // 聚合文档中该词项在所有相关域的TF-IDF权重
-            double aggregatedDocTermWeight = 0.0;
-
-            String indexedTermInDoc = field + ":" + queryTerm;
-            List<Posting> postings = invertedIndex.getPostings(indexedTermInDoc);
-            for (Posting posting : postings) {
-                if (posting.getDocumentId().equals(documentId)) {
-                    double tf = tfidfCalculator.calculateTF(posting.getTermFrequency());
-                    double idf = tfidfCalculator.calculateIDF(queryTerm); // IDF是针对原始词项
-                    aggregatedDocTermWeight += tf * idf; // 累加该词项在不同域的权重
-                    break; // 找到该域中第一个匹配的即可
-                }
-            }
-
-            sumProduct += queryTermWeight * aggregatedDocTermWeight;
+    /**
+     * 计算查询与单个文档的余弦相似度。
+     * @param field 查询的域
+     * @param queryTerms 查询分词后的词项列表
+     * @param documentId 待比较的文档ID
+     * @return 余弦相似度得分，范围[0, 1]
+     */
+    public double calculateCosineSimilarity(String field, List<String> queryTerms, String documentId) {
+        if (queryTerms == null || queryTerms.isEmpty()) {
+            return 0.0;
         }
 
-        // 4. 计算余弦相似度
-        return sumProduct / (queryNorm * document.getVectorNorm());
+        IndexSnapshot snapshot = invertedIndexManager.getSnapshot();
+        int docOrdinal = snapshot.ordinalOf(documentId);
+        if (docOrdinal < 0) {
+            return 0.0;
+        }
+        return cosine(prepareQuery(snapshot, field, queryTerms), docOrdinal);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,245 @@
+package com.lss.service;
+
+import com.huaban.analysis.jieba.JiebaSegmenter;
+import com.lss.model.Index.IndexSnapshot;
+import com.lss.model.Index.SpellingDictionary;
+import com.lss.model.SpellingSuggestion;
+import com.lss.repository.InvertedIndexManager;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地查询纠错：用索引中的词项作词典，按字符编辑距离和拼音（同音、近音）生成候选，
+ * 结合文档频率和查询日志中的频率排序。本地结果有把握时直接返回，否则交给大模型。
+ * 纠错词典跟随索引快照的版本在后台线程重建，重建完成前查询使用上一版词典，请求线程不等待重建。
+ */
+@Service
+@Slf4j
+public class SpellCorrectionService {
+
+    // 参与纠错的最大窗口（连续分词结果个数），分词器常把错字切成几个单字
+    private static final int MAX_WINDOW = 3;
+
+    private final InvertedIndexManager invertedIndexManager;
+    private final JiebaSegmenter segmenter = new JiebaSegmenter();
+
+    @Value("${lss.spelling.enabled:true}")
+    private boolean enabled;
+
+    // 最优候选的频率至少是次优候选的多少倍才算有把握
+    @Value("${lss.spelling.dominance:2.0}")
+    private double dominance;
+
+    @Value("${lss.spelling.query-log-size:100000}")
+    private int queryLogSize;
+
+    private volatile SpellingDictionary dictionary = SpellingDictionary.empty();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "spelling-dictionary");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 有结果的查询词 -> 出现次数，用于候选排序
+    private final ConcurrentHashMap<String, LongAdder> queryLog = new ConcurrentHashMap<>();
+
+    public SpellCorrectionService(InvertedIndexManager invertedIndexManager) {
+        this.invertedIndexManager = invertedIndexManager;
+    }
+
+    /**
+     * 纠正查询。
+     * @param query 用户查询
+     * @return 纠错结果；未启用时返回没有把握的结果
+     */
+    public SpellingSuggestion suggest(String query) {
+        if (!enabled || query == null || query.isBlank()) {
+            return new SpellingSuggestion(query, query, false, List.of());
+        }
+        long startTime = System.nanoTime();
+        SpellingDictionary dictionary = dictionaryForRequest();
+        List<String> tokens = segmenter.sentenceProcess(query.trim());
+
+        StringBuilder corrected = new StringBuilder();
+        List<String> alternatives = new ArrayList<>();
+        boolean confident = dictionary.size() > 0;
+        int i = 0;
+        while (i < tokens.size()) {
+            int consumed = 0;
+            // 1. 从最长的窗口开始：分词器可能把一个词切开，也可能把错字切成单字
+            for (int window = Math.min(MAX_WINDOW, tokens.size() - i); window >= 2 && consumed == 0; window--) {
+                List<String> span = tokens.subList(i, i + window);
+                String text = String.join("", span);
+                if (text.isBlank()) {
+                    continue;
+                }
+                if (dictionary.contains(text)) {
+                    corrected.append(text);
+                    consumed = window;
+                    continue;
+                }
+                // 窗口内都是已知词时，只接受同音候选（例如“人工只能”->“人工智能”），避免把正确的查询改错
+                boolean allKnown = span.stream().allMatch(token -> isKnown(dictionary, token));
+                Choice choice = choose(dictionary, text, allKnown);
+                if (choice != null && choice.best() != null) {
+                    corrected.append(choice.best());
+                    alternatives.addAll(choice.alternatives());
+                    confident &= choice.dominant();
+                    consumed = window;
+                }
+            }
+            if (consumed > 0) {
+                i += consumed;
+                continue;
+            }
+
+            // 2. 单个分词结果
+            String token = tokens.get(i);
+            if (isKnown(dictionary, token)) {
+                corrected.append(token);
+            } else {
+                Choice choice = choose(dictionary, token, false);
+                if (choice == null || choice.best() == null) {
+                    corrected.append(token);
+                    confident = false; // 不认识又找不到候选，交给大模型
+                } else {
+                    corrected.append(choice.best());
+                    alternatives.addAll(choice.alternatives());
+                    confident &= choice.dominant();
+                }
+            }
+            i++;
+        }
+
+        SpellingSuggestion suggestion = new SpellingSuggestion(query, corrected.toString(), confident, alternatives);
+        log.debug("Spelling correction of '{}' -> '{}' (confident: {}) took {} us.", query, suggestion.getCorrected(),
+                confident, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+        return suggestion;
+    }
+
+    /**
+     * 记录一次有结果的查询，查询中的词项在候选排序时获得额外权重。
+     * @param terms 查询分词结果
+     */
+    public void recordQuery(List<String> terms) {
+        for (String term : terms) {
+            if (term.length() < 2 || term.isBlank()) {
+                continue;
+            }
+            LongAdder counter = queryLog.get(term);
+            if (counter == null) {
+                if (queryLog.size() >= queryLogSize) {
+                    continue; // 日志已满时只为已有的词计数
+                }
+                counter = queryLog.computeIfAbsent(term, k -> new LongAdder());
+            }
+            counter.increment();
+        }
+    }
+
+    // 请求线程不重建词典：版本落后时交给后台线程，本次仍用当前词典
+    private SpellingDictionary dictionaryForRequest() {
+        SpellingDictionary current = dictionary;
+        boolean stale = invertedIndexManager.isIndexLoaded()
+                && current.getVersion() != invertedIndexManager.getSnapshot().getVersion();
+        if (stale && rebuildScheduled.compareAndSet(false, true)) {
+            try {
+                rebuilder.execute(() -> {
+                    try {
+                        currentDictionary();
+                    } catch (RuntimeException e) {
+                        log.error("Failed to rebuild spelling dictionary.", e);
+                    } finally {
+                        rebuildScheduled.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                rebuildScheduled.set(false); // 正在关闭
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 返回与当前索引快照对应的纠错词典，快照版本变化时在调用线程上重建。
+     * 只在启动预热和后台线程中调用。
+     * @return 纠错词典
+     */
+    public SpellingDictionary currentDictionary() {
+        IndexSnapshot snapshot = invertedIndexManager.getSnapshot();
+        SpellingDictionary current = dictionary;
+        if (current.getVersion() == snapshot.getVersion()) {
+            return current;
+        }
+        synchronized (this) {
+            current = dictionary;
+            if (current.getVersion() != snapshot.getVersion()) {
+                long startTime = System.nanoTime();
+                current = SpellingDictionary.build(snapshot);
+                dictionary = current;
+                log.info("Spelling dictionary rebuilt for snapshot version {}: {} terms in {} ms.",
+                        snapshot.getVersion(), current.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            }
+            return current;
+        }
+    }
+
+    private record Choice(String best, boolean dominant, List<String> alternatives) {
+    }
+
+    // 选出最优候选：同音优先，其次字符编辑距离，再按文档频率加查询日志频率
+    private Choice choose(SpellingDictionary dictionary, String text, boolean samePinyinOnly) {
+        List<SpellingDictionary.Candidate> candidates = dictionary.lookup(text);
+        if (samePinyinOnly) {
+            candidates.removeIf(candidate -> !candidate.samePinyin());
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        Comparator<SpellingDictionary.Candidate> order = Comparator
+                .comparingInt(SpellingDictionary.Candidate::pinyinDistance)
+                .thenComparingInt(SpellingDictionary.Candidate::distance)
+                .thenComparing(Comparator.comparingLong(this::weight).reversed());
+        candidates.sort(order);
+
+        SpellingDictionary.Candidate best = candidates.get(0);
+        boolean dominant = true;
+        if (candidates.size() > 1) {
+            SpellingDictionary.Candidate second = candidates.get(1);
+            boolean sameTier = second.pinyinDistance() == best.pinyinDistance() && second.distance() == best.distance();
+            dominant = !sameTier || weight(best) >= dominance * weight(second);
+        }
+        List<String> alternatives = candidates.stream().skip(1).limit(2).map(SpellingDictionary.Candidate::term).toList();
+        return new Choice(best.term(), dominant, alternatives);
+    }
+
+    private long weight(SpellingDictionary.Candidate candidate) {
+        LongAdder counter = queryLog.get(candidate.term());
+        return candidate.documentFrequency() + (counter == null ? 0 : counter.sum());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    // 单字、标点和数字不参与纠错
+    private static boolean isKnown(SpellingDictionary dictionary, String token) {
+        return token.length() < 2 || token.isBlank() || dictionary.contains(token);
+    }
+}
@@ -0,0 +1,135 @@
+package com.lss.service;
+
+import com.huaban.analysis.jieba.JiebaSegmenter;
+import com.lss.constant.PathConstant;
+import com.lss.model.Index.SynonymGraph;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同义词与缩写扩展：启动时把词典编译为 {@link SynonymGraph}，查询解析时由 {@link SearchService} 使用。
+ * 词典文件不存在时使用类路径下自带的 synonyms.txt；之后按固定间隔检查文件的修改时间和长度，
+ * 变化时在后台重新编译并整体替换，不需要重启。编译失败时保留当前的扩展图。
+ */
+@Service
+@Slf4j
+public class SynonymService {
+
+    private static final String BUILTIN_DICTIONARY = "synonyms.txt";
+
+    @Value("${lss.synonym.enabled:true}")
+    private boolean enabled;
+
+    // 留空时使用数据目录下的 synonyms.txt
+    @Value("${lss.synonym.path:}")
+    private String dictionaryPath;
+
+    // 词典中没有写权重的扩展项的权重
+    @Value("${lss.synonym.default-weight:0.8}")
+    private float defaultWeight;
+
+    @Value("${lss.synonym.reload-interval:30s}")
+    private Duration reloadInterval;
+
+    private final JiebaSegmenter segmenter = new JiebaSegmenter();
+
+    private volatile SynonymGraph graph = SynonymGraph.EMPTY;
+
+    // 上次加载的词典文件的修改时间和长度，文件不存在时为-1
+    private volatile long loadedModified = Long.MIN_VALUE;
+    private volatile long loadedSize = Long.MIN_VALUE;
+
+    private final ScheduledExecutorService watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "synonym-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @return 当前的扩展图，未启用时为空图
+     */
+    public SynonymGraph getGraph() {
+        return enabled ? graph : SynonymGraph.EMPTY;
+    }
+
+    /**
+     * 编译词典并开始检查词典文件的变化。
+     */
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        reload();
+        long intervalMillis = reloadInterval.toMillis();
+        watcher.scheduleWithFixedDelay(this::reload, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 词典文件的修改时间或长度变化时重新编译。
+     * @return 是否替换了扩展图
+     */
+    public synchronized boolean reload() {
+        Path path = dictionaryPath();
+        try {
+            long modified = -1;
+            long size = -1;
+            if (Files.isRegularFile(path)) {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                modified = attributes.lastModifiedTime().toMillis();
+                size = attributes.size();
+            }
+            if (modified == loadedModified && size == loadedSize) {
+                return false;
+            }
+
+            long startTime = System.nanoTime();
+            List<String> lines = modified >= 0 ? Files.readAllLines(path, StandardCharsets.UTF_8) : builtinLines();
+            SynonymGraph compiled = SynonymGraph.compile(lines, segmenter::sentenceProcess, defaultWeight);
+            graph = compiled;
+            loadedModified = modified;
+            loadedSize = size;
+            log.info("Compiled {} synonym rules from {} in {} ms.", compiled.size(),
+                    modified >= 0 ? path : "classpath:" + BUILTIN_DICTIONARY,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to load synonym dictionary {}. Keeping the current {} rules.", path, graph.size(), e);
+            return false;
+        }
+    }
+
+    private List<String> builtinLines() throws IOException {
+        ClassPathResource resource = new ClassPathResource(BUILTIN_DICTIONARY);
+        if (!resource.exists()) {
+            return List.of();
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+
+    private Path dictionaryPath() {
+        return Paths.get(dictionaryPath == null || dictionaryPath.isBlank() ? PathConstant.Synonyms : dictionaryPath);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watcher.shutdownNow();
+    }
+}
@@ -1,25 +1,15 @@
 package com.lss.service;
 
-import com.lss.repository.InvertedIndexManager;
+import com.lss.model.Index.IndexSnapshot;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
 @Service
 @Slf4j
 public class TFIDFCalculator {
 
-    private final InvertedIndexManager invertedIndexManager;
-
-    // 可以选择缓存IDF值，避免重复计算，尤其是在IDF值稳定后
-    // 词项 -> IDF值
-    private final Map<String, Double> idfCache = new ConcurrentHashMap<>();
-
-    public TFIDFCalculator(InvertedIndexManager invertedIndexManager) {
-        this.invertedIndexManager = invertedIndexManager;
-    }
+    // IDF不再按字符串缓存：每个索引快照构建时按词项序号预计算为 float[]，
+    // 文档总数或文档频率变化时随快照整体替换，见 IndexSnapshot
 
     /**
      * 计算词项在文档中的词频 (TF)。
@@ -38,44 +28,23 @@ public class TFIDFCalculator {
     }
 
     /**
-     * 计算词项的逆文档频率 (IDF)。
-     * 采用平滑处理：ln(N / DF(t) + 1)
-     * @param term 词项
-     * @return 逆文档频率 (IDF)
+     * 计算带权重的词频，用于查询中按权重计入的同义词扩展词项。
+     * @param weightedFrequency 加权后的词频
+     * @return 词项频率 (TF)
      */
-    public double calculateIDF(String term) {
-        // 尝试从缓存获取IDF值
-        return idfCache.computeIfAbsent(term, k -> {
-            int N = invertedIndexManager.getTotalDocumentsCount(); // 文档总数
-            int df = invertedIndexManager.getDocumentFrequency(k); // 包含该词项的文档数
-
-            // 避免除以零：如果df为0，则设置一个非常小的正数或直接返回0，
-            // 实际上，如果df为0，该词项不会出现在任何文档中，IDF就没有意义。
-            // 考虑到我们公式是 N/DF + 1，如果DF为0，直接N/0+1会报错。
-            // 这里的 df 应该至少为 1 (如果词项存在于至少一个文档中)
-            if (df == 0) {
-                // 如果词项的df为0，意味着它不在任何文档中，其IDF应为0或接近0，从而TF-IDF也为0
-                // 此时通常意味着这是一个不应出现在有效查询中的词，或者索引有误。
-                log.warn("Term '{}' has a document frequency of 0. Returning IDF as 0.0.", term);
-                return 0.0;
-            }
-
-            // 使用自然对数 ln
-            double idf = Math.log((double) N / df + 1); // 平滑处理：ln(N / DF(t) + 1)
-            log.debug("Calculated IDF for '{}': N={}, DF={}, IDF={}", term, N, df, idf);
-            return idf;
-        });
+    public double calculateTF(double weightedFrequency) {
+        return weightedFrequency;
     }
 
     /**
-     * 计算词项的TF-IDF权重。
-     * @param termFrequencyInDocument 词项在文档中的原始频率
+     * 基于指定快照获取词项的逆文档频率 (IDF)，一次查询内应使用同一个快照。
+     * 采用平滑处理：ln(N / DF(t) + 1)，取自快照的预计算IDF表。
+     * 不在任何文档中出现的词项IDF为0。
+     * @param snapshot 索引快照
      * @param term 词项
-     * @return TF-IDF权重
+     * @return 逆文档频率 (IDF)
      */
-    public double calculateTFIDF(int termFrequencyInDocument, String term) {
-        double tf = calculateTF(termFrequencyInDocument);
-        double idf = calculateIDF(term);
-        return tf * idf;
+    public double calculateIDF(IndexSnapshot snapshot, String term) {
+        return snapshot.idf(term);
     }
-}
\ No newline at end of file
+}
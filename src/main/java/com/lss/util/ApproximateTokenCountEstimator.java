@@ -0,0 +1,97 @@
+package com.lss.util;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.Content;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.TokenCountEstimator;
+
+/**
+ * 不依赖具体模型词表的近似token计数：
+ * 每个中日韩字符计1个token，其余连续的非空白字符按每4个字符1个token计。
+ * 对中文讲座文本足够准确，用于对话窗口与检索上下文的token预算。
+ */
+public class ApproximateTokenCountEstimator implements TokenCountEstimator {
+
+    // 每条消息的角色、分隔符等固定开销
+    private static final int TOKENS_PER_MESSAGE = 4;
+
+    /**
+     * 估算一段文本的token数。
+     * @param text 文本
+     * @return 近似token数
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int tokens = 0;
+        int otherRun = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isIdeographic(c) || isCjkPunctuation(c)) {
+                tokens += 1 + (otherRun + 3) / 4;
+                otherRun = 0;
+            } else if (Character.isWhitespace(c)) {
+                tokens += (otherRun + 3) / 4;
+                otherRun = 0;
+            } else {
+                otherRun++;
+            }
+        }
+        return tokens + (otherRun + 3) / 4;
+    }
+
+    private static boolean isCjkPunctuation(char c) {
+        return (c >= '\u3000' && c <= '\u303F') || (c >= '\uFF00' && c <= '\uFFEF');
+    }
+
+    @Override
+    public int estimateTokenCountInText(String text) {
+        return estimate(text);
+    }
+
+    @Override
+    public int estimateTokenCountInMessage(ChatMessage message) {
+        return TOKENS_PER_MESSAGE + estimate(textOf(message));
+    }
+
+    @Override
+    public int estimateTokenCountInMessages(Iterable<ChatMessage> messages) {
+        int tokens = 0;
+        for (ChatMessage message : messages) {
+            tokens += estimateTokenCountInMessage(message);
+        }
+        return tokens;
+    }
+
+    /**
+     * 提取消息中的文本内容。
+     * @param message 对话消息
+     * @return 文本，没有文本时返回空串
+     */
+    public static String textOf(ChatMessage message) {
+        if (message instanceof UserMessage userMessage) {
+            StringBuilder text = new StringBuilder();
+            for (Content content : userMessage.contents()) {
+                if (content instanceof TextContent textContent) {
+                    text.append(textContent.text());
+                }
+            }
+            return text.toString();
+        }
+        if (message instanceof AiMessage aiMessage) {
+            return aiMessage.text() == null ? "" : aiMessage.text();
+        }
+        if (message instanceof SystemMessage systemMessage) {
+            return systemMessage.text();
+        }
+        if (message instanceof ToolExecutionResultMessage toolMessage) {
+            return toolMessage.text();
+        }
+        return "";
+    }
+}
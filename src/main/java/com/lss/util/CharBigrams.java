@@ -0,0 +1,37 @@
+package com.lss.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 字符二元组切分：文本按标点和空白断开，每段取相邻两个字符组成的二元组，只有一个字符的段取该字符。
+ * 不依赖词典，索引端与查询端切分结果一致，用于分词结果不一致时的兜底检索。
+ */
+public class CharBigrams {
+
+    /**
+     * @param text 文本，可以为null
+     * @return 二元组，按出现顺序，可以重复
+     */
+    public static List<String> of(String text) {
+        List<String> grams = new ArrayList<>();
+        if (text == null) {
+            return grams;
+        }
+        int[] codePoints = text.toLowerCase().codePoints().toArray();
+        int start = 0;
+        for (int i = 0; i <= codePoints.length; i++) {
+            if (i < codePoints.length && Character.isLetterOrDigit(codePoints[i])) {
+                continue;
+            }
+            if (i - start == 1) {
+                grams.add(new String(codePoints, start, 1));
+            }
+            for (int j = start; j + 1 < i; j++) {
+                grams.add(new String(codePoints, j, 2));
+            }
+            start = i + 1;
+        }
+        return grams;
+    }
+}
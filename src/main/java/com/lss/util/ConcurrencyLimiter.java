@@ -0,0 +1,59 @@
+package com.lss.util;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * 基于信号量的并发限制器，每个外部依赖（大模型分词接口、对话接口等）各用一个。
+ * 在虚拟线程模式下线程数不再限制并发，由它来控制同时发往外部依赖的请求数。
+ */
+public class ConcurrencyLimiter {
+
+    private final String name;
+    private final int maxConcurrency;
+    private final Semaphore semaphore;
+
+    public ConcurrencyLimiter(String name, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency of limiter '" + name + "' must be positive");
+        }
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.semaphore = new Semaphore(maxConcurrency, true);
+    }
+
+    /**
+     * 在许可范围内执行任务，没有可用许可时阻塞等待（虚拟线程上等待不占用平台线程）。
+     * @param task 任务
+     * @return 任务结果
+     */
+    public <T> T get(Supplier<T> task) {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for limiter '" + name + "'", e);
+        }
+        try {
+            return task.get();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getInUse() {
+        return maxConcurrency - semaphore.availablePermits();
+    }
+
+    public int getQueueLength() {
+        return semaphore.getQueueLength();
+    }
+}
@@ -0,0 +1,194 @@
+package com.lss.util;
+
+import com.lss.model.Index.LectureDocument;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 从讲座正文中提取结构化字段：主讲人、时间、地点、主办学院。
+ * <p>
+ * 正文中的字段形如“主讲人：容躍博士时间：11月8日下午15:00地点：丽湖校区守信楼420会议室”，
+ * 多个字段可能写在同一行，字段值取到下一个字段名、句读标点或行尾为止。
+ */
+public class LectureFieldExtractor {
+
+    public static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+
+    // “报告时间：”也会被“时间：”匹配到，两者取到的是同一个值
+    private static final Pattern SPEAKER_LABEL = Pattern.compile("(主讲嘉宾|主讲人|主讲|报告人|讲者|嘉宾)\\s*[：:]");
+    private static final Pattern TIME_LABEL = Pattern.compile("时间\\s*[：:]");
+    private static final Pattern LOCATION_LABEL = Pattern.compile("地点\\s*[：:]");
+    private static final Pattern SCHOOL_LABEL = Pattern.compile("(主办单位|承办单位|主办|承办)\\s*[：:]");
+
+    // 任一字段名加冒号，作为前一个字段值的结束位置
+    private static final Pattern NEXT_LABEL = Pattern.compile(
+            "(主讲嘉宾|主讲人|主讲|报告人|讲者|嘉宾|报告时间|讲座时间|活动时间|时间|报告地点|讲座地点|活动地点|地点|主办单位|承办单位|主办|承办)[：:]");
+
+    private static final Pattern TITLE_SUFFIX = Pattern.compile("(副教授|教授|副研究员|研究员|博士|院士|老师|先生|女士)+$");
+    private static final Pattern SCHOOL_IN_TEXT = Pattern.compile("([\\u4e00-\\u9fa5]{2,12}?(学院|学部|研究院))");
+
+    private static final Pattern CHINESE_DATE = Pattern.compile("(?:(\\d{4})\\s*年)?\\s*(\\d{1,2})\\s*月\\s*(\\d{1,2})\\s*[日号]");
+    private static final Pattern NUMERIC_DATE = Pattern.compile("(\\d{4})[-./](\\d{1,2})[-./](\\d{1,2})");
+    private static final Pattern CLOCK_TIME = Pattern.compile("(上午|中午|下午|晚上)?\\s*(\\d{1,2})\\s*[:：]\\s*(\\d{2})");
+    private static final Pattern SPOKEN_TIME = Pattern.compile("(上午|中午|下午|晚上)?\\s*([0-9一二两三四五六七八九十]{1,3})\\s*[点时](半)?");
+
+    // 没有写年份的日期，若按参考时间的年份算出的日期晚于参考时间这么多天，则认为是上一年
+    private static final int MAX_DAYS_AHEAD = 180;
+
+    /**
+     * 提取结构化字段并写入文档。
+     * @param document 文档
+     * @param content 讲座全文
+     * @param referenceMillis 参考时间，用于补全没有写年份的日期，通常取文件修改时间
+     */
+    public static void extractInto(LectureDocument document, String content, long referenceMillis) {
+        document.setSpeaker(normalizeSpeaker(valueOf(content, SPEAKER_LABEL)));
+        document.setLectureTime(parseTime(valueOf(content, TIME_LABEL), referenceMillis));
+        document.setLocation(valueOf(content, LOCATION_LABEL));
+        String school = valueOf(content, SCHOOL_LABEL);
+        if (school == null && content != null) {
+            Matcher matcher = SCHOOL_IN_TEXT.matcher(content);
+            school = matcher.find() ? matcher.group(1) : null;
+        }
+        document.setSchool(school);
+        document.setStructuredFieldsExtracted(true);
+    }
+
+    /**
+     * 取第一个出现的字段值。
+     * @param content 讲座全文
+     * @param label 字段名及冒号
+     * @return 字段值，找不到时返回null
+     */
+    static String valueOf(String content, Pattern label) {
+        if (content == null) {
+            return null;
+        }
+        Matcher matcher = label.matcher(content);
+        if (!matcher.find()) {
+            return null;
+        }
+        int start = matcher.end();
+        int end = content.length();
+        Matcher next = NEXT_LABEL.matcher(content);
+        if (next.find(start)) {
+            end = next.start();
+        }
+        for (int i = start; i < end; i++) {
+            char c = content.charAt(i);
+            if (c == '\n' || c == '\r' || c == '，' || c == '。' || c == '；' || c == ';') {
+                end = i;
+                break;
+            }
+        }
+        String value = content.substring(start, end).strip();
+        return value.isEmpty() ? null : value;
+    }
+
+    // 去掉“博士”“教授”等称谓，只保留姓名
+    static String normalizeSpeaker(String speaker) {
+        if (speaker == null) {
+            return null;
+        }
+        String name = speaker.split("[,，、/（(]")[0].strip();
+        String stripped = TITLE_SUFFIX.matcher(name).replaceFirst("");
+        return stripped.isEmpty() ? name : stripped;
+    }
+
+    /**
+     * 解析讲座时间。支持“2024年11月6日下午三点”“11月8日下午15:00”“2024-11-06 15:00”等写法。
+     * @param text 时间字段
+     * @param referenceMillis 参考时间
+     * @return 毫秒时间戳，无法解析时返回null
+     */
+    public static Long parseTime(String text, long referenceMillis) {
+        if (text == null) {
+            return null;
+        }
+        LocalDate date = null;
+        int dateEnd = 0;
+        Matcher numeric = NUMERIC_DATE.matcher(text);
+        Matcher chinese = CHINESE_DATE.matcher(text);
+        try {
+            if (numeric.find()) {
+                date = LocalDate.of(Integer.parseInt(numeric.group(1)), Integer.parseInt(numeric.group(2)),
+                        Integer.parseInt(numeric.group(3)));
+                dateEnd = numeric.end();
+            } else if (chinese.find()) {
+                LocalDate reference = LocalDate.ofInstant(Instant.ofEpochMilli(referenceMillis), ZONE);
+                int month = Integer.parseInt(chinese.group(2));
+                int day = Integer.parseInt(chinese.group(3));
+                if (chinese.group(1) != null) {
+                    date = LocalDate.of(Integer.parseInt(chinese.group(1)), month, day);
+                } else {
+                    date = LocalDate.of(reference.getYear(), month, day);
+                    if (date.isAfter(reference.plusDays(MAX_DAYS_AHEAD))) {
+                        date = date.minusYears(1);
+                    }
+                }
+                dateEnd = chinese.end();
+            }
+        } catch (DateTimeException e) {
+            return null;
+        }
+        if (date == null) {
+            return null;
+        }
+
+        String rest = text.substring(dateEnd);
+        int hour = 0;
+        int minute = 0;
+        Matcher clock = CLOCK_TIME.matcher(rest);
+        Matcher spoken = SPOKEN_TIME.matcher(rest);
+        String period = null;
+        if (clock.find()) {
+            period = clock.group(1);
+            hour = Integer.parseInt(clock.group(2));
+            minute = Integer.parseInt(clock.group(3));
+        } else if (spoken.find()) {
+            period = spoken.group(1);
+            hour = chineseNumber(spoken.group(2));
+            minute = spoken.group(3) != null ? 30 : 0;
+        }
+        if (period == null) {
+            // 时段可能写在日期和钟点之间，例如“11月8日下午15:00”
+            period = rest.contains("下午") ? "下午" : rest.contains("晚上") ? "晚上" : null;
+        }
+        if (("下午".equals(period) || "晚上".equals(period)) && hour < 12) {
+            hour += 12;
+        }
+        if (hour > 23 || minute > 59) {
+            hour = 0;
+            minute = 0;
+        }
+        return LocalDateTime.of(date, LocalTime.of(hour, minute)).atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    // 解析“三”“十二”“15”这样的小时数
+    private static int chineseNumber(String text) {
+        if (text.chars().allMatch(Character::isDigit)) {
+            return Integer.parseInt(text);
+        }
+        String digits = "零一二三四五六七八九";
+        int value = 0;
+        int current = 0;
+        for (char c : text.toCharArray()) {
+            if (c == '十') {
+                value += (current == 0 ? 1 : current) * 10;
+                current = 0;
+            } else if (c == '两') {
+                current = 2;
+            } else {
+                current = Math.max(digits.indexOf(c), 0);
+            }
+        }
+        return value + current;
+    }
+}
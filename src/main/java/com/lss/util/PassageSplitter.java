@@ -0,0 +1,109 @@
+package com.lss.util;
+
+import com.lss.model.Index.Passage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 将讲座正文切分为段落。
+ * <p>
+ * 形如“报告人简介：”“报告摘要：”的短行视为小节标题，开启新的小节；
+ * 小节内按空行分段，相邻短段合并，超长段按句号等句末标点再切分，
+ * 使每个段落不超过指定字符数。
+ */
+public class PassageSplitter {
+
+    private static final String DEFAULT_SECTION = "讲座信息";
+    private static final int MAX_HEADING_LENGTH = 16;
+
+    /**
+     * 切分讲座正文。
+     * @param docId 文档ID
+     * @param title 讲座题目
+     * @param content 正文（不含标题行）
+     * @param maxChars 单个段落的最大字符数
+     * @return 段落列表，按在正文中出现的顺序
+     */
+    public static List<Passage> split(String docId, String title, String content, int maxChars) {
+        List<Passage> passages = new ArrayList<>();
+        if (content == null || content.isBlank()) {
+            return passages;
+        }
+
+        String section = DEFAULT_SECTION;
+        StringBuilder buffer = new StringBuilder();
+        for (String rawLine : content.split("\\R")) {
+            String line = rawLine.strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String heading = headingOf(line);
+            if (heading != null) {
+                flush(passages, docId, title, section, buffer);
+                section = heading;
+                continue;
+            }
+            if (buffer.length() > 0 && buffer.length() + line.length() > maxChars) {
+                flush(passages, docId, title, section, buffer);
+            }
+            if (line.length() > maxChars) {
+                for (String piece : splitSentences(line, maxChars)) {
+                    buffer.append(piece);
+                    flush(passages, docId, title, section, buffer);
+                }
+            } else {
+                if (buffer.length() > 0) {
+                    buffer.append('\n');
+                }
+                buffer.append(line);
+            }
+        }
+        flush(passages, docId, title, section, buffer);
+        return passages;
+    }
+
+    // 小节标题：以冒号结尾的短行，或Markdown标题行
+    private static String headingOf(String line) {
+        if (line.startsWith("#")) {
+            String heading = line.replaceFirst("^#+", "").strip();
+            return heading.isEmpty() ? null : heading;
+        }
+        if (line.length() <= MAX_HEADING_LENGTH && (line.endsWith("：") || line.endsWith(":"))) {
+            return line.substring(0, line.length() - 1).strip();
+        }
+        return null;
+    }
+
+    // 在句末标点处切分超长段落，找不到标点时按长度硬切
+    private static List<String> splitSentences(String line, int maxChars) {
+        List<String> pieces = new ArrayList<>();
+        int start = 0;
+        while (line.length() - start > maxChars) {
+            int end = -1;
+            for (int i = start + maxChars - 1; i > start; i--) {
+                char c = line.charAt(i);
+                if (c == '。' || c == '！' || c == '？' || c == '；' || c == '.' || c == '!' || c == '?') {
+                    end = i + 1;
+                    break;
+                }
+            }
+            if (end < 0) {
+                end = start + maxChars;
+            }
+            pieces.add(line.substring(start, end));
+            start = end;
+        }
+        pieces.add(line.substring(start));
+        return pieces;
+    }
+
+    private static void flush(List<Passage> passages, String docId, String title, String section, StringBuilder buffer) {
+        if (buffer.length() == 0) {
+            return;
+        }
+        String text = buffer.toString();
+        passages.add(new Passage(docId, title, section, text, ApproximateTokenCountEstimator.estimate(text)));
+        buffer.setLength(0);
+    }
+}
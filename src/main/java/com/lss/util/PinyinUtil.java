@@ -0,0 +1,55 @@
+package com.lss.util;
+
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 汉字转不带声调的拼音，用于同音字、近音字纠错。
+ * 多音字取第一个读音；非汉字字符转小写后原样保留。
+ */
+public class PinyinUtil {
+
+    private static final HanyuPinyinOutputFormat FORMAT = new HanyuPinyinOutputFormat();
+
+    // 单字拼音缓存，常用汉字只有几千个
+    private static final ConcurrentHashMap<Character, String> CACHE = new ConcurrentHashMap<>();
+
+    static {
+        FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+    }
+
+    /**
+     * 把文本转换为连续的拼音串，例如 “人工智能” -> “rengongzhineng”。
+     * @param text 文本
+     * @return 拼音串
+     */
+    public static String toPinyin(String text) {
+        StringBuilder builder = new StringBuilder(text.length() * 4);
+        for (int i = 0; i < text.length(); i++) {
+            builder.append(pinyinOf(text.charAt(i)));
+        }
+        return builder.toString();
+    }
+
+    private static String pinyinOf(char c) {
+        if (c < 0x4E00 || c > 0x9FA5) {
+            return String.valueOf(Character.toLowerCase(c));
+        }
+        return CACHE.computeIfAbsent(c, key -> {
+            try {
+                String[] readings = PinyinHelper.toHanyuPinyinStringArray(key, FORMAT);
+                return readings == null || readings.length == 0 ? String.valueOf(key) : readings[0];
+            } catch (BadHanyuPinyinOutputFormatCombination e) {
+                return String.valueOf(key);
+            }
+        });
+    }
+}
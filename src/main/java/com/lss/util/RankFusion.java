@@ -0,0 +1,70 @@
+package com.lss.util;
+
+import com.lss.model.Index.LectureDocument;
+import com.lss.model.RetrieveDocsItems;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 多路检索结果的融合。各路结果须按分数降序排列，文档以ID识别。
+ */
+public class RankFusion {
+
+    /**
+     * 倒数排名融合 (Reciprocal Rank Fusion)：score(d) = Σ 1 / (k + rank_i(d))，rank从1开始。
+     * 只依赖名次，不要求各路分数可比。
+     * @param rankings 各路检索结果
+     * @param k 平滑常数，通常取60
+     * @param topN 返回数量
+     * @return 融合后按分数降序排列的结果
+     */
+    public static List<RetrieveDocsItems> reciprocalRank(List<List<RetrieveDocsItems>> rankings, int k, int topN) {
+        Map<String, RetrieveDocsItems> fused = new LinkedHashMap<>();
+        for (List<RetrieveDocsItems> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                accumulate(fused, ranking.get(rank).getDocument(), 1.0 / (k + rank + 1));
+            }
+        }
+        return top(fused, topN);
+    }
+
+    /**
+     * 加权分数融合：每路分数按最大-最小值归一化到[0, 1]后加权求和。
+     * @param rankings 各路检索结果
+     * @param weights 与各路结果对应的权重
+     * @param topN 返回数量
+     * @return 融合后按分数降序排列的结果
+     */
+    public static List<RetrieveDocsItems> weightedScore(List<List<RetrieveDocsItems>> rankings, double[] weights, int topN) {
+        Map<String, RetrieveDocsItems> fused = new LinkedHashMap<>();
+        for (int i = 0; i < rankings.size(); i++) {
+            List<RetrieveDocsItems> ranking = rankings.get(i);
+            if (ranking.isEmpty()) {
+                continue;
+            }
+            double max = ranking.get(0).getScore();
+            double min = ranking.get(ranking.size() - 1).getScore();
+            for (RetrieveDocsItems item : ranking) {
+                // 只有一个结果或分数全部相同时视为满分
+                double normalized = max > min ? (item.getScore() - min) / (max - min) : 1.0;
+                accumulate(fused, item.getDocument(), weights[i] * normalized);
+            }
+        }
+        return top(fused, topN);
+    }
+
+    private static void accumulate(Map<String, RetrieveDocsItems> fused, LectureDocument document, double score) {
+        RetrieveDocsItems item = fused.computeIfAbsent(document.getId(), id -> new RetrieveDocsItems(document, 0.0));
+        item.setScore(item.getScore() + score);
+    }
+
+    private static List<RetrieveDocsItems> top(Map<String, RetrieveDocsItems> fused, int topN) {
+        List<RetrieveDocsItems> results = new ArrayList<>(fused.values());
+        results.sort(Comparator.comparingDouble(RetrieveDocsItems::getScore).reversed());
+        return results.size() > topN ? new ArrayList<>(results.subList(0, topN)) : results;
+    }
+}
@@ -0,0 +1,43 @@
+package com.lss.util;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 合并相同键的并发请求：同一时刻同一个键只执行一次计算，其余订阅者共享结果。
+ * 计算结束（成功、失败或取消）后键被移除，之后的请求重新计算，不做结果缓存。
+ *
+ * @param <K> 请求键
+ * @param <V> 结果类型
+ */
+public class RequestCoalescer<K, V> {
+
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param key 请求键，相同键的请求会被合并
+     * @param loader 真正执行计算的Mono工厂，只在没有进行中的同键请求时调用
+     * @return 共享的结果
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> {
+            AtomicReference<Mono<V>> self = new AtomicReference<>();
+            Mono<V> shared = loader.get()
+                    .doFinally(signal -> inFlight.remove(k, self.get()))
+                    .cache();
+            self.set(shared);
+            return shared;
+        }));
+    }
+
+    /**
+     * @return 当前进行中的不同请求数
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
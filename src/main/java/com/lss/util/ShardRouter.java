@@ -0,0 +1,27 @@
+package com.lss.util;
+
+/**
+ * 文档到分片的路由：按文档ID的哈希取模。
+ * {@link String#hashCode()} 的算法由语言规范固定，不同JVM对同一文档算出相同的分片。
+ */
+public class ShardRouter {
+
+    /**
+     * @param docId 文档ID
+     * @param shardCount 分片总数
+     * @return 文档所属的分片号，范围 [0, shardCount)
+     */
+    public static int shardOf(String docId, int shardCount) {
+        return Math.floorMod(docId.hashCode(), shardCount);
+    }
+
+    /**
+     * @param docId 文档ID
+     * @param shard 分片号
+     * @param shardCount 分片总数，不大于1时所有文档都属于同一个分片
+     * @return 文档是否属于该分片
+     */
+    public static boolean owns(String docId, int shard, int shardCount) {
+        return shardCount <= 1 || shardOf(docId, shardCount) == shard;
+    }
+}
@@ -76,19 +76,6 @@ class LectureSearchSystemApplicationTests {
         System.out.println(result.toString());
     }
 
-    @Test
-    void fileTest(){
-        try (BufferedInputStream BIS = new BufferedInputStream(new FileInputStream(PathConstant.TopN_Content));
-        ){
-            if (BIS.available() > 0) {
-                // 清空文件内容
-                new PrintWriter(new FileOutputStream(PathConstant.TopN_Content, false)).close();
-            }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     @Test
     void jiebaTest(){
         JiebaSegmenter segmenter = new JiebaSegmenter();
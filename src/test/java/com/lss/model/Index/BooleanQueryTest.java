@@ -0,0 +1,111 @@
+package com.lss.model.Index;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BooleanQueryTest {
+
+    // 测试用分词：按逗号切分
+    private static List<String> analyze(String text) {
+        return Arrays.asList(text.split(","));
+    }
+
+    @Test
+    void parsesRequiredOptionalAndExcludedTerms() {
+        BooleanQuery query = BooleanQuery.parse(" a,b  +c -d,e - ", BooleanQueryTest::analyze, null);
+
+        assertEquals(List.of("c"), query.getRequired());
+        assertEquals(List.of("a", "b", "-"), query.getOptional()); // 单独的 - 不是运算符
+        assertEquals(List.of(List.of("d", "e")), query.getExcluded());
+        assertEquals(List.of("c", "a", "b", "-"), query.scoringTerms());
+    }
+
+    @Test
+    void resolvesMinimumShouldMatchSpec() {
+        assertEquals(1, BooleanQuery.minimumShouldMatch(null, 4, false));
+        assertEquals(0, BooleanQuery.minimumShouldMatch(null, 4, true));
+        assertEquals(3, BooleanQuery.minimumShouldMatch("-1", 4, false));
+        assertEquals(3, BooleanQuery.minimumShouldMatch("75%", 4, false));
+        assertEquals(4, BooleanQuery.minimumShouldMatch("9", 4, true));
+        assertEquals(1, BooleanQuery.minimumShouldMatch("0", 4, false));
+        assertThrows(NumberFormatException.class, () -> BooleanQuery.minimumShouldMatch("two", 4, false));
+    }
+
+    @Test
+    void atLeastKeepsDocumentsInEnoughBitmaps() {
+        List<RoaringBitmap> bitmaps = List.of(
+                RoaringBitmap.bitmapOf(1, 2, 3), RoaringBitmap.bitmapOf(2, 3, 4), RoaringBitmap.bitmapOf(3, 4, 5));
+
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5}, BooleanQuery.atLeast(bitmaps, 1).toArray());
+        assertArrayEquals(new int[]{2, 3, 4}, BooleanQuery.atLeast(bitmaps, 2).toArray());
+        assertArrayEquals(new int[]{3}, BooleanQuery.atLeast(bitmaps, 3).toArray());
+    }
+
+    @Test
+    void evaluatesOnSnapshotBitmaps() {
+        InvertedIndex index = new InvertedIndex();
+        String[][] docs = {{"d0", "ai", "ethics"}, {"d1", "ai", "online"}, {"d2", "ethics"}, {"d3", "ai", "ethics", "online"}};
+        for (String[] row : docs) {
+            LectureDocument document = new LectureDocument();
+            document.setId(row[0]);
+            index.addDocument(document, Arrays.asList(row).subList(1, row.length), "FullText");
+        }
+        IndexSnapshot snapshot = IndexSnapshot.build(index, 1);
+
+        assertEquals(List.of("d0", "d1", "d2", "d3"), ids(snapshot, BooleanQuery.parse("ai ethics", BooleanQueryTest::analyze, null)));
+        assertEquals(List.of("d0", "d3"), ids(snapshot, BooleanQuery.parse("ai ethics", BooleanQueryTest::analyze, "2")));
+        assertEquals(List.of("d0"), ids(snapshot, BooleanQuery.parse("+ai ethics -online", BooleanQueryTest::analyze, null)));
+        assertEquals(List.of(), ids(snapshot, BooleanQuery.parse("+missing ai", BooleanQueryTest::analyze, null)));
+    }
+
+    @Test
+    void countsMissingOptionalTermsTowardsMinimumShouldMatch() {
+        InvertedIndex index = new InvertedIndex();
+        String[][] docs = {{"d0", "ai", "ethics"}, {"d1", "ai"}};
+        for (String[] row : docs) {
+            LectureDocument document = new LectureDocument();
+            document.setId(row[0]);
+            index.addDocument(document, Arrays.asList(row).subList(1, row.length), "FullText");
+        }
+        IndexSnapshot snapshot = IndexSnapshot.build(index, 1);
+
+        assertEquals(List.of(), ids(snapshot, BooleanQuery.parse("ai ethics missing", BooleanQueryTest::analyze, "100%")));
+        assertEquals(List.of(), ids(snapshot, BooleanQuery.parse("ai ethics missing", BooleanQueryTest::analyze, "3")));
+        assertEquals(List.of("d0"), ids(snapshot, BooleanQuery.parse("ai ethics missing", BooleanQueryTest::analyze, "2")));
+        assertEquals(List.of("d0", "d1"), ids(snapshot, BooleanQuery.parse("ai missing", BooleanQueryTest::analyze, null)));
+    }
+
+    @Test
+    void synonymGroupCountsAsOneClause() {
+        InvertedIndex index = new InvertedIndex();
+        String[][] docs = {{"d0", "ai", "ethics"}, {"d1", "人工智能", "ethics"}, {"d2", "人工智能"}, {"d3", "ethics", "online"}};
+        for (String[] row : docs) {
+            LectureDocument document = new LectureDocument();
+            document.setId(row[0]);
+            index.addDocument(document, Arrays.asList(row).subList(1, row.length), "FullText");
+        }
+        IndexSnapshot snapshot = IndexSnapshot.build(index, 1);
+        SynonymGraph graph = SynonymGraph.compile(List.of("ai, 人工智能:0.5"), BooleanQueryTest::analyze, 0.8f);
+
+        assertEquals(List.of("d0", "d1", "d2"), ids(snapshot, BooleanQuery.parse("+ai", BooleanQueryTest::analyze, graph, null)));
+        // ai 与 人工智能 合为一个子句，两个可选子句都要匹配
+        assertEquals(List.of("d0", "d1"), ids(snapshot, BooleanQuery.parse("ai ethics", BooleanQueryTest::analyze, graph, "2")));
+        assertEquals(List.of("d3"), ids(snapshot, BooleanQuery.parse("ethics -ai", BooleanQueryTest::analyze, graph, null)));
+
+        BooleanQuery query = BooleanQuery.parse("ai ethics", BooleanQueryTest::analyze, graph, null);
+        assertEquals(List.of("ai", "ethics"), query.scoringTerms());
+        assertEquals(Map.of("ai", 1f, "ethics", 1f, "人工智能", 0.5f), query.scoringWeights());
+    }
+
+    private static List<String> ids(IndexSnapshot snapshot, BooleanQuery query) {
+        return Arrays.stream(query.evaluate(snapshot, "FullText").toArray()).mapToObj(snapshot::docId).sorted().toList();
+    }
+}
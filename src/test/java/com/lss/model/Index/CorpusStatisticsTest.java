@@ -0,0 +1,56 @@
+package com.lss.model.Index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CorpusStatisticsTest {
+
+    private static InvertedIndex corpus() {
+        InvertedIndex index = new InvertedIndex();
+        String[][] texts = {
+                {"人工智能", "讲座", "人工智能"}, {"机器", "学习", "讲座"}, {"人工智能", "伦理"},
+                {"量子", "计算", "讲座"}, {"学习", "方法"}, {"人工智能", "学习"}, {"深度", "学习", "讲座"}};
+        for (int i = 0; i < texts.length; i++) {
+            LectureDocument document = new LectureDocument();
+            document.setId("doc" + i);
+            index.addDocument(document, List.of(texts[i]), "FullText");
+            index.addDocument(document, List.of(texts[i][0]), "Title");
+        }
+        return index;
+    }
+
+    @Test
+    void shardStatisticsSumToCorpusStatistics() {
+        InvertedIndex index = corpus();
+        List<CorpusStatistics> shards = new ArrayList<>();
+        for (int shard = 0; shard < 3; shard++) {
+            shards.add(CorpusStatistics.of(index.partition(shard, 3), 0));
+        }
+
+        CorpusStatistics global = CorpusStatistics.sum(shards);
+
+        assertEquals(index.getTotalDocuments(), global.getTotalDocuments());
+        assertEquals(index.getDocumentFrequencies(), global.getDocumentFrequencies());
+    }
+
+    @Test
+    void shardSnapshotsWithGlobalStatisticsScoreLikeOneIndex() {
+        InvertedIndex index = corpus();
+        IndexSnapshot whole = IndexSnapshot.build(index, 1);
+        CorpusStatistics global = CorpusStatistics.of(index, 0);
+
+        for (int shard = 0; shard < 3; shard++) {
+            IndexSnapshot partition = IndexSnapshot.build(index.partition(shard, 3), 1, global);
+            for (int term = 0; term < partition.getTermCount(); term++) {
+                assertEquals(whole.idf(partition.term(term)), partition.idf(term), 1e-6);
+            }
+            for (int doc = 0; doc < partition.getTotalDocuments(); doc++) {
+                assertEquals(whole.norm(whole.ordinalOf(partition.docId(doc))), partition.norm(doc), 1e-5);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.lss.model.Index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FacetCounterTest {
+
+    private static LectureDocument document(String speaker, String location, Long time) {
+        LectureDocument document = new LectureDocument();
+        document.setSpeaker(speaker);
+        document.setLocation(location);
+        document.setLectureTime(time);
+        return document;
+    }
+
+    @Test
+    void countsFacetsOfCollectedDocuments() {
+        long november = 1730995200000L; // 2024-11-08 00:00 北京时间
+        DocValues docValues = DocValues.build(new LectureDocument[]{
+                document("张三", "丽湖校区守信楼420会议室", november),
+                document("李四", "深圳大学粤海校区汇典楼二楼会议室", null),
+                document("张三", "丽湖校区图书馆", november),
+                document("王五", "线上", null)});
+
+        FacetCounter counter = new FacetCounter(docValues);
+        for (int doc : new int[]{0, 1, 2}) {
+            counter.collect(doc);
+        }
+        Map<String, Map<String, Integer>> facets = counter.toMap(10);
+
+        assertEquals(List.of("张三", "李四"), List.copyOf(facets.get("speaker").keySet()));
+        assertEquals(2, facets.get("speaker").get("张三"));
+        assertEquals(Map.of("丽湖校区", 2, "粤海校区", 1), facets.get("campus"));
+        assertEquals(Map.of("2024-11", 2), facets.get("month"));
+        assertEquals(1, counter.toMap(1).get("speaker").size());
+    }
+}
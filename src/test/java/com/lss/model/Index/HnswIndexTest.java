@@ -0,0 +1,123 @@
+package com.lss.model.Index;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswIndexTest {
+
+    private static final int DIMENSION = 32;
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0, normA = 0, normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+
+    @Test
+    void approximatesExactNearestNeighbours() {
+        Random random = new Random(7);
+        HnswIndex index = new HnswIndex(DIMENSION, 16, 100);
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            float[] vector = randomVector(random);
+            vectors.add(vector);
+            index.add(String.valueOf(i), vector);
+        }
+
+        int hits = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector(random);
+            Set<String> exact = new HashSet<>();
+            List<Integer> ordinals = new ArrayList<>();
+            for (int i = 0; i < vectors.size(); i++) {
+                ordinals.add(i);
+            }
+            ordinals.sort(Comparator.comparingDouble((Integer i) -> cosine(query, vectors.get(i))).reversed());
+            ordinals.subList(0, 10).forEach(i -> exact.add(String.valueOf(i)));
+
+            Set<String> approximate = index.search(query, 10, 64).stream()
+                    .map(HnswIndex.Neighbor::id)
+                    .collect(Collectors.toSet());
+            approximate.retainAll(exact);
+            hits += approximate.size();
+        }
+        double recall = hits / (queries * 10.0);
+        assertTrue(recall > 0.9, "recall@10 was " + recall);
+    }
+
+    @Test
+    void survivesWriteAndRead() throws IOException {
+        Random random = new Random(11);
+        HnswIndex index = new HnswIndex(DIMENSION, 8, 50);
+        for (int i = 0; i < 200; i++) {
+            index.add("doc" + i, randomVector(random));
+        }
+        float[] query = randomVector(random);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.write(new DataOutputStream(bytes));
+        HnswIndex loaded = HnswIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(200, loaded.size());
+        assertTrue(loaded.contains("doc42"));
+        assertEquals(index.search(query, 5, 32), loaded.search(query, 5, 32));
+    }
+
+    @Test
+    void removedVectorsLeaveResultsAndCanBeReadded() throws IOException {
+        Random random = new Random(13);
+        HnswIndex index = new HnswIndex(DIMENSION, 8, 50);
+        float[] target = randomVector(random);
+        index.add("target", target, 1L);
+        for (int i = 0; i < 100; i++) {
+            index.add("doc" + i, randomVector(random));
+        }
+        assertEquals("target", index.search(target, 1, 16).get(0).id());
+        assertTrue(index.isCurrent("target", 1L));
+        assertFalse(index.isCurrent("target", 2L));
+
+        assertTrue(index.remove("target"));
+        assertEquals(100, index.size());
+        assertEquals(1, index.tombstones());
+        assertTrue(index.search(target, 10, 16).stream().noneMatch(n -> n.id().equals("target")));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.write(new DataOutputStream(bytes));
+        HnswIndex loaded = HnswIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertFalse(loaded.contains("target"));
+        assertEquals(1, loaded.tombstones());
+
+        loaded.add("target", target, 2L);
+        assertTrue(loaded.isCurrent("target", 2L));
+        assertEquals("target", loaded.search(target, 1, 16).get(0).id());
+    }
+}
@@ -0,0 +1,133 @@
+package com.lss.model.Index;
+
+import com.lss.util.CharBigrams;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexSnapshotTest {
+
+    private static LectureDocument document(String id) {
+        LectureDocument document = new LectureDocument();
+        document.setId(id);
+        document.setTitle(id);
+        return document;
+    }
+
+    @Test
+    void bakesTfIdfWeightsAndNorms() {
+        InvertedIndex index = new InvertedIndex();
+        index.addDocument(document("b"), List.of("人工智能", "讲座", "讲座"), "FullText");
+        index.addDocument(document("a"), List.of("环境", "讲座"), "FullText");
+        index.addDocument(document("a"), List.of("报告"), "Title");
+
+        IndexSnapshot snapshot = IndexSnapshot.build(index, 7);
+
+        assertEquals(7, snapshot.getVersion());
+        assertEquals(2, snapshot.getTotalDocuments());
+        assertEquals(0, snapshot.ordinalOf("a"));
+        assertEquals(1, snapshot.ordinalOf("b"));
+
+        float idfLecture = (float) Math.log(2.0 / 2 + 1);
+        float idfEnvironment = (float) Math.log(2.0 / 1 + 1);
+        assertEquals(idfLecture, snapshot.idf("讲座"), 1e-6);
+        assertEquals(0f, snapshot.idf("不存在"));
+
+        TermPostings lecture = snapshot.postings("FullText:讲座");
+        assertEquals(2, lecture.size());
+        assertEquals(0, lecture.doc(0));
+        assertEquals(2 * idfLecture, lecture.weightOf(1), 1e-6);
+
+        // 文档a：FullText:环境、FullText:讲座、Title:报告
+        double expectedNorm = Math.sqrt(idfEnvironment * idfEnvironment + idfLecture * idfLecture
+                + snapshot.idf("报告") * snapshot.idf("报告"));
+        assertEquals(expectedNorm, snapshot.norm(0), 1e-5);
+    }
+
+    @Test
+    void identityDependsOnContentNotVersion() {
+        InvertedIndex index = new InvertedIndex();
+        index.addDocument(document("a"), List.of("环境", "讲座"), "FullText");
+        index.addDocument(document("b"), List.of("人工智能", "讲座"), "FullText");
+        long identity = IndexSnapshot.build(index, 1).getIdentity();
+
+        assertEquals(identity, IndexSnapshot.build(index, 2).getIdentity());
+
+        index.addDocument(document("b"), List.of("报告"), "Title");
+        assertNotEquals(identity, IndexSnapshot.build(index, 3).getIdentity());
+    }
+
+    @Test
+    void offHeapSnapshotMatchesHeapUntilClosed() {
+        InvertedIndex index = new InvertedIndex();
+        index.addDocument(document("b"), List.of("人工智能", "讲座", "讲座"), "FullText");
+        index.addDocument(document("a"), List.of("环境", "讲座"), "FullText");
+        ColumnArena arena = ColumnArena.factory(true).get(); // 测试以 --enable-preview 运行
+        assertNotSame(ColumnArena.heap(), arena);
+
+        IndexSnapshot heap = IndexSnapshot.build(index, 1);
+        IndexSnapshot offHeap = IndexSnapshot.build(index, 1, null, arena);
+
+        assertEquals("off-heap", offHeap.getArena().name());
+        TermPostings expected = heap.postings("FullText:讲座");
+        TermPostings actual = offHeap.postings("FullText:讲座");
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.doc(i), actual.doc(i));
+            assertEquals(expected.freq(i), actual.freq(i));
+            assertEquals(expected.weight(i), actual.weight(i));
+        }
+        assertEquals(1, actual.lowerBound(1));
+        assertEquals(heap.norm(1), offHeap.norm(1));
+        assertEquals(heap.getDocValues().lectureTime(0), offHeap.getDocValues().lectureTime(0));
+
+        offHeap.close();
+        assertThrows(IllegalStateException.class, () -> actual.doc(0));
+        offHeap.close(); // 可以重复关闭
+    }
+
+    @Test
+    void offHeapArenaOutlivesRetirementUntilLastQueryReleases() {
+        InvertedIndex index = new InvertedIndex();
+        index.addDocument(document("a"), List.of("环境", "讲座"), "FullText");
+        IndexSnapshot snapshot = IndexSnapshot.build(index, 1, null, ColumnArena.factory(true).get());
+        TermPostings postings = snapshot.postings("FullText:讲座");
+
+        assertTrue(snapshot.tryAcquire()); // 查询开始
+        snapshot.release();                // 快照退役，发布者释放引用
+        assertEquals(0, postings.doc(0));  // 查询仍可读取
+
+        snapshot.release();                // 查询结束
+        assertThrows(IllegalStateException.class, () -> postings.doc(0));
+        assertFalse(snapshot.tryAcquire());
+    }
+
+    @Test
+    void ngramIndexFindsNamesSegmentedDifferently() {
+        InvertedIndex index = new InvertedIndex();
+        LectureDocument wang = document("w");
+        wang.setSpeaker("王小明");
+        index.addDocument(wang, List.of("王小明"), "Speaker"); // 索引端把人名作为一个词
+        index.addDocument(document("z"), List.of("讲座"), "Title");
+        IndexSnapshot snapshot = IndexSnapshot.build(index, 1);
+        IndexSnapshot ngrams = snapshot.attachNgrams();
+
+        // 查询端分词为“王”“小明”，主索引没有候选
+        BooleanQuery terms = BooleanQuery.parse("王 小明", text -> List.of(text), null);
+        assertEquals(0, terms.evaluate(snapshot, "Speaker").getCardinality());
+
+        BooleanQuery bigrams = BooleanQuery.parse("王小明", CharBigrams::of, "60%");
+        int[] matched = bigrams.evaluate(ngrams, "Speaker").toArray();
+        assertArrayEquals(new int[]{snapshot.ordinalOf("w")}, matched);
+        assertEquals(snapshot.ordinalOf("w"), ngrams.ordinalOf("w"));
+        assertEquals(snapshot.getTotalDocuments(), ngrams.getTotalDocuments());
+    }
+}
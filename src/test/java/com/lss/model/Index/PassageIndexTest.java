@@ -0,0 +1,56 @@
+package com.lss.model.Index;
+
+import com.lss.util.PassageSplitter;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PassageIndexTest {
+
+    @Test
+    void splitsBySectionHeadings() {
+        String content = "主讲人：张三时间：11月8日\n\n报告人简介：\n张三从事环境科学研究。\n\n报告摘要：\n介绍地下水污染的治理方法。";
+
+        List<Passage> passages = PassageSplitter.split("1", "环境讲座", content, 400);
+
+        assertEquals(3, passages.size());
+        assertEquals("讲座信息", passages.get(0).getSection());
+        assertEquals("报告人简介", passages.get(1).getSection());
+        assertEquals("报告摘要", passages.get(2).getSection());
+        assertEquals("介绍地下水污染的治理方法。", passages.get(2).getText());
+        assertTrue(passages.get(2).getTokenCount() > 0);
+    }
+
+    @Test
+    void splitsLongParagraphsAtSentenceEnds() {
+        String content = "第一句话。第二句话。第三句话。";
+
+        List<Passage> passages = PassageSplitter.split("1", "讲座", content, 6);
+
+        assertEquals(List.of("第一句话。", "第二句话。", "第三句话。"),
+                passages.stream().map(Passage::getText).toList());
+    }
+
+    @Test
+    void scoresPassagesByCosineSimilarity() {
+        List<Passage> passages = List.of(
+                new Passage("1", "a", "摘要", "", 0),
+                new Passage("1", "a", "简介", "", 0),
+                new Passage("2", "b", "摘要", "", 0));
+        List<List<String>> terms = List.of(
+                List.of("地下水", "污染"),
+                List.of("博士", "研究"),
+                List.of("污染", "治理", "治理"));
+
+        PassageIndex index = PassageIndex.build(3, passages, terms);
+        float[] scores = index.score(List.of("地下水", "污染"));
+
+        assertEquals(3, index.getVersion());
+        assertEquals(1f, scores[0], 1e-6);
+        assertEquals(0f, scores[1]);
+        assertTrue(scores[2] > 0f && scores[2] < scores[0]);
+    }
+}
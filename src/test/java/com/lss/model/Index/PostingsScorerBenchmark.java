@@ -0,0 +1,46 @@
+package com.lss.model.Index;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 按词项累加打分的SIMD实现与标量实现的对比，模拟常见 FullText: 词项的长倒排记录表。
+ * 不属于单元测试，编译测试代码后手动运行：
+ * <pre>
+ * java --add-modules jdk.incubator.vector -cp target/classes:target/test-classes com.lss.model.Index.PostingsScorerBenchmark
+ * </pre>
+ */
+public class PostingsScorerBenchmark {
+
+    private static final int DOCUMENTS = 1_000_000;
+    private static final int TERMS = 4;
+    private static final int ROUNDS = 200;
+
+    public static void main(String[] args) {
+        Random random = new Random(7);
+        TermPostings[] postings = new TermPostings[TERMS];
+        for (int i = 0; i < TERMS; i++) {
+            postings[i] = PostingsScorerTest.randomPostings(random, DOCUMENTS);
+        }
+        PostingsScorer[] scorers = {PostingsScorer.scalar(), PostingsScorer.select(true)};
+        float[] accumulators = new float[DOCUMENTS];
+        for (int pass = 0; pass < 2; pass++) { // 第一轮预热
+            for (PostingsScorer scorer : scorers) {
+                long startTime = System.nanoTime();
+                float checksum = 0;
+                for (int round = 0; round < ROUNDS; round++) {
+                    Arrays.fill(accumulators, 0f);
+                    for (TermPostings termPostings : postings) {
+                        scorer.accumulate(termPostings, 0, termPostings.size(), 0.5f, accumulators, 0);
+                    }
+                    checksum += accumulators[round];
+                }
+                double perQuery = (System.nanoTime() - startTime) / 1e6 / ROUNDS;
+                if (pass == 1) {
+                    System.out.printf("%-12s %8.3f ms/query (%d postings, checksum %.3f)%n", scorer.name(), perQuery,
+                            (long) postings[0].size() * TERMS, checksum);
+                }
+            }
+        }
+    }
+}
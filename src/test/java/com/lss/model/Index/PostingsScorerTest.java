@@ -0,0 +1,48 @@
+package com.lss.model.Index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostingsScorerTest {
+
+    @Test
+    void vectorScorerMatchesScalarBitForBit() {
+        PostingsScorer vector = PostingsScorer.select(true);
+        assertTrue(vector.name().startsWith("vector"), vector.name()); // 测试以 --add-modules jdk.incubator.vector 运行
+
+        Random random = new Random(42);
+        int base = 1000;
+        int range = 5000;
+        float[] expected = new float[range];
+        float[] actual = new float[range];
+        for (int term = 0; term < 3; term++) {
+            TermPostings postings = randomPostings(random, base + range * 2);
+            int start = postings.lowerBound(base);
+            int end = postings.lowerBound(base + range);
+            float queryWeight = random.nextFloat() * 3;
+            PostingsScorer.scalar().accumulate(postings, start, end, queryWeight, expected, base);
+            vector.accumulate(postings, start, end, queryWeight, actual, base);
+        }
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void fallsBackToScalarWhenDisabled() {
+        assertEquals("scalar", PostingsScorer.select(false).name());
+    }
+
+    // 约三分之一的文档包含该词项
+    static TermPostings randomPostings(Random random, int totalDocuments) {
+        int[] docs = random.ints(0, totalDocuments).distinct().limit(totalDocuments / 3).sorted().toArray();
+        float[] weights = new float[docs.length];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = random.nextFloat();
+        }
+        return new TermPostings(docs, new int[docs.length], weights);
+    }
+}
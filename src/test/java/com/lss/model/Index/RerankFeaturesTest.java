@@ -0,0 +1,50 @@
+package com.lss.model.Index;
+
+import com.lss.constant.RerankFeature;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RerankFeaturesTest {
+
+    @Test
+    void minimumWindowCoversOnePositionOfEachList() {
+        assertEquals(1, RerankFeatures.minimumWindow(List.of(new int[]{0, 9}, new int[]{5, 10})));
+        assertEquals(2, RerankFeatures.minimumWindow(List.of(new int[]{3}, new int[]{1, 4}, new int[]{5})));
+    }
+
+    @Test
+    void extractsFeaturesFromSnapshot() {
+        InvertedIndex index = new InvertedIndex();
+        LectureDocument near = document("near", "张三");
+        index.addDocument(near, List.of("人工智能", "伦理"), "Title");
+        index.addDocument(near, List.of("人工智能", "伦理", "讲座"), "FullText");
+        LectureDocument far = document("far", "李四");
+        index.addDocument(far, List.of("讲座"), "Title");
+        index.addDocument(far, List.of("人工智能", "讲座", "讲座", "讲座", "伦理"), "FullText");
+        IndexSnapshot snapshot = IndexSnapshot.build(index, 1);
+
+        RerankFeatures extractor = new RerankFeatures(snapshot, "FullText", List.of("张三", "人工智能", "伦理"), 0, 1000);
+        float[] nearFeatures = extractor.extract(snapshot.ordinalOf("near"), 0.7);
+        float[] farFeatures = extractor.extract(snapshot.ordinalOf("far"), 0.6);
+
+        assertEquals(0.7f, nearFeatures[RerankFeature.FIRST_PASS.ordinal()], 1e-6);
+        assertEquals(2f / 3, nearFeatures[RerankFeature.TITLE_MATCH.ordinal()], 1e-6);
+        assertEquals(0f, farFeatures[RerankFeature.TITLE_MATCH.ordinal()]);
+        assertEquals(1f, nearFeatures[RerankFeature.SPEAKER_MATCH.ordinal()]);
+        assertEquals(0f, farFeatures[RerankFeature.SPEAKER_MATCH.ordinal()]);
+        assertEquals(1f, nearFeatures[RerankFeature.PROXIMITY.ordinal()], 1e-6);
+        assertEquals(0.25f, farFeatures[RerankFeature.PROXIMITY.ordinal()], 1e-6);
+        assertEquals(0.5f, nearFeatures[RerankFeature.RECENCY.ordinal()], 1e-6); // 没有时间按一个半衰期计算
+        assertEquals((float) Math.log1p(5), farFeatures[RerankFeature.BODY_LENGTH.ordinal()], 1e-6);
+    }
+
+    private static LectureDocument document(String id, String speaker) {
+        LectureDocument document = new LectureDocument();
+        document.setId(id);
+        document.setSpeaker(speaker);
+        return document;
+    }
+}
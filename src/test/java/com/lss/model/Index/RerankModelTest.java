@@ -0,0 +1,53 @@
+package com.lss.model.Index;
+
+import com.lss.constant.RerankFeature;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RerankModelTest {
+
+    private static Properties properties(String... pairs) {
+        Properties properties = new Properties();
+        for (int i = 0; i < pairs.length; i += 2) {
+            properties.setProperty(pairs[i], pairs[i + 1]);
+        }
+        return properties;
+    }
+
+    private static float[] features(float firstPass, float titleMatch) {
+        float[] features = new float[RerankFeature.values().length];
+        features[RerankFeature.FIRST_PASS.ordinal()] = firstPass;
+        features[RerankFeature.TITLE_MATCH.ordinal()] = titleMatch;
+        return features;
+    }
+
+    @Test
+    void linearModelWeighsNamedFeatures() {
+        RerankModel model = RerankModel.load(properties("type", "linear", "bias", "0.1",
+                "weight.first_pass", "1", "weight.title_match", "0.5"));
+
+        assertEquals(0.1 + 0.4 + 0.5, model.score(features(0.4f, 1f)), 1e-6);
+        assertEquals(0.4, RerankModel.firstPassOnly().score(features(0.4f, 1f)), 1e-6);
+    }
+
+    @Test
+    void treesModelSumsLeafOutputs() {
+        RerankModel model = RerankModel.load(properties("type", "trees",
+                "tree.0", "title_match<0.5?1:2; 0; 0.3",
+                "tree.1", "first_pass<0.2?1:2; -0.1; 0.1"));
+
+        assertEquals(0.4, model.score(features(0.5f, 1f)), 1e-6);
+        assertEquals(-0.1, model.score(features(0.1f, 0f)), 1e-6);
+    }
+
+    @Test
+    void rejectsUnknownFeaturesAndCyclicTrees() {
+        assertThrows(IllegalArgumentException.class, () -> RerankModel.load(properties("weight.clicks", "1")));
+        assertThrows(IllegalArgumentException.class, () -> RerankModel.load(properties("type", "trees", "tree.0", "first_pass<0.5?0:1; 1")));
+        assertThrows(IllegalArgumentException.class, () -> RerankModel.load(properties("type", "forest")));
+    }
+}
@@ -0,0 +1,57 @@
+package com.lss.model.Index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpellingDictionaryTest {
+
+    private final SpellingDictionary dictionary = SpellingDictionary.of(1, Map.of(
+            "人工智能", 12,
+            "机器学习", 8,
+            "python", 5,
+            "的", 100));
+
+    @Test
+    void findsHomophones() {
+        List<SpellingDictionary.Candidate> candidates = dictionary.lookup("人工只能");
+
+        assertEquals(1, candidates.size());
+        assertEquals("人工智能", candidates.get(0).term());
+        assertTrue(candidates.get(0).samePinyin());
+        assertEquals(1, candidates.get(0).distance());
+    }
+
+    @Test
+    void findsSingleEditsOfLatinTerms() {
+        List<SpellingDictionary.Candidate> candidates = dictionary.lookup("pyhton");
+        assertTrue(candidates.isEmpty()); // 交换两个字母是两次编辑
+
+        candidates = dictionary.lookup("pythn");
+        assertEquals("python", candidates.get(0).term());
+        assertEquals(1, candidates.get(0).distance());
+    }
+
+    @Test
+    void requiresEqualLengthForChinese() {
+        assertTrue(dictionary.lookup("机器学").isEmpty());
+        assertTrue(dictionary.lookup("机器学习").isEmpty()); // 不包含查询串本身
+    }
+
+    @Test
+    void skipsSingleCharacterTerms() {
+        assertFalse(dictionary.contains("的"));
+        assertEquals(12, dictionary.frequency("人工智能"));
+    }
+
+    @Test
+    void computesEditDistance() {
+        assertEquals(3, SpellingDictionary.levenshtein("kitten", "sitting"));
+        assertEquals(0, SpellingDictionary.levenshtein("", ""));
+    }
+}
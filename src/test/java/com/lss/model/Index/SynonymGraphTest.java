@@ -0,0 +1,49 @@
+package com.lss.model.Index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SynonymGraphTest {
+
+    // 测试用分词：按空白切分
+    private static List<String> analyze(String text) {
+        return text.isBlank() ? List.of() : Arrays.asList(text.trim().split("\\s+"));
+    }
+
+    @Test
+    void expandsEquivalentGroupsAndOneWayRules() {
+        SynonymGraph graph = SynonymGraph.compile(List.of(
+                "# 注释",
+                "人工智能, AI, 机器 智能:0.5",
+                "深大 => 深圳 大学"), SynonymGraphTest::analyze, 0.8f);
+
+        assertEquals(4, graph.size());
+        List<SynonymGraph.Match> matches = graph.match(List.of("ai", "伦理"));
+        assertEquals(1, matches.size());
+        assertEquals(List.of(new SynonymGraph.Expansion(List.of("人工智能"), 0.8f),
+                new SynonymGraph.Expansion(List.of("机器", "智能"), 0.5f)), matches.get(0).expansions());
+
+        // 单向规则不反向扩展；多词短语作为键时整段匹配
+        assertEquals(List.of(new SynonymGraph.Expansion(List.of("深圳", "大学"), 0.8f)),
+                graph.match(List.of("深大")).get(0).expansions());
+        assertTrue(graph.match(List.of("深圳", "大学")).isEmpty());
+        SynonymGraph.Match phrase = graph.match(List.of("讲座", "机器", "智能")).get(0);
+        assertEquals(1, phrase.start());
+        assertEquals(3, phrase.end());
+    }
+
+    @Test
+    void rejectsMalformedRulesWithLineNumber() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> SynonymGraph.compile(List.of("a, b", "c"), SynonymGraphTest::analyze, 0.8f));
+        assertTrue(e.getMessage().contains("line 2"));
+        assertThrows(IllegalArgumentException.class,
+                () -> SynonymGraph.compile(List.of("a, b:0"), SynonymGraphTest::analyze, 0.8f));
+    }
+}
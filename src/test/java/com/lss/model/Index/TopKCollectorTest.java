@@ -0,0 +1,104 @@
+package com.lss.model.Index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopKCollectorTest {
+
+    @Test
+    void keepsLargestKeysInDescendingOrder() {
+        TopKCollector collector = new TopKCollector(3);
+        double[] keys = {0.2, 0.9, 0.5, 0.1, 0.7, 0.5};
+        for (int doc = 0; doc < keys.length; doc++) {
+            collector.collect(doc, keys[doc], keys[doc] * 10);
+        }
+
+        assertTrue(collector.isFull());
+        assertFalse(collector.collect(9, 0.3, 0));
+        TopKCollector.Result top = collector.drain();
+        assertArrayEquals(new int[]{1, 4, 2}, top.docs()); // 0.5相同时序号小的优先
+        assertEquals(9.0, top.scores()[0], 1e-9);
+    }
+
+    @Test
+    void pagesWithSearchAfterMatchOneLargeCollection() {
+        double[] keys = {0.3, 0.8, 0.8, 0.1, 0.6, 0.9, 0.3};
+        TopKCollector all = new TopKCollector(keys.length);
+        for (int doc = 0; doc < keys.length; doc++) {
+            all.collect(doc, keys[doc], keys[doc]);
+        }
+        int[] expected = all.drain().docs();
+
+        int[] paged = new int[keys.length];
+        int filled = 0;
+        TopKCollector.Result page = null;
+        while (filled < keys.length) {
+            TopKCollector collector = new TopKCollector(2);
+            if (page != null) {
+                collector.searchAfter(page.keys()[page.keys().length - 1], page.docs()[page.docs().length - 1]);
+            }
+            for (int doc = 0; doc < keys.length; doc++) {
+                collector.collect(doc, keys[doc], keys[doc]);
+            }
+            page = collector.drain();
+            System.arraycopy(page.docs(), 0, paged, filled, page.docs().length);
+            filled += page.docs().length;
+        }
+        assertArrayEquals(expected, paged);
+    }
+
+    @Test
+    void mergingPartitionHeapsMatchesOneCollection() {
+        double[] keys = {0.4, 0.9, 0.2, 0.9, 0.7, 0.1, 0.6, 0.8, 0.3};
+        TopKCollector all = new TopKCollector(4);
+        for (int doc = 0; doc < keys.length; doc++) {
+            all.collect(doc, keys[doc], keys[doc]);
+        }
+
+        TopKCollector merged = new TopKCollector(4);
+        for (int from = 0; from < keys.length; from += 4) {
+            TopKCollector partition = new TopKCollector(4);
+            for (int doc = from; doc < Math.min(keys.length, from + 4); doc++) {
+                partition.collect(doc, keys[doc], keys[doc]);
+            }
+            TopKCollector.Result top = partition.drain();
+            for (int i = 0; i < top.docs().length; i++) {
+                merged.collect(top.docs()[i], top.keys()[i], top.scores()[i]);
+            }
+        }
+        assertArrayEquals(all.drain().docs(), merged.drain().docs());
+    }
+
+    @Test
+    void lowerBoundFindsFirstDocumentInRange() {
+        TermPostings postings = new TermPostings(new int[]{2, 5, 9}, new int[3], new float[3]);
+
+        assertEquals(0, postings.lowerBound(0));
+        assertEquals(1, postings.lowerBound(5));
+        assertEquals(2, postings.lowerBound(6));
+        assertEquals(3, postings.lowerBound(10));
+    }
+
+    @Test
+    void ordersSnapshotDocumentsByLectureTime() {
+        InvertedIndex index = new InvertedIndex();
+        for (String[] row : new String[][]{{"a", "300"}, {"b", null}, {"c", "100"}, {"d", "200"}}) {
+            LectureDocument document = new LectureDocument();
+            document.setId(row[0]);
+            document.setLectureTime(row[1] == null ? null : Long.parseLong(row[1]));
+            index.addDocument(document, List.of("讲座"), "FullText");
+        }
+
+        IndexSnapshot snapshot = IndexSnapshot.build(index, 1);
+
+        assertEquals(List.of("c", "d", "a", "b"), List.of(snapshot.docId(0), snapshot.docId(1), snapshot.docId(2), snapshot.docId(3)));
+        assertEquals(3, snapshot.getDocValues().getTimedDocuments());
+        assertEquals(DocValues.MISSING_TIME, snapshot.getDocValues().lectureTime(3));
+    }
+}
@@ -0,0 +1,26 @@
+package com.lss.model;
+
+import com.lss.constant.SearchMode;
+import com.lss.constant.SortMode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SearchCursorTest {
+
+    @Test
+    void roundTripsThroughOpaqueString() {
+        SearchCursor cursor = new SearchCursor(12, SearchMode.LEXICAL, SortMode.RECENCY, 0.123456789, 42, 20);
+
+        SearchCursor decoded = SearchCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("不是游标"));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("YWJj"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.lss.repository;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedChatMemoryStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static List<ChatMessage> messages(String text) {
+        return List.of(UserMessage.from(text));
+    }
+
+    @Test
+    void notifiesEvictionAndRestoresSpilledSessionOnce() {
+        BoundedChatMemoryStore store = new BoundedChatMemoryStore(1, Duration.ofHours(1),
+                tempDir.resolve("chat-memory.spill"), Duration.ofDays(1));
+        List<String> evicted = new ArrayList<>();
+        store.setEvictionListener(evicted::add);
+
+        store.updateMessages("a", messages("第一个会话"));
+        store.updateMessages("b", messages("第二个会话")); // 超出上限，淘汰a并落盘
+
+        assertEquals(List.of("a"), evicted);
+        assertEquals(1, store.getSpilledSessions());
+
+        assertEquals(messages("第一个会话"), store.getMessages("a")); // 恢复a，淘汰b
+        assertEquals(List.of("a", "b"), evicted);
+        assertEquals(1, store.getSpilledSessions()); // a的落盘记录已删除，只剩b
+    }
+
+    @Test
+    void dropsSpilledSessionsAfterTtl() {
+        BoundedChatMemoryStore store = new BoundedChatMemoryStore(1, Duration.ofHours(1),
+                tempDir.resolve("chat-memory.spill"), Duration.ZERO);
+
+        store.updateMessages("a", messages("第一个会话"));
+        store.updateMessages("b", messages("第二个会话"));
+
+        assertFalse(store.contains("a"));
+        assertTrue(store.getMessages("a").isEmpty());
+    }
+
+    @Test
+    void deleteMessagesResetsLiveAndSpilledSessions() {
+        BoundedChatMemoryStore store = new BoundedChatMemoryStore(1, Duration.ofHours(1),
+                tempDir.resolve("chat-memory.spill"), Duration.ofDays(1));
+
+        store.updateMessages("a", messages("第一个会话"));
+        store.updateMessages("b", messages("第二个会话")); // a落盘，b在内存中
+
+        store.deleteMessages("a");
+        store.deleteMessages("b");
+
+        assertFalse(store.contains("a"));
+        assertFalse(store.contains("b"));
+        assertTrue(store.getMessages("a").isEmpty());
+        assertTrue(store.getMessages("b").isEmpty());
+        assertEquals(0, store.getLiveSessions());
+        assertEquals(0, store.getSpilledSessions());
+    }
+}
@@ -0,0 +1,84 @@
+package com.lss.repository;
+
+import com.lss.model.Index.InvertedIndex;
+import com.lss.model.Index.LectureDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexBundleTest {
+
+    @TempDir
+    Path tempDir;
+
+    private InvertedIndex index(long documents) throws IOException {
+        InvertedIndex index = new InvertedIndex();
+        for (int i = 0; i < documents; i++) {
+            Path file = Files.writeString(tempDir.resolve(i + "_lecture.md"), "# 讲座" + i);
+            LectureDocument document = new LectureDocument();
+            document.setId(Integer.toString(i));
+            document.setOriginalFilePath(file.toString());
+            index.addDocument(document, List.of("学术", "讲座"), "Title");
+        }
+        return index;
+    }
+
+    @Test
+    void installsLatestVerifiedBundle() throws IOException {
+        Path bundles = tempDir.resolve("bundles");
+        Files.createDirectories(bundles);
+        IndexBundle.write(bundles, index(1));
+        IndexBundle.write(bundles, index(2));
+
+        IndexBundle latest = IndexBundle.latest(bundles);
+        latest.verify();
+        InvertedIndex installed = latest.install(tempDir.resolve("replica"));
+
+        assertEquals(2, latest.getGeneration());
+        assertEquals(2, installed.getTotalDocuments());
+        assertEquals(2, installed.getDocumentFrequency("学术"));
+        Path content = Path.of(installed.getDocument("1").getOriginalFilePath());
+        assertEquals(tempDir.resolve("replica").resolve("1_lecture.md"), content);
+        assertEquals("# 讲座1", Files.readString(content));
+
+        IndexBundle.prune(bundles, 1);
+        assertEquals(2, IndexBundle.latest(bundles).getGeneration());
+    }
+
+    @Test
+    void continuesGenerationsFromDirectoryAndSkipsUnchangedContent() throws IOException {
+        Path bundles = tempDir.resolve("bundles");
+        Files.createDirectories(bundles);
+        IndexBundle first = IndexBundle.write(bundles, index(1));
+        IndexBundle unchanged = IndexBundle.write(bundles, index(1)); // 例如构建节点重启后重新导出同一索引
+        IndexBundle changed = IndexBundle.write(bundles, index(2));
+
+        assertEquals(1, first.getGeneration());
+        assertTrue(first.isCreated());
+        assertEquals(1, unchanged.getGeneration());
+        assertFalse(unchanged.isCreated());
+        assertEquals(2, changed.getGeneration());
+
+        IndexBundle.prune(bundles, 1); // 旧的分发包被清理后，代数仍从现有的最大值继续
+        assertEquals(3, IndexBundle.write(bundles, index(3)).getGeneration());
+    }
+
+    @Test
+    void rejectsCorruptedBundle() throws IOException {
+        Path bundles = tempDir.resolve("bundles");
+        Files.createDirectories(bundles);
+        IndexBundle bundle = IndexBundle.write(bundles, index(1));
+        Files.writeString(bundle.getDirectory().resolve("content").resolve("0_lecture.md"), "# 被改动的讲座");
+
+        assertThrows(IOException.class, bundle::verify);
+    }
+}
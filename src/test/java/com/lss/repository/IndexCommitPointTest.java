@@ -0,0 +1,57 @@
+package com.lss.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexCommitPointTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void recordsOnlyTheImmediatePreviousGeneration() throws IOException {
+        IndexCommitPoint first = new IndexCommitPoint(1, "inverted_index.0000000001.ser", 10, 100);
+        IndexCommitPoint second = new IndexCommitPoint(2, "inverted_index.0000000002.ser", 20, 200, first);
+        IndexCommitPoint third = new IndexCommitPoint(3, "inverted_index.0000000003.ser", 30, 300, second);
+        Path path = tempDir.resolve("index.commit");
+        third.write(path);
+
+        IndexCommitPoint read = IndexCommitPoint.read(path);
+        assertEquals(3, read.getGeneration());
+        assertEquals("inverted_index.0000000003.ser", read.getIndexFile());
+        assertEquals(2, read.getPrevious().getGeneration());
+        assertEquals("inverted_index.0000000002.ser", read.getPrevious().getIndexFile());
+        assertEquals(20, read.getPrevious().getLength());
+        assertEquals(200, read.getPrevious().getChecksum());
+        assertNull(read.getPrevious().getPrevious());
+    }
+
+    @Test
+    void readsCommitPointsWithoutPreviousGeneration() throws IOException {
+        Path path = tempDir.resolve("index.commit");
+        new IndexCommitPoint(1, "inverted_index.0000000001.ser", 10, 100).write(path);
+
+        assertNull(IndexCommitPoint.read(path).getPrevious());
+    }
+
+    @Test
+    void matchesOnlyTheRecordedContent() throws IOException {
+        Path snapshot = tempDir.resolve("inverted_index.0000000001.ser");
+        Files.write(snapshot, new byte[]{1, 2, 3});
+        IndexCommitPoint commitPoint = new IndexCommitPoint(1, snapshot.getFileName().toString(), 3,
+                IndexCommitPoint.checksumOf(snapshot));
+        assertTrue(commitPoint.matches(snapshot));
+
+        Files.write(snapshot, new byte[]{1, 2, 4});
+        assertFalse(commitPoint.matches(snapshot));
+    }
+}
@@ -0,0 +1,70 @@
+package com.lss.repository;
+
+import com.lss.model.Index.IndexWalRecord;
+import com.lss.model.Index.InvertedIndex;
+import com.lss.model.Index.LectureDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IndexWriteAheadLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static IndexWalRecord record(String id) {
+        LectureDocument document = new LectureDocument();
+        document.setId(id);
+        document.setTitle("讲座" + id);
+        IndexWalRecord record = new IndexWalRecord(document);
+        record.addField("Title", List.of("学术", "讲座"));
+        return record;
+    }
+
+    @Test
+    void replaysAppendedRecordsInOrder() throws IOException {
+        IndexWriteAheadLog wal = new IndexWriteAheadLog(tempDir.resolve("index.wal"));
+        wal.append(List.of(record("1"), record("2")));
+        wal.append(List.of(record("3")));
+
+        List<String> replayed = new ArrayList<>();
+        InvertedIndex index = new InvertedIndex();
+        int count = new IndexWriteAheadLog(tempDir.resolve("index.wal")).replay(r -> {
+            replayed.add(r.getDocument().getId());
+            r.applyTo(index);
+        });
+
+        assertEquals(3, count);
+        assertEquals(List.of("1", "2", "3"), replayed);
+        assertEquals(3, index.getTotalDocuments());
+        assertEquals(3, index.getDocumentFrequency("讲座"));
+    }
+
+    @Test
+    void truncatesTornTailOnReplay() throws IOException {
+        Path walPath = tempDir.resolve("index.wal");
+        IndexWriteAheadLog wal = new IndexWriteAheadLog(walPath);
+        wal.append(List.of(record("1")));
+        long intactLength = Files.size(walPath);
+        wal.append(List.of(record("2")));
+
+        // 模拟第二条记录写到一半时崩溃
+        try (FileChannel channel = FileChannel.open(walPath, StandardOpenOption.WRITE)) {
+            channel.truncate(intactLength + 10);
+        }
+
+        List<String> replayed = new ArrayList<>();
+        assertEquals(1, new IndexWriteAheadLog(walPath).replay(r -> replayed.add(r.getDocument().getId())));
+        assertEquals(List.of("1"), replayed);
+        assertEquals(intactLength, Files.size(walPath));
+    }
+}
@@ -0,0 +1,99 @@
+package com.lss.repository;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SemanticResponseCacheTest {
+
+    // 以字符出现次数作为向量，足以区分“相近”和“无关”的查询
+    private static final EmbeddingModel CHARACTER_MODEL = new EmbeddingModel() {
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+            return Response.from(segments.stream().map(segment -> {
+                float[] vector = new float[64];
+                segment.text().chars().forEach(c -> vector[c % 64]++);
+                return Embedding.from(vector);
+            }).toList());
+        }
+
+        @Override
+        public int dimension() {
+            return 64;
+        }
+    };
+
+    @Test
+    void matchesNormalizedQueriesExactly() {
+        SemanticResponseCache cache = new SemanticResponseCache("test", 10, Duration.ofHours(1), 0.9, null, null);
+        cache.put("  人工智能  讲座 ", "没错误");
+
+        assertEquals("没错误", cache.get("人工智能 讲座"));
+        assertNull(cache.get("环境讲座"));
+        assertEquals(1, cache.getExactHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRatio());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntries() {
+        SemanticResponseCache cache = new SemanticResponseCache("test", 2, Duration.ofHours(1), 0.9, null, null);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertEquals(2, cache.size());
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    void matchesSimilarQueriesAboveThreshold() {
+        SemanticResponseCache cache = new SemanticResponseCache("test", 10, Duration.ofHours(1), 0.9, CHARACTER_MODEL, null);
+        cache.put("machine learning lecture", "answer");
+
+        assertEquals("answer", cache.get("machine learning lectures"));
+        assertNull(cache.get("xyz"));
+        assertEquals(1, cache.getSemanticHits());
+    }
+
+    @Test
+    void matchesOnlyWithinTheSameScope() {
+        SemanticResponseCache cache = new SemanticResponseCache("test", 10, Duration.ofHours(1), 0.9, CHARACTER_MODEL, null);
+        cache.put("machine learning lecture", "answer", 1L);
+
+        assertEquals("answer", cache.get("machine learning lecture", 1L));
+        assertNull(cache.get("machine learning lecture", 2L));
+        assertNull(cache.get("machine learning lectures", 2L));
+    }
+
+    @Test
+    void expiresEntriesAfterTtl() {
+        SemanticResponseCache cache = new SemanticResponseCache("test", 10, Duration.ZERO, 0.9, null, null);
+        cache.put("a", "1");
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void survivesRestart(@TempDir Path directory) {
+        Path path = directory.resolve("cache.ser");
+        SemanticResponseCache cache = new SemanticResponseCache("test", 10, Duration.ofHours(1), 0.9, null, path);
+        cache.put("a", "1");
+        cache.persist();
+
+        SemanticResponseCache reloaded = new SemanticResponseCache("test", 10, Duration.ofHours(1), 0.9, null, path);
+        assertEquals("1", reloaded.get("a"));
+    }
+}
@@ -0,0 +1,18 @@
+package com.lss.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CharBigramsTest {
+
+    @Test
+    void splitsRunsIntoAdjacentPairs() {
+        assertEquals(List.of("王小", "小明"), CharBigrams.of("王小明"));
+        assertEquals(List.of("人工", "工智", "智能", "ai", "李"), CharBigrams.of("人工智能，AI 李"));
+        assertEquals(List.of(), CharBigrams.of(" ·、"));
+        assertEquals(List.of(), CharBigrams.of(null));
+    }
+}
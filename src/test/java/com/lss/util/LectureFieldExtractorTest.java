@@ -0,0 +1,70 @@
+package com.lss.util;
+
+import com.lss.model.Index.DocValues;
+import com.lss.model.Index.LectureDocument;
+import com.lss.model.Index.OrdinalColumn;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LectureFieldExtractorTest {
+
+    private static long millis(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).atZone(LectureFieldExtractor.ZONE).toInstant().toEpochMilli();
+    }
+
+    @Test
+    void extractsFieldsWrittenOnOneLine() {
+        String content = "Environmental Forensics\n\n主讲人：容躍博士时间：11月8日下午15:00地点：丽湖校区守信楼420会议室\n\n报告人简介：\n容躍博士从事环保专业。";
+        LectureDocument document = new LectureDocument();
+
+        LectureFieldExtractor.extractInto(document, content, millis(2024, 11, 1, 0, 0));
+
+        assertEquals("容躍", document.getSpeaker());
+        assertEquals(millis(2024, 11, 8, 15, 0), document.getLectureTime());
+        assertEquals("丽湖校区守信楼420会议室", document.getLocation());
+        assertNull(document.getSchool());
+    }
+
+    @Test
+    void extractsSpokenTimesAndSchoolFromText() {
+        String content = "主讲嘉宾：康武博士，深圳大学心理学院的资深专家。\n\n时间：2024年11月6日下午三点\n\n地点：深圳大学粤海校区汇典楼二楼会议室";
+        LectureDocument document = new LectureDocument();
+
+        LectureFieldExtractor.extractInto(document, content, millis(2025, 3, 1, 0, 0));
+
+        assertEquals("康武", document.getSpeaker());
+        assertEquals(millis(2024, 11, 6, 15, 0), document.getLectureTime());
+        assertEquals("深圳大学心理学院", document.getSchool());
+    }
+
+    @Test
+    void infersPreviousYearForDatesFarAhead() {
+        // 文件在1月修改，写的是12月，应为上一年12月
+        assertEquals(millis(2023, 12, 20, 9, 30), LectureFieldExtractor.parseTime("12月20日上午9:30", millis(2024, 1, 5, 0, 0)));
+        assertNull(LectureFieldExtractor.parseTime("待定", 0));
+    }
+
+    @Test
+    void encodesColumnsByDictionaryOrdinal() {
+        LectureDocument a = new LectureDocument();
+        a.setSpeaker("张三");
+        a.setLectureTime(10L);
+        LectureDocument b = new LectureDocument();
+        LectureDocument c = new LectureDocument();
+        c.setSpeaker("李四");
+
+        DocValues docValues = DocValues.build(new LectureDocument[]{a, b, c});
+
+        OrdinalColumn speakers = docValues.getSpeakers();
+        assertEquals(2, speakers.cardinality());
+        assertEquals(OrdinalColumn.MISSING, speakers.ordinal(1));
+        assertEquals("张三", speakers.value(0));
+        assertEquals(speakers.ordinalOf("李四"), speakers.ordinal(2));
+        assertEquals(10L, docValues.lectureTime(0));
+        assertEquals(DocValues.MISSING_TIME, docValues.lectureTime(1));
+    }
+}
@@ -0,0 +1,45 @@
+package com.lss.util;
+
+import com.lss.model.Index.LectureDocument;
+import com.lss.model.RetrieveDocsItems;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RankFusionTest {
+
+    private static RetrieveDocsItems item(String id, double score) {
+        LectureDocument document = new LectureDocument();
+        document.setId(id);
+        return new RetrieveDocsItems(document, score);
+    }
+
+    private static List<String> ids(List<RetrieveDocsItems> items) {
+        return items.stream().map(item -> item.getDocument().getId()).toList();
+    }
+
+    @Test
+    void reciprocalRankFavoursDocumentsFoundByBothBranches() {
+        List<RetrieveDocsItems> lexical = List.of(item("a", 0.9), item("b", 0.5), item("c", 0.1));
+        List<RetrieveDocsItems> semantic = List.of(item("b", 0.8), item("d", 0.7), item("c", 0.6));
+
+        List<RetrieveDocsItems> fused = RankFusion.reciprocalRank(List.of(lexical, semantic), 60, 3);
+
+        assertEquals(List.of("b", "c", "a"), ids(fused));
+        assertEquals(1.0 / 62 + 1.0 / 61, fused.get(0).getScore(), 1e-12);
+    }
+
+    @Test
+    void weightedScoreNormalizesEachBranch() {
+        List<RetrieveDocsItems> lexical = List.of(item("a", 0.4), item("b", 0.2));
+        List<RetrieveDocsItems> semantic = List.of(item("b", 0.9), item("a", 0.1));
+
+        List<RetrieveDocsItems> fused = RankFusion.weightedScore(List.of(lexical, semantic), new double[]{0.7, 0.3}, 10);
+
+        assertEquals(List.of("a", "b"), ids(fused));
+        assertEquals(0.7, fused.get(0).getScore(), 1e-12);
+        assertEquals(0.3, fused.get(1).getScore(), 1e-12);
+    }
+}